@@ -21,6 +21,7 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.IntentFilter;
 import android.content.Intent;
+import android.content.res.Configuration;
 import android.database.ContentObserver;
 import android.net.Uri;
 import android.provider.Settings;
@@ -32,8 +33,11 @@ import androidx.annotation.Nullable;
 
 import com.android.settings.activityembedding.ActivityEmbeddingRulesController;
 import com.android.settings.activityembedding.ActivityEmbeddingUtils;
+import com.android.settings.applications.BadgedAppIconCache;
 import com.android.settings.biometrics.fingerprint2.BiometricsEnvironment;
+import com.android.settings.core.StartupTaskScheduler;
 import com.android.settings.core.instrumentation.ElapsedTimeUtils;
+import com.android.settings.dashboard.TileIconCache;
 import com.android.settings.development.DeveloperOptionsActivityLifecycle;
 import com.android.settings.fuelgauge.BatterySettingsStorage;
 import com.android.settings.homepage.SettingsHomepageActivity;
@@ -48,10 +52,19 @@ import com.android.settingslib.spa.framework.common.SpaEnvironmentFactory;
 import com.google.android.setupcompat.util.WizardManagerHelper;
 
 import java.lang.ref.WeakReference;
+import java.util.Map;
 
 /** Settings application which sets up activity embedding rules for the large screen device. */
 public class SettingsApplication extends Application {
 
+    private static final String TASK_BACKUP_STORAGES = "backup_storages";
+    private static final String TASK_SUW_FINISHED_TIME = "suw_finished_time";
+    private static final String TASK_ACTIVITY_EMBEDDING = "activity_embedding";
+    private static final String TASK_RECEIVERS = "receivers";
+    private static final String TASK_SPA_ENVIRONMENT = "spa_environment";
+    private static final String TASK_BIOMETRICS_ENVIRONMENT = "biometrics_environment";
+
+    private final StartupTaskScheduler mStartupTasks = new StartupTaskScheduler();
     private WeakReference<SettingsHomepageActivity> mHomeActivity = new WeakReference<>(null);
     private BiometricsEnvironment mBiometricsEnvironment;
 
@@ -74,20 +87,37 @@ public class SettingsApplication extends Application {
     public void onCreate() {
         super.onCreate();
 
-        BackupRestoreStorageManager.getInstance(this)
-                .add(
-                        new BatterySettingsStorage(this),
-                        LocaleNotificationDataManager.getSharedPreferencesStorage(this));
-
-        // Add null checking to avoid test case failed.
-        if (getApplicationContext() != null) {
-            ElapsedTimeUtils.assignSuwFinishedTimeStamp(getApplicationContext());
-        }
-
-        // Set Spa environment.
-        setSpaEnvironment();
-        mBiometricsEnvironment = new BiometricsEnvironment(this);
+        // Needed by the backup agent, metrics and receivers of every process.
+        mStartupTasks.add(TASK_BACKUP_STORAGES, StartupTaskScheduler.CRITICAL,
+                () -> BackupRestoreStorageManager.getInstance(this)
+                        .add(
+                                new BatterySettingsStorage(this),
+                                LocaleNotificationDataManager.getSharedPreferencesStorage(this)));
+        mStartupTasks.add(TASK_SUW_FINISHED_TIME, StartupTaskScheduler.CRITICAL, () -> {
+            // Add null checking to avoid test case failed.
+            if (getApplicationContext() != null) {
+                ElapsedTimeUtils.assignSuwFinishedTimeStamp(getApplicationContext());
+            }
+        });
+        // The rules must be registered before the window extension sees the first activity,
+        // which happens before any activity lifecycle callback of the app.
+        mStartupTasks.add(TASK_ACTIVITY_EMBEDDING, StartupTaskScheduler.CRITICAL,
+                this::initActivityEmbeddingRules);
+        mStartupTasks.add(TASK_RECEIVERS, StartupTaskScheduler.CRITICAL, () -> {
+            registerReceiver(mBroadcastReceiver,
+                    new IntentFilter(TelephonyManager.ACTION_MULTI_SIM_CONFIG_CHANGED));
+            registerActivityLifecycleCallbacks(new DeveloperOptionsActivityLifecycle());
+        });
+
+        // Only used by the UI.
+        mStartupTasks.add(TASK_SPA_ENVIRONMENT, StartupTaskScheduler.FIRST_ACTIVITY,
+                this::setSpaEnvironment);
+        mStartupTasks.add(TASK_BIOMETRICS_ENVIRONMENT, StartupTaskScheduler.ON_DEMAND,
+                () -> mBiometricsEnvironment = new BiometricsEnvironment(this));
+        mStartupTasks.start(this);
+    }
 
+    private void initActivityEmbeddingRules() {
         if (ActivityEmbeddingUtils.isSettingsSplitEnabled(this)
                 && FeatureFlagUtils.isEnabled(this,
                         FeatureFlagUtils.SETTINGS_SUPPORT_LARGE_SCREEN)) {
@@ -97,11 +127,6 @@ public class SettingsApplication extends Application {
                 new DeviceProvisionedObserver().registerContentObserver();
             }
         }
-
-        registerReceiver(mBroadcastReceiver,
-                new IntentFilter(TelephonyManager.ACTION_MULTI_SIM_CONFIG_CHANGED));
-
-        registerActivityLifecycleCallbacks(new DeveloperOptionsActivityLifecycle());
     }
 
     @Override
@@ -131,15 +156,34 @@ public class SettingsApplication extends Application {
         return mHomeActivity.get();
     }
 
+    /** Returns the biometrics environment, creating it on the first call. */
     @Nullable
     public BiometricsEnvironment getBiometricEnvironment() {
+        mStartupTasks.run(TASK_BIOMETRICS_ENVIRONMENT);
         return mBiometricsEnvironment;
     }
 
+    /**
+     * Returns the duration in milliseconds of each startup task which has run in this process,
+     * in the order they ran.
+     */
+    @NonNull
+    public Map<String, Long> getStartupTrace() {
+        return mStartupTasks.getStartupTrace();
+    }
+
     @Override
     public void onTrimMemory(int level) {
         super.onTrimMemory(level);
         AppIconCacheManager.getInstance().trimMemory(level);
+        BadgedAppIconCache.getInstance(this).trimMemory(level);
+        TileIconCache.getInstance(this).trimMemory(level);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        BadgedAppIconCache.getInstance(this).onConfigurationChanged(newConfig);
     }
 
     private class DeviceProvisionedObserver extends ContentObserver {
@@ -36,7 +36,10 @@ import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
 
+import com.android.settings.applications.BadgedAppIconCache;
 import com.android.settings.applications.ProcStatsData;
+import com.android.settings.dashboard.DashboardPhaseTimings;
+import com.android.settings.dashboard.TileIconCache;
 import com.android.settings.datausage.lib.DataUsageLib;
 import com.android.settings.network.MobileNetworkRepository;
 import com.android.settingslib.net.DataUsageController;
@@ -67,6 +70,12 @@ public class SettingsDumpService extends Service {
     @VisibleForTesting
     static final String KEY_ANOMALY_DETECTION = "anomaly_detection";
     @VisibleForTesting
+    static final String KEY_APP_ICON_CACHE = "app_icon_cache";
+    @VisibleForTesting
+    static final String KEY_DASHBOARD_PHASE_TIMINGS = "dashboard_phase_timings";
+    @VisibleForTesting
+    static final String KEY_TILE_ICON_CACHE = "tile_icon_cache";
+    @VisibleForTesting
     static final Intent BROWSER_INTENT =
             new Intent("android.intent.action.VIEW", Uri.parse("http://"));
 
@@ -98,6 +107,10 @@ public class SettingsDumpService extends Service {
                 dump.put(KEY_DATAUSAGE, dumpDataUsage());
                 dump.put(KEY_MEMORY, dumpMemory());
                 dump.put(KEY_DEFAULT_BROWSER_APP, dumpDefaultBrowser());
+                dump.put(KEY_APP_ICON_CACHE, BadgedAppIconCache.getInstance(this).dump());
+                dump.put(KEY_DASHBOARD_PHASE_TIMINGS,
+                        DashboardPhaseTimings.getInstance().dump());
+                dump.put(KEY_TILE_ICON_CACHE, TileIconCache.getInstance(this).dump());
             } catch (Exception e) {
                 Log.w(TAG, "exception in dump: ", e);
             }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings;
+
+import android.net.http.SslCertificate;
+import android.security.KeyChain;
+import android.util.Base64;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.X509Certificate;
+
+/**
+ * Parsed CA certificates shown by {@link TrustedCredentialsFragment}, keyed by alias and by the
+ * SHA-256 fingerprint of the encoded certificate, so that reopening the screen does not decode
+ * every system CA again.
+ */
+class TrustedCertificateCache {
+    // Enough for the system CAs of a couple of profiles.
+    private static final int MAX_ENTRIES = 512;
+
+    private static final TrustedCertificateCache sInstance =
+            new TrustedCertificateCache(MAX_ENTRIES);
+
+    private final LruCache<String, Entry> mEntries;
+
+    @VisibleForTesting
+    TrustedCertificateCache(int maxEntries) {
+        mEntries = new LruCache<>(maxEntries);
+    }
+
+    static TrustedCertificateCache getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Returns the parsed certificate for the alias, decoding it only if this exact certificate
+     * has not been seen under that alias before. Returns null if it cannot be decoded.
+     */
+    @Nullable
+    Entry get(@NonNull String alias, @NonNull byte[] encodedCertificate) {
+        final String key = getKey(alias, encodedCertificate);
+        Entry entry = mEntries.get(key);
+        if (entry == null) {
+            final X509Certificate certificate = KeyChain.toCertificate(encodedCertificate);
+            if (certificate == null) {
+                return null;
+            }
+            entry = new Entry(certificate);
+            mEntries.put(key, entry);
+        }
+        return entry;
+    }
+
+    @VisibleForTesting
+    int size() {
+        return mEntries.size();
+    }
+
+    private static String getKey(String alias, byte[] encodedCertificate) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return alias + '/' + Base64.encodeToString(
+                    digest.digest(encodedCertificate), Base64.NO_WRAP);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** A decoded certificate and the subject lines displayed for it. */
+    static class Entry {
+        final X509Certificate mX509Cert;
+        final SslCertificate mSslCert;
+        final String mSubjectPrimary;
+        final String mSubjectSecondary;
+
+        private Entry(X509Certificate x509Cert) {
+            mX509Cert = x509Cert;
+            mSslCert = new SslCertificate(x509Cert);
+
+            String cn = mSslCert.getIssuedTo().getCName();
+            String o = mSslCert.getIssuedTo().getOName();
+            String ou = mSslCert.getIssuedTo().getUName();
+            // if we have a O, use O as primary subject, secondary prefer CN over OU
+            // if we don't have an O, use CN as primary, empty secondary
+            // if we don't have O or CN, use DName as primary, empty secondary
+            if (!o.isEmpty()) {
+                if (!cn.isEmpty()) {
+                    mSubjectPrimary = o;
+                    mSubjectSecondary = cn;
+                } else {
+                    mSubjectPrimary = o;
+                    mSubjectSecondary = ou;
+                }
+            } else {
+                if (!cn.isEmpty()) {
+                    mSubjectPrimary = cn;
+                    mSubjectSecondary = "";
+                } else {
+                    mSubjectPrimary = mSslCert.getIssuedTo().getDName();
+                    mSubjectSecondary = "";
+                }
+            }
+        }
+    }
+}
@@ -63,12 +63,14 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 
 import com.android.internal.annotations.GuardedBy;
 import com.android.internal.app.UnlaunchableAppActivity;
 import com.android.internal.widget.LockPatternUtils;
 import com.android.settings.TrustedCredentialsSettings.Tab;
 import com.android.settingslib.core.lifecycle.ObservableFragment;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
@@ -76,6 +78,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
 import java.util.function.IntConsumer;
 
 /**
@@ -281,6 +285,28 @@ public class TrustedCredentialsFragment extends ObservableFragment
         }
     }
 
+    /**
+     * Saves the connection of the profile, closing the one it replaces. If the loading was
+     * cancelled, the connections may already be closed, so the new connection is closed instead
+     * and false is returned.
+     */
+    @VisibleForTesting
+    static boolean saveKeyChainConnection(SparseArray<KeyChainConnection> connections,
+            int profileId, KeyChainConnection connection, BooleanSupplier isCancelled) {
+        synchronized (connections) {
+            if (isCancelled.getAsBoolean()) {
+                connection.close();
+                return false;
+            }
+            KeyChainConnection previous = connections.get(profileId);
+            if (previous != null) {
+                previous.close();
+            }
+            connections.put(profileId, connection);
+            return true;
+        }
+    }
+
     /**
      * Start work challenge activity.
      *
@@ -692,16 +718,27 @@ public class TrustedCredentialsFragment extends ObservableFragment
             mTab = tab;
         }
 
-        private class AliasLoader extends AsyncTask<Void, Integer, SparseArray<List<CertHolder>>> {
+        /**
+         * Loads the certificates of every profile. Profiles are loaded concurrently on the
+         * background executor and each one is shown as soon as it is done.
+         */
+        private class AliasLoader {
+            private final Context mContext;
+            private final List<UserHandle> mProfiles;
+            private final List<Future<?>> mFutures = new ArrayList<>();
+            private volatile boolean mCancelled;
             private ProgressBar mProgressBar;
             private View mContentView;
-            private Context mContext;
+            // Only accessed on the main thread.
+            private int mPendingProfiles;
+            private int mProgress;
+            private int mMax;
 
             AliasLoader() {
                 mContext = getActivity();
                 mAliasLoaders.add(this);
-                List<UserHandle> profiles = mUserManager.getUserProfiles();
-                for (UserHandle profile : profiles) {
+                mProfiles = mUserManager.getUserProfiles();
+                for (UserHandle profile : mProfiles) {
                     mCertHoldersByUserId.put(profile.getIdentifier(), new ArrayList<>());
                 }
             }
@@ -711,99 +748,114 @@ public class TrustedCredentialsFragment extends ObservableFragment
                         || !mUserManager.isUserUnlocked(userHandle.getIdentifier());
             }
 
-            @Override
-            protected void onPreExecute() {
+            void execute() {
                 mProgressBar = mFragmentView.findViewById(R.id.progress);
                 mContentView = mFragmentView.findViewById(R.id.content);
                 mProgressBar.setVisibility(View.VISIBLE);
                 mContentView.setVisibility(View.GONE);
+
+                // Drop the profiles that went away since the last load.
+                for (int i = mCertHoldersByUserId.size() - 1; i >= 0; i--) {
+                    if (!mProfiles.contains(UserHandle.of(mCertHoldersByUserId.keyAt(i)))) {
+                        mCertHoldersByUserId.removeAt(i);
+                    }
+                }
+                mPendingProfiles = mProfiles.size();
+                if (mPendingProfiles == 0) {
+                    onLoadFinished();
+                    return;
+                }
+                for (UserHandle profile : mProfiles) {
+                    mFutures.add(ThreadUtils.postOnBackgroundThread(() -> loadProfile(profile)));
+                }
             }
 
-            @Override
-            protected SparseArray<List<CertHolder>> doInBackground(Void... params) {
-                SparseArray<List<CertHolder>> certHoldersByProfile =
-                        new SparseArray<>();
+            void cancel(boolean mayInterruptIfRunning) {
+                mCancelled = true;
+                for (Future<?> future : mFutures) {
+                    future.cancel(mayInterruptIfRunning);
+                }
+                mFutures.clear();
+            }
+
+            private void loadProfile(UserHandle profile) {
+                int profileId = profile.getIdentifier();
+                List<CertHolder> certHolders = new ArrayList<>();
                 try {
-                    synchronized (mKeyChainConnectionByProfileId) {
-                        List<UserHandle> profiles = mUserManager.getUserProfiles();
-                        // First we get all aliases for all profiles in order to show progress
-                        // correctly. Otherwise this could all be in a single loop.
-                        SparseArray<List<String>> aliasesByProfileId =
-                                new SparseArray<>(profiles.size());
-                        int max = 0;
-                        int progress = 0;
-                        for (UserHandle profile : profiles) {
-                            int profileId = profile.getIdentifier();
-                            if (shouldSkipProfile(profile)) {
-                                continue;
-                            }
-                            KeyChainConnection keyChainConnection = KeyChain.bindAsUser(mContext,
-                                    profile);
-                            // Saving the connection for later use on the certificate dialog.
-                            mKeyChainConnectionByProfileId.put(profileId, keyChainConnection);
-                            IKeyChainService service = keyChainConnection.getService();
-                            List<String> aliases = mTab.getAliases(service);
-                            if (isCancelled()) {
-                                return new SparseArray<>();
-                            }
-                            max += aliases.size();
-                            aliasesByProfileId.put(profileId, aliases);
+                    if (!shouldSkipProfile(profile)) {
+                        KeyChainConnection keyChainConnection = KeyChain.bindAsUser(mContext,
+                                profile);
+                        // Saving the connection for later use on the certificate dialog.
+                        if (!saveKeyChainConnection(mKeyChainConnectionByProfileId, profileId,
+                                keyChainConnection, () -> mCancelled)) {
+                            return;
                         }
-                        for (UserHandle profile : profiles) {
-                            int profileId = profile.getIdentifier();
-                            List<String> aliases = aliasesByProfileId.get(profileId);
-                            if (isCancelled()) {
-                                return new SparseArray<>();
-                            }
-                            KeyChainConnection keyChainConnection =
-                                    mKeyChainConnectionByProfileId.get(
-                                            profileId);
-                            if (shouldSkipProfile(profile) || aliases == null
-                                    || keyChainConnection == null) {
-                                certHoldersByProfile.put(profileId, new ArrayList<>(0));
-                                continue;
+                        IKeyChainService service = keyChainConnection.getService();
+                        List<String> aliases = mTab.getAliases(service);
+                        ThreadUtils.postOnMainThread(() -> onAliasesLoaded(aliases.size()));
+                        TrustedCertificateCache cache = TrustedCertificateCache.getInstance();
+                        certHolders = new ArrayList<>(aliases.size());
+                        for (String alias : aliases) {
+                            if (mCancelled) {
+                                return;
                             }
-                            IKeyChainService service = keyChainConnection.getService();
-                            List<CertHolder> certHolders = new ArrayList<>(max);
-                            for (String alias : aliases) {
-                                byte[] encodedCertificate = service.getEncodedCaCertificate(alias,
-                                        true);
-                                X509Certificate cert = KeyChain.toCertificate(encodedCertificate);
+                            byte[] encodedCertificate = service.getEncodedCaCertificate(alias,
+                                    true);
+                            TrustedCertificateCache.Entry parsedCert =
+                                    encodedCertificate == null ? null
+                                            : cache.get(alias, encodedCertificate);
+                            if (parsedCert != null) {
                                 certHolders.add(new CertHolder(service, mAdapter,
-                                        mTab, alias, cert, profileId));
-                                publishProgress(++progress, max);
+                                        mTab, alias, parsedCert, profileId));
                             }
-                            Collections.sort(certHolders);
-                            certHoldersByProfile.put(profileId, certHolders);
+                            ThreadUtils.postOnMainThread(this::onCertificateLoaded);
                         }
-                        return certHoldersByProfile;
+                        Collections.sort(certHolders);
                     }
                 } catch (RemoteException e) {
                     Log.e(TAG, "Remote exception while loading aliases.", e);
-                    return new SparseArray<>();
+                    certHolders = new ArrayList<>(0);
                 } catch (InterruptedException e) {
                     Log.e(TAG, "InterruptedException while loading aliases.", e);
-                    return new SparseArray<>();
+                    certHolders = new ArrayList<>(0);
                 }
+                List<CertHolder> result = certHolders;
+                ThreadUtils.postOnMainThread(() -> onProfileLoaded(profileId, result));
             }
 
-            @Override
-            protected void onProgressUpdate(Integer... progressAndMax) {
-                int progress = progressAndMax[0];
-                int max = progressAndMax[1];
-                if (max != mProgressBar.getMax()) {
-                    mProgressBar.setMax(max);
+            @UiThread
+            private void onAliasesLoaded(int count) {
+                if (mCancelled) {
+                    return;
                 }
-                mProgressBar.setProgress(progress);
+                mMax += count;
+                mProgressBar.setMax(mMax);
             }
 
-            @Override
-            protected void onPostExecute(SparseArray<List<CertHolder>> certHolders) {
-                mCertHoldersByUserId.clear();
-                int n = certHolders.size();
-                for (int i = 0; i < n; ++i) {
-                    mCertHoldersByUserId.put(certHolders.keyAt(i), certHolders.valueAt(i));
+            @UiThread
+            private void onCertificateLoaded() {
+                if (mCancelled) {
+                    return;
+                }
+                mProgressBar.setProgress(++mProgress);
+            }
+
+            @UiThread
+            private void onProfileLoaded(int profileId, List<CertHolder> certHolders) {
+                if (mCancelled) {
+                    return;
+                }
+                mCertHoldersByUserId.put(profileId, certHolders);
+                mAdapter.notifyDataSetChanged();
+                mProgressBar.setVisibility(View.GONE);
+                mContentView.setVisibility(View.VISIBLE);
+                if (--mPendingProfiles == 0) {
+                    onLoadFinished();
                 }
+            }
+
+            @UiThread
+            private void onLoadFinished() {
                 mAdapter.notifyDataSetChanged();
                 mProgressBar.setVisibility(View.GONE);
                 mContentView.setVisibility(View.VISIBLE);
@@ -869,40 +921,17 @@ public class TrustedCredentialsFragment extends ObservableFragment
                 GroupAdapter adapter,
                 Tab tab,
                 String alias,
-                X509Certificate x509Cert,
+                TrustedCertificateCache.Entry parsedCert,
                 int profileId) {
             mProfileId = profileId;
             mService = service;
             mAdapter = adapter;
             mTab = tab;
             mAlias = alias;
-            mX509Cert = x509Cert;
-
-            mSslCert = new SslCertificate(x509Cert);
-
-            String cn = mSslCert.getIssuedTo().getCName();
-            String o = mSslCert.getIssuedTo().getOName();
-            String ou = mSslCert.getIssuedTo().getUName();
-            // if we have a O, use O as primary subject, secondary prefer CN over OU
-            // if we don't have an O, use CN as primary, empty secondary
-            // if we don't have O or CN, use DName as primary, empty secondary
-            if (!o.isEmpty()) {
-                if (!cn.isEmpty()) {
-                    mSubjectPrimary = o;
-                    mSubjectSecondary = cn;
-                } else {
-                    mSubjectPrimary = o;
-                    mSubjectSecondary = ou;
-                }
-            } else {
-                if (!cn.isEmpty()) {
-                    mSubjectPrimary = cn;
-                    mSubjectSecondary = "";
-                } else {
-                    mSubjectPrimary = mSslCert.getIssuedTo().getDName();
-                    mSubjectSecondary = "";
-                }
-            }
+            mX509Cert = parsedCert.mX509Cert;
+            mSslCert = parsedCert.mSslCert;
+            mSubjectPrimary = parsedCert.mSubjectPrimary;
+            mSubjectSecondary = parsedCert.mSubjectSecondary;
             try {
                 mDeleted = mTab.deleted(mService, mAlias);
             } catch (RemoteException e) {
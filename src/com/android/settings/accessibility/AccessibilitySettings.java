@@ -28,10 +28,12 @@ import android.os.UserHandle;
 import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.view.InputDevice;
 import android.view.accessibility.AccessibilityManager;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceCategory;
@@ -55,6 +57,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /** Activity with the accessibility settings. */
 @SearchIndexable(forTarget = SearchIndexable.ALL & ~SearchIndexable.ARC)
@@ -111,38 +114,41 @@ public class AccessibilitySettings extends DashboardFragment implements
         @Override
         public void run() {
             if (getActivity() != null) {
-                onContentChanged();
+                onPackagesChanged();
             }
         }
     };
 
-    private final PackageMonitor mSettingsPackageMonitor = new PackageMonitor() {
+    @VisibleForTesting
+    final PackageMonitor mSettingsPackageMonitor = new PackageMonitor() {
         @Override
         public void onPackageAdded(String packageName, int uid) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageModified(@NonNull String packageName) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageAppeared(String packageName, int reason) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageDisappeared(String packageName, int reason) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageRemoved(String packageName, int uid) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
-        private void sendUpdate() {
+        private void sendUpdate(String packageName) {
+            mChangedPackages.add(packageName);
+            mHandler.removeCallbacks(mUpdateRunnable);
             mHandler.postDelayed(mUpdateRunnable, DELAY_UPDATE_SERVICES_MILLIS);
         }
     };
@@ -158,6 +164,9 @@ public class AccessibilitySettings extends DashboardFragment implements
     private final Map<ComponentName, PreferenceCategory> mPreBundledServiceComponentToCategoryMap =
             new ArrayMap<>();
 
+    // Packages whose services and shortcuts changed since the service preferences were updated.
+    private final Set<String> mChangedPackages = new ArraySet<>();
+
     private boolean mNeedPreferencesUpdate = false;
     private boolean mIsForeground = true;
 
@@ -325,6 +334,26 @@ public class AccessibilitySettings extends DashboardFragment implements
         }
     }
 
+    /**
+     * Updates the service preferences of the changed packages only, keeping the rows of the
+     * other packages as they are.
+     */
+    @VisibleForTesting
+    void onPackagesChanged() {
+        if (!mIsForeground) {
+            mNeedPreferencesUpdate = true;
+            return;
+        }
+        if (mChangedPackages.isEmpty()) {
+            return;
+        }
+        final Set<String> packageNames = new ArraySet<>(mChangedPackages);
+        mChangedPackages.clear();
+        updateServicePreferences(packageNames);
+        updatePreferencesState();
+        updateSystemPreferences();
+    }
+
     private void initializeAllPreferences() {
         for (int i = 0; i < CATEGORIES.length; i++) {
             PreferenceCategory prefCategory = findPreference(CATEGORIES[i]);
@@ -372,13 +401,8 @@ public class AccessibilitySettings extends DashboardFragment implements
         // Since services category is auto generated we have to do a pass
         // to generate it since services can come and go and then based on
         // the global accessibility state to decided whether it is enabled.
-        final ArrayList<Preference> servicePreferences =
-                new ArrayList<>(mServicePreferenceToPreferenceCategoryMap.keySet());
-        for (int i = 0; i < servicePreferences.size(); i++) {
-            Preference service = servicePreferences.get(i);
-            PreferenceCategory category = mServicePreferenceToPreferenceCategoryMap.get(service);
-            category.removePreference(service);
-        }
+        mChangedPackages.clear();
+        removeServicePreferences(/* packageNames= */ null);
 
         initializePreBundledServicesMapFromArray(CATEGORY_SCREEN_READER,
                 R.array.config_preinstalled_screen_reader_services);
@@ -399,9 +423,36 @@ public class AccessibilitySettings extends DashboardFragment implements
                 AccessibilityUtils.ACCESSIBILITY_MENU_IN_SYSTEM,
                 mCategoryToPrefCategoryMap.get(CATEGORY_INTERACTION_CONTROL));
 
-        final List<RestrictedPreference> preferenceList = getInstalledAccessibilityList(
-                getPrefContext());
+        addServicePreferences(getInstalledAccessibilityList(getPrefContext(),
+                /* packageNames= */ null));
+        updateServiceCategories();
+    }
 
+    /**
+     * Rebuilds the service and shortcut preferences of the given packages, after they were
+     * installed, updated or removed.
+     */
+    private void updateServicePreferences(Set<String> packageNames) {
+        removeServicePreferences(packageNames);
+        addServicePreferences(getInstalledAccessibilityList(getPrefContext(), packageNames));
+        updateServiceCategories();
+    }
+
+    /** Removes the service preferences of the given packages, or all of them if null. */
+    private void removeServicePreferences(@Nullable Set<String> packageNames) {
+        final ArrayList<Preference> servicePreferences =
+                new ArrayList<>(mServicePreferenceToPreferenceCategoryMap.keySet());
+        for (int i = 0; i < servicePreferences.size(); i++) {
+            Preference service = servicePreferences.get(i);
+            if (packageNames != null && !packageNames.contains(getPackageName(service))) {
+                continue;
+            }
+            PreferenceCategory category = mServicePreferenceToPreferenceCategoryMap.remove(service);
+            category.removePreference(service);
+        }
+    }
+
+    private void addServicePreferences(List<RestrictedPreference> preferenceList) {
         final PreferenceCategory downloadedServicesCategory =
                 mCategoryToPrefCategoryMap.get(CATEGORY_DOWNLOADED_SERVICES);
 
@@ -417,6 +468,11 @@ public class AccessibilitySettings extends DashboardFragment implements
             prefCategory.addPreference(preference);
             mServicePreferenceToPreferenceCategoryMap.put(preference, prefCategory);
         }
+    }
+
+    private void updateServiceCategories() {
+        final PreferenceCategory downloadedServicesCategory =
+                mCategoryToPrefCategoryMap.get(CATEGORY_DOWNLOADED_SERVICES);
 
         // Update the order of all the category according to the order defined in xml file.
         updateCategoryOrderFromArray(CATEGORY_SCREEN_READER,
@@ -445,18 +501,39 @@ public class AccessibilitySettings extends DashboardFragment implements
         updatePreferenceCategoryVisibility(CATEGORY_KEYBOARD_OPTIONS);
     }
 
-    private List<RestrictedPreference> getInstalledAccessibilityList(Context context) {
+    @Nullable
+    private static String getPackageName(Preference preference) {
+        final ComponentName componentName = preference.getExtras().getParcelable(
+                EXTRA_COMPONENT_NAME);
+        return componentName != null ? componentName.getPackageName() : null;
+    }
+
+    /**
+     * Creates the preferences of the installed services and shortcuts of the given packages, or
+     * of all packages if null.
+     */
+    private List<RestrictedPreference> getInstalledAccessibilityList(Context context,
+            @Nullable Set<String> packageNames) {
         final AccessibilityManager a11yManager = AccessibilityManager.getInstance(context);
         final RestrictedPreferenceHelper preferenceHelper = new RestrictedPreferenceHelper(context);
 
-        final List<AccessibilityShortcutInfo> installedShortcutList =
+        List<AccessibilityShortcutInfo> installedShortcutList =
                 a11yManager.getInstalledAccessibilityShortcutListAsUser(context,
                         UserHandle.myUserId());
+        if (packageNames != null) {
+            installedShortcutList = new ArrayList<>(installedShortcutList);
+            installedShortcutList.removeIf(info -> !packageNames.contains(
+                    info.getComponentName().getPackageName()));
+        }
         final List<AccessibilityActivityPreference> activityList =
                 preferenceHelper.createAccessibilityActivityPreferenceList(installedShortcutList);
 
         final List<AccessibilityServiceInfo> installedServiceList = new ArrayList<>(
                 a11yManager.getInstalledAccessibilityServiceList());
+        if (packageNames != null) {
+            installedServiceList.removeIf(info -> !packageNames.contains(
+                    info.getComponentName().getPackageName()));
+        }
         final List<RestrictedPreference> serviceList =
                 preferenceHelper.createAccessibilityServicePreferenceList(installedServiceList);
 
@@ -51,10 +51,12 @@ import android.os.UserHandle;
 import android.os.UserManager;
 import android.text.BidiFormatter;
 import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.Log;
 import android.util.SparseArray;
 
 import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 import androidx.preference.Preference;
 import androidx.preference.Preference.OnPreferenceClickListener;
 import androidx.preference.PreferenceGroup;
@@ -76,11 +78,13 @@ import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnPause;
 import com.android.settingslib.core.lifecycle.events.OnResume;
 import com.android.settingslib.search.SearchIndexableRaw;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 
 public class AccountPreferenceController extends AbstractPreferenceController
         implements PreferenceControllerMixin, AuthenticatorHelper.OnAccountsUpdateListener,
@@ -146,6 +150,10 @@ public class AccountPreferenceController extends AbstractPreferenceController
          * The map from account key to account preference
          */
         public ArrayMap<String, AccountTypePreference> accountPreferences = new ArrayMap<>();
+        /**
+         * Incremented on each refresh of the accounts, so that an older load is not bound.
+         */
+        int accountsLoadGeneration;
     }
 
     public AccountPreferenceController(Context context, DashboardFragment parent,
@@ -538,30 +546,27 @@ public class AccountPreferenceController extends AbstractPreferenceController
             // This could happen if activity is finishing
             return;
         }
+        final int generation = ++profileData.accountsLoadGeneration;
         if (profileData.userInfo.isEnabled()) {
-            final ArrayMap<String, AccountTypePreference> preferenceToRemove =
-                    new ArrayMap<>(profileData.accountPreferences);
-            final ArrayList<AccountTypePreference> preferences = getAccountTypePreferences(
-                    profileData.authenticatorHelper, profileData.userInfo.getUserHandle(),
-                    preferenceToRemove);
-            final int count = preferences.size();
-            for (int i = 0; i < count; i++) {
-                final AccountTypePreference preference = preferences.get(i);
-                preference.setOrder(i);
-                final String key = preference.getKey();
-                if (!profileData.accountPreferences.containsKey(key)) {
-                    profileData.preferenceGroup.addPreference(preference);
-                    profileData.accountPreferences.put(key, preference);
-                }
-            }
-            if (profileData.addAccountPreference != null) {
-                profileData.preferenceGroup.addPreference(profileData.addAccountPreference);
-            }
-            for (String key : preferenceToRemove.keySet()) {
-                profileData.preferenceGroup.removePreference(
-                        profileData.accountPreferences.get(key));
-                profileData.accountPreferences.remove(key);
-            }
+            // Fetching the accounts and loading the labels and icons of their types involves
+            // binder calls and package contexts, so it is done off the main thread.
+            final AuthenticatorHelper helper = profileData.authenticatorHelper;
+            final UserHandle userHandle = profileData.userInfo.getUserHandle();
+            final ArraySet<String> shownKeys =
+                    new ArraySet<>(profileData.accountPreferences.keySet());
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final List<AccountEntry> entries =
+                        loadAccountEntries(helper, userHandle, shownKeys);
+                ThreadUtils.postOnMainThread(() -> {
+                    if (generation != profileData.accountsLoadGeneration
+                            || mProfiles.get(profileData.userInfo.id) != profileData
+                            || mFragment.getPreferenceManager() == null
+                            || profileData.preferenceGroup.getPreferenceManager() == null) {
+                        return;
+                    }
+                    bindAccountEntries(profileData, userHandle, entries);
+                });
+            });
         } else {
             profileData.preferenceGroup.removeAll();
             // Put a label instead of the accounts list
@@ -587,11 +592,44 @@ public class AccountPreferenceController extends AbstractPreferenceController
         }
     }
 
-    private ArrayList<AccountTypePreference> getAccountTypePreferences(AuthenticatorHelper helper,
-            UserHandle userHandle, ArrayMap<String, AccountTypePreference> preferenceToRemove) {
+    private void bindAccountEntries(ProfileData profileData, UserHandle userHandle,
+            List<AccountEntry> entries) {
+        final ArrayMap<String, AccountTypePreference> preferenceToRemove =
+                new ArrayMap<>(profileData.accountPreferences);
+        final ArrayList<AccountTypePreference> preferences = getAccountTypePreferences(
+                entries, userHandle, preferenceToRemove);
+        final int count = preferences.size();
+        for (int i = 0; i < count; i++) {
+            final AccountTypePreference preference = preferences.get(i);
+            preference.setOrder(i);
+            final String key = preference.getKey();
+            if (!profileData.accountPreferences.containsKey(key)) {
+                profileData.preferenceGroup.addPreference(preference);
+                profileData.accountPreferences.put(key, preference);
+            }
+        }
+        if (profileData.addAccountPreference != null) {
+            profileData.preferenceGroup.addPreference(profileData.addAccountPreference);
+        }
+        for (String key : preferenceToRemove.keySet()) {
+            profileData.preferenceGroup.removePreference(
+                    profileData.accountPreferences.get(key));
+            profileData.accountPreferences.remove(key);
+        }
+    }
+
+    /**
+     * Loads the accounts of the enabled account types with their labels, and the icons of the
+     * types which have an account not shown yet.
+     */
+    @WorkerThread
+    private List<AccountEntry> loadAccountEntries(AuthenticatorHelper helper,
+            UserHandle userHandle, Set<String> shownKeys) {
         final String[] accountTypes = helper.getEnabledAccountTypes();
-        final ArrayList<AccountTypePreference> accountTypePreferences =
-                new ArrayList<>(accountTypes.length);
+        final List<AccountEntry> entries = new ArrayList<>();
+        final ArrayMap<String, List<Account>> accountsByType = getAccountsByType(userHandle);
+        final AccountTypeResourceCache resourceCache =
+                AccountTypeResourceCache.getInstance(mContext);
 
         for (int i = 0; i < accountTypes.length; i++) {
             final String accountType = accountTypes[i];
@@ -599,49 +637,74 @@ public class AccountPreferenceController extends AbstractPreferenceController
             if (!accountTypeHasAnyRequestedAuthorities(helper, accountType)) {
                 continue;
             }
-            final CharSequence label = helper.getLabelForType(mContext, accountType);
+            final List<Account> accounts = accountsByType.get(accountType);
+            if (accounts == null) {
+                continue;
+            }
+            final CharSequence label =
+                    resourceCache.getLabel(mContext, helper, accountType, userHandle);
             if (label == null) {
                 continue;
             }
             final String titleResPackageName = helper.getPackageForType(accountType);
             final int titleResId = helper.getLabelIdForType(accountType);
 
-            final Account[] accounts = AccountManager.get(mContext)
-                    .getAccountsByTypeAsUser(accountType, userHandle);
-            final Drawable icon = helper.getDrawableForType(mContext, accountType);
-            final Context prefContext = mFragment.getPreferenceManager().getContext();
-
-            // Add a preference row for each individual account
-            for (Account account : accounts) {
-                final AccountTypePreference preference =
-                        preferenceToRemove.remove(AccountTypePreference.buildKey(account));
-                if (preference != null) {
-                    accountTypePreferences.add(preference);
-                    continue;
-                }
+            final int accountCount = accounts.size();
+            final boolean[] showAccounts = new boolean[accountCount];
+            boolean needsIcon = false;
+            for (int j = 0; j < accountCount; j++) {
+                final Account account = accounts.get(j);
                 final ArrayList<String> auths =
                         helper.getAuthoritiesForAccountType(account.type);
-                if (!AccountRestrictionHelper.showAccount(mAuthorities, auths)) {
-                    continue;
-                }
-                final Bundle fragmentArguments = new Bundle();
-                fragmentArguments.putParcelable(AccountDetailDashboardFragment.KEY_ACCOUNT,
-                        account);
-                fragmentArguments.putParcelable(AccountDetailDashboardFragment.KEY_USER_HANDLE,
-                        userHandle);
-                fragmentArguments.putString(AccountDetailDashboardFragment.KEY_ACCOUNT_TYPE,
-                        accountType);
-                fragmentArguments.putString(AccountDetailDashboardFragment.KEY_ACCOUNT_LABEL,
-                        label.toString());
-                fragmentArguments.putInt(AccountDetailDashboardFragment.KEY_ACCOUNT_TITLE_RES,
-                        titleResId);
-                fragmentArguments.putParcelable(EXTRA_USER, userHandle);
-                accountTypePreferences.add(new AccountTypePreference(
-                        prefContext, mMetricsFeatureProvider.getMetricsCategory(mFragment),
-                        account, titleResPackageName, titleResId, label,
-                        AccountDetailDashboardFragment.class.getName(), fragmentArguments, icon));
+                showAccounts[j] = AccountRestrictionHelper.showAccount(mAuthorities, auths);
+                needsIcon |= showAccounts[j]
+                        && !shownKeys.contains(AccountTypePreference.buildKey(account));
+            }
+            final Drawable icon = needsIcon
+                    ? resourceCache.getIcon(mContext, helper, accountType, userHandle) : null;
+            for (int j = 0; j < accountCount; j++) {
+                entries.add(new AccountEntry(accounts.get(j), label, titleResPackageName,
+                        titleResId, icon, showAccounts[j]));
+            }
+        }
+        return entries;
+    }
+
+    private ArrayList<AccountTypePreference> getAccountTypePreferences(List<AccountEntry> entries,
+            UserHandle userHandle, ArrayMap<String, AccountTypePreference> preferenceToRemove) {
+        final ArrayList<AccountTypePreference> accountTypePreferences =
+                new ArrayList<>(entries.size());
+        final Context prefContext = mFragment.getPreferenceManager().getContext();
+
+        // Add a preference row for each individual account
+        for (AccountEntry entry : entries) {
+            final Account account = entry.account;
+            final AccountTypePreference preference =
+                    preferenceToRemove.remove(AccountTypePreference.buildKey(account));
+            if (preference != null) {
+                accountTypePreferences.add(preference);
+                continue;
+            }
+            if (!entry.showAccount) {
+                continue;
             }
-            helper.preloadDrawableForType(mContext, accountType);
+            final Bundle fragmentArguments = new Bundle();
+            fragmentArguments.putParcelable(AccountDetailDashboardFragment.KEY_ACCOUNT,
+                    account);
+            fragmentArguments.putParcelable(AccountDetailDashboardFragment.KEY_USER_HANDLE,
+                    userHandle);
+            fragmentArguments.putString(AccountDetailDashboardFragment.KEY_ACCOUNT_TYPE,
+                    account.type);
+            fragmentArguments.putString(AccountDetailDashboardFragment.KEY_ACCOUNT_LABEL,
+                    entry.label.toString());
+            fragmentArguments.putInt(AccountDetailDashboardFragment.KEY_ACCOUNT_TITLE_RES,
+                    entry.titleResId);
+            fragmentArguments.putParcelable(EXTRA_USER, userHandle);
+            accountTypePreferences.add(new AccountTypePreference(
+                    prefContext, mMetricsFeatureProvider.getMetricsCategory(mFragment),
+                    account, entry.titleResPackageName, entry.titleResId, entry.label,
+                    AccountDetailDashboardFragment.class.getName(), fragmentArguments,
+                    entry.icon));
         }
         // Sort by label
         Collections.sort(accountTypePreferences, new Comparator<AccountTypePreference>() {
@@ -655,6 +718,25 @@ public class AccountPreferenceController extends AbstractPreferenceController
         return accountTypePreferences;
     }
 
+    /**
+     * Returns the accounts of the user grouped by type, with a single call instead of one per
+     * enabled account type.
+     */
+    private ArrayMap<String, List<Account>> getAccountsByType(UserHandle userHandle) {
+        final Account[] accounts = AccountManager.get(mContext)
+                .getAccountsAsUser(userHandle.getIdentifier());
+        final ArrayMap<String, List<Account>> accountsByType = new ArrayMap<>();
+        for (Account account : accounts) {
+            List<Account> accountsOfType = accountsByType.get(account.type);
+            if (accountsOfType == null) {
+                accountsOfType = new ArrayList<>();
+                accountsByType.put(account.type, accountsOfType);
+            }
+            accountsOfType.add(account);
+        }
+        return accountsByType;
+    }
+
     private boolean accountTypeHasAnyRequestedAuthorities(AuthenticatorHelper helper,
             String accountType) {
         if (mAuthoritiesCount == 0) {
@@ -725,4 +807,24 @@ public class AccountPreferenceController extends AbstractPreferenceController
             }
         }
     }
+
+    /** An account and the resources of its type, loaded off the main thread. */
+    private static class AccountEntry {
+        final Account account;
+        final CharSequence label;
+        final String titleResPackageName;
+        final int titleResId;
+        final Drawable icon;
+        final boolean showAccount;
+
+        AccountEntry(Account account, CharSequence label, String titleResPackageName,
+                int titleResId, Drawable icon, boolean showAccount) {
+            this.account = account;
+            this.label = label;
+            this.titleResPackageName = titleResPackageName;
+            this.titleResId = titleResId;
+            this.icon = icon;
+            this.showAccount = showAccount;
+        }
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.accounts;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.res.Configuration;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.UserHandle;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.accounts.AuthenticatorHelper;
+
+/**
+ * Labels and badged icons of account types, shared by every {@link AuthenticatorHelper} of the
+ * process. {@link AuthenticatorHelper} keeps its own icons only until the accounts change, and
+ * loading them means creating a package context for the authenticator.
+ *
+ * Entries are keyed by authenticator package, account type, user, locale and density, so a
+ * configuration change loads them again. The entries of a package are dropped when it is added,
+ * changed, removed or replaced.
+ */
+class AccountTypeResourceCache {
+    private static final String TAG = "AccountTypeResCache";
+    private static final int MAX_ENTRIES = 64;
+
+    private static final Object sInstanceLock = new Object();
+    @GuardedBy("sInstanceLock")
+    private static AccountTypeResourceCache sInstance;
+
+    private final LruCache<String, CharSequence> mLabels;
+    private final LruCache<String, Drawable.ConstantState> mIcons;
+
+    @VisibleForTesting
+    AccountTypeResourceCache(int maxEntries) {
+        mLabels = new LruCache<>(maxEntries);
+        mIcons = new LruCache<>(maxEntries);
+    }
+
+    /**
+     * Returns the process-wide cache, which starts listening to package changes on first use.
+     */
+    static AccountTypeResourceCache getInstance(@NonNull Context context) {
+        synchronized (sInstanceLock) {
+            if (sInstance != null) return sInstance;
+
+            final Context appContext = context.getApplicationContext() != null
+                    ? context.getApplicationContext() : context;
+            sInstance = new AccountTypeResourceCache(MAX_ENTRIES);
+            final IntentFilter filter = new IntentFilter();
+            filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+            filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+            filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+            filter.addDataScheme("package");
+            appContext.registerReceiverForAllUsers(new PackageChangeReceiver(), filter,
+                    null /* broadcastPermission */, null /* scheduler */);
+            return sInstance;
+        }
+    }
+
+    /** Returns the label of the account type, see {@link AuthenticatorHelper#getLabelForType}. */
+    @Nullable
+    CharSequence getLabel(@NonNull Context context, @NonNull AuthenticatorHelper helper,
+            @NonNull String accountType, @NonNull UserHandle userHandle) {
+        final String key = getKey(context, helper, accountType, userHandle);
+        CharSequence label = key != null ? mLabels.get(key) : null;
+        if (label == null) {
+            label = helper.getLabelForType(context, accountType);
+            if (key != null && label != null) {
+                mLabels.put(key, label);
+            }
+        }
+        return label;
+    }
+
+    /**
+     * Returns the badged icon of the account type, see
+     * {@link AuthenticatorHelper#getDrawableForType}. Every call returns a new drawable sharing
+     * the cached bitmap.
+     */
+    @NonNull
+    Drawable getIcon(@NonNull Context context, @NonNull AuthenticatorHelper helper,
+            @NonNull String accountType, @NonNull UserHandle userHandle) {
+        final String key = getKey(context, helper, accountType, userHandle);
+        final Drawable.ConstantState state = key != null ? mIcons.get(key) : null;
+        if (state != null) {
+            return state.newDrawable(context.getResources());
+        }
+        final Drawable icon = helper.getDrawableForType(context, accountType);
+        if (key != null && icon.getConstantState() != null) {
+            mIcons.put(key, icon.getConstantState());
+        }
+        return icon;
+    }
+
+    /** Drops the labels and icons of the account types of the package, for every user. */
+    void invalidatePackage(@NonNull String packageName) {
+        final String prefix = packageName + '/';
+        for (String key : mLabels.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                mLabels.remove(key);
+            }
+        }
+        for (String key : mIcons.snapshot().keySet()) {
+            if (key.startsWith(prefix)) {
+                mIcons.remove(key);
+            }
+        }
+    }
+
+    @Nullable
+    private static String getKey(Context context, AuthenticatorHelper helper, String accountType,
+            UserHandle userHandle) {
+        final String packageName = helper.getPackageForType(accountType);
+        if (packageName == null) {
+            return null;
+        }
+        // Package names cannot contain '/', so invalidatePackage() can match on the prefix.
+        final Configuration configuration = context.getResources().getConfiguration();
+        return packageName + '/' + accountType + '/' + userHandle.getIdentifier()
+                + '/' + configuration.getLocales().toLanguageTags()
+                + '/' + configuration.densityDpi;
+    }
+
+    private static class PackageChangeReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final Uri data = intent.getData();
+            final String packageName = data != null ? data.getSchemeSpecificPart() : null;
+            if (packageName == null) {
+                Log.w(TAG, "Package change without a package name: " + intent);
+                return;
+            }
+            final AccountTypeResourceCache cache;
+            synchronized (sInstanceLock) {
+                cache = sInstance;
+            }
+            if (cache != null) {
+                cache.invalidatePackage(packageName);
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@ import android.os.UserHandle;
 import android.os.UserManager;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.flags.Flags;
@@ -38,6 +39,11 @@ public abstract class AppCounter extends AsyncTask<Void, Void, Integer> {
     protected final PackageManager mPm;
     protected final UserManager mUm;
     protected final FeatureFlags mFf;
+    /** The snapshot the current count is answered from, if a snapshot provider is set. */
+    @Nullable
+    protected InstalledAppSnapshot mSnapshot;
+    @Nullable
+    private InstalledAppSnapshot.Provider mSnapshotProvider;
 
     @VisibleForTesting
     AppCounter(@NonNull Context context, @NonNull PackageManager packageManager,
@@ -51,14 +57,26 @@ public abstract class AppCounter extends AsyncTask<Void, Void, Integer> {
         this(context, packageManager, new FeatureFlagsImpl());
     }
 
+    /**
+     * Counts from the snapshots of the given provider instead of enumerating the installed
+     * applications of every profile again.
+     */
+    void setSnapshotProvider(@Nullable InstalledAppSnapshot.Provider provider) {
+        mSnapshotProvider = provider;
+    }
+
     @Override
     protected Integer doInBackground(Void... params) {
+        final long baseFlags = PackageManager.GET_DISABLED_COMPONENTS
+                | PackageManager.GET_DISABLED_UNTIL_USED_COMPONENTS
+                | (isArchivingEnabled() ? PackageManager.MATCH_ARCHIVED_PACKAGES : 0);
+        if (mSnapshotProvider != null) {
+            mSnapshot = mSnapshotProvider.getSnapshot(baseFlags);
+            return mSnapshot.countApps(this::includeInCount);
+        }
         int count = 0;
         for (UserInfo user : mUm.getProfiles(UserHandle.myUserId())) {
-            long flags = PackageManager.GET_DISABLED_COMPONENTS
-                    | PackageManager.GET_DISABLED_UNTIL_USED_COMPONENTS
-                    | (isArchivingEnabled() ? PackageManager.MATCH_ARCHIVED_PACKAGES : 0)
-                    | (user.isAdmin() ? PackageManager.MATCH_ANY_USER : 0);
+            long flags = baseFlags | (user.isAdmin() ? PackageManager.MATCH_ANY_USER : 0);
             ApplicationInfoFlags infoFlags = ApplicationInfoFlags.of(flags);
             final List<ApplicationInfo> list =
                     mPm.getInstalledApplicationsAsUser(infoFlags, user.id);
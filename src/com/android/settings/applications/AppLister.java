@@ -23,6 +23,8 @@ import android.os.AsyncTask;
 import android.os.UserHandle;
 import android.os.UserManager;
 
+import androidx.annotation.Nullable;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -35,19 +37,37 @@ import java.util.List;
 public abstract class AppLister extends AsyncTask<Void, Void, List<UserAppInfo>> {
     protected final PackageManager mPm;
     protected final UserManager mUm;
+    /** The snapshot the current list is built from, if a snapshot provider is set. */
+    @Nullable
+    protected InstalledAppSnapshot mSnapshot;
+    @Nullable
+    private InstalledAppSnapshot.Provider mSnapshotProvider;
 
     public AppLister(PackageManager packageManager, UserManager userManager) {
         mPm = packageManager;
         mUm = userManager;
     }
 
+    /**
+     * Builds the list from the snapshots of the given provider instead of enumerating the
+     * installed applications of every profile again.
+     */
+    void setSnapshotProvider(@Nullable InstalledAppSnapshot.Provider provider) {
+        mSnapshotProvider = provider;
+    }
+
     @Override
     protected List<UserAppInfo> doInBackground(Void... params) {
+        final int baseFlags = PackageManager.GET_DISABLED_COMPONENTS
+                | PackageManager.GET_DISABLED_UNTIL_USED_COMPONENTS;
+        if (mSnapshotProvider != null) {
+            mSnapshot = mSnapshotProvider.getSnapshot(baseFlags);
+            return mSnapshot.listApps(this::includeInCount);
+        }
         final List<UserAppInfo> result = new ArrayList<>();
         for (UserInfo user : mUm.getProfiles(UserHandle.myUserId())) {
             final List<ApplicationInfo> list =
-                    mPm.getInstalledApplicationsAsUser(PackageManager.GET_DISABLED_COMPONENTS
-                            | PackageManager.GET_DISABLED_UNTIL_USED_COMPONENTS
+                    mPm.getInstalledApplicationsAsUser(baseFlags
                             | (user.isAdmin() ? PackageManager.MATCH_ANY_USER : 0),
                             user.id);
             for (ApplicationInfo info : list) {
@@ -23,6 +23,8 @@ import android.os.Build;
 import android.os.RemoteException;
 import android.os.UserHandle;
 
+import androidx.annotation.Nullable;
+
 /**
  * Counts installed apps across all users that have been granted one or more specific permissions by
  * the admin.
@@ -45,18 +47,35 @@ public abstract class AppWithAdminGrantedPermissionsCounter extends AppCounter {
     @Override
     protected boolean includeInCount(ApplicationInfo info) {
         return includeInCount(mPermissions, mDevicePolicyManager, mPm, mPackageManagerService,
-                info);
+                info, mSnapshot);
     }
 
     public static boolean includeInCount(String[] permissions,
             DevicePolicyManager devicePolicyManager, PackageManager packageManager,
             IPackageManager packageManagerService, ApplicationInfo info) {
+        return includeInCount(permissions, devicePolicyManager, packageManager,
+                packageManagerService, info, null /* snapshot */);
+    }
+
+    /**
+     * Same as {@link #includeInCount(String[], DevicePolicyManager, PackageManager,
+     * IPackageManager, ApplicationInfo)}, but looks up permission grant states and install
+     * reasons through the snapshot when one is given.
+     */
+    public static boolean includeInCount(String[] permissions,
+            DevicePolicyManager devicePolicyManager, PackageManager packageManager,
+            IPackageManager packageManagerService, ApplicationInfo info,
+            @Nullable InstalledAppSnapshot snapshot) {
         if (info.targetSdkVersion >= Build.VERSION_CODES.M) {
             // The app uses run-time permissions. Check whether one or more of the permissions were
             // granted by enterprise policy.
             for (final String permission : permissions) {
-                if (devicePolicyManager.getPermissionGrantState(null /* admin */, info.packageName,
-                        permission) == DevicePolicyManager.PERMISSION_GRANT_STATE_GRANTED) {
+                final int grantState = snapshot != null
+                        ? snapshot.getPermissionGrantState(devicePolicyManager, info.packageName,
+                                permission)
+                        : devicePolicyManager.getPermissionGrantState(null /* admin */,
+                                info.packageName, permission);
+                if (grantState == DevicePolicyManager.PERMISSION_GRANT_STATE_GRANTED) {
                     return true;
                 }
             }
@@ -65,8 +84,8 @@ public abstract class AppWithAdminGrantedPermissionsCounter extends AppCounter {
 
         // The app uses install-time permissions. Check whether the app requested one or more of the
         // permissions and was installed by enterprise policy, implicitly granting permissions.
-        if (packageManager.getInstallReason(info.packageName,
-                new UserHandle(UserHandle.getUserId(info.uid)))
+        if (InstalledAppCounter.getInstallReason(packageManager, info.packageName,
+                UserHandle.getUserId(info.uid), snapshot)
                 != PackageManager.INSTALL_REASON_POLICY) {
             return false;
         }
@@ -43,6 +43,6 @@ public abstract class AppWithAdminGrantedPermissionsLister extends AppLister {
     @Override
     protected boolean includeInCount(ApplicationInfo info) {
         return AppWithAdminGrantedPermissionsCounter.includeInCount(mPermissions,
-                mDevicePolicyManager, mPm, mPackageManagerService, info);
+                mDevicePolicyManager, mPm, mPackageManagerService, info, mSnapshot);
     }
 }
@@ -65,6 +65,12 @@ public interface ApplicationFeatureProvider {
      */
     void listAppsWithAdminGrantedPermissions(String[] permissions, ListOfAppsCallback callback);
 
+    /**
+     * Drops the snapshot of installed apps shared by the count and list queries above, so the
+     * next query enumerates the installed apps again. Called when a page showing them is opened.
+     */
+    void clearInstalledAppSnapshot();
+
     /**
      * Return the persistent preferred activities configured by the admin for the given user.
      * A persistent preferred activity is an activity that the admin configured to always handle a
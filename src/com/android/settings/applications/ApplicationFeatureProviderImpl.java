@@ -60,6 +60,7 @@ public class ApplicationFeatureProviderImpl implements ApplicationFeatureProvide
     private final UserManager mUm;
     private final WebViewUpdateServiceWrapper mWebViewUpdateServiceWrapper;
     private final SystemConfigManager mSystemConfigManager;
+    private final InstalledAppSnapshot.Cache mInstalledAppSnapshot;
 
     /** Flags to use when querying PackageManager for Euicc component implementations. */
     private static final int EUICC_QUERY_FLAGS =
@@ -79,12 +80,14 @@ public class ApplicationFeatureProviderImpl implements ApplicationFeatureProvide
         mUm = UserManager.get(mContext);
         mWebViewUpdateServiceWrapper = wvusWrapper;
         mSystemConfigManager = context.getSystemService(SystemConfigManager.class);
+        mInstalledAppSnapshot = new InstalledAppSnapshot.Cache(mContext, mPm, mUm);
     }
 
     @Override
     public void calculateNumberOfPolicyInstalledApps(boolean async, NumberOfAppsCallback callback) {
         final CurrentUserAndManagedProfilePolicyInstalledAppCounter counter =
                 new CurrentUserAndManagedProfilePolicyInstalledAppCounter(mContext, mPm, callback);
+        counter.setSnapshotProvider(mInstalledAppSnapshot);
         if (async) {
             counter.execute();
         } else {
@@ -96,6 +99,7 @@ public class ApplicationFeatureProviderImpl implements ApplicationFeatureProvide
     public void listPolicyInstalledApps(ListOfAppsCallback callback) {
         final CurrentUserPolicyInstalledAppLister lister =
                 new CurrentUserPolicyInstalledAppLister(mPm, mUm, callback);
+        lister.setSnapshotProvider(mInstalledAppSnapshot);
         lister.execute();
     }
 
@@ -105,6 +109,7 @@ public class ApplicationFeatureProviderImpl implements ApplicationFeatureProvide
         final CurrentUserAndManagedProfileAppWithAdminGrantedPermissionsCounter counter =
                 new CurrentUserAndManagedProfileAppWithAdminGrantedPermissionsCounter(mContext,
                         permissions, mPm, mPms, mDpm, callback);
+        counter.setSnapshotProvider(mInstalledAppSnapshot);
         if (async) {
             counter.execute();
         } else {
@@ -118,9 +123,15 @@ public class ApplicationFeatureProviderImpl implements ApplicationFeatureProvide
         final CurrentUserAppWithAdminGrantedPermissionsLister lister =
                 new CurrentUserAppWithAdminGrantedPermissionsLister(permissions, mPm, mPms, mDpm,
                         mUm, callback);
+        lister.setSnapshotProvider(mInstalledAppSnapshot);
         lister.execute();
     }
 
+    @Override
+    public void clearInstalledAppSnapshot() {
+        mInstalledAppSnapshot.clear();
+    }
+
     @Override
     public List<UserAppInfo> findPersistentPreferredActivities(int userId, Intent[] intents) {
         final List<UserAppInfo> preferredActivities = new ArrayList<>();
@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageItemInfo;
+import android.content.pm.PackageManager;
+import android.content.res.Configuration;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.LocaleList;
+import android.os.UserHandle;
+import android.util.IconDrawableFactory;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Objects;
+
+/**
+ * A process-wide cache of badged app icons and labels shared by all Settings pages.
+ *
+ * Entries are keyed by (package, component, userId, locale, density). Icons are bounded by
+ * their estimated bitmap size, and the cache is cleared for a package when it is changed, and
+ * entirely on locale change and memory pressure.
+ */
+public class BadgedAppIconCache {
+    private static final String TAG = "BadgedAppIconCache";
+
+    private static final int MAX_ICON_CACHE_BYTES = 8 * 1024 * 1024;
+    private static final int MAX_LABEL_CACHE_ENTRIES = 500;
+
+    private static final Object sInstanceLock = new Object();
+    @GuardedBy("sInstanceLock")
+    private static BadgedAppIconCache sInstance;
+
+    private final LruCache<Key, Drawable> mIcons;
+    private final LruCache<Key, CharSequence> mLabels;
+    @GuardedBy("this")
+    @Nullable
+    private LocaleList mLocales;
+
+    /**
+     * Static method to get the singleton cache, which starts listening to package changes on
+     * first use.
+     */
+    @NonNull
+    public static BadgedAppIconCache getInstance(@NonNull Context context) {
+        synchronized (sInstanceLock) {
+            if (sInstance != null) return sInstance;
+
+            sInstance = new BadgedAppIconCache(
+                    (int) Math.min(Runtime.getRuntime().maxMemory() / 16, MAX_ICON_CACHE_BYTES));
+            final Context appContext = context.getApplicationContext() != null
+                    ? context.getApplicationContext() : context;
+            final IntentFilter filter = new IntentFilter();
+            filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+            filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+            filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+            filter.addDataScheme("package");
+            appContext.registerReceiverForAllUsers(new PackageChangeReceiver(), filter,
+                    null /* broadcastPermission */, null /* scheduler */);
+            return sInstance;
+        }
+    }
+
+    @VisibleForTesting
+    BadgedAppIconCache(int maxIconBytes) {
+        mIcons = new LruCache<>(maxIconBytes) {
+            @Override
+            protected int sizeOf(Key key, Drawable icon) {
+                return Math.max(1, icon.getIntrinsicWidth() * icon.getIntrinsicHeight() * 4);
+            }
+        };
+        mLabels = new LruCache<>(MAX_LABEL_CACHE_ENTRIES);
+    }
+
+    /** Returns the badged icon of the app, for the user the app is installed in. */
+    @Nullable
+    public Drawable getBadgedIcon(@NonNull Context context, @NonNull ApplicationInfo appInfo) {
+        return getBadgedIcon(context, appInfo, UserHandle.getUserId(appInfo.uid));
+    }
+
+    /** Returns the badged icon of the app for the given user. */
+    @Nullable
+    public Drawable getBadgedIcon(@NonNull Context context, @NonNull ApplicationInfo appInfo,
+            int userId) {
+        return getBadgedIcon(context, null /* itemInfo */, appInfo, userId);
+    }
+
+    /**
+     * Returns the badged icon of a component of the app for the given user, or of the app
+     * itself when {@code itemInfo} is null.
+     */
+    @Nullable
+    public Drawable getBadgedIcon(@NonNull Context context, @Nullable PackageItemInfo itemInfo,
+            @NonNull ApplicationInfo appInfo, int userId) {
+        final Key key = new Key(context, appInfo.packageName,
+                itemInfo != null ? itemInfo.name : null, userId);
+        Drawable icon = mIcons.get(key);
+        if (icon == null) {
+            final IconDrawableFactory factory = IconDrawableFactory.newInstance(context);
+            icon = itemInfo != null
+                    ? factory.getBadgedIcon(itemInfo, appInfo, userId)
+                    : factory.getBadgedIcon(appInfo, userId);
+            if (icon == null) {
+                return null;
+            }
+            mIcons.put(key, icon);
+        }
+        return newDrawable(icon);
+    }
+
+    /**
+     * Returns the badged icon of the package for the given user, or the default activity icon
+     * if the package cannot be found.
+     */
+    @Nullable
+    public Drawable getBadgedIcon(@NonNull Context context, @NonNull String packageName,
+            int userId) {
+        final Key key = new Key(context, packageName, null /* componentName */, userId);
+        final Drawable icon = mIcons.get(key);
+        if (icon != null) {
+            return newDrawable(icon);
+        }
+        final PackageManager packageManager = context.getPackageManager();
+        try {
+            final ApplicationInfo appInfo = packageManager.getApplicationInfoAsUser(
+                    packageName, PackageManager.GET_META_DATA, userId);
+            return getBadgedIcon(context, appInfo, userId);
+        } catch (PackageManager.NameNotFoundException e) {
+            return packageManager.getDefaultActivityIcon();
+        }
+    }
+
+    /** Returns the label of the app. */
+    @Nullable
+    public CharSequence getLabel(@NonNull Context context, @NonNull ApplicationInfo appInfo) {
+        return getLabel(context, appInfo, UserHandle.getUserId(appInfo.uid));
+    }
+
+    /** Returns the label of the app or of one of its components for the given user. */
+    @Nullable
+    public CharSequence getLabel(@NonNull Context context, @NonNull PackageItemInfo itemInfo,
+            int userId) {
+        final Key key = new Key(context, itemInfo.packageName,
+                itemInfo instanceof ApplicationInfo ? null : itemInfo.name, userId);
+        CharSequence label = mLabels.get(key);
+        if (label == null) {
+            label = itemInfo.loadLabel(context.getPackageManager());
+            if (label == null) {
+                return null;
+            }
+            mLabels.put(key, label);
+        }
+        return label;
+    }
+
+    /** Drops all the icons and labels of the package. */
+    public void invalidatePackage(@NonNull String packageName) {
+        for (Key key : mIcons.snapshot().keySet()) {
+            if (packageName.equals(key.mPackageName)) {
+                mIcons.remove(key);
+            }
+        }
+        for (Key key : mLabels.snapshot().keySet()) {
+            if (packageName.equals(key.mPackageName)) {
+                mLabels.remove(key);
+            }
+        }
+    }
+
+    /** Drops all the icons and labels. */
+    public void invalidateAll() {
+        mIcons.evictAll();
+        mLabels.evictAll();
+    }
+
+    /** Clears the cache on locale change, so labels of the previous locale are released. */
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        final LocaleList locales = newConfig.getLocales();
+        synchronized (this) {
+            if (locales.equals(mLocales)) {
+                return;
+            }
+            mLocales = locales;
+        }
+        invalidateAll();
+    }
+
+    /** Trims the cache according to the memory pressure. */
+    public void trimMemory(int level) {
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            invalidateAll();
+        } else if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            mIcons.trimToSize(mIcons.maxSize() / 2);
+        }
+    }
+
+    /** Returns the hit rate and memory footprint of the cache for the dump service. */
+    @NonNull
+    public JSONObject dump() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        obj.put("iconHits", mIcons.hitCount());
+        obj.put("iconMisses", mIcons.missCount());
+        obj.put("iconEvictions", mIcons.evictionCount());
+        obj.put("iconCount", mIcons.snapshot().size());
+        obj.put("iconBytes", mIcons.size());
+        obj.put("iconMaxBytes", mIcons.maxSize());
+        obj.put("labelHits", mLabels.hitCount());
+        obj.put("labelMisses", mLabels.missCount());
+        obj.put("labelCount", mLabels.size());
+        return obj;
+    }
+
+    @VisibleForTesting
+    int getIconHitCount() {
+        return mIcons.hitCount();
+    }
+
+    private static Drawable newDrawable(Drawable icon) {
+        // Share the decoded bitmap but not the bounds and state of the cached drawable.
+        final Drawable.ConstantState state = icon.getConstantState();
+        return state != null ? state.newDrawable() : icon;
+    }
+
+    private static final class Key {
+        final String mPackageName;
+        @Nullable
+        final String mComponentName;
+        final int mUserId;
+        final String mLocales;
+        final int mDensityDpi;
+
+        Key(Context context, String packageName, @Nullable String componentName, int userId) {
+            final Configuration configuration = context.getResources() != null
+                    ? context.getResources().getConfiguration() : null;
+            mPackageName = packageName;
+            mComponentName = componentName;
+            mUserId = userId;
+            mLocales = configuration != null ? configuration.getLocales().toLanguageTags() : "";
+            mDensityDpi = configuration != null ? configuration.densityDpi : 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key other = (Key) o;
+            return mUserId == other.mUserId
+                    && mDensityDpi == other.mDensityDpi
+                    && Objects.equals(mPackageName, other.mPackageName)
+                    && Objects.equals(mComponentName, other.mComponentName)
+                    && mLocales.equals(other.mLocales);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mPackageName, mComponentName, mUserId, mLocales, mDensityDpi);
+        }
+    }
+
+    private static class PackageChangeReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final Uri data = intent.getData();
+            final String packageName = data != null ? data.getSchemeSpecificPart() : null;
+            if (packageName == null) {
+                Log.w(TAG, "Package change without a package name: " + intent);
+                return;
+            }
+            synchronized (sInstanceLock) {
+                if (sInstance != null) {
+                    sInstance.invalidatePackage(packageName);
+                }
+            }
+        }
+    }
+}
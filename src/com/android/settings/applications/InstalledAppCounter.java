@@ -24,6 +24,7 @@ import android.content.pm.ResolveInfo;
 import android.os.UserHandle;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import java.util.List;
@@ -51,15 +52,23 @@ public abstract class InstalledAppCounter extends AppCounter {
 
     @Override
     protected boolean includeInCount(ApplicationInfo info) {
-        return includeInCount(mInstallReason, mPm, info);
+        return includeInCount(mInstallReason, mPm, info, mSnapshot);
     }
 
     public static boolean includeInCount(int installReason, PackageManager pm,
             ApplicationInfo info) {
+        return includeInCount(installReason, pm, info, null /* snapshot */);
+    }
+
+    /**
+     * Same as {@link #includeInCount(int, PackageManager, ApplicationInfo)}, but looks up the
+     * install reason through the snapshot when one is given.
+     */
+    public static boolean includeInCount(int installReason, PackageManager pm,
+            ApplicationInfo info, @Nullable InstalledAppSnapshot snapshot) {
         final int userId = UserHandle.getUserId(info.uid);
         if (installReason != IGNORE_INSTALL_REASON
-                && pm.getInstallReason(info.packageName,
-                        new UserHandle(userId)) != installReason) {
+                && getInstallReason(pm, info.packageName, userId, snapshot) != installReason) {
             return false;
         }
         if ((info.flags & ApplicationInfo.FLAG_UPDATED_SYSTEM_APP) != 0) {
@@ -79,4 +88,11 @@ public abstract class InstalledAppCounter extends AppCounter {
                 userId);
         return intents != null && intents.size() != 0;
     }
+
+    static int getInstallReason(PackageManager pm, String packageName, int userId,
+            @Nullable InstalledAppSnapshot snapshot) {
+        return snapshot != null
+                ? snapshot.getInstallReason(pm, packageName, userId)
+                : pm.getInstallReason(packageName, new UserHandle(userId));
+    }
 }
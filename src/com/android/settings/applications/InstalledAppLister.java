@@ -28,6 +28,7 @@ public abstract class InstalledAppLister extends AppLister {
 
     @Override
     protected boolean includeInCount(ApplicationInfo info) {
-        return InstalledAppCounter.includeInCount(PackageManager.INSTALL_REASON_POLICY, mPm, info);
+        return InstalledAppCounter.includeInCount(PackageManager.INSTALL_REASON_POLICY, mPm, info,
+                mSnapshot);
     }
 }
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import android.app.admin.DevicePolicyManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.PackageManager.ApplicationInfoFlags;
+import android.content.pm.UserInfo;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.util.ArrayMap;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * The applications installed in the current user and its profiles, enumerated once so that
+ * several {@link AppCounter}s and {@link AppLister}s can answer their queries from it.
+ *
+ * The application lists never change once loaded. Permission grant states and install reasons
+ * are looked up lazily and cached, so they are queried at most once per snapshot.
+ */
+public final class InstalledAppSnapshot {
+
+    private final List<UserInfo> mUsers;
+    private final List<List<ApplicationInfo>> mApps;
+    private final Map<String, Integer> mPermissionGrantStates = new ConcurrentHashMap<>();
+    private final Map<String, Integer> mInstallReasons = new ConcurrentHashMap<>();
+
+    private InstalledAppSnapshot(List<UserInfo> users, List<List<ApplicationInfo>> apps) {
+        mUsers = users;
+        mApps = apps;
+    }
+
+    /**
+     * Enumerates the applications of the current user and its profiles. Apps installed for any
+     * user are included for admin users, as {@link AppCounter} and {@link AppLister} do.
+     */
+    @NonNull
+    public static InstalledAppSnapshot load(@NonNull PackageManager packageManager,
+            @NonNull UserManager userManager, long flags) {
+        final List<UserInfo> users = userManager.getProfiles(UserHandle.myUserId());
+        final List<List<ApplicationInfo>> apps = new ArrayList<>(users.size());
+        for (UserInfo user : users) {
+            final long userFlags = flags | (user.isAdmin() ? PackageManager.MATCH_ANY_USER : 0);
+            // Only flags beyond the int range, like MATCH_ARCHIVED_PACKAGES, need the long query.
+            final List<ApplicationInfo> list = (userFlags & ~0xFFFFFFFFL) == 0
+                    ? packageManager.getInstalledApplicationsAsUser((int) userFlags, user.id)
+                    : packageManager.getInstalledApplicationsAsUser(
+                            ApplicationInfoFlags.of(userFlags), user.id);
+            apps.add(list != null ? Collections.unmodifiableList(list) : Collections.emptyList());
+        }
+        return new InstalledAppSnapshot(Collections.unmodifiableList(users),
+                Collections.unmodifiableList(apps));
+    }
+
+    /** Returns the number of applications matching the predicate, across all profiles. */
+    public int countApps(@NonNull Predicate<ApplicationInfo> predicate) {
+        int count = 0;
+        for (List<ApplicationInfo> list : mApps) {
+            for (ApplicationInfo info : list) {
+                if (predicate.test(info)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Returns the applications matching the predicate, with the profile they belong to. */
+    @NonNull
+    public List<UserAppInfo> listApps(@NonNull Predicate<ApplicationInfo> predicate) {
+        final List<UserAppInfo> result = new ArrayList<>();
+        for (int i = 0; i < mUsers.size(); i++) {
+            final UserInfo user = mUsers.get(i);
+            for (ApplicationInfo info : mApps.get(i)) {
+                if (predicate.test(info)) {
+                    result.add(new UserAppInfo(user, info));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@link DevicePolicyManager#getPermissionGrantState} of the permission for the
+     * package, querying it only the first time.
+     */
+    public int getPermissionGrantState(@NonNull DevicePolicyManager devicePolicyManager,
+            @NonNull String packageName, @NonNull String permission) {
+        return mPermissionGrantStates.computeIfAbsent(packageName + '/' + permission,
+                key -> devicePolicyManager.getPermissionGrantState(null /* admin */, packageName,
+                        permission));
+    }
+
+    /** Returns the install reason of the package for the user, querying it only the first time. */
+    public int getInstallReason(@NonNull PackageManager packageManager,
+            @NonNull String packageName, int userId) {
+        return mInstallReasons.computeIfAbsent(packageName + '/' + userId,
+                key -> packageManager.getInstallReason(packageName, UserHandle.of(userId)));
+    }
+
+    /** Supplies the snapshot to use for the given {@link PackageManager} flags. */
+    public interface Provider {
+        @NonNull
+        InstalledAppSnapshot getSnapshot(long flags);
+    }
+
+    /**
+     * Keeps one snapshot per set of flags until it is cleared, typically when the page showing
+     * the counts and lists is opened again.
+     * <p>
+     * The snapshots are also dropped when a package of any user is added, removed or changed,
+     * when a profile is added or removed, and when the device policy changes, so that callers
+     * which never clear the cache, like the search indexer, do not see stale counts.
+     */
+    public static class Cache implements Provider {
+        private final Context mContext;
+        private final PackageManager mPackageManager;
+        private final UserManager mUserManager;
+        @GuardedBy("this")
+        private final Map<Long, InstalledAppSnapshot> mSnapshots = new ArrayMap<>();
+        @GuardedBy("this")
+        private boolean mReceiverRegistered;
+
+        public Cache(@NonNull Context context, @NonNull PackageManager packageManager,
+                @NonNull UserManager userManager) {
+            mContext = context;
+            mPackageManager = packageManager;
+            mUserManager = userManager;
+        }
+
+        @Override
+        @NonNull
+        public synchronized InstalledAppSnapshot getSnapshot(long flags) {
+            registerReceiverIfNeeded();
+            InstalledAppSnapshot snapshot = mSnapshots.get(flags);
+            if (snapshot == null) {
+                snapshot = load(mPackageManager, mUserManager, flags);
+                mSnapshots.put(flags, snapshot);
+            }
+            return snapshot;
+        }
+
+        /** Drops the snapshots, so that the next query enumerates the applications again. */
+        public synchronized void clear() {
+            mSnapshots.clear();
+        }
+
+        @GuardedBy("this")
+        private void registerReceiverIfNeeded() {
+            if (mReceiverRegistered) {
+                return;
+            }
+            mReceiverRegistered = true;
+            final BroadcastReceiver receiver = new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    clear();
+                }
+            };
+            final IntentFilter packageFilter = new IntentFilter();
+            packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            packageFilter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+            packageFilter.addDataScheme("package");
+            mContext.registerReceiverForAllUsers(receiver, packageFilter,
+                    null /* broadcastPermission */, null /* scheduler */);
+
+            final IntentFilter userFilter = new IntentFilter();
+            userFilter.addAction(Intent.ACTION_USER_ADDED);
+            userFilter.addAction(Intent.ACTION_USER_REMOVED);
+            userFilter.addAction(Intent.ACTION_MANAGED_PROFILE_ADDED);
+            userFilter.addAction(Intent.ACTION_MANAGED_PROFILE_REMOVED);
+            userFilter.addAction(DevicePolicyManager.ACTION_DEVICE_POLICY_MANAGER_STATE_CHANGED);
+            mContext.registerReceiverForAllUsers(receiver, userFilter,
+                    null /* broadcastPermission */, null /* scheduler */);
+        }
+    }
+}
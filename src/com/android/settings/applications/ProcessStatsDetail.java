@@ -37,7 +37,6 @@ import android.os.Process;
 import android.os.UserHandle;
 import android.text.format.Formatter;
 import android.util.ArrayMap;
-import android.util.IconDrawableFactory;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -130,7 +129,8 @@ public class ProcessStatsDetail extends SettingsPreferenceFragment {
         final Preference pref = EntityHeaderController
                 .newInstance(activity, this, null /* appHeader */)
                 .setIcon(mApp.mUiTargetApp != null
-                        ? IconDrawableFactory.newInstance(activity).getBadgedIcon(mApp.mUiTargetApp)
+                        ? BadgedAppIconCache.getInstance(activity)
+                                .getBadgedIcon(activity, mApp.mUiTargetApp)
                         : new ColorDrawable(0))
                 .setLabel(mApp.mUiLabel)
                 .setPackageName(mApp.mPackage)
@@ -27,12 +27,12 @@ import android.graphics.drawable.Drawable;
 import android.os.UserHandle;
 import android.service.autofill.AutofillServiceInfo;
 import android.text.TextUtils;
-import android.util.IconDrawableFactory;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.android.settings.applications.BadgedAppIconCache;
 import com.android.settingslib.RestrictedLockUtils;
 import com.android.settingslib.RestrictedLockUtilsInternal;
 
@@ -129,13 +129,13 @@ public final class CombinedProviderInfo {
     /** Returns the app icon. */
     @Nullable
     public Drawable getAppIcon(@NonNull Context context, int userId) {
-        final IconDrawableFactory factory = IconDrawableFactory.newInstance(context);
+        final BadgedAppIconCache iconCache = BadgedAppIconCache.getInstance(context);
         final ServiceInfo brandingService = getBrandingService();
         final ApplicationInfo appInfo = getApplicationInfo();
 
         Drawable icon = null;
         if (brandingService != null && appInfo != null) {
-            icon = factory.getBadgedIcon(brandingService, appInfo, userId);
+            icon = iconCache.getBadgedIcon(context, brandingService, appInfo, userId);
         }
 
         // If the branding service gave us a icon then use that.
@@ -145,7 +145,7 @@ public final class CombinedProviderInfo {
 
         // Otherwise fallback to the app icon and then the package name.
         if (appInfo != null) {
-            return factory.getBadgedIcon(appInfo, userId);
+            return iconCache.getBadgedIcon(context, appInfo, userId);
         }
         return null;
     }
@@ -65,7 +65,6 @@ import android.provider.DeviceConfig;
 import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.ArraySet;
-import android.util.IconDrawableFactory;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.Menu;
@@ -1228,7 +1227,6 @@ public class ManageApplications extends InstrumentedFragment
         private final Context mContext;
         private final AppStateBaseBridge mExtraInfoBridge;
         private final LoadingViewController mLoadingViewController;
-        private final IconDrawableFactory mIconDrawableFactory;
 
         private AppFilterItem mAppFilter;
         private ArrayList<ApplicationsState.AppEntry> mEntries;
@@ -1264,7 +1262,6 @@ public class ManageApplications extends InstrumentedFragment
                     mManageApplications.mEmptyView
             );
             mContext = manageApplications.getActivity();
-            mIconDrawableFactory = IconDrawableFactory.newInstance(mContext);
             mAppFilter = appFilter;
             mBackend = PowerAllowlistBackend.getInstance(mContext);
             if (mManageApplications.mListType == LIST_TYPE_NOTIFICATION) {
@@ -1955,6 +1952,26 @@ public class ManageApplications extends InstrumentedFragment
             }
         }
 
+        /**
+         * Returns the entries whose label contains the query, ignoring case, or all the entries
+         * if the query is empty.
+         */
+        @VisibleForTesting
+        static ArrayList<ApplicationsState.AppEntry> filterEntriesByLabel(
+                ArrayList<ApplicationsState.AppEntry> entries, CharSequence query) {
+            if (TextUtils.isEmpty(query)) {
+                return entries;
+            }
+            final String lowerCaseQuery = query.toString().toLowerCase();
+            final ArrayList<ApplicationsState.AppEntry> matchedEntries = new ArrayList<>();
+            for (ApplicationsState.AppEntry entry : entries) {
+                if (entry.label.toLowerCase().contains(lowerCaseQuery)) {
+                    matchedEntries.add(entry);
+                }
+            }
+            return matchedEntries;
+        }
+
         /**
          * An array filter that constrains the content of the array adapter with a substring.
          * Item that does not contains the specified substring will be removed from the list.</p>
@@ -1963,17 +1980,8 @@ public class ManageApplications extends InstrumentedFragment
             @WorkerThread
             @Override
             protected FilterResults performFiltering(CharSequence query) {
-                final ArrayList<ApplicationsState.AppEntry> matchedEntries;
-                if (TextUtils.isEmpty(query)) {
-                    matchedEntries = mOriginalEntries;
-                } else {
-                    matchedEntries = new ArrayList<>();
-                    for (ApplicationsState.AppEntry entry : mOriginalEntries) {
-                        if (entry.label.toLowerCase().contains(query.toString().toLowerCase())) {
-                            matchedEntries.add(entry);
-                        }
-                    }
-                }
+                final ArrayList<ApplicationsState.AppEntry> matchedEntries =
+                        filterEntriesByLabel(mOriginalEntries, query);
                 final FilterResults results = new FilterResults();
                 results.values = matchedEntries;
                 results.count = matchedEntries.size();
@@ -17,21 +17,29 @@ package com.android.settings.applications.specialaccess.interactacrossprofiles;
 
 import static android.app.admin.DevicePolicyResources.Strings.Settings.CONNECTED_WORK_AND_PERSONAL_APPS_TITLE;
 
+import android.app.admin.DevicePolicyManager;
 import android.app.settings.SettingsEnums;
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.CrossProfileApps;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.UserInfo;
+import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.UserHandle;
 import android.os.UserManager;
+import android.util.ArrayMap;
 import android.util.IconDrawableFactory;
 import android.util.Pair;
 import android.view.View;
 
+import androidx.annotation.GuardedBy;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
 import androidx.preference.Preference.OnPreferenceClickListener;
 import androidx.preference.PreferenceScreen;
@@ -41,24 +49,42 @@ import com.android.settings.applications.AppInfoBase;
 import com.android.settings.search.BaseSearchIndexProvider;
 import com.android.settings.widget.EmptyTextSettings;
 import com.android.settingslib.search.SearchIndexable;
+import com.android.settingslib.utils.ThreadUtils;
 import com.android.settingslib.widget.AppPreference;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @SearchIndexable
 public class InteractAcrossProfilesSettings extends EmptyTextSettings {
+    private static final Object sEligibilityLock = new Object();
+
+    /**
+     * Results of {@link CrossProfileApps#canUserAttemptToConfigureInteractAcrossProfiles}, keyed
+     * by {@link #getEligibilityKey}. Besides the work profile and the installed versions of the
+     * package in the key, the result depends on the cross-profile packages allowed by the admin
+     * and on the user restrictions, so the cache is cleared when the device policy, the user
+     * restrictions or the profiles change.
+     */
+    @GuardedBy("sEligibilityLock")
+    private static final Map<String, Boolean> sEligibilityCache = new ArrayMap<>();
+    @GuardedBy("sEligibilityLock")
+    private static boolean sReceiverRegistered;
+
     private Context mContext;
     private PackageManager mPackageManager;
     private UserManager mUserManager;
     private CrossProfileApps mCrossProfileApps;
     private IconDrawableFactory mIconDrawableFactory;
+    private int mLoadGeneration;
 
     @Override
     public void onCreate(Bundle icicle) {
         super.onCreate(icicle);
 
         mContext = getContext();
+        registerEligibilityReceiver(mContext);
         mPackageManager = mContext.getPackageManager();
         mUserManager = mContext.getSystemService(UserManager.class);
         mIconDrawableFactory = IconDrawableFactory.newInstance(mContext);
@@ -69,27 +95,54 @@ public class InteractAcrossProfilesSettings extends EmptyTextSettings {
     public void onResume() {
         super.onResume();
 
-        final PreferenceScreen screen = getPreferenceScreen();
-        screen.removeAll();
-
         replaceEnterprisePreferenceScreenTitle(CONNECTED_WORK_AND_PERSONAL_APPS_TITLE,
                 R.string.interact_across_profiles_title);
 
+        // Collecting the apps, their labels and their badged icons touches every installed
+        // package of both profiles, keep the current list on screen until it is done.
+        final int generation = ++mLoadGeneration;
+        final Context prefContext = getPrefContext();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final List<AppItem> items = loadAppItems(prefContext);
+            ThreadUtils.postOnMainThread(() -> {
+                if (generation != mLoadGeneration || getActivity() == null) {
+                    return;
+                }
+                updatePreferences(prefContext, items);
+            });
+        });
+    }
+
+    private List<AppItem> loadAppItems(Context prefContext) {
         final ArrayList<Pair<ApplicationInfo, UserHandle>> crossProfileApps =
                 collectConfigurableApps(mPackageManager, mUserManager, mCrossProfileApps);
 
-        final Context prefContext = getPrefContext();
+        final List<AppItem> items = new ArrayList<>(crossProfileApps.size());
         for (final Pair<ApplicationInfo, UserHandle> appData : crossProfileApps) {
             final ApplicationInfo appInfo = appData.first;
             final UserHandle user = appData.second;
-            final String packageName = appInfo.packageName;
             final CharSequence label = appInfo.loadLabel(mPackageManager);
+            items.add(new AppItem(appInfo,
+                    mIconDrawableFactory.getBadgedIcon(appInfo, user.getIdentifier()),
+                    mPackageManager.getUserBadgedLabel(label, user),
+                    InteractAcrossProfilesDetails.getPreferenceSummary(
+                            prefContext, appInfo.packageName)));
+        }
+        return items;
+    }
+
+    private void updatePreferences(Context prefContext, List<AppItem> items) {
+        final PreferenceScreen screen = getPreferenceScreen();
+        screen.removeAll();
+
+        for (final AppItem item : items) {
+            final ApplicationInfo appInfo = item.mAppInfo;
+            final String packageName = appInfo.packageName;
 
             final Preference pref = new AppPreference(prefContext);
-            pref.setIcon(mIconDrawableFactory.getBadgedIcon(appInfo, user.getIdentifier()));
-            pref.setTitle(mPackageManager.getUserBadgedLabel(label, user));
-            pref.setSummary(InteractAcrossProfilesDetails.getPreferenceSummary(
-                    prefContext, packageName));
+            pref.setIcon(item.mIcon);
+            pref.setTitle(item.mTitle);
+            pref.setSummary(item.mSummary);
             pref.setOnPreferenceClickListener(new OnPreferenceClickListener() {
                 @Override
                 public boolean onPreferenceClick(Preference preference) {
@@ -141,39 +194,130 @@ public class InteractAcrossProfilesSettings extends EmptyTextSettings {
             return new ArrayList<>();
         }
 
+        final List<PackageInfo> personalPackages = packageManager.getInstalledPackagesAsUser(
+                /* flags= */ 0, personalProfile.getIdentifier());
+        final List<PackageInfo> workPackages = packageManager.getInstalledPackagesAsUser(
+                /* flags= */ 0, workProfile.getIdentifier());
+        final Map<String, PackageInfo> personalPackagesByName = indexByName(personalPackages);
+        final Map<String, PackageInfo> workPackagesByName = indexByName(workPackages);
+
+        final Map<String, Boolean> eligibility;
+        synchronized (sEligibilityLock) {
+            eligibility = new ArrayMap<>(sEligibilityCache);
+        }
+        final Map<String, Boolean> results = new ArrayMap<>();
         final ArrayList<Pair<ApplicationInfo, UserHandle>> apps = new ArrayList<>();
-        for (PackageInfo packageInfo : getAllInstalledPackages(
-                packageManager, personalProfile, workProfile)) {
-            if (crossProfileApps.canUserAttemptToConfigureInteractAcrossProfiles(
-                    packageInfo.packageName)) {
+        for (PackageInfo packageInfo : mergeInstalledPackages(personalPackages, workPackages,
+                personalPackagesByName)) {
+            final String packageName = packageInfo.packageName;
+            final String key = getEligibilityKey(packageName, workProfile,
+                    personalPackagesByName.get(packageName), workPackagesByName.get(packageName));
+            Boolean configurable = eligibility.get(key);
+            if (configurable == null) {
+                configurable = crossProfileApps.canUserAttemptToConfigureInteractAcrossProfiles(
+                        packageName);
+            }
+            results.put(key, configurable);
+            if (configurable) {
                 apps.add(new Pair<>(packageInfo.applicationInfo, personalProfile));
             }
         }
+        // Only keep the entries of this pass, so that uninstalled packages and old versions do
+        // not pile up.
+        synchronized (sEligibilityLock) {
+            sEligibilityCache.clear();
+            sEligibilityCache.putAll(results);
+        }
         return apps;
     }
 
-    private static List<PackageInfo> getAllInstalledPackages(
-            PackageManager packageManager, UserHandle personalProfile, UserHandle workProfile) {
-        List<PackageInfo> personalPackages = packageManager.getInstalledPackagesAsUser(
-                /* flags= */ 0, personalProfile.getIdentifier());
-        List<PackageInfo> workPackages = packageManager.getInstalledPackagesAsUser(
-                /* flags= */ 0, workProfile.getIdentifier());
-        List<PackageInfo> allPackages = new ArrayList<>(personalPackages);
+    /**
+     * Returns the personal packages followed by the work packages not installed in the personal
+     * profile, in their original order.
+     */
+    private static List<PackageInfo> mergeInstalledPackages(List<PackageInfo> personalPackages,
+            List<PackageInfo> workPackages, Map<String, PackageInfo> personalPackagesByName) {
+        final List<PackageInfo> allPackages =
+                new ArrayList<>(personalPackages.size() + workPackages.size());
+        allPackages.addAll(personalPackages);
         for (PackageInfo workPackage : workPackages) {
-            if (allPackages.stream().noneMatch(
-                    p -> workPackage.packageName.equals(p.packageName))) {
+            if (!personalPackagesByName.containsKey(workPackage.packageName)) {
                 allPackages.add(workPackage);
             }
         }
         return allPackages;
     }
 
+    private static Map<String, PackageInfo> indexByName(List<PackageInfo> packages) {
+        final Map<String, PackageInfo> packagesByName = new ArrayMap<>(packages.size());
+        for (PackageInfo packageInfo : packages) {
+            packagesByName.put(packageInfo.packageName, packageInfo);
+        }
+        return packagesByName;
+    }
+
+    private static String getEligibilityKey(String packageName, UserHandle workProfile,
+            @Nullable PackageInfo personalPackage, @Nullable PackageInfo workPackage) {
+        return packageName + '/' + workProfile.getIdentifier()
+                + '/' + getVersionKey(personalPackage) + '/' + getVersionKey(workPackage);
+    }
+
+    private static String getVersionKey(@Nullable PackageInfo packageInfo) {
+        return packageInfo == null
+                ? "-"
+                : packageInfo.getLongVersionCode() + ":" + packageInfo.lastUpdateTime;
+    }
+
+    /**
+     * Listens to the changes the cached eligibility depends on besides the installed versions,
+     * once per process.
+     */
+    private static void registerEligibilityReceiver(Context context) {
+        synchronized (sEligibilityLock) {
+            if (sReceiverRegistered) {
+                return;
+            }
+            sReceiverRegistered = true;
+        }
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(DevicePolicyManager.ACTION_DEVICE_POLICY_MANAGER_STATE_CHANGED);
+        filter.addAction(UserManager.ACTION_USER_RESTRICTIONS_CHANGED);
+        filter.addAction(Intent.ACTION_MANAGED_PROFILE_ADDED);
+        filter.addAction(Intent.ACTION_MANAGED_PROFILE_REMOVED);
+        filter.addAction(Intent.ACTION_PROFILE_ADDED);
+        filter.addAction(Intent.ACTION_PROFILE_REMOVED);
+        final Context appContext = context.getApplicationContext() != null
+                ? context.getApplicationContext() : context;
+        appContext.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                clearEligibilityCache();
+            }
+        }, filter, Context.RECEIVER_NOT_EXPORTED);
+    }
+
+    private static void clearEligibilityCache() {
+        synchronized (sEligibilityLock) {
+            sEligibilityCache.clear();
+        }
+    }
+
+    /** Clears the cache and forgets the receiver, which does not outlive a test application. */
+    @VisibleForTesting
+    static void resetEligibilityCache() {
+        synchronized (sEligibilityLock) {
+            sEligibilityCache.clear();
+            sReceiverRegistered = false;
+        }
+    }
+
     /**
      * @return the number of applications that can interact across profiles.
      */
     static int getNumberOfEnabledApps(
             Context context, PackageManager packageManager, UserManager userManager,
             CrossProfileApps crossProfileApps) {
+        registerEligibilityReceiver(context);
         UserHandle workProfile = getWorkProfile(userManager);
         if (workProfile == null) {
             return 0;
@@ -206,6 +350,21 @@ public class InteractAcrossProfilesSettings extends EmptyTextSettings {
         return null;
     }
 
+    private static class AppItem {
+        final ApplicationInfo mAppInfo;
+        final Drawable mIcon;
+        final CharSequence mTitle;
+        final CharSequence mSummary;
+
+        AppItem(ApplicationInfo appInfo, Drawable icon, CharSequence title,
+                CharSequence summary) {
+            mAppInfo = appInfo;
+            mIcon = icon;
+            mTitle = title;
+            mSummary = summary;
+        }
+    }
+
     public static final BaseSearchIndexProvider SEARCH_INDEX_DATA_PROVIDER =
             new BaseSearchIndexProvider(R.xml.interact_across_profiles);
 }
@@ -24,6 +24,7 @@ import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.net.Uri;
 import android.os.AsyncTask;
 import android.text.TextUtils;
 import android.util.ArraySet;
@@ -57,6 +58,8 @@ public class CategoryMixin implements LifecycleObserver {
     private final Context mContext;
     private final PackageReceiver mPackageReceiver = new PackageReceiver();
     private final List<CategoryListener> mCategoryListeners = new ArrayList<>();
+    // Packages changed since the last update, applied by the next CategoriesUpdateTask.
+    private final Set<String> mChangedPackages = new ArraySet<>();
     private int mCategoriesUpdateTaskCount;
     private boolean mFirstOnResume = true;
 
@@ -80,6 +83,10 @@ public class CategoryMixin implements LifecycleObserver {
             // Skip since all tiles have been refreshed in DashboardFragment.onCreatePreferences().
             Log.d(TAG, "Skip categories update");
             mFirstOnResume = false;
+            if (CategoryManager.get(mContext).hasUnverifiedSnapshot()) {
+                // The tiles were restored from disk, check them against the packages.
+                updateCategories(true /* fromBroadcast */);
+            }
             return;
         }
         updateCategories();
@@ -168,6 +175,18 @@ public class CategoryMixin implements LifecycleObserver {
 
         @Override
         protected Set<String> doInBackground(Boolean... params) {
+            final Set<String> packages;
+            synchronized (mChangedPackages) {
+                packages = new ArraySet<>(mChangedPackages);
+                mChangedPackages.clear();
+            }
+            if (params[0]) {
+                final Set<String> changedCategories = reloadChangedPackages(packages);
+                if (changedCategories == null || !packages.contains(null)) {
+                    mCategoryManager.updateCategoryFromDenylist(sTileDenylist);
+                    return changedCategories;
+                }
+            }
             mPreviousTileMap = mCategoryManager.getTileByComponentMap();
             mCategoryManager.reloadAllCategories(mContext);
             mCategoryManager.updateCategoryFromDenylist(sTileDenylist);
@@ -182,6 +201,27 @@ public class CategoryMixin implements LifecycleObserver {
             mCategoriesUpdateTaskCount--;
         }
 
+        // Reloads the tiles of the changed packages only. Returns the changed categories, or null
+        // if all categories were reloaded.
+        private Set<String> reloadChangedPackages(Set<String> packages) {
+            final Set<String> changedCategories = mCategoryManager.verifySnapshot(mContext);
+            if (changedCategories == null) {
+                return null;
+            }
+            for (String packageName : packages) {
+                if (packageName == null) {
+                    continue;
+                }
+                final Set<String> categories =
+                        mCategoryManager.reloadPackage(mContext, packageName);
+                if (categories == null) {
+                    return null;
+                }
+                changedCategories.addAll(categories);
+            }
+            return changedCategories;
+        }
+
         // Return the changed categories that have to be refreshed, or null to force refreshing all.
         private Set<String> getChangedCategories(boolean fromBroadcast) {
             if (!fromBroadcast) {
@@ -226,6 +266,11 @@ public class CategoryMixin implements LifecycleObserver {
     private class PackageReceiver extends BroadcastReceiver {
         @Override
         public void onReceive(Context context, Intent intent) {
+            // A null package name falls back to reloading all categories.
+            final Uri data = intent.getData();
+            synchronized (mChangedPackages) {
+                mChangedPackages.add(data != null ? data.getSchemeSpecificPart() : null);
+            }
             updateCategories(true /* fromBroadcast */);
         }
     }
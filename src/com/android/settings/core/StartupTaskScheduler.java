@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs the work of {@link Application#onCreate()} according to when it is needed, so that the
+ * short-lived processes started for broadcasts, content providers and search indexing skip the
+ * setup only used by the UI.
+ * <p>
+ * A task runs at most once. Each run is timed and recorded in the startup trace, see
+ * {@link #getStartupTrace()}.
+ */
+public class StartupTaskScheduler {
+    private static final String TAG = "StartupTaskScheduler";
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({CRITICAL, FIRST_ACTIVITY, ON_DEMAND})
+    public @interface Phase {
+    }
+
+    /** The task runs right away, it is needed by every component of the process. */
+    public static final int CRITICAL = 0;
+
+    /** The task runs before the first activity of the process is created. */
+    public static final int FIRST_ACTIVITY = 1;
+
+    /** The task runs the first time it is requested with {@link #run(String)}. */
+    public static final int ON_DEMAND = 2;
+
+    private final LongSupplier mClock;
+    private final Map<String, Runnable> mPendingTasks = new ArrayMap<>();
+    private final List<String> mFirstActivityTasks = new ArrayList<>();
+    private final Map<String, Long> mTrace = new LinkedHashMap<>();
+    private final Application.ActivityLifecycleCallbacks mFirstActivityCallbacks =
+            new FirstActivityCallbacks();
+    @Nullable
+    private Application mApplication;
+
+    public StartupTaskScheduler() {
+        this(SystemClock::elapsedRealtime);
+    }
+
+    @VisibleForTesting
+    StartupTaskScheduler(@NonNull LongSupplier clock) {
+        mClock = clock;
+    }
+
+    /**
+     * Adds the {@param task} named {@param name}, which is run right away if it is
+     * {@link #CRITICAL}.
+     */
+    public void add(@NonNull String name, @Phase int phase, @NonNull Runnable task) {
+        synchronized (this) {
+            mPendingTasks.put(name, task);
+            if (phase == FIRST_ACTIVITY) {
+                mFirstActivityTasks.add(name);
+            }
+        }
+        if (phase == CRITICAL) {
+            run(name);
+        }
+    }
+
+    /**
+     * Runs the {@link #FIRST_ACTIVITY} tasks when the first activity of the {@param application}
+     * is about to be created.
+     */
+    public void start(@NonNull Application application) {
+        mApplication = application;
+        application.registerActivityLifecycleCallbacks(mFirstActivityCallbacks);
+    }
+
+    /**
+     * Runs the task named {@param name} on the calling thread if it has not run yet, whatever
+     * its phase. Returns once the task has run.
+     */
+    public synchronized void run(@NonNull String name) {
+        final Runnable task = mPendingTasks.remove(name);
+        if (task == null) {
+            return;
+        }
+        final long start = mClock.getAsLong();
+        task.run();
+        final long duration = mClock.getAsLong() - start;
+        mTrace.put(name, duration);
+        Log.d(TAG, "Ran " + name + " in " + duration + " ms");
+    }
+
+    /** Runs every {@link #FIRST_ACTIVITY} task which has not run yet. */
+    @VisibleForTesting
+    void runFirstActivityTasks() {
+        final List<String> names;
+        synchronized (this) {
+            names = new ArrayList<>(mFirstActivityTasks);
+            mFirstActivityTasks.clear();
+        }
+        for (String name : names) {
+            run(name);
+        }
+    }
+
+    /** Returns whether the task named {@param name} has run. */
+    public synchronized boolean hasRun(@NonNull String name) {
+        return mTrace.containsKey(name);
+    }
+
+    /** Returns the duration in milliseconds of every task which has run, in the order they ran. */
+    @NonNull
+    public synchronized Map<String, Long> getStartupTrace() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(mTrace));
+    }
+
+    private class FirstActivityCallbacks implements Application.ActivityLifecycleCallbacks {
+        @Override
+        public void onActivityPreCreated(@NonNull Activity activity,
+                @Nullable Bundle savedInstanceState) {
+            if (mApplication != null) {
+                mApplication.unregisterActivityLifecycleCallbacks(this);
+            }
+            runFirstActivityTasks();
+        }
+
+        @Override
+        public void onActivityCreated(@NonNull Activity activity,
+                @Nullable Bundle savedInstanceState) {}
+
+        @Override
+        public void onActivityStarted(@NonNull Activity activity) {}
+
+        @Override
+        public void onActivityResumed(@NonNull Activity activity) {}
+
+        @Override
+        public void onActivityPaused(@NonNull Activity activity) {}
+
+        @Override
+        public void onActivityStopped(@NonNull Activity activity) {}
+
+        @Override
+        public void onActivitySaveInstanceState(@NonNull Activity activity,
+                @NonNull Bundle outState) {}
+
+        @Override
+        public void onActivityDestroyed(@NonNull Activity activity) {}
+    }
+}
@@ -17,12 +17,17 @@ package com.android.settings.dashboard;
 
 import android.content.ComponentName;
 import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.UserHandle;
+import android.os.UserManager;
 import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.ArraySet;
 import android.util.Log;
 import android.util.Pair;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.homepage.HighlightableMenu;
@@ -33,10 +38,12 @@ import com.android.settingslib.drawer.DashboardCategory;
 import com.android.settingslib.drawer.ProviderTile;
 import com.android.settingslib.drawer.Tile;
 import com.android.settingslib.drawer.TileUtils;
+import com.android.settingslib.utils.ThreadUtils;
 
 import com.google.android.setupcompat.util.WizardManagerHelper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -49,7 +56,12 @@ public class CategoryManager {
     private static final String TAG = "CategoryManager";
     private static final boolean DEBUG = false;
 
+    // The actions of the components injecting tiles, see TileUtils.
+    private static final String[] TILE_ACTIONS = {
+            TileUtils.IA_SETTINGS_ACTION, "com.android.settings.action.EXTRA_SETTINGS"};
+
     private static CategoryManager sInstance;
+    private static final Object sSnapshotWriteLock = new Object();
     private final InterestingConfigChanges mInterestingConfigChanges;
 
     // Tile cache (key: <packageName, activityName>, value: tile)
@@ -60,6 +72,12 @@ public class CategoryManager {
 
     private List<DashboardCategory> mCategories;
 
+    // The snapshot the categories were restored from, until it is checked against the packages.
+    private DashboardTileSnapshot mUnverifiedSnapshot;
+
+    // The categories last written to disk, to skip rewriting an unchanged snapshot.
+    private byte[] mPersistedCategories;
+
     public static CategoryManager get(Context context) {
         if (sInstance == null) {
             sInstance = new CategoryManager(context);
@@ -67,6 +85,11 @@ public class CategoryManager {
         return sInstance;
     }
 
+    @VisibleForTesting
+    public static void setInstanceForTesting(CategoryManager categoryManager) {
+        sInstance = categoryManager;
+    }
+
     CategoryManager(Context context) {
         mTileByComponentCache = new ArrayMap<>();
         mCategoryByKeyMap = new ArrayMap<>();
@@ -92,9 +115,191 @@ public class CategoryManager {
         final boolean forceClearCache = mInterestingConfigChanges.applyNewConfig(
                 context.getResources());
         mCategories = null;
+        mUnverifiedSnapshot = null;
         tryInitCategories(context, forceClearCache);
     }
 
+    /**
+     * Returns whether the categories were restored from the on-disk snapshot and not yet checked
+     * by {@link #verifySnapshot}.
+     */
+    public synchronized boolean hasUnverifiedSnapshot() {
+        return mUnverifiedSnapshot != null;
+    }
+
+    /**
+     * Checks the categories restored from the on-disk snapshot against the installed packages,
+     * and reloads the tiles of the packages changed since it was written.
+     *
+     * @return the keys of the changed categories, or null if all categories were reloaded.
+     */
+    @Nullable
+    public Set<String> verifySnapshot(Context context) {
+        final DashboardTileSnapshot snapshot;
+        synchronized (this) {
+            snapshot = mUnverifiedSnapshot;
+            mUnverifiedSnapshot = null;
+        }
+        if (snapshot == null) {
+            return new ArraySet<>();
+        }
+        final Set<String> packages = snapshot.getChangedPackages(context);
+        if (packages == null) {
+            reloadAllCategories(context);
+            return null;
+        }
+        final Set<String> changedCategories = new ArraySet<>();
+        for (String packageName : packages) {
+            final Set<String> categories = reloadPackage(context, packageName);
+            if (categories == null) {
+                return null;
+            }
+            changedCategories.addAll(categories);
+        }
+        return changedCategories;
+    }
+
+    /**
+     * Reloads the tiles of a single package, and patches them into the loaded categories
+     * without rebuilding the categories of other packages.
+     *
+     * @return the keys of the categories whose tiles changed, or null if all categories were
+     * reloaded instead.
+     */
+    @Nullable
+    public synchronized Set<String> reloadPackage(Context context, String packageName) {
+        final boolean forceClearCache = mInterestingConfigChanges.applyNewConfig(
+                context.getResources());
+        if (forceClearCache || mCategories == null
+                || TextUtils.equals(packageName, context.getPackageName())) {
+            // Settings' own tiles and config changes can affect every category.
+            mCategories = null;
+            mUnverifiedSnapshot = null;
+            tryInitCategories(context, forceClearCache);
+            return null;
+        }
+        if (!WizardManagerHelper.isUserSetupComplete(context)) {
+            return new ArraySet<>();
+        }
+
+        if (!hasTiles(packageName) && !hasTileComponents(context, packageName)) {
+            // Most package changes neither add nor remove a tile.
+            return new ArraySet<>();
+        }
+
+        // TileUtils only resolves tiles for all packages at once, which reuses the cached tiles.
+        // The costly part is rebuilding and refreshing every category, which is skipped here.
+        final List<DashboardCategory> resolved = loadCategories(context);
+        final Map<String, DashboardCategory> resolvedByKey = new ArrayMap<>();
+        for (DashboardCategory category : resolved) {
+            resolvedByKey.put(category.key, category);
+        }
+        final Set<String> listedKeys = new ArraySet<>(resolvedByKey.keySet());
+        backwardCompatCleanupForCategory(mTileByComponentCache, resolvedByKey);
+        mergeSecurityPrivacyKeys(context, mTileByComponentCache, resolvedByKey);
+
+        // The changed categories are rebuilt as new objects, since the loaded ones may be in use
+        // by the UI thread.
+        final Map<String, DashboardCategory> changedCategories = new ArrayMap<>();
+        for (DashboardCategory category : mCategoryByKeyMap.values()) {
+            if (hasTiles(category, packageName)) {
+                changedCategories.put(category.key, copyWithoutPackage(category, packageName));
+            }
+        }
+        for (DashboardCategory resolvedCategory : resolvedByKey.values()) {
+            for (int i = 0; i < resolvedCategory.getTilesCount(); i++) {
+                final Tile tile = resolvedCategory.getTile(i);
+                if (!TextUtils.equals(packageName, tile.getPackageName())) {
+                    continue;
+                }
+                DashboardCategory category = changedCategories.get(resolvedCategory.key);
+                if (category == null) {
+                    final DashboardCategory loaded = mCategoryByKeyMap.get(resolvedCategory.key);
+                    category = loaded != null ? copyWithoutPackage(loaded, packageName)
+                            : new DashboardCategory(resolvedCategory.key);
+                    changedCategories.put(category.key, category);
+                }
+                category.addTile(tile);
+            }
+        }
+        sortCategories(context, changedCategories);
+        filterDuplicateTiles(changedCategories);
+        if (changedCategories.isEmpty()) {
+            return new ArraySet<>();
+        }
+        final List<DashboardCategory> categories = new ArrayList<>(mCategories);
+        for (DashboardCategory category : changedCategories.values()) {
+            final DashboardCategory loaded = mCategoryByKeyMap.put(category.key, category);
+            final int index = loaded != null ? categories.indexOf(loaded) : -1;
+            if (index >= 0) {
+                categories.set(index, category);
+            } else if (loaded == null && listedKeys.contains(category.key)) {
+                categories.add(category);
+            }
+        }
+        mCategories = categories;
+        persistSnapshot(context);
+        return new ArraySet<>(changedCategories.keySet());
+    }
+
+    /** Returns the categories resolved from every package by {@code TileUtils}. */
+    @VisibleForTesting
+    List<DashboardCategory> loadCategories(Context context) {
+        return TileUtils.getCategories(context, mTileByComponentCache);
+    }
+
+    /**
+     * Returns whether the package declares a component injecting tiles, for any of the user
+     * profiles. This only queries the components of that package.
+     */
+    @VisibleForTesting
+    boolean hasTileComponents(Context context, String packageName) {
+        final PackageManager pm = context.getPackageManager();
+        final UserManager userManager = context.getSystemService(UserManager.class);
+        for (UserHandle user : userManager.getUserProfiles()) {
+            for (String action : TILE_ACTIONS) {
+                final Intent intent = new Intent(action).setPackage(packageName);
+                if (!pm.queryIntentActivitiesAsUser(intent, 0 /* flags */,
+                        user.getIdentifier()).isEmpty()
+                        || !pm.queryIntentContentProvidersAsUser(intent, 0 /* flags */,
+                        user.getIdentifier()).isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hasTiles(String packageName) {
+        for (DashboardCategory category : mCategoryByKeyMap.values()) {
+            if (hasTiles(category, packageName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasTiles(DashboardCategory category, String packageName) {
+        for (int i = 0; i < category.getTilesCount(); i++) {
+            if (TextUtils.equals(packageName, category.getTile(i).getPackageName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static DashboardCategory copyWithoutPackage(DashboardCategory category,
+            String packageName) {
+        final DashboardCategory copy = new DashboardCategory(category.key);
+        for (int i = 0; i < category.getTilesCount(); i++) {
+            final Tile tile = category.getTile(i);
+            if (!TextUtils.equals(packageName, tile.getPackageName())) {
+                copy.addTile(tile);
+            }
+        }
+        return copy;
+    }
+
     /**
      * Update category from deny list
      * @param tileDenylist
@@ -157,14 +362,17 @@ public class CategoryManager {
                 mTileByComponentCache.clear();
             }
             mCategoryByKeyMap.clear();
-            mCategories = TileUtils.getCategories(context, mTileByComponentCache);
-            for (DashboardCategory category : mCategories) {
-                mCategoryByKeyMap.put(category.key, category);
+            if (!firstLoading || !restoreSnapshot(context)) {
+                mCategories = loadCategories(context);
+                for (DashboardCategory category : mCategories) {
+                    mCategoryByKeyMap.put(category.key, category);
+                }
+                backwardCompatCleanupForCategory(mTileByComponentCache, mCategoryByKeyMap);
+                mergeSecurityPrivacyKeys(context, mTileByComponentCache, mCategoryByKeyMap);
+                sortCategories(context, mCategoryByKeyMap);
+                filterDuplicateTiles(mCategoryByKeyMap);
+                persistSnapshot(context);
             }
-            backwardCompatCleanupForCategory(mTileByComponentCache, mCategoryByKeyMap);
-            mergeSecurityPrivacyKeys(context, mTileByComponentCache, mCategoryByKeyMap);
-            sortCategories(context, mCategoryByKeyMap);
-            filterDuplicateTiles(mCategoryByKeyMap);
             if (firstLoading) {
                 logTiles(context);
 
@@ -185,6 +393,67 @@ public class CategoryManager {
         }
     }
 
+    // Restores the categories of the previous process from disk, they are checked later by
+    // verifySnapshot().
+    private boolean restoreSnapshot(Context context) {
+        final DashboardTileSnapshot snapshot = readSnapshot(context);
+        if (snapshot == null) {
+            return false;
+        }
+        mCategories = new ArrayList<>();
+        for (DashboardCategory category : snapshot.getCategories()) {
+            mCategoryByKeyMap.put(category.key, category);
+            if (snapshot.isListed(category.key)) {
+                mCategories.add(category);
+            }
+            for (int i = 0; i < category.getTilesCount(); i++) {
+                final Tile tile = category.getTile(i);
+                if (!(tile instanceof ProviderTile)) {
+                    // Let TileUtils update the restored tiles rather than create new ones.
+                    final ComponentName component = tile.getIntent().getComponent();
+                    mTileByComponentCache.putIfAbsent(
+                            new Pair<>(component.getPackageName(), component.getClassName()),
+                            tile);
+                }
+            }
+        }
+        mUnverifiedSnapshot = snapshot;
+        return true;
+    }
+
+    private void persistSnapshot(Context context) {
+        final byte[] categories = DashboardTileSnapshot.marshallCategories(mCategoryByKeyMap,
+                mCategories);
+        if (categories == null || Arrays.equals(categories, mPersistedCategories)) {
+            return;
+        }
+        mPersistedCategories = categories;
+        final Context appContext = context.getApplicationContext() != null
+                ? context.getApplicationContext() : context;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            synchronized (sSnapshotWriteLock) {
+                synchronized (this) {
+                    // A newer snapshot is already pending.
+                    if (categories != mPersistedCategories) {
+                        return;
+                    }
+                }
+                writeSnapshot(appContext, categories);
+            }
+        });
+    }
+
+    @VisibleForTesting
+    @Nullable
+    DashboardTileSnapshot readSnapshot(Context context) {
+        return DashboardTileSnapshot.read(context);
+    }
+
+    @VisibleForTesting
+    void writeSnapshot(Context context, byte[] categories) {
+        DashboardTileSnapshot.write(context, categories);
+    }
+
     @VisibleForTesting
     synchronized void backwardCompatCleanupForCategory(
             Map<Pair<String, String>, Tile> tileByComponentCache,
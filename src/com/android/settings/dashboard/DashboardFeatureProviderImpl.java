@@ -98,10 +98,12 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
     private final MetricsFeatureProvider mMetricsFeatureProvider;
     private final CategoryManager mCategoryManager;
     private final PackageManager mPackageManager;
+    private final TileIconCache mTileIconCache;
 
     public DashboardFeatureProviderImpl(Context context) {
         mContext = context.getApplicationContext();
         mCategoryManager = CategoryManager.get(context);
+        mTileIconCache = TileIconCache.getInstance(context);
         mMetricsFeatureProvider = FeatureFactory.getFeatureFactory().getMetricsFeatureProvider();
         mPackageManager = context.getPackageManager();
     }
@@ -402,27 +404,59 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
             // Reserve the icon space to avoid preference padding change.
             preference.setIconSpaceReserved(true);
 
+            final Context context = preference.getContext();
+            final Intent intent = tile.getIntent();
+            String packageName = null;
+            if (!TextUtils.isEmpty(intent.getPackage())) {
+                packageName = intent.getPackage();
+            } else if (intent.getComponent() != null) {
+                packageName = intent.getComponent().getPackageName();
+            }
+            final Uri uri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_ICON_URI,
+                    METHOD_GET_PROVIDER_ICON);
+            final TileIconCache.Key key = new TileIconCache.Key(packageName, uri,
+                    isHomepageTile(tile) ? Utils.getHomepageIconColor(context) : null,
+                    context.getResources().getConfiguration());
+            final TileIconCache.Entry cachedIcon = mTileIconCache.get(key);
+            if (cachedIcon != null) {
+                setPreferenceIcon(preference, tile, forceRoundedIcon,
+                        cachedIcon.getIconPackage(), cachedIcon.newDrawable(context.getResources()));
+            }
+
+            final String iconProviderPackage = packageName;
             ThreadUtils.postOnBackgroundThread(() -> {
-                final Intent intent = tile.getIntent();
-                String packageName = null;
-                if (!TextUtils.isEmpty(intent.getPackage())) {
-                    packageName = intent.getPackage();
-                } else if (intent.getComponent() != null) {
-                    packageName = intent.getComponent().getPackageName();
+                TileIconCache.Entry icon = cachedIcon;
+                if (icon == null) {
+                    icon = mTileIconCache.getFromDisk(mContext, key);
+                    if (icon != null) {
+                        bindCachedIcon(preference, tile, forceRoundedIcon, context, icon);
+                    }
                 }
+                // The provider may return another icon over time, so ask it again and only
+                // reload the icon when it returns another one.
                 final Map<String, IContentProvider> providerMap = new ArrayMap<>();
-                final Uri uri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_ICON_URI,
-                        METHOD_GET_PROVIDER_ICON);
                 final Pair<String, Integer> iconInfo = TileUtils.getIconFromUri(
-                        mContext, packageName, uri, providerMap);
+                        mContext, iconProviderPackage, uri, providerMap);
                 if (iconInfo == null) {
                     Log.w(TAG, "Failed to get icon from uri " + uri);
                     return;
                 }
-                final Icon icon = Icon.createWithResource(iconInfo.first, iconInfo.second);
-                ThreadUtils.postOnMainThread(() -> {
-                    setPreferenceIcon(preference, tile, forceRoundedIcon, iconInfo.first, icon);
-                });
+                if (icon != null && icon.isLoadedFrom(iconInfo.first, iconInfo.second)) {
+                    return;
+                }
+                final Drawable iconDrawable = loadTileIcon(context, tile, iconInfo.first,
+                        Icon.createWithResource(iconInfo.first, iconInfo.second));
+                final TileIconCache.Entry loadedIcon = iconDrawable != null
+                        ? mTileIconCache.put(mContext, key, iconInfo.first, iconInfo.second,
+                                iconDrawable)
+                        : null;
+                if (loadedIcon == null) {
+                    // Not rasterizable, bind the drawable as loaded.
+                    ThreadUtils.postOnMainThread(() -> setPreferenceIcon(preference, tile,
+                            forceRoundedIcon, iconInfo.first, iconDrawable));
+                    return;
+                }
+                bindCachedIcon(preference, tile, forceRoundedIcon, context, loadedIcon);
             });
             return;
         }
@@ -436,23 +470,43 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
         setPreferenceIcon(preference, tile, forceRoundedIcon, tile.getPackageName(), tileIcon);
     }
 
+    private void bindCachedIcon(Preference preference, Tile tile, boolean forceRoundedIcon,
+            Context context, TileIconCache.Entry icon) {
+        ThreadUtils.postOnMainThread(() -> setPreferenceIcon(preference, tile, forceRoundedIcon,
+                icon.getIconPackage(), icon.newDrawable(context.getResources())));
+    }
+
     private void setPreferenceIcon(Preference preference, Tile tile, boolean forceRoundedIcon,
             String iconPackage, Icon icon) {
-        Drawable iconDrawable = icon.loadDrawable(preference.getContext());
+        setPreferenceIcon(preference, tile, forceRoundedIcon, iconPackage,
+                loadTileIcon(preference.getContext(), tile, iconPackage, icon));
+    }
+
+    // Loads the icon, tinted for the homepage. This does not depend on the preference, so the
+    // result can be cached.
+    private Drawable loadTileIcon(Context context, Tile tile, String iconPackage, Icon icon) {
+        Drawable iconDrawable = icon.loadDrawable(context);
         if (iconDrawable == null) {
             Log.w(TAG, "Set null preference icon for: " + iconPackage);
-            preference.setIcon(null);
-            return;
+            return null;
         }
-        if (TextUtils.equals(tile.getCategory(), CategoryKey.CATEGORY_HOMEPAGE)) {
+        if (isHomepageTile(tile)) {
             if (iconPackage.equals(WELLBEING_PACKAGE) && iconDrawable instanceof LayerDrawable
                     && ((LayerDrawable) iconDrawable).getDrawable(1) != null) {
                 iconDrawable = ((LayerDrawable) iconDrawable).getDrawable(1);
                 iconDrawable.mutate();
             }
-            iconDrawable.setTint(Utils.getHomepageIconColor(preference.getContext()));
+            iconDrawable.setTint(Utils.getHomepageIconColor(context));
         }
+        return iconDrawable;
+    }
 
+    private void setPreferenceIcon(Preference preference, Tile tile, boolean forceRoundedIcon,
+            String iconPackage, Drawable iconDrawable) {
+        if (iconDrawable == null) {
+            preference.setIcon(null);
+            return;
+        }
         if (forceRoundedIcon && !TextUtils.equals(mContext.getPackageName(), iconPackage)) {
             iconDrawable = new AdaptiveIcon(mContext, iconDrawable,
                     R.dimen.dashboard_tile_foreground_image_inset);
@@ -461,6 +515,10 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
         preference.setIcon(iconDrawable);
     }
 
+    private static boolean isHomepageTile(Tile tile) {
+        return TextUtils.equals(tile.getCategory(), CategoryKey.CATEGORY_HOMEPAGE);
+    }
+
     private void launchPendingIntentOrSelectProfile(FragmentActivity activity, Tile tile,
             int sourceMetricCategory) {
         ProfileSelectDialog.updatePendingIntentsIfNeeded(mContext, tile);
@@ -21,6 +21,7 @@ import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.preference.PreferenceManager.OnActivityResultListener;
 import android.text.TextUtils;
 import android.util.ArrayMap;
@@ -106,6 +107,8 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     private DashboardTilePlaceholderPreferenceController mPlaceholderPreferenceController;
     private boolean mListeningToCategoryChange;
     private List<String> mSuppressInjectedTileKeys;
+    private final DashboardPhaseTimings mPhaseTimings = DashboardPhaseTimings.getInstance();
+    private final String mPageName = getClass().getSimpleName();
 
     @Override
     public void onAttach(Context context) {
@@ -115,11 +118,26 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         mDashboardFeatureProvider =
                 FeatureFactory.getFeatureFactory().getDashboardFeatureProvider();
         // Load preference controllers from code
-        final List<AbstractPreferenceController> controllersFromCode =
-                createPreferenceControllers(context);
+        final List<AbstractPreferenceController> controllersFromCode;
+        long start = DashboardPhaseTimings.beginPhase(
+                DashboardPhaseTimings.PHASE_CREATE_CONTROLLERS_FROM_CODE);
+        try {
+            controllersFromCode = createPreferenceControllers(context);
+        } finally {
+            mPhaseTimings.endPhase(mPageName,
+                    DashboardPhaseTimings.PHASE_CREATE_CONTROLLERS_FROM_CODE, start);
+        }
         // Load preference controllers from xml definition
-        final List<BasePreferenceController> controllersFromXml = PreferenceControllerListHelper
-                .getPreferenceControllersFromXml(context, getPreferenceScreenResId());
+        final List<BasePreferenceController> controllersFromXml;
+        start = DashboardPhaseTimings.beginPhase(
+                DashboardPhaseTimings.PHASE_CREATE_CONTROLLERS_FROM_XML);
+        try {
+            controllersFromXml = PreferenceControllerListHelper
+                    .getPreferenceControllersFromXml(context, getPreferenceScreenResId());
+        } finally {
+            mPhaseTimings.endPhase(mPageName,
+                    DashboardPhaseTimings.PHASE_CREATE_CONTROLLERS_FROM_XML, start);
+        }
         // Filter xml-based controllers in case a similar controller is created from code already.
         final List<BasePreferenceController> uniqueControllerFromXml =
                 PreferenceControllerListHelper.filterControllers(
@@ -169,8 +187,11 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         });
 
         if (!keys.isEmpty()) {
+            final long startNanos = SystemClock.elapsedRealtimeNanos();
             mBlockerController = new UiBlockerController(keys);
             mBlockerController.start(() -> {
+                mPhaseTimings.recordPhase(mPageName, DashboardPhaseTimings.PHASE_UI_BLOCKER_WAIT,
+                        SystemClock.elapsedRealtimeNanos() - startNanos);
                 updatePreferenceVisibility(mPreferenceControllers);
                 baseControllers.forEach(controller -> controller.setUiBlockerFinished(true));
             });
@@ -186,7 +207,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         if (icicle != null) {
             // Upon rotation configuration change we need to update preference states before any
             // editing dialog is recreated (that would happen before onResume is called).
-            updatePreferenceStates();
+            updatePreferenceStatesAndRecordTiming();
         }
     }
 
@@ -257,7 +278,7 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
     @Override
     public void onResume() {
         super.onResume();
-        updatePreferenceStates();
+        updatePreferenceStatesAndRecordTiming();
     }
 
     @Override
@@ -381,10 +402,22 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
         if (resId <= 0) {
             return;
         }
-        addPreferencesFromResource(resId);
+        long start = DashboardPhaseTimings.beginPhase(DashboardPhaseTimings.PHASE_INFLATE_XML);
+        try {
+            addPreferencesFromResource(resId);
+        } finally {
+            mPhaseTimings.endPhase(mPageName, DashboardPhaseTimings.PHASE_INFLATE_XML, start);
+        }
         final PreferenceScreen screen = getPreferenceScreen();
         screen.setOnExpandButtonClickListener(this);
-        displayResourceTilesToScreen(screen);
+        start = DashboardPhaseTimings.beginPhase(
+                DashboardPhaseTimings.PHASE_DISPLAY_RESOURCE_TILES);
+        try {
+            displayResourceTilesToScreen(screen);
+        } finally {
+            mPhaseTimings.endPhase(mPageName, DashboardPhaseTimings.PHASE_DISPLAY_RESOURCE_TILES,
+                    start);
+        }
     }
 
     /**
@@ -393,7 +426,13 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
      */
     protected void displayResourceTilesToScreen(PreferenceScreen screen) {
         mPreferenceControllers.values().stream().flatMap(Collection::stream).forEach(
-                controller -> controller.displayPreference(screen));
+                controller -> {
+                    final long startNanos = SystemClock.elapsedRealtimeNanos();
+                    controller.displayPreference(screen);
+                    mPhaseTimings.recordController(controller.getClass().getName(),
+                            DashboardPhaseTimings.CONTROLLER_DISPLAY_PREFERENCE,
+                            SystemClock.elapsedRealtimeNanos() - startNanos);
+                });
     }
 
     /**
@@ -407,30 +446,52 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
      * Update state of each preference managed by PreferenceController.
      */
     protected void updatePreferenceStates() {
-        final PreferenceScreen screen = getPreferenceScreen();
         Collection<List<AbstractPreferenceController>> controllerLists =
                 mPreferenceControllers.values();
         for (List<AbstractPreferenceController> controllerList : controllerLists) {
-            for (AbstractPreferenceController controller : controllerList) {
-                if (!controller.isAvailable()) {
-                    continue;
-                }
+            updatePreferenceStates(controllerList);
+        }
+    }
 
-                final String key = controller.getPreferenceKey();
-                if (TextUtils.isEmpty(key)) {
-                    Log.d(TAG, String.format("Preference key is %s in Controller %s",
-                            key, controller.getClass().getSimpleName()));
-                    continue;
-                }
+    /**
+     * Update state of the preferences managed by the given PreferenceControllers only.
+     */
+    protected void updatePreferenceStates(List<AbstractPreferenceController> controllers) {
+        final PreferenceScreen screen = getPreferenceScreen();
+        for (AbstractPreferenceController controller : controllers) {
+            if (!controller.isAvailable()) {
+                continue;
+            }
 
-                final Preference preference = screen.findPreference(key);
-                if (preference == null) {
-                    Log.d(TAG, String.format("Cannot find preference with key %s in Controller %s",
-                            key, controller.getClass().getSimpleName()));
-                    continue;
-                }
-                controller.updateState(preference);
+            final String key = controller.getPreferenceKey();
+            if (TextUtils.isEmpty(key)) {
+                Log.d(TAG, String.format("Preference key is %s in Controller %s",
+                        key, controller.getClass().getSimpleName()));
+                continue;
+            }
+
+            final Preference preference = screen.findPreference(key);
+            if (preference == null) {
+                Log.d(TAG, String.format("Cannot find preference with key %s in Controller %s",
+                        key, controller.getClass().getSimpleName()));
+                continue;
             }
+            final long startNanos = SystemClock.elapsedRealtimeNanos();
+            controller.updateState(preference);
+            mPhaseTimings.recordController(controller.getClass().getName(),
+                    DashboardPhaseTimings.CONTROLLER_UPDATE_STATE,
+                    SystemClock.elapsedRealtimeNanos() - startNanos);
+        }
+    }
+
+    private void updatePreferenceStatesAndRecordTiming() {
+        final long start = DashboardPhaseTimings.beginPhase(
+                DashboardPhaseTimings.PHASE_UPDATE_PREFERENCE_STATES);
+        try {
+            updatePreferenceStates();
+        } finally {
+            mPhaseTimings.endPhase(mPageName,
+                    DashboardPhaseTimings.PHASE_UPDATE_PREFERENCE_STATES, start);
         }
     }
 
@@ -516,6 +577,17 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
      * Refresh preference items backed by DashboardCategory.
      */
     private void refreshDashboardTiles(final String tag) {
+        final long start = DashboardPhaseTimings.beginPhase(
+                DashboardPhaseTimings.PHASE_REFRESH_DASHBOARD_TILES);
+        try {
+            refreshDashboardTilesInternal(tag);
+        } finally {
+            mPhaseTimings.endPhase(mPageName,
+                    DashboardPhaseTimings.PHASE_REFRESH_DASHBOARD_TILES, start);
+        }
+    }
+
+    private void refreshDashboardTilesInternal(final String tag) {
         final PreferenceScreen screen = getPreferenceScreen();
 
         final DashboardCategory category =
@@ -625,7 +697,14 @@ public abstract class DashboardFragment extends SettingsPreferenceFragment
                 mainLatch.countDown();
             }).start();
             Log.d(tag, "Start waiting observers");
-            awaitObserverLatch(mainLatch);
+            final long start = DashboardPhaseTimings.beginPhase(
+                    DashboardPhaseTimings.PHASE_AWAIT_OBSERVERS);
+            try {
+                awaitObserverLatch(mainLatch);
+            } finally {
+                mPhaseTimings.endPhase(mPageName, DashboardPhaseTimings.PHASE_AWAIT_OBSERVERS,
+                        start);
+            }
             Log.d(tag, "Stop waiting observers");
             pendingObservers.forEach(DynamicDataObserver::updateUi);
         }
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.ArrayMap;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates how long each phase of opening a {@link DashboardFragment} takes, per page, and how
+ * long each preference controller takes to display and update its preference.
+ *
+ * Each phase is also emitted as a trace section, and the histograms are reported by
+ * {@link com.android.settings.SettingsDumpService}.
+ */
+public class DashboardPhaseTimings {
+
+    static final String PHASE_CREATE_CONTROLLERS_FROM_CODE = "createControllersFromCode";
+    static final String PHASE_CREATE_CONTROLLERS_FROM_XML = "createControllersFromXml";
+    static final String PHASE_INFLATE_XML = "inflateXml";
+    static final String PHASE_DISPLAY_RESOURCE_TILES = "displayResourceTiles";
+    static final String PHASE_REFRESH_DASHBOARD_TILES = "refreshDashboardTiles";
+    static final String PHASE_AWAIT_OBSERVERS = "awaitObservers";
+    static final String PHASE_UPDATE_PREFERENCE_STATES = "updatePreferenceStates";
+    static final String PHASE_UI_BLOCKER_WAIT = "uiBlockerWait";
+
+    static final String CONTROLLER_DISPLAY_PREFERENCE = "displayPreference";
+    static final String CONTROLLER_UPDATE_STATE = "updateState";
+
+    private static final String TRACE_PREFIX = "DashboardFragment#";
+    /** Upper bounds of the histogram buckets in milliseconds, the last bucket is unbounded. */
+    @VisibleForTesting
+    static final int[] BUCKET_UPPER_BOUNDS_MS = {1, 2, 4, 8, 16, 32, 64, 128, 256, 512, 1024};
+    private static final int SLOWEST_ENTRY_COUNT = 10;
+
+    private static final DashboardPhaseTimings sInstance = new DashboardPhaseTimings();
+
+    @GuardedBy("this")
+    private final Map<String, Map<String, Histogram>> mPages = new ArrayMap<>();
+    @GuardedBy("this")
+    private final Map<String, Map<String, Histogram>> mControllers = new ArrayMap<>();
+
+    /** Returns the timings shared by all dashboard pages. */
+    @NonNull
+    public static DashboardPhaseTimings getInstance() {
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    DashboardPhaseTimings() {}
+
+    /** Starts a phase trace section, and returns the start time to pass to {@link #endPhase}. */
+    static long beginPhase(@NonNull String phase) {
+        Trace.beginSection(TRACE_PREFIX + phase);
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /** Ends the trace section of the phase started at {@code startNanos} and records it. */
+    void endPhase(@NonNull String page, @NonNull String phase, long startNanos) {
+        Trace.endSection();
+        record(mPages, page, phase, SystemClock.elapsedRealtimeNanos() - startNanos);
+    }
+
+    /** Records the duration of a phase that did not run on a single trace section. */
+    void recordPhase(@NonNull String page, @NonNull String phase, long durationNanos) {
+        record(mPages, page, phase, durationNanos);
+    }
+
+    /** Records how long a controller took in one of its callbacks. */
+    void recordController(@NonNull String controller, @NonNull String callback,
+            long durationNanos) {
+        record(mControllers, controller, callback, durationNanos);
+    }
+
+    private synchronized void record(Map<String, Map<String, Histogram>> histograms, String name,
+            String phase, long durationNanos) {
+        Map<String, Histogram> phases = histograms.get(name);
+        if (phases == null) {
+            phases = new ArrayMap<>();
+            histograms.put(name, phases);
+        }
+        Histogram histogram = phases.get(phase);
+        if (histogram == null) {
+            histogram = new Histogram();
+            phases.put(phase, histogram);
+        }
+        histogram.add(durationNanos / 1000);
+    }
+
+    /** Drops all the recorded timings. */
+    synchronized void clear() {
+        mPages.clear();
+        mControllers.clear();
+    }
+
+    @VisibleForTesting
+    synchronized long getCount(String page, String phase) {
+        final Map<String, Histogram> phases = mPages.get(page);
+        final Histogram histogram = phases != null ? phases.get(phase) : null;
+        return histogram != null ? histogram.mCount : 0;
+    }
+
+    /**
+     * Returns the histograms of every page and controller, and the pages and controllers with
+     * the highest total mean time, for the dump service.
+     */
+    @NonNull
+    public synchronized JSONObject dump() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        final JSONArray buckets = new JSONArray();
+        for (int bound : BUCKET_UPPER_BOUNDS_MS) {
+            buckets.put(bound);
+        }
+        obj.put("bucketUpperBoundsMs", buckets);
+        obj.put("pages", dumpHistograms(mPages));
+        obj.put("controllers", dumpHistograms(mControllers));
+        obj.put("slowestPages", dumpSlowest(mPages));
+        obj.put("slowestControllers", dumpSlowest(mControllers));
+        return obj;
+    }
+
+    private static JSONObject dumpHistograms(Map<String, Map<String, Histogram>> histograms)
+            throws JSONException {
+        final JSONObject obj = new JSONObject();
+        for (Map.Entry<String, Map<String, Histogram>> entry : histograms.entrySet()) {
+            final JSONObject phases = new JSONObject();
+            for (Map.Entry<String, Histogram> phase : entry.getValue().entrySet()) {
+                phases.put(phase.getKey(), phase.getValue().toJson());
+            }
+            obj.put(entry.getKey(), phases);
+        }
+        return obj;
+    }
+
+    private static JSONArray dumpSlowest(Map<String, Map<String, Histogram>> histograms)
+            throws JSONException {
+        final List<Map.Entry<String, Long>> totals = new ArrayList<>(histograms.size());
+        for (Map.Entry<String, Map<String, Histogram>> entry : histograms.entrySet()) {
+            long totalMeanMicros = 0;
+            for (Histogram histogram : entry.getValue().values()) {
+                totalMeanMicros += histogram.getMeanMicros();
+            }
+            totals.add(Map.entry(entry.getKey(), totalMeanMicros));
+        }
+        totals.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        final JSONArray array = new JSONArray();
+        for (int i = 0; i < Math.min(SLOWEST_ENTRY_COUNT, totals.size()); i++) {
+            final JSONObject slowest = new JSONObject();
+            slowest.put("name", totals.get(i).getKey());
+            slowest.put("meanMs", totals.get(i).getValue() / 1000.0);
+            array.put(slowest);
+        }
+        return array;
+    }
+
+    private static class Histogram {
+        private final long[] mBucketCounts = new long[BUCKET_UPPER_BOUNDS_MS.length + 1];
+        private long mCount;
+        private long mTotalMicros;
+        private long mMaxMicros;
+
+        void add(long durationMicros) {
+            mCount++;
+            mTotalMicros += durationMicros;
+            mMaxMicros = Math.max(mMaxMicros, durationMicros);
+            int bucket = 0;
+            while (bucket < BUCKET_UPPER_BOUNDS_MS.length
+                    && durationMicros >= BUCKET_UPPER_BOUNDS_MS[bucket] * 1000L) {
+                bucket++;
+            }
+            mBucketCounts[bucket]++;
+        }
+
+        long getMeanMicros() {
+            return mCount > 0 ? mTotalMicros / mCount : 0;
+        }
+
+        JSONObject toJson() throws JSONException {
+            final JSONObject obj = new JSONObject();
+            obj.put("count", mCount);
+            obj.put("meanMs", getMeanMicros() / 1000.0);
+            obj.put("maxMs", mMaxMicros / 1000.0);
+            final JSONArray buckets = new JSONArray();
+            for (long count : mBucketCounts) {
+                buckets.put(count);
+            }
+            obj.put("buckets", buckets);
+            return obj;
+        }
+    }
+}
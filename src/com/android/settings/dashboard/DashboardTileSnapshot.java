@@ -0,0 +1,441 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.ChangedPackages;
+import android.content.pm.ComponentInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ProviderInfo;
+import android.content.res.Configuration;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.UserHandle;
+import android.provider.Settings;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.AtomicFile;
+import android.util.Log;
+import android.util.Pair;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.drawer.ActivityTile;
+import com.android.settingslib.drawer.DashboardCategory;
+import com.android.settingslib.drawer.ProviderTile;
+import com.android.settingslib.drawer.Tile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The dashboard categories persisted on disk, so that a cold start can show the injected tiles
+ * without resolving them from every package first.
+ *
+ * A snapshot is only read back by the same version of Settings on the same build, locale and
+ * density it was written for. It records the boot count, the package change sequence number and
+ * the version of every package contributing a tile, which tell the packages whose tiles may be
+ * stale.
+ *
+ * The tiles are written field by field in a format of their own, rather than as parcels, whose
+ * layout is not meant to be stored. Bump {@link #FORMAT_VERSION} when the format changes.
+ */
+class DashboardTileSnapshot {
+    private static final String TAG = "DashboardTileSnapshot";
+
+    @VisibleForTesting
+    static final String FILE_NAME = "dashboard_tiles";
+    @VisibleForTesting
+    static final int FORMAT_VERSION = 2;
+
+    // The types of the meta-data values, which only hold what a manifest can declare.
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_BOOLEAN = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_FLOAT = 5;
+    private static final byte TYPE_DOUBLE = 6;
+
+    private final List<DashboardCategory> mCategories;
+    private final Set<String> mListedKeys;
+    private final int mBootCount;
+    private final int mSequenceNumber;
+    private final Map<String, Long> mPackageVersions;
+
+    private DashboardTileSnapshot(List<DashboardCategory> categories, Set<String> listedKeys,
+            int bootCount, int sequenceNumber, Map<String, Long> packageVersions) {
+        mCategories = categories;
+        mListedKeys = listedKeys;
+        mBootCount = bootCount;
+        mSequenceNumber = sequenceNumber;
+        mPackageVersions = packageVersions;
+    }
+
+    /** Returns every category of the snapshot, including the ones only reachable by key. */
+    @NonNull
+    List<DashboardCategory> getCategories() {
+        return mCategories;
+    }
+
+    /** Returns whether the category is part of the list returned by {@code TileUtils}. */
+    boolean isListed(@NonNull String categoryKey) {
+        return mListedKeys.contains(categoryKey);
+    }
+
+    /**
+     * Returns the packages changed since the snapshot was written, or null if they cannot be
+     * told, for example after a reboot.
+     */
+    @Nullable
+    Set<String> getChangedPackages(@NonNull Context context) {
+        if (getBootCount(context) != mBootCount) {
+            return null;
+        }
+        final PackageManager pm = context.getPackageManager();
+        final Set<String> packages = new ArraySet<>();
+        final ChangedPackages changes = pm.getChangedPackages(mSequenceNumber);
+        if (changes != null) {
+            packages.addAll(changes.getPackageNames());
+        }
+        for (Map.Entry<String, Long> entry : mPackageVersions.entrySet()) {
+            if (!packages.contains(entry.getKey())
+                    && getPackageVersion(pm, entry.getKey()) != entry.getValue()) {
+                packages.add(entry.getKey());
+            }
+        }
+        return packages;
+    }
+
+    /**
+     * Flattens the categories, keyed by category key, and the keys of the ones returned by
+     * {@code TileUtils}. This is cheap enough to run while holding the category lock.
+     *
+     * @return the flattened categories, or null if a tile holds meta-data that cannot be written.
+     */
+    @Nullable
+    static byte[] marshallCategories(@NonNull Map<String, DashboardCategory> categoryByKeyMap,
+            @NonNull List<DashboardCategory> listedCategories) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(categoryByKeyMap.size());
+            for (DashboardCategory category : categoryByKeyMap.values()) {
+                out.writeUTF(category.key);
+                out.writeInt(category.getTilesCount());
+                for (int i = 0; i < category.getTilesCount(); i++) {
+                    writeTile(out, category.getTile(i));
+                }
+            }
+            out.writeInt(listedCategories.size());
+            for (DashboardCategory category : listedCategories) {
+                out.writeUTF(category.key);
+            }
+            out.flush();
+        } catch (IOException e) {
+            Log.w(TAG, "Not persisting the tiles", e);
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the categories flattened by {@link #marshallCategories} with the current package
+     * state. This queries the package manager, so it must not run on the main thread.
+     */
+    static void write(@NonNull Context context, @NonNull byte[] categories) {
+        final AtomicFile file = getFile(context);
+        FileOutputStream out = null;
+        try {
+            final byte[] data = toByteArray(context, categories);
+            out = file.startWrite();
+            out.write(data);
+            file.finishWrite(out);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Failed to write the tile snapshot", e);
+            if (out != null) {
+                file.failWrite(out);
+            }
+        }
+    }
+
+    /** Returns the snapshot persisted for the current environment, if any. */
+    @Nullable
+    static DashboardTileSnapshot read(@NonNull Context context) {
+        final AtomicFile file = getFile(context);
+        final byte[] data;
+        try {
+            data = file.readFully();
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read the tile snapshot", e);
+            return null;
+        }
+        final DashboardTileSnapshot snapshot = fromByteArray(context, data);
+        if (snapshot == null) {
+            file.delete();
+        }
+        return snapshot;
+    }
+
+    @VisibleForTesting
+    @NonNull
+    static byte[] toByteArray(@NonNull Context context, @NonNull byte[] categories)
+            throws IOException {
+        final PackageManager pm = context.getPackageManager();
+        final ChangedPackages changes = pm.getChangedPackages(0 /* sequenceNumber */);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(getEnvironmentKey(context));
+        out.writeInt(getBootCount(context));
+        out.writeInt(changes != null ? changes.getSequenceNumber() : 0);
+        final Set<String> packages = new ArraySet<>();
+        for (DashboardCategory category : readCategories(categories).first) {
+            for (int i = 0; i < category.getTilesCount(); i++) {
+                packages.add(category.getTile(i).getPackageName());
+            }
+        }
+        out.writeInt(packages.size());
+        for (String packageName : packages) {
+            out.writeUTF(packageName);
+            out.writeLong(getPackageVersion(pm, packageName));
+        }
+        out.writeInt(categories.length);
+        out.write(categories);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    @VisibleForTesting
+    @Nullable
+    static DashboardTileSnapshot fromByteArray(@NonNull Context context, @NonNull byte[] data) {
+        try {
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (in.readInt() != FORMAT_VERSION
+                    || !getEnvironmentKey(context).equals(in.readUTF())) {
+                return null;
+            }
+            final int bootCount = in.readInt();
+            final int sequenceNumber = in.readInt();
+            final int packageCount = in.readInt();
+            final Map<String, Long> packageVersions = new ArrayMap<>(packageCount);
+            for (int i = 0; i < packageCount; i++) {
+                packageVersions.put(in.readUTF(), in.readLong());
+            }
+            final byte[] categories = new byte[in.readInt()];
+            in.readFully(categories);
+            final Pair<List<DashboardCategory>, Set<String>> categoryList =
+                    readCategories(categories);
+            return new DashboardTileSnapshot(categoryList.first, categoryList.second, bootCount,
+                    sequenceNumber, packageVersions);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Discarding unreadable tile snapshot", e);
+            return null;
+        }
+    }
+
+    // Reads the categories flattened by marshallCategories, and the keys of the listed ones.
+    private static Pair<List<DashboardCategory>, Set<String>> readCategories(byte[] categories)
+            throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(categories));
+        final int categoryCount = in.readInt();
+        final List<DashboardCategory> categoryList = new ArrayList<>(categoryCount);
+        for (int i = 0; i < categoryCount; i++) {
+            final DashboardCategory category = new DashboardCategory(in.readUTF());
+            final int tileCount = in.readInt();
+            for (int j = 0; j < tileCount; j++) {
+                category.addTile(readTile(in));
+            }
+            categoryList.add(category);
+        }
+        final int listedCount = in.readInt();
+        final Set<String> listedKeys = new ArraySet<>(listedCount);
+        for (int i = 0; i < listedCount; i++) {
+            listedKeys.add(in.readUTF());
+        }
+        return new Pair<>(categoryList, listedKeys);
+    }
+
+    private static void writeTile(DataOutputStream out, Tile tile) throws IOException {
+        final ComponentName component = tile.getIntent().getComponent();
+        final boolean isProviderTile = tile instanceof ProviderTile;
+        out.writeBoolean(isProviderTile);
+        out.writeUTF(component.getPackageName());
+        out.writeUTF(component.getClassName());
+        if (isProviderTile) {
+            // The description is "<authority>/<key>", and an authority holds no slash.
+            final String description = tile.getDescription();
+            out.writeUTF(description.substring(0, description.indexOf('/')));
+        }
+        out.writeUTF(tile.getCategory());
+        out.writeInt(tile.userHandle.size());
+        for (UserHandle user : tile.userHandle) {
+            out.writeInt(user.getIdentifier());
+        }
+        writeMetaData(out, tile.getMetaData());
+    }
+
+    // The component info of a restored tile only names the component, the tile resolves it again
+    // from the package manager when it loads its title.
+    private static Tile readTile(DataInputStream in) throws IOException {
+        final boolean isProviderTile = in.readBoolean();
+        final ComponentInfo info = isProviderTile ? new ProviderInfo() : new ActivityInfo();
+        info.packageName = in.readUTF();
+        info.name = in.readUTF();
+        info.applicationInfo = new ApplicationInfo();
+        info.applicationInfo.packageName = info.packageName;
+        if (isProviderTile) {
+            ((ProviderInfo) info).authority = in.readUTF();
+        }
+        final String category = in.readUTF();
+        final int userCount = in.readInt();
+        final List<UserHandle> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(UserHandle.of(in.readInt()));
+        }
+        final Bundle metaData = readMetaData(in);
+        final Tile tile;
+        if (isProviderTile) {
+            tile = new ProviderTile((ProviderInfo) info, category, metaData);
+        } else {
+            info.metaData = metaData;
+            tile = new ActivityTile((ActivityInfo) info, category);
+        }
+        tile.userHandle.addAll(users);
+        return tile;
+    }
+
+    private static void writeMetaData(DataOutputStream out, @Nullable Bundle metaData)
+            throws IOException {
+        if (metaData == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(metaData.size());
+        for (String key : metaData.keySet()) {
+            out.writeUTF(key);
+            final Object value = metaData.get(key);
+            if (value == null) {
+                out.writeByte(TYPE_NULL);
+            } else if (value instanceof String) {
+                out.writeByte(TYPE_STRING);
+                out.writeUTF((String) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(TYPE_INT);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte(TYPE_BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            } else if (value instanceof Long) {
+                out.writeByte(TYPE_LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Float) {
+                out.writeByte(TYPE_FLOAT);
+                out.writeFloat((Float) value);
+            } else if (value instanceof Double) {
+                out.writeByte(TYPE_DOUBLE);
+                out.writeDouble((Double) value);
+            } else {
+                throw new IOException("Unsupported meta-data " + key + " of "
+                        + value.getClass().getName());
+            }
+        }
+    }
+
+    @Nullable
+    private static Bundle readMetaData(DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        final Bundle metaData = new Bundle();
+        for (int i = 0; i < size; i++) {
+            final String key = in.readUTF();
+            final byte type = in.readByte();
+            switch (type) {
+                case TYPE_NULL:
+                    metaData.putString(key, null);
+                    break;
+                case TYPE_STRING:
+                    metaData.putString(key, in.readUTF());
+                    break;
+                case TYPE_INT:
+                    metaData.putInt(key, in.readInt());
+                    break;
+                case TYPE_BOOLEAN:
+                    metaData.putBoolean(key, in.readBoolean());
+                    break;
+                case TYPE_LONG:
+                    metaData.putLong(key, in.readLong());
+                    break;
+                case TYPE_FLOAT:
+                    metaData.putFloat(key, in.readFloat());
+                    break;
+                case TYPE_DOUBLE:
+                    metaData.putDouble(key, in.readDouble());
+                    break;
+                default:
+                    throw new IOException("Unknown meta-data type " + type);
+            }
+        }
+        return metaData;
+    }
+
+    // The snapshot is dropped by an update of Settings, which may change how tiles are loaded,
+    // even when the build stays the same.
+    private static String getEnvironmentKey(Context context) {
+        final Configuration configuration = context.getResources().getConfiguration();
+        return Build.FINGERPRINT + '/'
+                + getPackageVersion(context.getPackageManager(), context.getPackageName())
+                + '/' + configuration.getLocales().toLanguageTags()
+                + '/' + configuration.densityDpi;
+    }
+
+    private static int getBootCount(Context context) {
+        return Settings.Global.getInt(context.getContentResolver(), Settings.Global.BOOT_COUNT,
+                -1 /* def */);
+    }
+
+    private static long getPackageVersion(PackageManager pm, String packageName) {
+        try {
+            return pm.getPackageInfo(packageName, 0 /* flags */).getLongVersionCode();
+        } catch (PackageManager.NameNotFoundException e) {
+            return -1;
+        }
+    }
+
+    private static AtomicFile getFile(Context context) {
+        return new AtomicFile(new File(context.getCacheDir(), FILE_NAME));
+    }
+}
@@ -0,0 +1,437 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_BACKGROUND;
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.settingslib.utils.ThreadUtils;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A process-wide cache of the icons that injected tiles load from a content provider.
+ *
+ * Icons are kept rasterized, already tinted, in memory keyed by (package, icon uri, tint,
+ * density, night mode, layout direction), and on disk under the version of the package
+ * providing them, so that pages opened again bind them without loading and tinting the icon.
+ * Each entry remembers the icon resource the provider returned, so that callers can ask the
+ * provider again and only reload the icon when it returns another one. Both tiers drop the
+ * icons of a package when it is changed.
+ */
+public class TileIconCache {
+    private static final String TAG = "TileIconCache";
+
+    private static final String DIRECTORY_NAME = "tile_icons";
+    private static final String FILE_SUFFIX = ".icon";
+    // Part of the file names, so that files of an older format are never read.
+    private static final int DISK_FORMAT_VERSION = 2;
+    private static final int MAX_MEMORY_CACHE_BYTES = 4 * 1024 * 1024;
+
+    private static final Object sInstanceLock = new Object();
+    @GuardedBy("sInstanceLock")
+    private static TileIconCache sInstance;
+
+    private final LruCache<Key, Entry> mMemoryCache;
+    @Nullable
+    private final File mDiskDirectory;
+    @GuardedBy("this")
+    private final Map<String, Long> mPackageVersions = new ArrayMap<>();
+    private final AtomicInteger mDiskHits = new AtomicInteger();
+    private final AtomicInteger mDiskMisses = new AtomicInteger();
+    private final AtomicInteger mProviderLoads = new AtomicInteger();
+
+    /**
+     * Static method to get the singleton cache, which starts listening to package changes on
+     * first use.
+     */
+    @NonNull
+    public static TileIconCache getInstance(@NonNull Context context) {
+        synchronized (sInstanceLock) {
+            if (sInstance != null) return sInstance;
+
+            final Context appContext = context.getApplicationContext() != null
+                    ? context.getApplicationContext() : context;
+            sInstance = new TileIconCache(
+                    (int) Math.min(Runtime.getRuntime().maxMemory() / 32, MAX_MEMORY_CACHE_BYTES),
+                    new File(appContext.getCacheDir(), DIRECTORY_NAME));
+            final IntentFilter filter = new IntentFilter();
+            filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+            filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+            filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+            filter.addDataScheme("package");
+            appContext.registerReceiverForAllUsers(new PackageChangeReceiver(), filter,
+                    null /* broadcastPermission */, null /* scheduler */);
+            return sInstance;
+        }
+    }
+
+    @VisibleForTesting
+    TileIconCache(int maxMemoryBytes, @Nullable File diskDirectory) {
+        mMemoryCache = new LruCache<>(maxMemoryBytes) {
+            @Override
+            protected int sizeOf(Key key, Entry entry) {
+                return Math.max(1, entry.mBitmap.getAllocationByteCount());
+            }
+        };
+        mDiskDirectory = diskDirectory;
+    }
+
+    /** Returns the icon if it is cached in memory, without any disk or provider access. */
+    @Nullable
+    public Entry get(@NonNull Key key) {
+        return mMemoryCache.get(key);
+    }
+
+    /** Returns the icon persisted on disk, and keeps it in memory for the next binds. */
+    @WorkerThread
+    @Nullable
+    public Entry getFromDisk(@NonNull Context context, @NonNull Key key) {
+        final File file = getFile(context, key);
+        if (file == null || !file.exists()) {
+            mDiskMisses.incrementAndGet();
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            final String iconPackage = in.readUTF();
+            final int iconResId = in.readInt();
+            final Bitmap bitmap = BitmapFactory.decodeStream(in);
+            if (bitmap == null) {
+                throw new IOException("Undecodable icon");
+            }
+            bitmap.setDensity(key.mDensityDpi);
+            final Entry entry = new Entry(iconPackage, iconResId, bitmap);
+            mMemoryCache.put(key, entry);
+            mDiskHits.incrementAndGet();
+            return entry;
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read cached icon " + file, e);
+            file.delete();
+            mDiskMisses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Rasterizes the icon loaded from the provider and caches it in memory and on disk.
+     *
+     * @return the cached icon, or null if the drawable has no intrinsic size to rasterize.
+     */
+    @WorkerThread
+    @Nullable
+    public Entry put(@NonNull Context context, @NonNull Key key, @NonNull String iconPackage,
+            int iconResId, @NonNull Drawable drawable) {
+        mProviderLoads.incrementAndGet();
+        final int width = drawable.getIntrinsicWidth();
+        final int height = drawable.getIntrinsicHeight();
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.setDensity(key.mDensityDpi);
+        final Canvas canvas = new Canvas(bitmap);
+        drawable.setBounds(0, 0, width, height);
+        drawable.draw(canvas);
+
+        final Entry entry = new Entry(iconPackage, iconResId, bitmap);
+        mMemoryCache.put(key, entry);
+        writeToDisk(context, key, entry);
+        return entry;
+    }
+
+    private void writeToDisk(Context context, Key key, Entry entry) {
+        final File file = getFile(context, key);
+        if (file == null || (!mDiskDirectory.exists() && !mDiskDirectory.mkdirs())) {
+            return;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(entry.mIconPackage);
+            out.writeInt(entry.mIconResId);
+            entry.mBitmap.compress(Bitmap.CompressFormat.PNG, 100 /* quality */, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to encode icon", e);
+            return;
+        }
+        final File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(bytes.toByteArray());
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write icon " + file, e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+        }
+    }
+
+    // The file is named after the package so it can be dropped with the package, and a digest
+    // of the key and the package version so a new version never reads icons of the old one.
+    @Nullable
+    private File getFile(Context context, Key key) {
+        if (mDiskDirectory == null || key.mPackageName == null) {
+            return null;
+        }
+        final long version = getPackageVersion(context, key.mPackageName);
+        if (version < 0) {
+            return null;
+        }
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((key.mUri + '|' + key.mTintColor + '|' + key.mDensityDpi + '|'
+                    + key.mNightMode + '|' + key.mLayoutDirection + '|' + version + '|'
+                    + DISK_FORMAT_VERSION)
+                    .getBytes(StandardCharsets.UTF_8));
+            final StringBuilder name = new StringBuilder(key.mPackageName).append('@');
+            for (byte b : digest.digest()) {
+                name.append(String.format("%02x", b));
+            }
+            return new File(mDiskDirectory, name.append(FILE_SUFFIX).toString());
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    private long getPackageVersion(Context context, String packageName) {
+        synchronized (this) {
+            final Long version = mPackageVersions.get(packageName);
+            if (version != null) {
+                return version;
+            }
+        }
+        long version;
+        try {
+            version = context.getPackageManager().getPackageInfo(packageName, 0 /* flags */)
+                    .getLongVersionCode();
+        } catch (PackageManager.NameNotFoundException e) {
+            version = -1;
+        }
+        synchronized (this) {
+            mPackageVersions.put(packageName, version);
+        }
+        return version;
+    }
+
+    /** Drops all the icons provided by the package, in memory and on disk. */
+    @WorkerThread
+    public void invalidatePackage(@NonNull String packageName) {
+        invalidatePackageInMemory(packageName);
+        deletePackageFiles(packageName);
+    }
+
+    private void invalidatePackageInMemory(String packageName) {
+        for (Map.Entry<Key, Entry> entry : mMemoryCache.snapshot().entrySet()) {
+            if (packageName.equals(entry.getKey().mPackageName)
+                    || packageName.equals(entry.getValue().mIconPackage)) {
+                mMemoryCache.remove(entry.getKey());
+            }
+        }
+        synchronized (this) {
+            mPackageVersions.remove(packageName);
+        }
+    }
+
+    @WorkerThread
+    private void deletePackageFiles(String packageName) {
+        final File[] files = mDiskDirectory != null ? mDiskDirectory.listFiles() : null;
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.getName().startsWith(packageName + '@')) {
+                file.delete();
+            }
+        }
+    }
+
+    /** Trims the memory tier according to the memory pressure. */
+    public void trimMemory(int level) {
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            mMemoryCache.evictAll();
+        } else if (level >= TRIM_MEMORY_UI_HIDDEN) {
+            mMemoryCache.trimToSize(mMemoryCache.maxSize() / 2);
+        }
+    }
+
+    /** Returns the hit rate of each tier and the memory footprint for the dump service. */
+    @NonNull
+    public JSONObject dump() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        obj.put("memoryHits", mMemoryCache.hitCount());
+        obj.put("memoryMisses", mMemoryCache.missCount());
+        obj.put("memoryEvictions", mMemoryCache.evictionCount());
+        obj.put("memoryCount", mMemoryCache.snapshot().size());
+        obj.put("memoryBytes", mMemoryCache.size());
+        obj.put("memoryMaxBytes", mMemoryCache.maxSize());
+        obj.put("diskHits", mDiskHits.get());
+        obj.put("diskMisses", mDiskMisses.get());
+        obj.put("providerLoads", mProviderLoads.get());
+        return obj;
+    }
+
+    @VisibleForTesting
+    int getMemoryHitCount() {
+        return mMemoryCache.hitCount();
+    }
+
+    @VisibleForTesting
+    int getDiskHitCount() {
+        return mDiskHits.get();
+    }
+
+    /**
+     * Identifies an icon: the provider package and uri, and how the icon is rendered. Providers
+     * may return themed or mirrored icons, so the night mode and the layout direction are part
+     * of the key along with the density.
+     */
+    public static final class Key {
+        @Nullable
+        final String mPackageName;
+        final String mUri;
+        @Nullable
+        final Integer mTintColor;
+        final int mDensityDpi;
+        final int mNightMode;
+        final int mLayoutDirection;
+
+        public Key(@Nullable String packageName, @NonNull Uri uri, @Nullable Integer tintColor,
+                @NonNull Configuration configuration) {
+            this(packageName, uri, tintColor, configuration.densityDpi,
+                    configuration.uiMode & Configuration.UI_MODE_NIGHT_MASK,
+                    configuration.getLayoutDirection());
+        }
+
+        @VisibleForTesting
+        Key(@Nullable String packageName, @NonNull Uri uri, @Nullable Integer tintColor,
+                int densityDpi, int nightMode, int layoutDirection) {
+            mPackageName = packageName;
+            mUri = uri.toString();
+            mTintColor = tintColor;
+            mDensityDpi = densityDpi;
+            mNightMode = nightMode;
+            mLayoutDirection = layoutDirection;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key other = (Key) o;
+            return mDensityDpi == other.mDensityDpi
+                    && mNightMode == other.mNightMode
+                    && mLayoutDirection == other.mLayoutDirection
+                    && Objects.equals(mPackageName, other.mPackageName)
+                    && mUri.equals(other.mUri)
+                    && Objects.equals(mTintColor, other.mTintColor);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(mPackageName, mUri, mTintColor, mDensityDpi, mNightMode,
+                    mLayoutDirection);
+        }
+    }
+
+    /** A rasterized icon, and the package and resource it was loaded from. */
+    public static final class Entry {
+        final String mIconPackage;
+        final int mIconResId;
+        final Bitmap mBitmap;
+
+        Entry(@NonNull String iconPackage, int iconResId, @NonNull Bitmap bitmap) {
+            mIconPackage = iconPackage;
+            mIconResId = iconResId;
+            mBitmap = bitmap;
+        }
+
+        @NonNull
+        public String getIconPackage() {
+            return mIconPackage;
+        }
+
+        /** Returns whether the icon was loaded from the given resource of the given package. */
+        public boolean isLoadedFrom(@NonNull String iconPackage, int iconResId) {
+            return mIconResId == iconResId && mIconPackage.equals(iconPackage);
+        }
+
+        /** Returns a new drawable sharing the cached bitmap. */
+        @NonNull
+        public Drawable newDrawable(@NonNull Resources res) {
+            return new BitmapDrawable(res, mBitmap);
+        }
+    }
+
+    private static class PackageChangeReceiver extends BroadcastReceiver {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final Uri data = intent.getData();
+            final String packageName = data != null ? data.getSchemeSpecificPart() : null;
+            if (packageName == null) {
+                Log.w(TAG, "Package change without a package name: " + intent);
+                return;
+            }
+            final TileIconCache cache;
+            synchronized (sInstanceLock) {
+                cache = sInstance;
+            }
+            if (cache != null) {
+                cache.invalidatePackageInMemory(packageName);
+                ThreadUtils.postOnBackgroundThread(() -> cache.deletePackageFiles(packageName));
+            }
+        }
+    }
+}
@@ -29,7 +29,6 @@ import android.net.NetworkTemplate;
 import android.os.Bundle;
 import android.os.UserHandle;
 import android.util.ArraySet;
-import android.util.IconDrawableFactory;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -41,6 +40,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.settings.R;
 import com.android.settings.applications.AppInfoBase;
+import com.android.settings.applications.BadgedAppIconCache;
 import com.android.settings.datausage.lib.AppDataUsageDetailsRepository;
 import com.android.settings.datausage.lib.NetworkTemplates;
 import com.android.settings.fuelgauge.datasaver.DynamicDenylistManager;
@@ -150,8 +150,10 @@ public class AppDataUsage extends DataUsageBaseFragment implements OnPreferenceC
                     try {
                         final ApplicationInfo info = mPackageManager.getApplicationInfoAsUser(
                                 mPackages.valueAt(0), 0, userId);
-                        mIcon = IconDrawableFactory.newInstance(getActivity()).getBadgedIcon(info);
-                        mLabel = info.loadLabel(mPackageManager);
+                        final BadgedAppIconCache iconCache =
+                                BadgedAppIconCache.getInstance(getActivity());
+                        mIcon = iconCache.getBadgedIcon(getActivity(), info);
+                        mLabel = iconCache.getLabel(getActivity(), info);
                         mPackageName = info.packageName;
                     } catch (PackageManager.NameNotFoundException e) {
                     }
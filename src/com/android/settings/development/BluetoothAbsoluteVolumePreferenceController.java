@@ -26,9 +26,12 @@ import androidx.preference.TwoStatePreference;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
+import java.util.List;
+
 public class BluetoothAbsoluteVolumePreferenceController extends
         DeveloperOptionsPreferenceController implements Preference.OnPreferenceChangeListener,
-        PreferenceControllerMixin {
+        PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String BLUETOOTH_DISABLE_ABSOLUTE_VOLUME_KEY =
             "bluetooth_disable_absolute_volume";
@@ -60,6 +63,11 @@ public class BluetoothAbsoluteVolumePreferenceController extends
         ((TwoStatePreference) mPreference).setChecked(isEnabled);
     }
 
+    @Override
+    public List<String> getSystemPropertyDependencies() {
+        return List.of(BLUETOOTH_DISABLE_ABSOLUTE_VOLUME_PROPERTY);
+    }
+
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
@@ -28,8 +28,11 @@ import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.R;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
+import java.util.List;
+
 public class BluetoothAvrcpVersionPreferenceController extends DeveloperOptionsPreferenceController
-        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin {
+        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String BLUETOOTH_SELECT_AVRCP_VERSION_KEY =
             "bluetooth_select_avrcp_version";
@@ -73,4 +76,9 @@ public class BluetoothAvrcpVersionPreferenceController extends DeveloperOptionsP
         listPreference.setValue(mListValues[index]);
         listPreference.setSummary(mListSummaries[index]);
     }
+
+    @Override
+    public List<String> getSystemPropertyDependencies() {
+        return List.of(BLUETOOTH_AVRCP_VERSION_PROPERTY);
+    }
 }
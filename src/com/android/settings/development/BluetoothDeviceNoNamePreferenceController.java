@@ -26,9 +26,12 @@ import androidx.preference.TwoStatePreference;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
+import java.util.List;
+
 public class BluetoothDeviceNoNamePreferenceController extends
         DeveloperOptionsPreferenceController implements Preference.OnPreferenceChangeListener,
-        PreferenceControllerMixin {
+        PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String BLUETOOTH_SHOW_DEVICES_WITHOUT_NAMES_KEY =
             "bluetooth_show_devices_without_names";
@@ -60,6 +63,11 @@ public class BluetoothDeviceNoNamePreferenceController extends
         ((TwoStatePreference) mPreference).setChecked(isEnabled);
     }
 
+    @Override
+    public List<String> getSystemPropertyDependencies() {
+        return List.of(BLUETOOTH_SHOW_DEVICES_WITHOUT_NAMES_PROPERTY);
+    }
+
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
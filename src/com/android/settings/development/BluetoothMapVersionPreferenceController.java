@@ -28,11 +28,14 @@ import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.R;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
+import java.util.List;
+
 /**
  * Preference controller to control Bluetooth MAP version
  */
 public class BluetoothMapVersionPreferenceController extends DeveloperOptionsPreferenceController
-        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin {
+        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String BLUETOOTH_SELECT_MAP_VERSION_KEY =
             "bluetooth_select_map_version";
@@ -76,4 +79,9 @@ public class BluetoothMapVersionPreferenceController extends DeveloperOptionsPre
         listPreference.setValue(mListValues[index]);
         listPreference.setSummary(mListSummaries[index]);
     }
+
+    @Override
+    public List<String> getSystemPropertyDependencies() {
+        return List.of(BLUETOOTH_MAP_VERSION_PROPERTY);
+    }
 }
@@ -28,8 +28,11 @@ import com.android.settings.R;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
+import java.util.List;
+
 public class CameraLaserSensorPreferenceController extends DeveloperOptionsPreferenceController
-        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin {
+        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String KEY_CAMERA_LASER_SENSOR_SWITCH = "camera_laser_sensor_switch";
     @VisibleForTesting
@@ -75,6 +78,11 @@ public class CameraLaserSensorPreferenceController extends DeveloperOptionsPrefe
         ((TwoStatePreference) mPreference).setChecked(enabled);
     }
 
+    @Override
+    public List<String> getSystemPropertyDependencies() {
+        return List.of(PROPERTY_CAMERA_LASER_SENSOR);
+    }
+
     // There should be no impact on the current
     // laser sensor settings in case the developer
     // settings switch is turned on or off!
@@ -29,8 +29,11 @@ import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 import com.android.settingslib.development.SystemPropPoker;
 
+import java.util.List;
+
 public class CoolColorTemperaturePreferenceController extends DeveloperOptionsPreferenceController
-        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin {
+        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String COLOR_TEMPERATURE_KEY = "color_temperature";
 
@@ -68,6 +71,11 @@ public class CoolColorTemperaturePreferenceController extends DeveloperOptionsPr
         ((TwoStatePreference) mPreference).setChecked(enableColorTemperature);
     }
 
+    @Override
+    public List<String> getSystemPropertyDependencies() {
+        return List.of(COLOR_TEMPERATURE_PROPERTY);
+    }
+
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
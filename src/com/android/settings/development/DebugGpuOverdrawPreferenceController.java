@@ -28,9 +28,12 @@ import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 import com.android.settingslib.development.SystemPropPoker;
 
+import java.util.List;
+
 public class DebugGpuOverdrawPreferenceController extends
         DeveloperOptionsPreferenceController implements Preference.OnPreferenceChangeListener,
-        PreferenceControllerMixin {
+        PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String DEBUG_HW_OVERDRAW_KEY = "debug_hw_overdraw";
 
@@ -63,6 +66,11 @@ public class DebugGpuOverdrawPreferenceController extends
         updateDebugHwOverdrawOptions();
     }
 
+    @Override
+    public List<String> getSystemPropertyDependencies() {
+        return List.of(ThreadedRenderer.DEBUG_OVERDRAW_PROPERTY);
+    }
+
     private void writeDebugHwOverdrawOptions(Object newValue) {
         SystemProperties.set(ThreadedRenderer.DEBUG_OVERDRAW_PROPERTY,
                 newValue == null ? "" : newValue.toString());
@@ -28,9 +28,12 @@ import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 import com.android.settingslib.development.SystemPropPoker;
 
+import java.util.List;
+
 public class DebugNonRectClipOperationsPreferenceController extends
         DeveloperOptionsPreferenceController implements Preference.OnPreferenceChangeListener,
-        PreferenceControllerMixin {
+        PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String SHOW_NON_RECTANGULAR_CLIP_KEY = "show_non_rect_clip";
 
@@ -63,6 +66,11 @@ public class DebugNonRectClipOperationsPreferenceController extends
         updateShowNonRectClipOptions();
     }
 
+    @Override
+    public List<String> getSystemPropertyDependencies() {
+        return List.of(ThreadedRenderer.DEBUG_SHOW_NON_RECTANGULAR_CLIP_PROPERTY);
+    }
+
     private void writeShowNonRectClipOptions(Object newValue) {
         SystemProperties.set(ThreadedRenderer.DEBUG_SHOW_NON_RECTANGULAR_CLIP_PROPERTY,
                 newValue == null ? "" : newValue.toString());
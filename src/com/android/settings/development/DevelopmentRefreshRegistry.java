@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.development;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.SystemProperties;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps the system properties, settings and broadcasts that developer options depends on to the
+ * controllers reading them, so that a change refreshes only those controllers.
+ *
+ * Changes arriving within {@link #REFRESH_DELAY_MS} of each other are refreshed together, as
+ * toggling a single option pokes every process and may change several properties at once.
+ * All methods except {@link #onSystemPropertiesChanged()} must be called on the handler thread.
+ */
+public class DevelopmentRefreshRegistry {
+
+    private static final String TAG = "DevRefreshRegistry";
+
+    @VisibleForTesting
+    static final long REFRESH_DELAY_MS = 100;
+
+    /** Callback refreshing the preferences of the given controllers. */
+    public interface Refresher {
+        /** Refreshes the controllers, in the order they were registered. */
+        void refresh(@NonNull List<AbstractPreferenceController> controllers);
+    }
+
+    private final ContentResolver mContentResolver;
+    private final Handler mHandler;
+    private final Refresher mRefresher;
+    private final List<AbstractPreferenceController> mControllers;
+    private final List<AbstractPreferenceController> mUndeclaredControllers = new ArrayList<>();
+    private final Map<String, List<AbstractPreferenceController>> mPropertyDependents =
+            new ArrayMap<>();
+    private final Map<Uri, List<AbstractPreferenceController>> mSettingsDependents =
+            new ArrayMap<>();
+    private final Map<String, String> mPropertyValues = new ArrayMap<>();
+    private final List<AdbOnChangeListener> mAdbListeners = new ArrayList<>();
+    private final List<BluetoothServiceConnectionListener> mBluetoothListeners =
+            new ArrayList<>();
+
+    private final Set<Uri> mPendingSettings = new ArraySet<>();
+    private int mPendingPropertyChanges;
+    private boolean mRefreshScheduled;
+    private boolean mStarted;
+
+    private long mRefreshCount;
+    private long mAvoidedRefreshCount;
+
+    private final ContentObserver mSettingsObserver;
+    private final Runnable mPropertiesChanged = () -> {
+        if (mStarted) {
+            mPendingPropertyChanges++;
+            scheduleRefresh();
+        }
+    };
+    private final Runnable mRefresh = this::refresh;
+
+    public DevelopmentRefreshRegistry(@NonNull ContentResolver contentResolver,
+            @NonNull Handler handler, @NonNull List<AbstractPreferenceController> controllers,
+            @NonNull Refresher refresher) {
+        mContentResolver = contentResolver;
+        mHandler = handler;
+        mRefresher = refresher;
+        mControllers = controllers;
+        mSettingsObserver = new ContentObserver(handler) {
+            @Override
+            public void onChange(boolean selfChange, @Nullable Uri uri) {
+                if (mStarted && uri != null) {
+                    mPendingSettings.add(uri);
+                    scheduleRefresh();
+                }
+            }
+        };
+        for (AbstractPreferenceController controller : controllers) {
+            if (controller instanceof AdbOnChangeListener) {
+                mAdbListeners.add((AdbOnChangeListener) controller);
+            }
+            if (controller instanceof BluetoothServiceConnectionListener) {
+                mBluetoothListeners.add((BluetoothServiceConnectionListener) controller);
+            }
+            if (!(controller instanceof DevelopmentStateDependencies)) {
+                mUndeclaredControllers.add(controller);
+                continue;
+            }
+            final DevelopmentStateDependencies dependencies =
+                    (DevelopmentStateDependencies) controller;
+            for (String property : dependencies.getSystemPropertyDependencies()) {
+                mPropertyDependents.computeIfAbsent(property, k -> new ArrayList<>())
+                        .add(controller);
+            }
+            for (Uri uri : dependencies.getSettingsDependencies()) {
+                mSettingsDependents.computeIfAbsent(uri, k -> new ArrayList<>()).add(controller);
+            }
+        }
+    }
+
+    /** Starts observing the declared settings and snapshots the declared properties. */
+    public void start() {
+        if (mStarted) {
+            return;
+        }
+        mStarted = true;
+        for (String property : mPropertyDependents.keySet()) {
+            mPropertyValues.put(property, SystemProperties.get(property));
+        }
+        for (Uri uri : mSettingsDependents.keySet()) {
+            mContentResolver.registerContentObserver(uri, false /* notifyForDescendants */,
+                    mSettingsObserver);
+        }
+    }
+
+    /** Stops observing and drops the changes not refreshed yet. */
+    public void stop() {
+        if (!mStarted) {
+            return;
+        }
+        mStarted = false;
+        mContentResolver.unregisterContentObserver(mSettingsObserver);
+        mHandler.removeCallbacks(mPropertiesChanged);
+        mHandler.removeCallbacks(mRefresh);
+        mRefreshScheduled = false;
+        mPendingPropertyChanges = 0;
+        mPendingSettings.clear();
+    }
+
+    /**
+     * Called from {@link SystemProperties#addChangeCallback} on any thread, when some system
+     * property has changed.
+     */
+    public void onSystemPropertiesChanged() {
+        mHandler.post(mPropertiesChanged);
+    }
+
+    /** Returns the controllers to notify of ADB setting changes. */
+    @NonNull
+    public List<AdbOnChangeListener> getAdbListeners() {
+        return Collections.unmodifiableList(mAdbListeners);
+    }
+
+    /** Returns the controllers to notify of Bluetooth A2DP service and codec changes. */
+    @NonNull
+    public List<BluetoothServiceConnectionListener> getBluetoothListeners() {
+        return Collections.unmodifiableList(mBluetoothListeners);
+    }
+
+    /** Returns the number of controller refreshes done for changes. */
+    @VisibleForTesting
+    long getRefreshCount() {
+        return mRefreshCount;
+    }
+
+    /**
+     * Returns the number of controller refreshes avoided, compared to refreshing every controller
+     * for every system property change.
+     */
+    @VisibleForTesting
+    long getAvoidedRefreshCount() {
+        return mAvoidedRefreshCount;
+    }
+
+    private void scheduleRefresh() {
+        if (!mRefreshScheduled) {
+            mRefreshScheduled = true;
+            mHandler.postDelayed(mRefresh, REFRESH_DELAY_MS);
+        }
+    }
+
+    @VisibleForTesting
+    void refresh() {
+        mRefreshScheduled = false;
+        final Set<AbstractPreferenceController> dirty = new ArraySet<>();
+        final List<String> changedProperties = new ArrayList<>();
+        if (mPendingPropertyChanges > 0) {
+            dirty.addAll(mUndeclaredControllers);
+            for (Map.Entry<String, List<AbstractPreferenceController>> entry
+                    : mPropertyDependents.entrySet()) {
+                final String property = entry.getKey();
+                final String value = SystemProperties.get(property);
+                if (!TextUtils.equals(value, mPropertyValues.get(property))) {
+                    mPropertyValues.put(property, value);
+                    changedProperties.add(property);
+                    dirty.addAll(entry.getValue());
+                }
+            }
+        }
+        for (Uri uri : mPendingSettings) {
+            final List<AbstractPreferenceController> dependents = mSettingsDependents.get(uri);
+            if (dependents != null) {
+                dirty.addAll(dependents);
+            }
+        }
+
+        final List<AbstractPreferenceController> controllers = new ArrayList<>(dirty.size());
+        for (AbstractPreferenceController controller : mControllers) {
+            if (dirty.contains(controller)) {
+                controllers.add(controller);
+            }
+        }
+        final long avoided = Math.max(0,
+                (long) mPendingPropertyChanges * mControllers.size() - controllers.size());
+        mRefreshCount += controllers.size();
+        mAvoidedRefreshCount += avoided;
+        Log.d(TAG, "refresh() " + controllers.size() + " controllers for "
+                + mPendingPropertyChanges + " property changes " + changedProperties
+                + " and settings " + mPendingSettings + ", avoided " + avoided
+                + " refreshes, " + mAvoidedRefreshCount + " in total");
+        mPendingPropertyChanges = 0;
+        mPendingSettings.clear();
+        if (!controllers.isEmpty()) {
+            mRefresher.refresh(controllers);
+        }
+    }
+}
@@ -108,15 +108,14 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
     private SettingsMainSwitchBar mSwitchBar;
     private DevelopmentSwitchBarController mSwitchBarController;
     private List<AbstractPreferenceController> mPreferenceControllers = new ArrayList<>();
+    private DevelopmentRefreshRegistry mRefreshRegistry;
     private BluetoothA2dp mBluetoothA2dp;
 
     private final BroadcastReceiver mEnableAdbReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
-            for (AbstractPreferenceController controller : mPreferenceControllers) {
-                if (controller instanceof AdbOnChangeListener) {
-                    ((AdbOnChangeListener) controller).onAdbSettingChanged();
-                }
+            for (AdbOnChangeListener listener : mRefreshRegistry.getAdbListeners()) {
+                listener.onAdbSettingChanged();
             }
         }
     };
@@ -131,10 +130,9 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
                 BluetoothCodecStatus codecStatus = intent.getParcelableExtra(
                         BluetoothCodecStatus.EXTRA_CODEC_STATUS);
                 Log.d(TAG, "Received BluetoothCodecStatus=" + codecStatus);
-                for (AbstractPreferenceController controller : mPreferenceControllers) {
-                    if (controller instanceof BluetoothServiceConnectionListener) {
-                        ((BluetoothServiceConnectionListener) controller).onBluetoothCodecUpdated();
-                    }
+                for (BluetoothServiceConnectionListener listener
+                        : mRefreshRegistry.getBluetoothListeners()) {
+                    listener.onBluetoothCodecUpdated();
                 }
             }
         }
@@ -149,11 +147,9 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
                     synchronized (mBluetoothA2dpConfigStore) {
                         mBluetoothA2dp = (BluetoothA2dp) proxy;
                     }
-                    for (AbstractPreferenceController controller : mPreferenceControllers) {
-                        if (controller instanceof BluetoothServiceConnectionListener) {
-                            ((BluetoothServiceConnectionListener) controller)
-                                    .onBluetoothServiceConnected(mBluetoothA2dp);
-                        }
+                    for (BluetoothServiceConnectionListener listener
+                            : mRefreshRegistry.getBluetoothListeners()) {
+                        listener.onBluetoothServiceConnected(mBluetoothA2dp);
                     }
                 }
 
@@ -162,11 +158,9 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
                     synchronized (mBluetoothA2dpConfigStore) {
                         mBluetoothA2dp = null;
                     }
-                    for (AbstractPreferenceController controller : mPreferenceControllers) {
-                        if (controller instanceof BluetoothServiceConnectionListener) {
-                            ((BluetoothServiceConnectionListener) controller)
-                                    .onBluetoothServiceDisconnected();
-                        }
+                    for (BluetoothServiceConnectionListener listener
+                            : mRefreshRegistry.getBluetoothListeners()) {
+                        listener.onBluetoothServiceDisconnected();
                     }
                 }
             };
@@ -174,14 +168,9 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
     private final Runnable mSystemPropertiesChanged = new Runnable() {
         @Override
         public void run() {
-            synchronized (this) {
-                Activity activity = getActivity();
-                if (activity != null) {
-                    activity.runOnUiThread(() -> {
-                        updatePreferenceStates();
-                    });
-                }
-            }
+            // Refreshes only the controllers reading a changed property, see
+            // DevelopmentRefreshRegistry.
+            mRefreshRegistry.onSystemPropertiesChanged();
         }
     };
 
@@ -322,6 +311,7 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
             Bundle savedInstanceState) {
         registerReceivers();
+        mRefreshRegistry.start();
         SystemProperties.addChangeCallback(mSystemPropertiesChanged);
         final BluetoothAdapter adapter = BluetoothAdapter.getDefaultAdapter();
         if (adapter != null) {
@@ -347,6 +337,7 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
             mBluetoothA2dp = null;
         }
         SystemProperties.removeChangeCallback(mSystemPropertiesChanged);
+        mRefreshRegistry.stop();
     }
 
     @Override
@@ -567,14 +558,26 @@ public class DevelopmentSettingsDashboardFragment extends RestrictedDashboardFra
     protected List<AbstractPreferenceController> createPreferenceControllers(Context context) {
         if (Utils.isMonkeyRunning()) {
             mPreferenceControllers = new ArrayList<>();
+            mRefreshRegistry = createRefreshRegistry(context);
             return null;
         }
         mPreferenceControllers = buildPreferenceControllers(context, getActivity(),
                 getSettingsLifecycle(), this /* devOptionsDashboardFragment */,
                 new BluetoothA2dpConfigStore());
+        mRefreshRegistry = createRefreshRegistry(context);
         return mPreferenceControllers;
     }
 
+    private DevelopmentRefreshRegistry createRefreshRegistry(Context context) {
+        return new DevelopmentRefreshRegistry(context.getContentResolver(),
+                new Handler(Looper.getMainLooper()), mPreferenceControllers,
+                controllers -> {
+                    if (getPreferenceScreen() != null) {
+                        updatePreferenceStates(controllers);
+                    }
+                });
+    }
+
     private void registerReceivers() {
         LocalBroadcastManager.getInstance(getContext())
                 .registerReceiver(mEnableAdbReceiver, new IntentFilter(
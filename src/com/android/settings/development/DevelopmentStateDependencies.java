@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.development;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Interface for developer options controllers that declare everything their state is read from,
+ * so that {@link DevelopmentRefreshRegistry} refreshes them only when one of those changes.
+ *
+ * Controllers that do not implement it are refreshed on every system property change. Broadcast
+ * dependencies are declared by implementing {@link AdbOnChangeListener} or
+ * {@link BluetoothServiceConnectionListener}.
+ */
+public interface DevelopmentStateDependencies {
+
+    /**
+     * Returns the system properties read by updateState.
+     */
+    @NonNull
+    default List<String> getSystemPropertyDependencies() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the settings URIs read by updateState, observed while developer options is shown.
+     */
+    @NonNull
+    default List<Uri> getSettingsDependencies() {
+        return Collections.emptyList();
+    }
+}
@@ -27,8 +27,11 @@ import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 import com.android.settingslib.development.SystemPropPoker;
 
+import java.util.List;
+
 public class ForceDarkPreferenceController extends DeveloperOptionsPreferenceController
-        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin {
+        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String HWUI_FORCE_DARK = "hwui_force_dark";
 
@@ -57,6 +60,11 @@ public class ForceDarkPreferenceController extends DeveloperOptionsPreferenceCon
         ((TwoStatePreference) mPreference).setChecked(isEnabled);
     }
 
+    @Override
+    public List<String> getSystemPropertyDependencies() {
+        return List.of(ThreadedRenderer.DEBUG_FORCE_DARK);
+    }
+
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
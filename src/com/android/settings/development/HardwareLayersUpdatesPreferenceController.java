@@ -27,8 +27,11 @@ import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 import com.android.settingslib.development.SystemPropPoker;
 
+import java.util.List;
+
 public class HardwareLayersUpdatesPreferenceController extends DeveloperOptionsPreferenceController
-        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin {
+        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String SHOW_HW_LAYERS_UPDATES_KEY = "show_hw_layers_updates";
 
@@ -57,6 +60,11 @@ public class HardwareLayersUpdatesPreferenceController extends DeveloperOptionsP
         ((TwoStatePreference) mPreference).setChecked(isEnabled);
     }
 
+    @Override
+    public List<String> getSystemPropertyDependencies() {
+        return List.of(ThreadedRenderer.DEBUG_SHOW_LAYERS_UPDATES_PROPERTY);
+    }
+
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
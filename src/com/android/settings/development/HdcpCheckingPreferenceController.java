@@ -30,8 +30,11 @@ import com.android.settingslib.R;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 import com.android.settingslib.development.SystemPropPoker;
 
+import java.util.List;
+
 public class HdcpCheckingPreferenceController extends DeveloperOptionsPreferenceController
-        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin {
+        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String HDCP_CHECKING_KEY = "hdcp_checking";
 
@@ -73,6 +76,11 @@ public class HdcpCheckingPreferenceController extends DeveloperOptionsPreference
         updateHdcpValues((ListPreference) mPreference);
     }
 
+    @Override
+    public List<String> getSystemPropertyDependencies() {
+        return List.of(HDCP_CHECKING_PROPERTY);
+    }
+
     private void updateHdcpValues(ListPreference preference) {
         final String currentValue = SystemProperties.get(HDCP_CHECKING_PROPERTY);
         int index = 1; // Defaults to drm-only. Needs to match with R.array.hdcp_checking_values
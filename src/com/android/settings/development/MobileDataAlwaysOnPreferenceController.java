@@ -17,6 +17,7 @@
 package com.android.settings.development;
 
 import android.content.Context;
+import android.net.Uri;
 import android.provider.Settings;
 
 import androidx.annotation.VisibleForTesting;
@@ -26,9 +27,12 @@ import androidx.preference.TwoStatePreference;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
+import java.util.List;
+
 public class MobileDataAlwaysOnPreferenceController extends
         DeveloperOptionsPreferenceController implements Preference.OnPreferenceChangeListener,
-        PreferenceControllerMixin {
+        PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String MOBILE_DATA_ALWAYS_ON = "mobile_data_always_on";
 
@@ -62,6 +66,11 @@ public class MobileDataAlwaysOnPreferenceController extends
         ((TwoStatePreference) mPreference).setChecked(mobileDataAlwaysOnMode != SETTING_VALUE_OFF);
     }
 
+    @Override
+    public List<Uri> getSettingsDependencies() {
+        return List.of(Settings.Global.getUriFor(Settings.Global.MOBILE_DATA_ALWAYS_ON));
+    }
+
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
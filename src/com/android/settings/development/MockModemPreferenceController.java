@@ -27,12 +27,15 @@ import androidx.preference.TwoStatePreference;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
+import java.util.List;
+
 /**
  * PreferenceController for MockModem
  */
 public class MockModemPreferenceController extends
         DeveloperOptionsPreferenceController implements Preference.OnPreferenceChangeListener,
-        PreferenceControllerMixin {
+        PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String TAG = "MockModemPreferenceController";
     private static final String ALLOW_MOCK_MODEM_KEY =
@@ -73,6 +76,11 @@ public class MockModemPreferenceController extends
         }
     }
 
+    @Override
+    public List<String> getSystemPropertyDependencies() {
+        return List.of(ALLOW_MOCK_MODEM_PROPERTY);
+    }
+
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
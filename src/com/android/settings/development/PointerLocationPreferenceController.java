@@ -17,6 +17,7 @@
 package com.android.settings.development;
 
 import android.content.Context;
+import android.net.Uri;
 import android.provider.Settings;
 
 import androidx.annotation.VisibleForTesting;
@@ -26,8 +27,11 @@ import androidx.preference.TwoStatePreference;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
+import java.util.List;
+
 public class PointerLocationPreferenceController extends DeveloperOptionsPreferenceController
-        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin {
+        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String POINTER_LOCATION_KEY = "pointer_location";
 
@@ -60,6 +64,11 @@ public class PointerLocationPreferenceController extends DeveloperOptionsPrefere
         ((TwoStatePreference) mPreference).setChecked(pointerLocationMode != SETTING_VALUE_OFF);
     }
 
+    @Override
+    public List<Uri> getSettingsDependencies() {
+        return List.of(Settings.System.getUriFor(Settings.System.POINTER_LOCATION));
+    }
+
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
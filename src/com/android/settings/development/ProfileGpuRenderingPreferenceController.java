@@ -28,8 +28,11 @@ import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 import com.android.settingslib.development.SystemPropPoker;
 
+import java.util.List;
+
 public class ProfileGpuRenderingPreferenceController extends DeveloperOptionsPreferenceController
-        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin {
+        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String TRACK_FRAME_TIME_KEY = "track_frame_time";
 
@@ -62,6 +65,11 @@ public class ProfileGpuRenderingPreferenceController extends DeveloperOptionsPre
         updateTrackFrameTimeOptions();
     }
 
+    @Override
+    public List<String> getSystemPropertyDependencies() {
+        return List.of(ThreadedRenderer.PROFILE_PROPERTY);
+    }
+
     private void writeTrackFrameTimeOptions(Object newValue) {
         SystemProperties.set(ThreadedRenderer.PROFILE_PROPERTY,
                 newValue == null ? "" : newValue.toString());
@@ -17,6 +17,7 @@
 package com.android.settings.development;
 
 import android.content.Context;
+import android.net.Uri;
 import android.provider.Settings;
 
 import androidx.annotation.VisibleForTesting;
@@ -26,8 +27,11 @@ import androidx.preference.TwoStatePreference;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
+import java.util.List;
+
 public class ResizableActivityPreferenceController extends DeveloperOptionsPreferenceController
-        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin {
+        implements Preference.OnPreferenceChangeListener, PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String FORCE_RESIZABLE_KEY = "force_resizable_activities";
 
@@ -61,6 +65,12 @@ public class ResizableActivityPreferenceController extends DeveloperOptionsPrefe
         ((TwoStatePreference) mPreference).setChecked(mode != SETTING_VALUE_OFF);
     }
 
+    @Override
+    public List<Uri> getSettingsDependencies() {
+        return List.of(Settings.Global.getUriFor(
+                Settings.Global.DEVELOPMENT_FORCE_RESIZABLE_ACTIVITIES));
+    }
+
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
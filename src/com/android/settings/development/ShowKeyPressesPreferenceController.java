@@ -17,6 +17,7 @@
 package com.android.settings.development;
 
 import android.content.Context;
+import android.net.Uri;
 import android.provider.Settings;
 
 import androidx.annotation.VisibleForTesting;
@@ -26,10 +27,13 @@ import androidx.preference.TwoStatePreference;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
+import java.util.List;
+
 /** PreferenceController that controls the "Show key presses" developer option. */
 public class ShowKeyPressesPreferenceController extends
         DeveloperOptionsPreferenceController implements
-        Preference.OnPreferenceChangeListener, PreferenceControllerMixin {
+        Preference.OnPreferenceChangeListener, PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String SHOW_KEY_PRESSES_KEY = "show_key_presses";
 
@@ -62,6 +66,11 @@ public class ShowKeyPressesPreferenceController extends
         ((TwoStatePreference) mPreference).setChecked(showKeyPresses != SETTING_VALUE_OFF);
     }
 
+    @Override
+    public List<Uri> getSettingsDependencies() {
+        return List.of(Settings.System.getUriFor(Settings.System.SHOW_KEY_PRESSES));
+    }
+
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
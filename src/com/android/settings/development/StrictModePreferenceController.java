@@ -30,8 +30,11 @@ import androidx.preference.TwoStatePreference;
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.development.DeveloperOptionsPreferenceController;
 
+import java.util.List;
+
 public class StrictModePreferenceController extends DeveloperOptionsPreferenceController implements
-        Preference.OnPreferenceChangeListener, PreferenceControllerMixin {
+        Preference.OnPreferenceChangeListener, PreferenceControllerMixin,
+        DevelopmentStateDependencies {
 
     private static final String STRICT_MODE_KEY = "strict_mode";
     private static final String WINDOW_MANAGER_KEY = "window";
@@ -67,6 +70,11 @@ public class StrictModePreferenceController extends DeveloperOptionsPreferenceCo
         ((TwoStatePreference) mPreference).setChecked(isStrictModeEnabled());
     }
 
+    @Override
+    public List<String> getSystemPropertyDependencies() {
+        return List.of(StrictMode.VISUAL_PROPERTY);
+    }
+
     @Override
     protected void onDeveloperOptionsSwitchDisabled() {
         super.onDeveloperOptionsSwitchDisabled();
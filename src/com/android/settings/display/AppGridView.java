@@ -24,7 +24,6 @@ import android.content.res.TypedArray;
 import android.graphics.drawable.Drawable;
 import android.os.UserHandle;
 import android.util.AttributeSet;
-import android.util.IconDrawableFactory;
 import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
@@ -36,6 +35,7 @@ import androidx.annotation.VisibleForTesting;
 import androidx.core.util.Preconditions;
 
 import com.android.settings.R;
+import com.android.settings.applications.BadgedAppIconCache;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -148,11 +148,10 @@ public class AppGridView extends GridView {
                 Log.d(TAG, "Visible app icon count does not meet the target count.");
             }
 
-            final IconDrawableFactory iconFactory = IconDrawableFactory.newInstance(getContext());
             for (ResolveInfo info : infos) {
                 final CharSequence label = info.loadLabel(pm);
                 if (label != null) {
-                    results.add(new ActivityEntry(info, label.toString(), iconFactory));
+                    results.add(new ActivityEntry(info, label.toString(), getContext()));
                 }
                 if (results.size() >= mAppCount) {
                     break;
@@ -173,13 +172,13 @@ public class AppGridView extends GridView {
 
         public final ResolveInfo info;
         public final String label;
-        private final IconDrawableFactory mIconFactory;
+        private final Context mContext;
         private final int mUserId;
 
-        public ActivityEntry(ResolveInfo info, String label, IconDrawableFactory iconFactory) {
+        public ActivityEntry(ResolveInfo info, String label, Context context) {
             this.info = info;
             this.label = label;
-            mIconFactory = iconFactory;
+            mContext = context;
             mUserId = UserHandle.myUserId();
         }
 
@@ -194,7 +193,7 @@ public class AppGridView extends GridView {
         }
 
         public Drawable getIcon() {
-            return mIconFactory.getBadgedIcon(
+            return BadgedAppIconCache.getInstance(mContext).getBadgedIcon(mContext,
                     info.activityInfo, info.activityInfo.applicationInfo, mUserId);
         }
     }
@@ -46,6 +46,21 @@ public abstract class ApplicationListFragment extends DashboardFragment
         return TAG;
     }
 
+    @Override
+    public void onAttach(Context context) {
+        // List the installed apps from a snapshot taken for this page.
+        FeatureFactory.getFeatureFactory().getApplicationFeatureProvider()
+                .clearInstalledAppSnapshot();
+        super.onAttach(context);
+    }
+
+    @Override
+    public void onDetach() {
+        FeatureFactory.getFeatureFactory().getApplicationFeatureProvider()
+                .clearInstalledAppSnapshot();
+        super.onDetach();
+    }
+
     @Override
     public void onCreate(Bundle icicle) {
         super.onCreate(icicle);
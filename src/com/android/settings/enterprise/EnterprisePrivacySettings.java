@@ -67,6 +67,9 @@ public class EnterprisePrivacySettings extends DashboardFragment {
 
     @Override
     public void onAttach(Context context) {
+        // Count and list the installed apps from a snapshot taken for this page.
+        FeatureFactory.getFeatureFactory().getApplicationFeatureProvider()
+                .clearInstalledAppSnapshot();
         mPrivacySettingsPreference =
                 PrivacySettingsPreferenceFactory.createPrivacySettingsPreference(context);
 
@@ -144,6 +147,8 @@ public class EnterprisePrivacySettings extends DashboardFragment {
     @Override
     public void onDetach() {
         mPrivacySettingsPreference = null;
+        FeatureFactory.getFeatureFactory().getApplicationFeatureProvider()
+                .clearInstalledAppSnapshot();
         super.onDetach();
     }
 
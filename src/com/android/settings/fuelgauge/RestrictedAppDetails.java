@@ -22,7 +22,6 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.os.UserHandle;
-import android.util.IconDrawableFactory;
 import android.util.Log;
 import android.util.SparseLongArray;
 
@@ -32,7 +31,7 @@ import androidx.preference.Preference;
 import androidx.preference.PreferenceGroup;
 
 import com.android.settings.R;
-import com.android.settings.Utils;
+import com.android.settings.applications.BadgedAppIconCache;
 import com.android.settings.core.InstrumentedPreferenceFragment;
 import com.android.settings.core.SubSettingLauncher;
 import com.android.settings.dashboard.DashboardFragment;
@@ -63,7 +62,6 @@ public class RestrictedAppDetails extends DashboardFragment
     private static final long TIME_NULL = -1;
 
     @VisibleForTesting List<AppInfo> mAppInfos;
-    @VisibleForTesting IconDrawableFactory mIconDrawableFactory;
     @VisibleForTesting PreferenceGroup mRestrictedAppListGroup;
     @VisibleForTesting BatteryUtils mBatteryUtils;
     @VisibleForTesting PackageManager mPackageManager;
@@ -93,7 +91,6 @@ public class RestrictedAppDetails extends DashboardFragment
         mRestrictedAppListGroup = (PreferenceGroup) findPreference(KEY_PREF_RESTRICTED_APP_LIST);
         mAppInfos = getArguments().getParcelableArrayList(EXTRA_APP_INFO_LIST);
         mPackageManager = context.getPackageManager();
-        mIconDrawableFactory = IconDrawableFactory.newInstance(context);
         mBatteryUtils = BatteryUtils.getInstance(context);
         mBatteryDatabaseManager = BatteryDatabaseManager.getInstance(context);
         mMetricsFeatureProvider = FeatureFactory.getFeatureFactory().getMetricsFeatureProvider();
@@ -153,9 +150,8 @@ public class RestrictedAppDetails extends DashboardFragment
                         mBatteryUtils.isForceAppStandbyEnabled(appInfo.uid, appInfo.packageName));
                 checkBoxPreference.setTitle(mPackageManager.getApplicationLabel(applicationInfo));
                 checkBoxPreference.setIcon(
-                        Utils.getBadgedIcon(
-                                mIconDrawableFactory,
-                                mPackageManager,
+                        BadgedAppIconCache.getInstance(context).getBadgedIcon(
+                                context,
                                 appInfo.packageName,
                                 UserHandle.getUserId(appInfo.uid)));
                 checkBoxPreference.setKey(getKeyFromAppInfo(appInfo));
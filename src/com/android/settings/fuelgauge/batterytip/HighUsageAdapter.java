@@ -17,9 +17,7 @@
 package com.android.settings.fuelgauge.batterytip;
 
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.os.UserHandle;
-import android.util.IconDrawableFactory;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -30,14 +28,14 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.settings.R;
 import com.android.settings.Utils;
+import com.android.settings.applications.BadgedAppIconCache;
 
 import java.util.List;
 
 /** Adapter for the high usage app list */
 public class HighUsageAdapter extends RecyclerView.Adapter<HighUsageAdapter.ViewHolder> {
     private final Context mContext;
-    private final IconDrawableFactory mIconDrawableFactory;
-    private final PackageManager mPackageManager;
+    private final BadgedAppIconCache mIconCache;
     private final List<AppInfo> mHighUsageAppList;
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
@@ -58,8 +56,7 @@ public class HighUsageAdapter extends RecyclerView.Adapter<HighUsageAdapter.View
     public HighUsageAdapter(Context context, List<AppInfo> highUsageAppList) {
         mContext = context;
         mHighUsageAppList = highUsageAppList;
-        mIconDrawableFactory = IconDrawableFactory.newInstance(context);
-        mPackageManager = context.getPackageManager();
+        mIconCache = BadgedAppIconCache.getInstance(context);
     }
 
     @Override
@@ -73,11 +70,8 @@ public class HighUsageAdapter extends RecyclerView.Adapter<HighUsageAdapter.View
     public void onBindViewHolder(ViewHolder holder, int position) {
         final AppInfo app = mHighUsageAppList.get(position);
         holder.appIcon.setImageDrawable(
-                Utils.getBadgedIcon(
-                        mIconDrawableFactory,
-                        mPackageManager,
-                        app.packageName,
-                        UserHandle.getUserId(app.uid)));
+                mIconCache.getBadgedIcon(
+                        mContext, app.packageName, UserHandle.getUserId(app.uid)));
         CharSequence label = Utils.getApplicationLabel(mContext, app.packageName);
         if (label == null) {
             label = app.packageName;
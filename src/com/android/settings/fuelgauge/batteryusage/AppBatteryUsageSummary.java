@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The battery usage of each app since the last full charge, indexed by package and user, so that
+ * app info pages can look up one app without aggregating the whole history again.
+ *
+ * <p>Rebuilt whenever the full list is computed for a page, and dropped when new battery stats
+ * are written or a new charge cycle starts. Only the values of the entries are kept, so that the
+ * summary does not hold on to the context of the page that computed it.
+ */
+final class AppBatteryUsageSummary {
+    // Matches the interval of the periodic job, so a missed job does not leave stale data.
+    @VisibleForTesting static final long MAX_AGE_MS = Duration.ofHours(1).toMillis();
+
+    private static final Object sLock = new Object();
+
+    @GuardedBy("sLock")
+    @Nullable
+    private static Map<String, AppUsage> sEntries;
+
+    @GuardedBy("sLock")
+    private static long sUpdateTime;
+
+    private AppBatteryUsageSummary() {}
+
+    /** Replaces the summary with the app entries of a full aggregation, which may be null. */
+    static void update(@Nullable List<BatteryDiffEntry> appEntries) {
+        final Map<String, AppUsage> entries = new ArrayMap<>();
+        if (appEntries != null) {
+            for (BatteryDiffEntry entry : appEntries) {
+                final String packageName = entry.getPackageName();
+                if (packageName == null || entry.isSystemEntry()) {
+                    continue;
+                }
+                // Keeps the first entry, as the linear search over the list did.
+                entries.putIfAbsent(getKey(packageName, entry.mUserId), new AppUsage(entry));
+            }
+        }
+        synchronized (sLock) {
+            sEntries = Collections.unmodifiableMap(entries);
+            sUpdateTime = SystemClock.elapsedRealtime();
+        }
+    }
+
+    /** Drops the summary, the next lookup aggregates the history again. */
+    static void invalidate() {
+        synchronized (sLock) {
+            sEntries = null;
+        }
+    }
+
+    /**
+     * Returns the entry of the app built with the application context, or null if the app has no
+     * usage in the summary.
+     */
+    @Nullable
+    static BatteryDiffEntry getEntry(Context context, String packageName, long userId) {
+        final AppUsage usage;
+        synchronized (sLock) {
+            usage = sEntries == null ? null : sEntries.get(getKey(packageName, userId));
+        }
+        return usage == null ? null : usage.toBatteryDiffEntry(context.getApplicationContext());
+    }
+
+    /** Returns whether there is an up-to-date summary to look up apps in. */
+    static boolean isAvailable() {
+        synchronized (sLock) {
+            if (sEntries != null && SystemClock.elapsedRealtime() - sUpdateTime > MAX_AGE_MS) {
+                sEntries = null;
+            }
+            return sEntries != null;
+        }
+    }
+
+    static String getKey(String packageName, long userId) {
+        return packageName + '/' + userId;
+    }
+
+    /** The values of a {@link BatteryDiffEntry}, without its context. */
+    private static final class AppUsage {
+        final long mUid;
+        final long mUserId;
+        final String mKey;
+        final boolean mIsHidden;
+        final int mComponentId;
+        final String mLegacyPackageName;
+        final String mLegacyLabel;
+        final int mConsumerType;
+        final long mForegroundUsageTimeInMs;
+        final long mForegroundServiceUsageTimeInMs;
+        final long mBackgroundUsageTimeInMs;
+        final long mScreenOnTimeInMs;
+        final double mConsumePower;
+        final double mForegroundUsageConsumePower;
+        final double mForegroundServiceUsageConsumePower;
+        final double mBackgroundUsageConsumePower;
+        final double mCachedUsageConsumePower;
+        final double mTotalConsumePower;
+        final int mAdjustPercentageOffset;
+
+        AppUsage(BatteryDiffEntry entry) {
+            mUid = entry.mUid;
+            mUserId = entry.mUserId;
+            mKey = entry.mKey;
+            mIsHidden = entry.mIsHidden;
+            mComponentId = entry.mComponentId;
+            mLegacyPackageName = entry.mLegacyPackageName;
+            mLegacyLabel = entry.mLegacyLabel;
+            mConsumerType = entry.mConsumerType;
+            mForegroundUsageTimeInMs = entry.mForegroundUsageTimeInMs;
+            mForegroundServiceUsageTimeInMs = entry.mForegroundServiceUsageTimeInMs;
+            mBackgroundUsageTimeInMs = entry.mBackgroundUsageTimeInMs;
+            mScreenOnTimeInMs = entry.mScreenOnTimeInMs;
+            mConsumePower = entry.mConsumePower;
+            mForegroundUsageConsumePower = entry.mForegroundUsageConsumePower;
+            mForegroundServiceUsageConsumePower = entry.mForegroundServiceUsageConsumePower;
+            mBackgroundUsageConsumePower = entry.mBackgroundUsageConsumePower;
+            mCachedUsageConsumePower = entry.mCachedUsageConsumePower;
+            mTotalConsumePower = entry.getTotalConsumePower();
+            mAdjustPercentageOffset = (int) entry.getAdjustPercentageOffset();
+        }
+
+        BatteryDiffEntry toBatteryDiffEntry(Context context) {
+            final BatteryDiffEntry entry =
+                    new BatteryDiffEntry(
+                            context,
+                            mUid,
+                            mUserId,
+                            mKey,
+                            mIsHidden,
+                            mComponentId,
+                            mLegacyPackageName,
+                            mLegacyLabel,
+                            mConsumerType,
+                            mForegroundUsageTimeInMs,
+                            mForegroundServiceUsageTimeInMs,
+                            mBackgroundUsageTimeInMs,
+                            mScreenOnTimeInMs,
+                            mConsumePower,
+                            mForegroundUsageConsumePower,
+                            mForegroundServiceUsageConsumePower,
+                            mBackgroundUsageConsumePower,
+                            mCachedUsageConsumePower);
+            entry.setTotalConsumePower(mTotalConsumePower);
+            entry.setAdjustPercentageOffset(mAdjustPercentageOffset);
+            return entry;
+        }
+    }
+}
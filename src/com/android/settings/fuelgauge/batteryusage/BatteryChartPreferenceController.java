@@ -552,6 +552,12 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
 
     /** Used for {@link AppBatteryPreferenceController}. */
     public static List<BatteryDiffEntry> getAppBatteryUsageData(Context context) {
+        final List<BatteryDiffEntry> entries = loadAppBatteryUsageData(context);
+        AppBatteryUsageSummary.update(entries);
+        return entries;
+    }
+
+    private static List<BatteryDiffEntry> loadAppBatteryUsageData(Context context) {
         final long start = System.currentTimeMillis();
         final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap =
                 DatabaseUtils.getHistoryMapSinceLastFullCharge(context, Calendar.getInstance());
@@ -591,6 +597,9 @@ public class BatteryChartPreferenceController extends AbstractPreferenceControll
         if (packageName == null) {
             return null;
         }
+        if (AppBatteryUsageSummary.isAvailable()) {
+            return AppBatteryUsageSummary.getEntry(context, packageName, userId);
+        }
         final List<BatteryDiffEntry> entries = getAppBatteryUsageData(context);
         if (entries == null) {
             return null;
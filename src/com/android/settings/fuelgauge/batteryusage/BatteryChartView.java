@@ -33,7 +33,6 @@ import android.graphics.Path;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.os.Bundle;
-import android.util.ArraySet;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.view.HapticFeedbackConstants;
@@ -55,9 +54,9 @@ import com.android.settings.R;
 import com.android.settingslib.Utils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
 
 /** A widget component to draw chart graph. */
 public class BatteryChartView extends AppCompatImageView implements View.OnClickListener {
@@ -76,11 +75,17 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
     private final Rect mIndent = new Rect();
     private final Rect[] mPercentageBounds = new Rect[] {new Rect(), new Rect(), new Rect()};
     private final List<Rect> mAxisLabelsBounds = new ArrayList<>();
-    private final Set<Integer> mLabelDrawnIndexes = new ArraySet<>();
+    private final Path mTrapezoidPath = new Path();
     private final int mLayoutDirection =
             getContext().getResources().getConfiguration().getLayoutDirection();
 
     private BatteryChartViewModel mViewModel;
+    // Reused by every draw() so that drawing a frame does not allocate.
+    @VisibleForTesting Rect[] mAxisLabelDisplayAreas = new Rect[0];
+    private boolean[] mLabelDrawnIndexes = new boolean[0];
+    // Whether the text bounds have to be measured again, e.g. after the labels changed.
+    @VisibleForTesting boolean mTextBoundsDirty = true;
+    private int mAxisLabelsMaxTop;
     private int mHoveredIndex = BatteryChartViewModel.SELECTED_INDEX_INVALID;
     private int mDividerWidth;
     private int mDividerHeight;
@@ -140,6 +145,7 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
                         viewModel.getHighlightSlotIndex()));
         mViewModel = viewModel;
         initializeAxisLabelsBounds();
+        mTextBoundsDirty = true;
         initializeTrapezoidSlots(viewModel.size() - 1);
         setClickable(hasAnyValidTrapezoid(viewModel));
         requestLayout();
@@ -160,6 +166,7 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         } else {
             mTextPaint = null;
         }
+        mTextBoundsDirty = true;
         requestLayout();
     }
 
@@ -168,13 +175,8 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
         // Measures text bounds and updates indent configuration.
         if (mTextPaint != null) {
-            mTextPaint.setTextAlign(Paint.Align.LEFT);
-            for (int index = 0; index < mPercentages.length; index++) {
-                mTextPaint.getTextBounds(
-                        mPercentages[index],
-                        0,
-                        mPercentages[index].length(),
-                        mPercentageBounds[index]);
+            if (mTextBoundsDirty) {
+                measureTextBounds();
             }
             // Updates the indent configurations.
             mIndent.top = mPercentageBounds[0].height() + mTransomViewHeight;
@@ -186,20 +188,36 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
             }
 
             if (mViewModel != null) {
-                int maxTop = 0;
-                for (int index = 0; index < mViewModel.size(); index++) {
-                    final String text = mViewModel.getText(index);
-                    mTextPaint.getTextBounds(text, 0, text.length(), mAxisLabelsBounds.get(index));
-                    maxTop = Math.max(maxTop, -mAxisLabelsBounds.get(index).top);
-                }
-                mIndent.bottom = maxTop + round(mTextPadding * 2f);
+                mIndent.bottom = mAxisLabelsMaxTop + round(mTextPadding * 2f);
             }
-            Log.d(TAG, "setIndent:" + mPercentageBounds[0]);
         } else {
             mIndent.set(0, 0, 0, 0);
         }
     }
 
+    /** Measures the percentage and axis label texts, which only change with the data. */
+    private void measureTextBounds() {
+        mTextPaint.setTextAlign(Paint.Align.LEFT);
+        for (int index = 0; index < mPercentages.length; index++) {
+            mTextPaint.getTextBounds(
+                    mPercentages[index],
+                    0,
+                    mPercentages[index].length(),
+                    mPercentageBounds[index]);
+        }
+        int maxTop = 0;
+        if (mViewModel != null) {
+            for (int index = 0; index < mViewModel.size(); index++) {
+                final String text = mViewModel.getText(index);
+                mTextPaint.getTextBounds(text, 0, text.length(), mAxisLabelsBounds.get(index));
+                maxTop = Math.max(maxTop, -mAxisLabelsBounds.get(index).top);
+            }
+        }
+        mAxisLabelsMaxTop = maxTop;
+        mTextBoundsDirty = false;
+        Log.d(TAG, "setIndent:" + mPercentageBounds[0]);
+    }
+
     @Override
     public void draw(Canvas canvas) {
         super.draw(canvas);
@@ -442,11 +460,11 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         // Draws the axis label slot information.
         if (mViewModel != null) {
             final float baselineY = getHeight() - mTextPadding;
-            Rect[] axisLabelDisplayAreas;
+            int axisLabelCount;
             switch (mViewModel.axisLabelPosition()) {
                 case CENTER_OF_TRAPEZOIDS:
-                    axisLabelDisplayAreas =
-                            getAxisLabelDisplayAreas(
+                    axisLabelCount =
+                            updateAxisLabelDisplayAreas(
                                     /* size= */ mViewModel.size() - 1,
                                     /* baselineX= */ mIndent.left + mDividerWidth + unitWidth * .5f,
                                     /* offsetX= */ mDividerWidth + unitWidth,
@@ -455,8 +473,8 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
                     break;
                 case BETWEEN_TRAPEZOIDS:
                 default:
-                    axisLabelDisplayAreas =
-                            getAxisLabelDisplayAreas(
+                    axisLabelCount =
+                            updateAxisLabelDisplayAreas(
                                     /* size= */ mViewModel.size(),
                                     /* baselineX= */ mIndent.left + mDividerWidth * .5f,
                                     /* offsetX= */ mDividerWidth + unitWidth,
@@ -464,14 +482,14 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
                                     /* shiftFirstAndLast= */ true);
                     break;
             }
-            drawAxisLabels(canvas, axisLabelDisplayAreas, baselineY);
+            drawAxisLabels(canvas, mAxisLabelDisplayAreas, axisLabelCount, baselineY);
         }
         // Draws each vertical dividers.
         float startX = mDividerWidth * .5f + mIndent.left;
         for (int index = 0; index < dividerCount; index++) {
             float dividerY = bottomY;
             if (mViewModel.axisLabelPosition() == BETWEEN_TRAPEZOIDS
-                    && mLabelDrawnIndexes.contains(index)) {
+                    && mLabelDrawnIndexes[index]) {
                 mDividerPaint.setColor(mTrapezoidSolidColor);
                 dividerY += mDividerHeight / 4f;
             } else {
@@ -489,15 +507,18 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         }
     }
 
-    /** Gets all the axis label texts displaying area positions if they are shown. */
-    private Rect[] getAxisLabelDisplayAreas(
+    /**
+     * Updates the first {@code size} entries of {@link #mAxisLabelDisplayAreas} to the axis label
+     * texts displaying area positions if they are shown, and returns {@code size}.
+     */
+    private int updateAxisLabelDisplayAreas(
             final int size,
             final float baselineX,
             final float offsetX,
             final float baselineY,
             final boolean shiftFirstAndLast) {
-        final Rect[] result = new Rect[size];
-        for (int index = 0; index < result.length; index++) {
+        final Rect[] result = mAxisLabelDisplayAreas;
+        for (int index = 0; index < size; index++) {
             final float width = mAxisLabelsBounds.get(index).width();
             float middle = baselineX + index * offsetX;
             if (shiftFirstAndLast) {
@@ -512,19 +533,20 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
             final float right = left + width;
             final float top = baselineY + mAxisLabelsBounds.get(index).top;
             final float bottom = top + mAxisLabelsBounds.get(index).height();
-            result[index] = new Rect(round(left), round(top), round(right), round(bottom));
+            result[index].set(round(left), round(top), round(right), round(bottom));
         }
-        return result;
+        return size;
     }
 
-    private void drawAxisLabels(Canvas canvas, final Rect[] displayAreas, final float baselineY) {
-        final int lastIndex = displayAreas.length - 1;
-        mLabelDrawnIndexes.clear();
+    private void drawAxisLabels(
+            Canvas canvas, final Rect[] displayAreas, final int size, final float baselineY) {
+        final int lastIndex = size - 1;
+        Arrays.fill(mLabelDrawnIndexes, false);
         // Suppose first and last labels are always able to draw.
         drawAxisLabelText(canvas, 0, displayAreas[0], baselineY);
-        mLabelDrawnIndexes.add(0);
+        mLabelDrawnIndexes[0] = true;
         drawAxisLabelText(canvas, lastIndex, displayAreas[lastIndex], baselineY);
-        mLabelDrawnIndexes.add(lastIndex);
+        mLabelDrawnIndexes[lastIndex] = true;
         drawAxisLabelsBetweenStartIndexAndEndIndex(canvas, displayAreas, 0, lastIndex, baselineY);
     }
 
@@ -551,7 +573,7 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
                 return;
             }
             drawAxisLabelText(canvas, middleIndex, displayAreas[middleIndex], baselineY);
-            mLabelDrawnIndexes.add(middleIndex);
+            mLabelDrawnIndexes[middleIndex] = true;
             drawAxisLabelsBetweenStartIndexAndEndIndex(
                     canvas, displayAreas, startIndex, middleIndex, baselineY);
             drawAxisLabelsBetweenStartIndexAndEndIndex(
@@ -565,9 +587,9 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
                 return;
             }
             drawAxisLabelText(canvas, middleIndex1, displayAreas[middleIndex1], baselineY);
-            mLabelDrawnIndexes.add(middleIndex1);
+            mLabelDrawnIndexes[middleIndex1] = true;
             drawAxisLabelText(canvas, middleIndex2, displayAreas[middleIndex2], baselineY);
-            mLabelDrawnIndexes.add(middleIndex2);
+            mLabelDrawnIndexes[middleIndex2] = true;
             drawAxisLabelsBetweenStartIndexAndEndIndex(
                     canvas, displayAreas, startIndex, middleIndex1, baselineY);
             drawAxisLabelsBetweenStartIndexAndEndIndex(
@@ -598,7 +620,7 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
                             : mViewModel.size() - index - 2; // for daily
         }
         canvas.drawText(mViewModel.getText(index), displayArea.centerX(), baselineY, mTextPaint);
-        mLabelDrawnIndexes.add(index);
+        mLabelDrawnIndexes[index] = true;
     }
 
     private void drawTrapezoids(Canvas canvas) {
@@ -612,8 +634,7 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
                 trapezoidBottom - mDividerWidth * .5f - mIndent.top - mTrapezoidVOffset;
         final float unitHeight = availableSpace / 100f;
         // Draws all trapezoid shapes into the canvas.
-        final Path trapezoidPath = new Path();
-        Path trapezoidCurvePath = null;
+        final Path trapezoidPath = mTrapezoidPath;
         for (int index = 0; index < mTrapezoidSlots.length; index++) {
             // Not draws the trapezoid for corner or not initialization cases.
             if (!isValidToDraw(mViewModel, index)) {
@@ -730,6 +751,13 @@ public class BatteryChartView extends AppCompatImageView implements View.OnClick
         for (int i = 0; i < mViewModel.size(); i++) {
             mAxisLabelsBounds.add(new Rect());
         }
+        if (mAxisLabelDisplayAreas.length != mViewModel.size()) {
+            mAxisLabelDisplayAreas = new Rect[mViewModel.size()];
+            for (int i = 0; i < mAxisLabelDisplayAreas.length; i++) {
+                mAxisLabelDisplayAreas[i] = new Rect();
+            }
+            mLabelDrawnIndexes = new boolean[mViewModel.size()];
+        }
     }
 
     private static boolean isTrapezoidValid(
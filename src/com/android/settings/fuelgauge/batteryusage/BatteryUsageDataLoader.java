@@ -82,6 +82,8 @@ public final class BatteryUsageDataLoader {
         DatabaseUtils.sendBatteryEntryData(
                 context, currentTime, batteryEntryList, batteryUsageStats, isFullChargeStart);
         DataProcessor.closeBatteryUsageStats(batteryUsageStats);
+        // The summary no longer covers the latest data, or a new charge cycle has started.
+        AppBatteryUsageSummary.invalidate();
     }
 
     @VisibleForTesting
@@ -21,12 +21,16 @@ import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.UriMatcher;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteQueryBuilder;
 import android.net.Uri;
 import android.os.Build;
 import android.os.StrictMode;
+import android.text.TextUtils;
 import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
@@ -34,7 +38,11 @@ import androidx.annotation.VisibleForTesting;
 import com.android.settings.R;
 import com.android.settingslib.utils.ThreadUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Provider stores and manages user interaction feedback for homepage contextual cards.
@@ -60,6 +68,8 @@ public class CardContentProvider extends ContentProvider {
     private static final UriMatcher URI_MATCHER = new UriMatcher(UriMatcher.NO_MATCH);
     /** URI matcher type for cards table */
     private static final int MATCH_CARDS = 100;
+    /** Maximum number of card names bound in one delete, below the SQLite variable limit. */
+    private static final int MAX_DELETE_BATCH_SIZE = 500;
 
     static {
         URI_MATCHER.addURI(CARD_AUTHORITY, CardDatabaseHelper.CARD_TABLE, MATCH_CARDS);
@@ -81,11 +91,11 @@ public class CardContentProvider extends ContentProvider {
     public int bulkInsert(Uri uri, ContentValues[] values) {
         final StrictMode.ThreadPolicy oldPolicy = StrictMode.getThreadPolicy();
         int numInserted = 0;
+        boolean changed = false;
         final CardDatabaseHelper DBHelper = CardDatabaseHelper.getInstance(getContext());
         final SQLiteDatabase database = DBHelper.getWritableDatabase();
         final boolean keepDismissalTimestampBeforeDeletion = getContext().getResources()
                 .getBoolean(R.bool.config_keep_contextual_card_dismissal_timestamp);
-        final Map<String, Long> dismissedTimeMap = new ArrayMap<>();
 
         try {
             maybeEnableStrictMode();
@@ -93,56 +103,72 @@ public class CardContentProvider extends ContentProvider {
             final String table = getTableFromMatch(uri);
             database.beginTransaction();
 
-            if (keepDismissalTimestampBeforeDeletion) {
-                // Query the existing db and get dismissal info.
-                final String[] columns = new String[]{CardDatabaseHelper.CardColumns.NAME,
-                        CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP};
-                final String selection =
-                        CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP + " IS NOT NULL";
-                try (Cursor cursor = database.query(table, columns, selection,
-                        null/* selectionArgs */, null /* groupBy */,
-                        null /* having */, null /* orderBy */)) {
-                    // Save them to a Map
-                    for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
-                        final String cardName = cursor.getString(cursor.getColumnIndex(
-                                CardDatabaseHelper.CardColumns.NAME));
-                        final long timestamp = cursor.getLong(cursor.getColumnIndex(
-                                CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP));
-                        dismissedTimeMap.put(cardName, timestamp);
-                    }
-                }
-            }
-
-            // Here delete data first to avoid redundant insertion. According to cl/215350754
-            database.delete(table, null /* whereClause */, null /* whereArgs */);
+            // Read the existing rows once, they are both diffed against the new rows and the
+            // source of the dismissal timestamps to keep.
+            final Map<String, ContentValues> existingRows = queryRowsByName(database, table);
+            final Set<String> insertedNames = new ArraySet<>();
 
             for (ContentValues value : values) {
-                if (keepDismissalTimestampBeforeDeletion) {
-                    // Replace dismissedTimestamp in each value if there is an old one.
-                    final String cardName =
-                            value.get(CardDatabaseHelper.CardColumns.NAME).toString();
-                    if (dismissedTimeMap.containsKey(cardName)) {
-                        // Replace the value of dismissedTimestamp
-                        value.put(CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP,
-                                dismissedTimeMap.get(cardName));
-                        Log.d(TAG, "Replace dismissed time: " + cardName);
-                    }
+                final String cardName = value.getAsString(CardDatabaseHelper.CardColumns.NAME);
+                final ContentValues existingRow = existingRows.get(cardName);
+                if (keepDismissalTimestampBeforeDeletion && existingRow != null
+                        && existingRow.get(CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP)
+                                != null) {
+                    // Replace the value of dismissedTimestamp
+                    value.put(CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP,
+                            existingRow.getAsLong(
+                                    CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP));
+                    Log.d(TAG, "Replace dismissed time: " + cardName);
+                }
+                if (cardName != null && !insertedNames.add(cardName)) {
+                    Log.e(TAG, "The row " + cardName + " is duplicated! Please check your data.");
+                    continue;
                 }
 
-                long ret = database.insert(table, null /* nullColumnHack */, value);
+                if (existingRow != null && isSameRow(existingRow, value)) {
+                    numInserted++;
+                    continue;
+                }
+                long ret;
+                if (existingRow == null) {
+                    ret = database.insert(table, null /* nullColumnHack */, value);
+                } else {
+                    try {
+                        ret = database.insertWithOnConflict(table, null /* nullColumnHack */,
+                                value, SQLiteDatabase.CONFLICT_REPLACE);
+                    } catch (SQLException e) {
+                        Log.e(TAG, "Error replacing row " + cardName, e);
+                        ret = -1L;
+                    }
+                }
                 if (ret != -1L) {
                     numInserted++;
+                    changed = true;
                 } else {
                     Log.e(TAG, "The row " + value.getAsString(CardDatabaseHelper.CardColumns.NAME)
                             + " insertion failed! Please check your data.");
                 }
             }
+
+            // Remove the cards that are no longer provided.
+            final List<String> staleNames = new ArrayList<>();
+            for (String cardName : existingRows.keySet()) {
+                if (!insertedNames.contains(cardName)) {
+                    staleNames.add(cardName);
+                }
+            }
+            if (deleteRowsByName(database, table, staleNames) > 0) {
+                changed = true;
+            }
+
             database.setTransactionSuccessful();
-            getContext().getContentResolver().notifyChange(uri, null /* observer */);
         } finally {
             database.endTransaction();
             StrictMode.setThreadPolicy(oldPolicy);
         }
+        if (changed) {
+            getContext().getContentResolver().notifyChange(uri, null /* observer */);
+        }
         return numInserted;
     }
 
@@ -184,6 +210,65 @@ public class CardContentProvider extends ContentProvider {
         throw new UnsupportedOperationException("update operation not supported currently.");
     }
 
+    private static Map<String, ContentValues> queryRowsByName(SQLiteDatabase database,
+            String table) {
+        final Map<String, ContentValues> rows = new ArrayMap<>();
+        try (Cursor cursor = database.query(table, null /* columns */, null /* selection */,
+                null /* selectionArgs */, null /* groupBy */, null /* having */,
+                null /* orderBy */)) {
+            final int nameIndex = cursor.getColumnIndex(CardDatabaseHelper.CardColumns.NAME);
+            for (cursor.moveToFirst(); !cursor.isAfterLast(); cursor.moveToNext()) {
+                final ContentValues row = new ContentValues();
+                DatabaseUtils.cursorRowToContentValues(cursor, row);
+                rows.put(cursor.getString(nameIndex), row);
+            }
+        }
+        return rows;
+    }
+
+    private static int deleteRowsByName(SQLiteDatabase database, String table,
+            List<String> names) {
+        int deleted = 0;
+        for (int start = 0; start < names.size(); start += MAX_DELETE_BATCH_SIZE) {
+            final List<String> batch =
+                    names.subList(start, Math.min(names.size(), start + MAX_DELETE_BATCH_SIZE));
+            final String placeholders = String.join(",", Collections.nCopies(batch.size(), "?"));
+            deleted += database.delete(table,
+                    CardDatabaseHelper.CardColumns.NAME + " IN (" + placeholders + ")",
+                    batch.toArray(new String[0]));
+        }
+        return deleted;
+    }
+
+    // Returns whether writing the new values would leave the existing row as it is. Columns
+    // missing from the new values are reset by a write, so they must be unset or default.
+    @VisibleForTesting
+    static boolean isSameRow(ContentValues existingRow, ContentValues newValues) {
+        for (String column : existingRow.keySet()) {
+            final String existing = existingRow.getAsString(column);
+            final String updated = newValues.containsKey(column)
+                    ? newValues.getAsString(column)
+                    : TextUtils.equals(column, CardDatabaseHelper.CardColumns.CATEGORY)
+                            ? String.valueOf(CardDatabaseHelper.DEFAULT_CATEGORY) : null;
+            if (!TextUtils.equals(existing, updated)
+                    && !isSameNumber(existing, updated)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameNumber(String existing, String updated) {
+        if (existing == null || updated == null) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(existing) == Double.parseDouble(updated);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
     @VisibleForTesting
     void maybeEnableStrictMode() {
         if (Build.IS_DEBUGGABLE && ThreadUtils.isMainThread()) {
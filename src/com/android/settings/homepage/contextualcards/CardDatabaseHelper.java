@@ -33,6 +33,9 @@ public class CardDatabaseHelper extends SQLiteOpenHelper {
 
     public static final String CARD_TABLE = "cards";
 
+    /** Value of {@link CardColumns#CATEGORY} for the cards inserted without one. */
+    static final int DEFAULT_CATEGORY = 0;
+
     public interface CardColumns {
         /**
          * Primary key. Name of the card.
@@ -88,7 +91,7 @@ public class CardDatabaseHelper extends SQLiteOpenHelper {
                     + CardColumns.SLICE_URI
                     + " TEXT, "
                     + CardColumns.CATEGORY
-                    + " INTEGER DEFAULT 0, "
+                    + " INTEGER DEFAULT " + DEFAULT_CATEGORY + ", "
                     + CardColumns.PACKAGE_NAME
                     + " TEXT NOT NULL, "
                     + CardColumns.APP_VERSION
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.localepicker;
+
+import android.content.Context;
+import android.os.LocaleList;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.internal.app.LocaleHelper;
+import com.android.internal.app.LocalePicker;
+import com.android.internal.app.LocaleStore;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * The locales the system is translated to, with their names in the current UI locale and in
+ * themselves, so that the language pages do not enumerate and name every system locale each time
+ * they open.
+ * <p>
+ * The catalog is kept in memory and in the cache directory, keyed by the system asset locales and
+ * the UI locales. It is rebuilt when either changes, as after an OTA or a language change.
+ */
+public class LocaleCatalog {
+    private static final String TAG = "LocaleCatalog";
+    private static final String FILE_NAME = "locale_catalog";
+    private static final int VERSION = 1;
+
+    private static LocaleCatalog sCached;
+
+    /** A locale of the catalog. */
+    public static class Entry {
+        private final String mLanguageTag;
+        private final String mDisplayName;
+        private final String mNativeName;
+
+        Entry(String languageTag, String displayName, String nativeName) {
+            mLanguageTag = languageTag;
+            mDisplayName = displayName;
+            mNativeName = nativeName;
+        }
+
+        public String getLanguageTag() {
+            return mLanguageTag;
+        }
+
+        /** Returns the name of the locale in the UI locale of the catalog. */
+        public String getDisplayName() {
+            return mDisplayName;
+        }
+
+        /** Returns the name of the locale in itself. */
+        public String getNativeName() {
+            return mNativeName;
+        }
+    }
+
+    private final String mKey;
+    private final List<Entry> mEntries;
+    private final Set<String> mLangScriptKeys = new LinkedHashSet<>();
+
+    @VisibleForTesting
+    LocaleCatalog(String key, List<Entry> entries) {
+        mKey = key;
+        mEntries = Collections.unmodifiableList(entries);
+        for (Entry entry : entries) {
+            mLangScriptKeys.add(getLangScriptKey(Locale.forLanguageTag(entry.mLanguageTag)));
+        }
+    }
+
+    /**
+     * Returns the catalog of the current configuration if it is already in memory, or null if it
+     * has to be loaded with {@link #load}.
+     */
+    @Nullable
+    public static LocaleCatalog getCached(@NonNull Context context) {
+        final String key = getKey(context);
+        synchronized (LocaleCatalog.class) {
+            return sCached != null && sCached.mKey.equals(key) ? sCached : null;
+        }
+    }
+
+    /**
+     * Loads the catalog of the current configuration in the background, from disk or by building
+     * it, and delivers it on the main thread.
+     */
+    public static void load(@NonNull Context context, @NonNull Consumer<LocaleCatalog> callback) {
+        final Context appContext = context.getApplicationContext();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final LocaleCatalog catalog = get(appContext);
+            ThreadUtils.postOnMainThread(() -> callback.accept(catalog));
+        });
+    }
+
+    /** Returns the catalog of the current configuration, loading or building it if needed. */
+    @WorkerThread
+    @NonNull
+    public static LocaleCatalog get(@NonNull Context context) {
+        final LocaleCatalog cached = getCached(context);
+        if (cached != null) {
+            return cached;
+        }
+        final String key = getKey(context);
+        final File file = new File(context.getCacheDir(), FILE_NAME);
+        LocaleCatalog catalog = readFromDisk(file, key);
+        if (catalog == null) {
+            catalog = build(key, getUiLocale(context), LocalePicker.getSystemAssetLocales());
+            writeToDisk(file, catalog);
+        }
+        synchronized (LocaleCatalog.class) {
+            sCached = catalog;
+        }
+        return catalog;
+    }
+
+    /** Returns all the locales, in the order of the system assets. */
+    @NonNull
+    public List<Entry> getEntries() {
+        return mEntries;
+    }
+
+    /**
+     * Returns whether the system is translated to the language and script of the {@param locale},
+     * as {@link LocaleStore#fillCache} marks it.
+     */
+    public boolean isTranslated(@NonNull Locale locale) {
+        return mLangScriptKeys.contains(getLangScriptKey(locale));
+    }
+
+    @VisibleForTesting
+    static LocaleCatalog build(String key, Locale uiLocale, String[] languageTags) {
+        final List<Entry> entries = new ArrayList<>(languageTags.length);
+        for (String languageTag : languageTags) {
+            final Locale locale = Locale.forLanguageTag(languageTag);
+            entries.add(new Entry(languageTag,
+                    LocaleHelper.getDisplayName(locale, uiLocale, true /* sentenceCase */),
+                    LocaleHelper.getDisplayName(locale, locale, true /* sentenceCase */)));
+        }
+        return new LocaleCatalog(key, entries);
+    }
+
+    @VisibleForTesting
+    @Nullable
+    static LocaleCatalog readFromDisk(File file, String key) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            if (in.readInt() != VERSION || !key.equals(in.readUTF())) {
+                return null;
+            }
+            final int size = in.readInt();
+            final List<Entry> entries = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                entries.add(new Entry(in.readUTF(), in.readUTF(), in.readUTF()));
+            }
+            return new LocaleCatalog(key, entries);
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to read " + file, e);
+            return null;
+        }
+    }
+
+    @VisibleForTesting
+    static void writeToDisk(File file, LocaleCatalog catalog) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(VERSION);
+            out.writeUTF(catalog.mKey);
+            out.writeInt(catalog.mEntries.size());
+            for (Entry entry : catalog.mEntries) {
+                out.writeUTF(entry.mLanguageTag);
+                out.writeUTF(entry.mDisplayName);
+                out.writeUTF(entry.mNativeName);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to encode the catalog", e);
+            return;
+        }
+        final File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(bytes.toByteArray());
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to write " + file, e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+        }
+    }
+
+    @VisibleForTesting
+    static void clearCache() {
+        synchronized (LocaleCatalog.class) {
+            sCached = null;
+        }
+    }
+
+    private static String getKey(Context context) {
+        return Arrays.toString(LocalePicker.getSystemAssetLocales()) + "/"
+                + getUiLocales(context).toLanguageTags();
+    }
+
+    private static LocaleList getUiLocales(Context context) {
+        return context.getResources().getConfiguration().getLocales();
+    }
+
+    private static Locale getUiLocale(Context context) {
+        return getUiLocales(context).get(0);
+    }
+
+    private static String getLangScriptKey(Locale locale) {
+        return LocaleStore.fromLocale(locale).getLangScriptKey();
+    }
+}
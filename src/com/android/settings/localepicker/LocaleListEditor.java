@@ -124,10 +124,37 @@ public class LocaleListEditor extends RestrictedSettingsFragment implements View
                 KEY_CATEGORY_TERMS_OF_ADDRESS);
         mTermsOfAddressCategoryController.displayPreference(screen);
 
-        LocaleStore.fillCache(this.getContext());
         final List<LocaleStore.LocaleInfo> feedsList = getUserLocaleList();
         mAdapter = new LocaleDragAndDropAdapter(this, feedsList);
         mFragmentManager = getChildFragmentManager();
+
+        // Marks the user locales the system is translated to, without building the whole
+        // LocaleStore cache on the main thread.
+        final LocaleCatalog catalog = LocaleCatalog.getCached(getContext());
+        if (catalog != null) {
+            updateTranslatedLocales(feedsList, catalog);
+        } else {
+            LocaleCatalog.load(getContext(), loadedCatalog -> {
+                if (updateTranslatedLocales(feedsList, loadedCatalog) && isAdded()) {
+                    mAdapter.notifyDataSetChanged();
+                }
+            });
+        }
+    }
+
+    /** Returns whether the translated state of any of the {@param localeInfos} changed. */
+    @VisibleForTesting
+    static boolean updateTranslatedLocales(List<LocaleStore.LocaleInfo> localeInfos,
+            LocaleCatalog catalog) {
+        boolean changed = false;
+        for (LocaleStore.LocaleInfo localeInfo : localeInfos) {
+            final boolean translated = catalog.isTranslated(localeInfo.getLocale());
+            if (localeInfo.isTranslated() != translated) {
+                localeInfo.setTranslated(translated);
+                changed = true;
+            }
+        }
+        return changed;
     }
 
     @Override
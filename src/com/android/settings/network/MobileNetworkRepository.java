@@ -60,8 +60,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.Collectors;
 
 public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptionsChangedListener {
@@ -69,7 +69,8 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
     private static final String TAG = "MobileNetworkRepository";
     private static final boolean DEBUG = Log.isLoggable(TAG, Log.DEBUG);
 
-    private static ExecutorService sExecutor = Executors.newSingleThreadExecutor();
+    private static ScheduledExecutorService sExecutor =
+            Executors.newSingleThreadScheduledExecutor();
     private static Map<Integer, SubscriptionInfoEntity> sCacheSubscriptionInfoEntityMap =
             new ArrayMap<>();
     private static Map<Integer, MobileNetworkInfoEntity> sCacheMobileNetworkInfoEntityMap =
@@ -85,6 +86,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
     private SubscriptionInfoDao mSubscriptionInfoDao;
     private UiccInfoDao mUiccInfoDao;
     private MobileNetworkInfoDao mMobileNetworkInfoDao;
+    private MobileNetworkWriteCoalescer mWriteCoalescer;
     private List<SubscriptionInfoEntity> mAvailableSubInfoEntityList = new ArrayList<>();
     private List<SubscriptionInfoEntity> mActiveSubInfoEntityList = new ArrayList<>();
     private List<UiccInfoEntity> mUiccInfoEntityList = new ArrayList<>();
@@ -130,6 +132,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
         mSubscriptionInfoDao = mMobileNetworkDatabase.mSubscriptionInfoDao();
         mUiccInfoDao = mMobileNetworkDatabase.mUiccInfoDao();
         mMobileNetworkInfoDao = mMobileNetworkDatabase.mMobileNetworkInfoDao();
+        mWriteCoalescer = new MobileNetworkWriteCoalescer(mMobileNetworkDatabase, sExecutor);
         mAirplaneModeObserver = new AirplaneModeObserver(new Handler(Looper.getMainLooper()));
         mDataRoamingObserver = new DataRoamingObserver(new Handler(Looper.getMainLooper()));
     }
@@ -192,6 +195,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
             if (tm == null) {
                 return;
             }
+            mWriteCoalescer.noteCallback();
             sExecutor.execute(() -> {
                 Log.d(TAG, "DataRoamingObserver changed");
                 insertMobileNetworkInfo(mContext, mRegSubId, tm);
@@ -359,10 +363,13 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
     }
 
     public SubscriptionInfoEntity getSubInfoById(String subId) {
+        // Writes the rows still waiting in the coalescer, e.g. of a subscription just added.
+        mWriteCoalescer.flush();
         return mSubscriptionInfoDao.querySubInfoById(subId);
     }
 
     public MobileNetworkInfoEntity queryMobileNetworkInfoBySubId(String subId) {
+        mWriteCoalescer.flush();
         return mMobileNetworkInfoDao.queryMobileNetworkInfoBySubId(subId);
     }
 
@@ -504,7 +511,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
                 } else {
                     Log.d(TAG, "insertSubsInfo into SubscriptionInfoEntity");
                 }
-                mMobileNetworkDatabase.insertSubsInfo(subInfoEntity);
+                mWriteCoalescer.insertSubInfo(subId, subInfoEntity);
                 mMetricsFeatureProvider.action(mContext,
                         SettingsEnums.ACTION_MOBILE_NETWORK_DB_INSERT_SUB_INFO, subId);
                 insertUiccInfo(subId, telephonyManager);
@@ -517,12 +524,13 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
 
     private void deleteAllInfoBySubId(String subId) {
         Log.d(TAG, "deleteAllInfoBySubId, subId = " + subId);
+        int id = Integer.parseInt(subId);
+        mWriteCoalescer.removeSubId(id);
         mMobileNetworkDatabase.deleteSubInfoBySubId(subId);
         mMobileNetworkDatabase.deleteUiccInfoBySubId(subId);
         mMobileNetworkDatabase.deleteMobileNetworkInfoBySubId(subId);
         mUiccInfoEntityList.removeIf(info -> info.subId.equals(subId));
         mMobileNetworkInfoEntityList.removeIf(info -> info.subId.equals(subId));
-        int id = Integer.parseInt(subId);
         removerRegisterBySubId(id);
         mSubscriptionInfoMap.remove(id);
         mTelephonyManagerMap.remove(id);
@@ -586,7 +594,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
         if (!sCacheUiccInfoEntityMap.containsKey(subId)
                 || !sCacheUiccInfoEntityMap.get(subId).equals(uiccInfoEntity)) {
             sCacheUiccInfoEntityMap.put(subId, uiccInfoEntity);
-            mMobileNetworkDatabase.insertUiccInfo(uiccInfoEntity);
+            mWriteCoalescer.insertUiccInfo(subId, uiccInfoEntity);
             mMetricsFeatureProvider.action(mContext,
                     SettingsEnums.ACTION_MOBILE_NETWORK_DB_INSERT_UICC_INFO, subId);
         }
@@ -609,7 +617,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
         if (!sCacheMobileNetworkInfoEntityMap.containsKey(subId)
                 || !sCacheMobileNetworkInfoEntityMap.get(subId).equals(mobileNetworkInfoEntity)) {
             sCacheMobileNetworkInfoEntityMap.put(subId, mobileNetworkInfoEntity);
-            mMobileNetworkDatabase.insertMobileNetworkInfo(mobileNetworkInfoEntity);
+            mWriteCoalescer.insertMobileNetworkInfo(subId, mobileNetworkInfoEntity);
             mMetricsFeatureProvider.action(mContext,
                     SettingsEnums.ACTION_MOBILE_NETWORK_DB_INSERT_MOBILE_NETWORK_INFO, subId);
         }
@@ -671,6 +679,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
     }
 
     private void insertAvailableSubInfoToEntity(List<SubscriptionInfo> inputAvailableInfoList) {
+        mWriteCoalescer.noteCallback();
         sExecutor.execute(() -> {
             SubscriptionInfoEntity[] availableInfoArray = null;
             int availableEntitySize = 0;
@@ -779,6 +788,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
         @Override
         public void onUserMobileDataStateChanged(boolean enabled) {
             Log.d(TAG, "onUserMobileDataStateChanged enabled " + enabled + " on SUB " + mSubId);
+            mWriteCoalescer.noteCallback();
             sExecutor.execute(() -> {
                 insertMobileNetworkInfo(mContext, mSubId,
                         getTelephonyManagerBySubId(mContext, mSubId));
@@ -835,6 +845,7 @@ public class MobileNetworkRepository extends SubscriptionManager.OnSubscriptions
         printwriter.println(" uiccInfoEntityList= " + mUiccInfoEntityList);
         printwriter.println(" CacheSubscriptionInfoEntityMap= " + sCacheSubscriptionInfoEntityMap);
         printwriter.println(" SubscriptionInfoMap= " + mSubscriptionInfoMap);
+        mWriteCoalescer.dump(printwriter);
         printwriter.flush();
         printwriter.decreaseIndent();
     }
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import android.util.ArrayMap;
+import android.util.IndentingPrintWriter;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.mobile.dataservice.MobileNetworkDatabase;
+import com.android.settingslib.mobile.dataservice.MobileNetworkInfoEntity;
+import com.android.settingslib.mobile.dataservice.SubscriptionInfoEntity;
+import com.android.settingslib.mobile.dataservice.UiccInfoEntity;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Merges the rows {@link MobileNetworkRepository} writes within a short window into one
+ * transaction of the {@link MobileNetworkDatabase}, so that the observers of the database are
+ * invalidated once per window instead of once per row.
+ * <p>
+ * Only the latest row of each subscription is kept for each table, and a row equal to the one
+ * last written is skipped. The transaction runs outside the lock of the pending rows, so that
+ * queuing a row never waits for the database.
+ */
+class MobileNetworkWriteCoalescer {
+    private static final String TAG = "MobileNetworkWriteCoalescer";
+
+    @VisibleForTesting
+    static final long WINDOW_MILLIS = 50;
+
+    private final MobileNetworkDatabase mDatabase;
+    private final ScheduledExecutorService mExecutor;
+    // Held while writing, so that the transactions of two flushes are not reordered.
+    private final Object mFlushLock = new Object();
+
+    @GuardedBy("this")
+    private Map<Integer, SubscriptionInfoEntity> mPendingSubInfos = new ArrayMap<>();
+    @GuardedBy("this")
+    private Map<Integer, UiccInfoEntity> mPendingUiccInfos = new ArrayMap<>();
+    @GuardedBy("this")
+    private Map<Integer, MobileNetworkInfoEntity> mPendingMobileNetworkInfos = new ArrayMap<>();
+    @GuardedBy("this")
+    private final Map<Integer, SubscriptionInfoEntity> mWrittenSubInfos = new ArrayMap<>();
+    @GuardedBy("this")
+    private final Map<Integer, UiccInfoEntity> mWrittenUiccInfos = new ArrayMap<>();
+    @GuardedBy("this")
+    private final Map<Integer, MobileNetworkInfoEntity> mWrittenMobileNetworkInfos =
+            new ArrayMap<>();
+    @GuardedBy("this")
+    private boolean mFlushScheduled;
+
+    private final AtomicInteger mCallbackCount = new AtomicInteger();
+    private final AtomicInteger mTransactionCount = new AtomicInteger();
+    private final AtomicInteger mWriteCount = new AtomicInteger();
+    private final AtomicInteger mSkipCount = new AtomicInteger();
+
+    MobileNetworkWriteCoalescer(MobileNetworkDatabase database,
+            ScheduledExecutorService executor) {
+        mDatabase = database;
+        mExecutor = executor;
+    }
+
+    /** Notes that a callback of the framework or of a content observer requested an update. */
+    void noteCallback() {
+        mCallbackCount.incrementAndGet();
+    }
+
+    synchronized void insertSubInfo(int subId, SubscriptionInfoEntity entity) {
+        mPendingSubInfos.put(subId, entity);
+        scheduleFlush();
+    }
+
+    synchronized void insertUiccInfo(int subId, UiccInfoEntity entity) {
+        mPendingUiccInfos.put(subId, entity);
+        scheduleFlush();
+    }
+
+    synchronized void insertMobileNetworkInfo(int subId, MobileNetworkInfoEntity entity) {
+        mPendingMobileNetworkInfos.put(subId, entity);
+        scheduleFlush();
+    }
+
+    /**
+     * Drops the pending rows of the subscription, called before its rows are deleted from the
+     * database so that they are not written again. Waits for a transaction in progress.
+     */
+    void removeSubId(int subId) {
+        synchronized (mFlushLock) {
+            synchronized (this) {
+                mPendingSubInfos.remove(subId);
+                mPendingUiccInfos.remove(subId);
+                mPendingMobileNetworkInfos.remove(subId);
+                mWrittenSubInfos.remove(subId);
+                mWrittenUiccInfos.remove(subId);
+                mWrittenMobileNetworkInfos.remove(subId);
+            }
+        }
+    }
+
+    @GuardedBy("this")
+    private void scheduleFlush() {
+        if (mFlushScheduled) {
+            return;
+        }
+        mFlushScheduled = true;
+        mExecutor.schedule(this::flush, WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the pending rows which changed since they were last written in one transaction.
+     * Also called before reading a subscription from the database, so that the read sees the
+     * rows queued before it.
+     */
+    void flush() {
+        synchronized (mFlushLock) {
+            final Map<Integer, SubscriptionInfoEntity> subInfos;
+            final Map<Integer, UiccInfoEntity> uiccInfos;
+            final Map<Integer, MobileNetworkInfoEntity> mobileNetworkInfos;
+            final int skipCount;
+            synchronized (this) {
+                mFlushScheduled = false;
+                skipCount = removeUnchanged(mPendingSubInfos, mWrittenSubInfos)
+                        + removeUnchanged(mPendingUiccInfos, mWrittenUiccInfos)
+                        + removeUnchanged(mPendingMobileNetworkInfos, mWrittenMobileNetworkInfos);
+                subInfos = mPendingSubInfos;
+                uiccInfos = mPendingUiccInfos;
+                mobileNetworkInfos = mPendingMobileNetworkInfos;
+                mPendingSubInfos = new ArrayMap<>();
+                mPendingUiccInfos = new ArrayMap<>();
+                mPendingMobileNetworkInfos = new ArrayMap<>();
+                // Marked as written before the transaction, so that an equal row queued while
+                // it runs is skipped.
+                mWrittenSubInfos.putAll(subInfos);
+                mWrittenUiccInfos.putAll(uiccInfos);
+                mWrittenMobileNetworkInfos.putAll(mobileNetworkInfos);
+            }
+            mSkipCount.addAndGet(skipCount);
+            final int writeCount = subInfos.size() + uiccInfos.size() + mobileNetworkInfos.size();
+            if (writeCount == 0) {
+                Log.d(TAG, "flush, skipped " + skipCount + " unchanged rows");
+                return;
+            }
+            mDatabase.runInTransaction(() -> {
+                for (SubscriptionInfoEntity entity : subInfos.values()) {
+                    mDatabase.insertSubsInfo(entity);
+                }
+                for (UiccInfoEntity entity : uiccInfos.values()) {
+                    mDatabase.insertUiccInfo(entity);
+                }
+                for (MobileNetworkInfoEntity entity : mobileNetworkInfos.values()) {
+                    mDatabase.insertMobileNetworkInfo(entity);
+                }
+            });
+            mTransactionCount.incrementAndGet();
+            mWriteCount.addAndGet(writeCount);
+            Log.d(TAG, "flush, wrote " + writeCount + " rows, skipped " + skipCount
+                    + " unchanged rows");
+        }
+    }
+
+    /** Removes the pending rows equal to the written ones, returns the number removed. */
+    private static <T> int removeUnchanged(Map<Integer, T> pending, Map<Integer, T> written) {
+        final int size = pending.size();
+        pending.entrySet().removeIf(
+                entry -> Objects.equals(entry.getValue(), written.get(entry.getKey())));
+        return size - pending.size();
+    }
+
+    @VisibleForTesting
+    int getWriteCount() {
+        return mWriteCount.get();
+    }
+
+    @VisibleForTesting
+    int getSkipCount() {
+        return mSkipCount.get();
+    }
+
+    /** Returns the number of transactions, each of which invalidates the observers once. */
+    @VisibleForTesting
+    int getInvalidationCount() {
+        return mTransactionCount.get();
+    }
+
+    void dump(IndentingPrintWriter printwriter) {
+        final int callbackCount = mCallbackCount.get();
+        final int writeCount = mWriteCount.get();
+        final int transactionCount = mTransactionCount.get();
+        printwriter.println(" callbacks= " + callbackCount);
+        printwriter.println(" writes= " + writeCount + ", skipped= " + mSkipCount.get());
+        printwriter.println(" invalidations= " + transactionCount);
+        if (callbackCount > 0) {
+            printwriter.println(" writesPerCallback= " + (float) writeCount / callbackCount
+                    + ", invalidationsPerCallback= "
+                    + (float) transactionCount / callbackCount);
+        }
+    }
+}
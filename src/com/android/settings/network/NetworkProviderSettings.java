@@ -33,6 +33,7 @@ import android.net.wifi.WifiConfiguration;
 import android.net.wifi.WifiManager;
 import android.os.Bundle;
 import android.os.PowerManager;
+import android.os.Trace;
 import android.os.UserHandle;
 import android.os.UserManager;
 import android.provider.Settings;
@@ -94,6 +95,8 @@ import com.android.wifitrackerlib.WifiEntry;
 import com.android.wifitrackerlib.WifiEntry.ConnectCallback;
 import com.android.wifitrackerlib.WifiPickerTracker;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 
@@ -124,6 +127,12 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
 
     private static final String PREF_KEY_AIRPLANE_MODE_MSG = "airplane_mode_message";
     private static final String PREF_KEY_EMPTY_WIFI_LIST = "wifi_empty_list";
+    private static final String TRACE_UPDATE_WIFI_ENTRY_PREFERENCES =
+            "NetworkProviderSettings#updateWifiEntryPreferences";
+    private static final String TRACE_WIFI_ENTRY_INSERTED = "WifiEntryPreferences.inserted";
+    private static final String TRACE_WIFI_ENTRY_REMOVED = "WifiEntryPreferences.removed";
+    private static final String TRACE_WIFI_ENTRY_MOVED = "WifiEntryPreferences.moved";
+    private static final String TRACE_WIFI_ENTRY_UPDATED = "WifiEntryPreferences.updated";
     @VisibleForTesting
     static final String PREF_KEY_WIFI_TOGGLE = "main_toggle_wifi";
     // TODO(b/70983952): Rename these to use WifiEntry instead of AccessPoint.
@@ -187,6 +196,13 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
             view.postDelayed(mRemoveLoadingRunnable, 10);
         }
     };
+    private boolean mWifiEntryPreferencesUpdatePending;
+    @VisibleForTesting
+    final Runnable mCoalescedUpdateWifiEntryPreferencesRunnable = () -> {
+        if (mWifiEntryPreferencesUpdatePending) {
+            updateWifiEntryPreferences();
+        }
+    };
     @VisibleForTesting
     final Runnable mHideProgressBarRunnable = () -> {
         setProgressBarVisible(false);
@@ -534,6 +550,8 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
     public void onStop() {
         getView().removeCallbacks(mRemoveLoadingRunnable);
         getView().removeCallbacks(mUpdateWifiEntryPreferencesRunnable);
+        getView().removeCallbacks(mCoalescedUpdateWifiEntryPreferencesRunnable);
+        mWifiEntryPreferencesUpdatePending = false;
         getView().removeCallbacks(mHideProgressBarRunnable);
         mAirplaneModeEnabler.stop();
         super.onStop();
@@ -909,7 +927,7 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
 
     @Override
     public void onWifiEntriesChanged(@WifiPickerTracker.WifiEntriesChangedReason int reason) {
-        updateWifiEntryPreferences();
+        scheduleUpdateWifiEntryPreferences();
         if (reason == WifiPickerTracker.WIFI_ENTRIES_CHANGED_REASON_SCAN_RESULTS) {
             setProgressBarVisible(false);
         }
@@ -949,6 +967,64 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
     }
 
     protected void updateWifiEntryPreferences() {
+        mWifiEntryPreferencesUpdatePending = false;
+        Trace.beginSection(TRACE_UPDATE_WIFI_ENTRY_PREFERENCES);
+        try {
+            updateWifiEntryPreferencesInternal();
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * Coalesces the bursts of {@link WifiPickerTracker} callbacks into one update of the Wi-Fi
+     * entry preferences per frame.
+     */
+    @VisibleForTesting
+    void scheduleUpdateWifiEntryPreferences() {
+        final View view = getView();
+        if (view == null) {
+            updateWifiEntryPreferences();
+            return;
+        }
+        if (mWifiEntryPreferencesUpdatePending) {
+            return;
+        }
+        mWifiEntryPreferencesUpdatePending = true;
+        view.postOnAnimation(mCoalescedUpdateWifiEntryPreferencesRunnable);
+    }
+
+    /** Returns the keys of the Wi-Fi entry preferences in their current order. */
+    private List<String> getWifiEntryPreferenceKeys() {
+        final int count = mWifiEntryPreferenceCategory.getPreferenceCount();
+        final List<Preference> preferences = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final Preference preference = mWifiEntryPreferenceCategory.getPreference(i);
+            if (preference instanceof LongPressWifiEntryPreference) {
+                preferences.add(preference);
+            }
+        }
+        preferences.sort(Comparator.comparingInt(Preference::getOrder));
+        final List<String> keys = new ArrayList<>(preferences.size());
+        for (Preference preference : preferences) {
+            keys.add(preference.getKey());
+        }
+        return keys;
+    }
+
+    private void removeWifiEntryPreference(String key) {
+        final Preference preference = mWifiEntryPreferenceCategory.findPreference(key);
+        if (preference != null) {
+            mWifiEntryPreferenceCategory.removePreference(preference);
+        }
+    }
+
+    private void updateHelpButtonListener(LongPressWifiEntryPreference pref) {
+        pref.setOnButtonClickListener(pref.getWifiEntry().getHelpUriString() == null ? null
+                : preference -> openSubscriptionHelpPage(preference.getWifiEntry()));
+    }
+
+    private void updateWifiEntryPreferencesInternal() {
         // bypass the update if the activity and the view are not ready, or it's restricted UI.
         if (getActivity() == null || getView() == null || mIsRestricted) {
             return;
@@ -997,45 +1073,58 @@ public class NetworkProviderSettings extends RestrictedSettingsFragment
         }
 
         int index = 0;
-        cacheRemoveAllPrefs(mWifiEntryPreferenceCategory);
-        List<WifiEntry> wifiEntries = mWifiPickerTracker.getWifiEntries();
+        final List<WifiEntry> wifiEntries = mWifiPickerTracker.getWifiEntries();
+        final List<String> newKeys = new ArrayList<>(wifiEntries.size());
+        for (WifiEntry wifiEntry : wifiEntries) {
+            newKeys.add(wifiEntry.getKey());
+        }
+        final WifiEntryListDiff diff =
+                WifiEntryListDiff.compute(getWifiEntryPreferenceKeys(), newKeys);
+        for (String key : diff.mRemovedKeys) {
+            removeWifiEntryPreference(key);
+        }
+        int updatedCount = 0;
         for (WifiEntry wifiEntry : wifiEntries) {
             hasAvailableWifiEntries = true;
 
             String key = wifiEntry.getKey();
-            LongPressWifiEntryPreference pref =
-                    (LongPressWifiEntryPreference) getCachedPreference(key);
+            LongPressWifiEntryPreference pref = mWifiEntryPreferenceCategory.findPreference(key);
             if (pref != null) {
-                if (pref.getWifiEntry() == wifiEntry) {
-                    pref.setOrder(index++);
-                    continue;
-                } else {
-                    // Create a new preference if the underlying WifiEntry object has changed
-                    removePreference(key);
+                if (pref.getWifiEntry() != wifiEntry) {
+                    // Rebind the preference if the underlying WifiEntry object has changed, the
+                    // title and summary setters skip the values which are not changed.
+                    pref.setWifiEntry(wifiEntry);
+                    updateHelpButtonListener(pref);
+                    updatedCount++;
                 }
+                pref.setOrder(index++);
+                continue;
             }
 
             pref = createLongPressWifiEntryPreference(wifiEntry);
             pref.setKey(wifiEntry.getKey());
             pref.setOrder(index++);
             pref.refresh();
-
-            if (wifiEntry.getHelpUriString() != null) {
-                pref.setOnButtonClickListener(preference -> {
-                    openSubscriptionHelpPage(wifiEntry);
-                });
-            }
+            updateHelpButtonListener(pref);
             mWifiEntryPreferenceCategory.addPreference(pref);
         }
-        removeCachedPrefs(mWifiEntryPreferenceCategory);
+        Trace.setCounter(TRACE_WIFI_ENTRY_INSERTED, diff.mInsertedKeys.size());
+        Trace.setCounter(TRACE_WIFI_ENTRY_REMOVED, diff.mRemovedKeys.size());
+        Trace.setCounter(TRACE_WIFI_ENTRY_MOVED, diff.mMovedKeys.size());
+        Trace.setCounter(TRACE_WIFI_ENTRY_UPDATED, updatedCount);
 
-        if (!hasAvailableWifiEntries) {
-            Preference pref = new Preference(getPrefContext());
-            pref.setSelectable(false);
-            pref.setSummary(R.string.wifi_empty_list_wifi_on);
+        if (hasAvailableWifiEntries) {
+            removeWifiEntryPreference(PREF_KEY_EMPTY_WIFI_LIST);
+        } else {
+            Preference pref = mWifiEntryPreferenceCategory.findPreference(PREF_KEY_EMPTY_WIFI_LIST);
+            if (pref == null) {
+                pref = new Preference(getPrefContext());
+                pref.setSelectable(false);
+                pref.setSummary(R.string.wifi_empty_list_wifi_on);
+                pref.setKey(PREF_KEY_EMPTY_WIFI_LIST);
+                mWifiEntryPreferenceCategory.addPreference(pref);
+            }
             pref.setOrder(index++);
-            pref.setKey(PREF_KEY_EMPTY_WIFI_LIST);
-            mWifiEntryPreferenceCategory.addPreference(pref);
         }
 
         mAddWifiNetworkPreference.setOrder(index++);
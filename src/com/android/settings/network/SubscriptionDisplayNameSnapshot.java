@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static android.telephony.CarrierConfigManager.ACTION_CARRIER_CONFIG_CHANGED;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.Telephony;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.util.Log;
+
+import androidx.annotation.GuardedBy;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A singleton snapshot of the unique subscription display names.
+ *
+ * The unique names are computed once per change of the subscriptions and shared by all callers
+ * of {@link SubscriptionUtil#getUniqueSubscriptionDisplayName}. The snapshot is dropped when the
+ * subscriptions, their phone numbers, the carrier configurations or the locale change, since the
+ * names are localized.
+ */
+public class SubscriptionDisplayNameSnapshot {
+    private static final String TAG = "SubDisplayNameSnapshot";
+
+    private static final Object sInstanceLock = new Object();
+    @GuardedBy("sInstanceLock")
+    private static SubscriptionDisplayNameSnapshot sInstance;
+
+    private final Object mLock = new Object();
+    @GuardedBy("mLock")
+    private List<SubscriptionInfo> mSubscriptions;
+    @GuardedBy("mLock")
+    private Map<Integer, CharSequence> mDisplayNames;
+    // Bumped on each invalidation, so that names computed before it are not kept.
+    @GuardedBy("mLock")
+    private int mGeneration;
+    // Without the change callbacks, the snapshot is validated against the subscriptions per query.
+    private volatile boolean mListening;
+
+    private Context mAppContext;
+    private SubscriptionManager.OnSubscriptionsChangedListener mSubscriptionsChangedListener;
+    private BroadcastReceiver mCarrierConfigReceiver;
+    private BroadcastReceiver mLocaleReceiver;
+    private ContentObserver mSimInfoObserver;
+
+    /**
+     * Static method to get the singleton snapshot, which starts listening to the subscription
+     * and carrier config changes on first use.
+     *
+     * @param context The Context this is associated with.
+     * @return an instance of {@link SubscriptionDisplayNameSnapshot} object.
+     */
+    @NonNull
+    public static SubscriptionDisplayNameSnapshot getInstance(@NonNull Context context) {
+        synchronized (sInstanceLock) {
+            if (sInstance != null) return sInstance;
+
+            sInstance = new SubscriptionDisplayNameSnapshot();
+            sInstance.startListening(context.getApplicationContext());
+            return sInstance;
+        }
+    }
+
+    @VisibleForTesting
+    SubscriptionDisplayNameSnapshot() {
+    }
+
+    /** Stops listening and drops the singleton, so that the next test starts from scratch. */
+    @VisibleForTesting
+    public static void resetForTesting() {
+        synchronized (sInstanceLock) {
+            if (sInstance != null) {
+                sInstance.stopListening();
+                sInstance = null;
+            }
+        }
+    }
+
+    /**
+     * Returns the mapping of available subscription ids to unique display names.
+     *
+     * The available subscriptions are only fetched and the unique names computed after a change
+     * dropped the snapshot. If the changes cannot be listened to, the subscriptions are fetched
+     * once per call and the names recomputed when they differ from the ones of the snapshot.
+     */
+    @NonNull
+    public Map<Integer, CharSequence> getDisplayNames(@NonNull Context context) {
+        final int generation;
+        synchronized (mLock) {
+            // The subscriptions set for testing do not trigger the change callbacks.
+            if (mDisplayNames != null && mListening
+                    && !SubscriptionUtil.hasAvailableSubscriptionsForTesting()) {
+                return mDisplayNames;
+            }
+            generation = mGeneration;
+        }
+        final List<SubscriptionInfo> subscriptions =
+                SubscriptionUtil.getAvailableSubscriptions(context);
+        synchronized (mLock) {
+            if (mDisplayNames != null && subscriptions.equals(mSubscriptions)) {
+                return mDisplayNames;
+            }
+        }
+        final Map<Integer, CharSequence> displayNames = Collections.unmodifiableMap(
+                SubscriptionUtil.computeUniqueSubscriptionDisplayNames(context, subscriptions));
+        synchronized (mLock) {
+            if (generation == mGeneration) {
+                mSubscriptions = new ArrayList<>(subscriptions);
+                mDisplayNames = displayNames;
+            }
+        }
+        return displayNames;
+    }
+
+    /** Drops the current snapshot, the next query recomputes the unique names. */
+    public void invalidate() {
+        synchronized (mLock) {
+            mGeneration++;
+            mSubscriptions = null;
+            mDisplayNames = null;
+        }
+    }
+
+    @VisibleForTesting
+    void startListening(Context appContext) {
+        final SubscriptionManager subscriptionManager =
+                appContext.getSystemService(SubscriptionManager.class);
+        if (subscriptionManager == null) {
+            Log.w(TAG, "No SubscriptionManager, the snapshot is only validated per query.");
+            return;
+        }
+        mAppContext = appContext;
+        mSubscriptionsChangedListener = new SubscriptionManager.OnSubscriptionsChangedListener() {
+            @Override
+            public void onSubscriptionsChanged() {
+                invalidate();
+            }
+        };
+        subscriptionManager.addOnSubscriptionsChangedListener(appContext.getMainExecutor(),
+                mSubscriptionsChangedListener);
+        mCarrierConfigReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                if (ACTION_CARRIER_CONFIG_CHANGED.equals(intent.getAction())) {
+                    invalidate();
+                }
+            }
+        };
+        appContext.registerReceiver(mCarrierConfigReceiver,
+                new IntentFilter(ACTION_CARRIER_CONFIG_CHANGED),
+                Context.RECEIVER_EXPORTED/*UNAUDITED*/);
+        mLocaleReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                if (Intent.ACTION_LOCALE_CHANGED.equals(intent.getAction())) {
+                    invalidate();
+                }
+            }
+        };
+        appContext.registerReceiver(mLocaleReceiver,
+                new IntentFilter(Intent.ACTION_LOCALE_CHANGED), Context.RECEIVER_NOT_EXPORTED);
+        // The phone numbers used to tell apart equal names are stored in the SIM info table.
+        mSimInfoObserver = new ContentObserver(new Handler(Looper.getMainLooper())) {
+            @Override
+            public void onChange(boolean selfChange) {
+                invalidate();
+            }
+        };
+        appContext.getContentResolver().registerContentObserver(Telephony.SimInfo.CONTENT_URI,
+                true /* notifyForDescendants */, mSimInfoObserver);
+        // Names computed before listening may already be stale.
+        invalidate();
+        mListening = true;
+    }
+
+    @VisibleForTesting
+    void stopListening() {
+        if (!mListening) {
+            return;
+        }
+        mListening = false;
+        mAppContext.getSystemService(SubscriptionManager.class)
+                .removeOnSubscriptionsChangedListener(mSubscriptionsChangedListener);
+        mAppContext.unregisterReceiver(mCarrierConfigReceiver);
+        mAppContext.unregisterReceiver(mLocaleReceiver);
+        mAppContext.getContentResolver().unregisterContentObserver(mSimInfoObserver);
+        mAppContext = null;
+    }
+}
@@ -57,17 +57,16 @@ import com.android.settings.network.telephony.ToggleSubscriptionDialogActivity;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
-import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class SubscriptionUtil {
     private static final String TAG = "SubscriptionUtil";
@@ -89,6 +88,11 @@ public class SubscriptionUtil {
         sAvailableResultsForTesting = results;
     }
 
+    /** Whether the available subscriptions are set by a test, the snapshots then recheck them. */
+    static boolean hasAvailableSubscriptionsForTesting() {
+        return sAvailableResultsForTesting != null;
+    }
+
     @VisibleForTesting
     public static void setActiveSubscriptionsForTesting(List<SubscriptionInfo> results) {
         sActiveResultsForTesting = results;
@@ -296,55 +300,64 @@ public class SubscriptionUtil {
      */
     @VisibleForTesting
     public static Map<Integer, CharSequence> getUniqueSubscriptionDisplayNames(Context context) {
+        return SubscriptionDisplayNameSnapshot.getInstance(context).getDisplayNames(context);
+    }
+
+    /**
+     * Computes the unique display names of the given subscriptions in a single pass. The cached
+     * display names are read once per subscription and all changes to them are written back
+     * with one {@link SharedPreferences.Editor}.
+     *
+     * @see #getUniqueSubscriptionDisplayNames(Context)
+     */
+    static Map<Integer, CharSequence> computeUniqueSubscriptionDisplayNames(Context context,
+            List<SubscriptionInfo> subscriptions) {
         class DisplayInfo {
             public SubscriptionInfo subscriptionInfo;
             public CharSequence originalName;
             public CharSequence uniqueName;
         }
 
-        // Map of SubscriptionId to DisplayName
-        final Supplier<Stream<DisplayInfo>> originalInfos =
-                () -> getAvailableSubscriptions(context)
-                        .stream()
-                        .filter(i -> {
-                            // Filter out null values.
-                            return (i != null && i.getDisplayName() != null);
-                        })
-                        .map(i -> {
-                            DisplayInfo info = new DisplayInfo();
-                            info.subscriptionInfo = i;
-                            String displayName = i.getDisplayName().toString();
-                            info.originalName =
-                                    TextUtils.equals(displayName, PROFILE_GENERIC_DISPLAY_NAME)
-                                            ? context.getResources().getString(R.string.sim_card)
-                                            : displayName.trim();
-                            return info;
-                        });
-
-        // TODO(goldmanj) consider using a map of DisplayName to SubscriptionInfos.
+        final List<DisplayInfo> infos = new ArrayList<>();
         // A Unique set of display names
-        Set<CharSequence> uniqueNames = new HashSet<>();
-        // Return the set of duplicate names
-        final Set<CharSequence> duplicateOriginalNames = originalInfos.get()
-                .filter(info -> !uniqueNames.add(info.originalName))
-                .map(info -> info.originalName)
-                .collect(Collectors.toSet());
+        final Set<CharSequence> uniqueNames = new HashSet<>();
+        // The set of duplicate names
+        final Set<CharSequence> duplicateOriginalNames = new HashSet<>();
+        for (SubscriptionInfo i : subscriptions) {
+            // Filter out null values.
+            if (i == null || i.getDisplayName() == null) {
+                continue;
+            }
+            DisplayInfo info = new DisplayInfo();
+            info.subscriptionInfo = i;
+            String displayName = i.getDisplayName().toString();
+            info.originalName =
+                    TextUtils.equals(displayName, PROFILE_GENERIC_DISPLAY_NAME)
+                            ? context.getResources().getString(R.string.sim_card)
+                            : displayName.trim();
+            if (!uniqueNames.add(info.originalName)) {
+                duplicateOriginalNames.add(info.originalName);
+            }
+            infos.add(info);
+        }
 
         // If a display name is duplicate, append the final 4 digits of the phone number.
-        // Creates a mapping of Subscription id to original display name + phone number display name
-        final Supplier<Stream<DisplayInfo>> uniqueInfos = () -> originalInfos.get().map(info -> {
+        final SharedPreferences sharedPreferences = getDisplayNameSharedPreferences(context);
+        SharedPreferences.Editor editor = null;
+        for (DisplayInfo info : infos) {
             int infoSubId = info.subscriptionInfo.getSubscriptionId();
-            String cachedDisplayName = getDisplayNameFromSharedPreference(
-                    context, infoSubId);
+            String cachedDisplayName = sharedPreferences.getString(SUB_ID + infoSubId, "");
             if (isValidCachedDisplayName(cachedDisplayName, info.originalName.toString())) {
                 Log.d(TAG, "use cached display name : for subId : " + infoSubId
                         + "cached display name : " + cachedDisplayName);
                 info.uniqueName = cachedDisplayName;
-                return info;
-            } else {
-                Log.d(TAG, "remove cached display name : " + infoSubId);
-                removeItemFromDisplayNameSharedPreference(context, infoSubId);
+                continue;
+            }
+            Log.d(TAG, "remove cached display name : " + infoSubId);
+            if (editor == null) {
+                editor = sharedPreferences.edit();
             }
+            editor.remove(SUB_ID + infoSubId);
 
             if (duplicateOriginalNames.contains(info.originalName)) {
                 // This may return null, if the user cannot view the phone number itself.
@@ -369,32 +382,36 @@ public class SubscriptionUtil {
                     info.uniqueName = info.originalName + " " + lastFourDigits;
                     Log.d(TAG, "Cache display name [" + info.uniqueName + "] for sub id "
                             + infoSubId);
-                    saveDisplayNameToSharedPreference(context, infoSubId, info.uniqueName);
+                    editor.putString(SUB_ID + infoSubId, String.valueOf(info.uniqueName));
                 }
             } else {
                 info.uniqueName = info.originalName;
             }
-            return info;
-        });
+        }
+        if (editor != null) {
+            editor.apply();
+        }
 
         // Check uniqueness a second time.
         // We might not have had permission to view the phone numbers.
         // There might also be multiple phone numbers whose last 4 digits the same.
         uniqueNames.clear();
-        final Set<CharSequence> duplicatePhoneNames = uniqueInfos.get()
-                .filter(info -> !uniqueNames.add(info.uniqueName))
-                .map(info -> info.uniqueName)
-                .collect(Collectors.toSet());
+        final Set<CharSequence> duplicatePhoneNames = new HashSet<>();
+        for (DisplayInfo info : infos) {
+            if (!uniqueNames.add(info.uniqueName)) {
+                duplicatePhoneNames.add(info.uniqueName);
+            }
+        }
 
-        return uniqueInfos.get().map(info -> {
+        final Map<Integer, CharSequence> displayNames = new HashMap<>();
+        for (DisplayInfo info : infos) {
             if (duplicatePhoneNames.contains(info.uniqueName)) {
                 info.uniqueName = info.originalName + " "
                         + info.subscriptionInfo.getSubscriptionId();
             }
-            return info;
-        }).collect(Collectors.toMap(
-                info -> info.subscriptionInfo.getSubscriptionId(),
-                info -> info.uniqueName));
+            displayNames.put(info.subscriptionInfo.getSubscriptionId(), info.uniqueName);
+        }
+        return displayNames;
     }
 
     /**
@@ -439,27 +456,6 @@ public class SubscriptionUtil {
                 KEY_UNIQUE_SUBSCRIPTION_DISPLAYNAME, Context.MODE_PRIVATE);
     }
 
-    private static SharedPreferences.Editor getDisplayNameSharedPreferenceEditor(Context context) {
-        return getDisplayNameSharedPreferences(context).edit();
-    }
-
-    private static void saveDisplayNameToSharedPreference(
-            Context context, int subId, CharSequence displayName) {
-        getDisplayNameSharedPreferenceEditor(context)
-                .putString(SUB_ID + subId, String.valueOf(displayName))
-                .apply();
-    }
-
-    private static void removeItemFromDisplayNameSharedPreference(Context context, int subId) {
-        getDisplayNameSharedPreferenceEditor(context)
-                .remove(SUB_ID + subId)
-                .commit();
-    }
-
-    private static String getDisplayNameFromSharedPreference(Context context, int subid) {
-        return getDisplayNameSharedPreferences(context).getString(SUB_ID + subid, "");
-    }
-
     @VisibleForTesting
     static boolean isValidCachedDisplayName(String cachedDisplayName, String originalName) {
         if (TextUtils.isEmpty(cachedDisplayName) || TextUtils.isEmpty(originalName)
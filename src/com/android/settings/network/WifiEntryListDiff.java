@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The minimal insert, move and remove operations between two orders of Wi-Fi entry keys.
+ *
+ * The moved keys are the retained keys that are not part of the longest subsequence whose
+ * relative order is unchanged, so a single entry jumping to the top counts as one move.
+ */
+final class WifiEntryListDiff {
+
+    @NonNull
+    final List<String> mInsertedKeys;
+    @NonNull
+    final List<String> mRemovedKeys;
+    @NonNull
+    final Set<String> mMovedKeys;
+
+    private WifiEntryListDiff(List<String> insertedKeys, List<String> removedKeys,
+            Set<String> movedKeys) {
+        mInsertedKeys = insertedKeys;
+        mRemovedKeys = removedKeys;
+        mMovedKeys = movedKeys;
+    }
+
+    /** Returns whether the two orders are the same. */
+    boolean isEmpty() {
+        return mInsertedKeys.isEmpty() && mRemovedKeys.isEmpty() && mMovedKeys.isEmpty();
+    }
+
+    /** Computes the operations turning {@code oldKeys} into {@code newKeys}. */
+    @NonNull
+    static WifiEntryListDiff compute(@NonNull List<String> oldKeys,
+            @NonNull List<String> newKeys) {
+        final Map<String, Integer> oldIndexes = new HashMap<>(oldKeys.size());
+        for (int i = 0; i < oldKeys.size(); i++) {
+            oldIndexes.put(oldKeys.get(i), i);
+        }
+
+        final List<String> insertedKeys = new ArrayList<>();
+        final List<String> retainedKeys = new ArrayList<>(newKeys.size());
+        final Set<String> newKeySet = new HashSet<>(newKeys.size());
+        for (String key : newKeys) {
+            newKeySet.add(key);
+            if (oldIndexes.containsKey(key)) {
+                retainedKeys.add(key);
+            } else {
+                insertedKeys.add(key);
+            }
+        }
+
+        final List<String> removedKeys = new ArrayList<>();
+        for (String key : oldKeys) {
+            if (!newKeySet.contains(key)) {
+                removedKeys.add(key);
+            }
+        }
+
+        final int[] retainedOldIndexes = new int[retainedKeys.size()];
+        for (int i = 0; i < retainedKeys.size(); i++) {
+            retainedOldIndexes[i] = oldIndexes.get(retainedKeys.get(i));
+        }
+        final boolean[] stable = longestIncreasingSubsequence(retainedOldIndexes);
+        final Set<String> movedKeys = new HashSet<>();
+        for (int i = 0; i < retainedKeys.size(); i++) {
+            if (!stable[i]) {
+                movedKeys.add(retainedKeys.get(i));
+            }
+        }
+
+        return new WifiEntryListDiff(insertedKeys, removedKeys,
+                movedKeys.isEmpty() ? Collections.emptySet() : movedKeys);
+    }
+
+    /** Marks the members of one longest strictly increasing subsequence, in O(n log n). */
+    private static boolean[] longestIncreasingSubsequence(int[] values) {
+        final int size = values.length;
+        final int[] tailIndexes = new int[size];
+        final int[] previous = new int[size];
+        int length = 0;
+        for (int i = 0; i < size; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (values[tailIndexes[mid]] < values[i]) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tailIndexes[low - 1] : -1;
+            tailIndexes[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        final boolean[] stable = new boolean[size];
+        for (int i = length > 0 ? tailIndexes[length - 1] : -1; i >= 0; i = previous[i]) {
+            stable[i] = true;
+        }
+        return stable;
+    }
+}
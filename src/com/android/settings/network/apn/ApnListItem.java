@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network.apn;
+
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An APN row of {@link ApnSettings}, as loaded from the telephony provider off the main thread.
+ */
+final class ApnListItem {
+    @NonNull
+    final String mKey;
+    @Nullable
+    final String mTitle;
+    @Nullable
+    final String mSummary;
+    final boolean mHideDetails;
+    final boolean mDefaultSelectable;
+
+    ApnListItem(@NonNull String key, @Nullable String title, @Nullable String summary,
+            boolean hideDetails, boolean defaultSelectable) {
+        mKey = key;
+        mTitle = title;
+        mSummary = summary;
+        mHideDetails = hideDetails;
+        mDefaultSelectable = defaultSelectable;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ApnListItem)) return false;
+        final ApnListItem other = (ApnListItem) o;
+        return mHideDetails == other.mHideDetails
+                && mDefaultSelectable == other.mDefaultSelectable
+                && mKey.equals(other.mKey)
+                && TextUtils.equals(mTitle, other.mTitle)
+                && TextUtils.equals(mSummary, other.mSummary);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mKey, mTitle, mSummary, mHideDetails, mDefaultSelectable);
+    }
+
+    /** The APN rows to remove, and the ones to add or update, between two loads. */
+    static final class Diff {
+        final Set<String> mRemovedKeys;
+        final List<ApnListItem> mChangedItems;
+
+        private Diff(Set<String> removedKeys, List<ApnListItem> changedItems) {
+            mRemovedKeys = removedKeys;
+            mChangedItems = changedItems;
+        }
+
+        boolean isEmpty() {
+            return mRemovedKeys.isEmpty() && mChangedItems.isEmpty();
+        }
+    }
+
+    /** Compares two loads by APN id, ignoring the order of the rows. */
+    @NonNull
+    static Diff diff(@NonNull List<ApnListItem> oldItems, @NonNull List<ApnListItem> newItems) {
+        final Map<String, ApnListItem> oldByKey = new ArrayMap<>(oldItems.size());
+        for (ApnListItem item : oldItems) {
+            oldByKey.put(item.mKey, item);
+        }
+        final List<ApnListItem> changedItems = new ArrayList<>();
+        final Set<String> newKeys = new ArraySet<>(newItems.size());
+        for (ApnListItem item : newItems) {
+            newKeys.add(item.mKey);
+            if (!item.equals(oldByKey.get(item.mKey))) {
+                changedItems.add(item);
+            }
+        }
+        final Set<String> removedKeys = new ArraySet<>();
+        for (String key : oldByKey.keySet()) {
+            if (!newKeys.contains(key)) {
+                removedKeys.add(key);
+            }
+        }
+        return new Diff(Collections.unmodifiableSet(removedKeys),
+                Collections.unmodifiableList(changedItems));
+    }
+}
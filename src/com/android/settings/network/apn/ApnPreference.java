@@ -171,4 +171,9 @@ public class ApnPreference extends Preference
     public void setHideDetails() {
         mHideDetails = true;
     }
+
+    /** Returns whether the details of the APN are hidden. */
+    public boolean isHideDetails() {
+        return mHideDetails;
+    }
 }
@@ -25,9 +25,12 @@ import android.app.settings.SettingsEnums;
 import android.content.Context;
 import android.content.Intent;
 import android.content.res.Resources.NotFoundException;
+import android.database.ContentObserver;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.PersistableBundle;
 import android.os.UserHandle;
 import android.os.UserManager;
@@ -48,6 +51,7 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
 import androidx.lifecycle.LifecycleOwner;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceGroup;
@@ -60,10 +64,12 @@ import com.android.settings.network.telephony.SubscriptionRepository;
 import com.android.settings.spa.SpaActivity;
 import com.android.settingslib.RestrictedLockUtils.EnforcedAdmin;
 import com.android.settings.Utils;
+import com.android.settingslib.utils.ThreadUtils;
 
 import kotlin.Unit;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -107,6 +113,8 @@ public class ApnSettings extends RestrictedSettingsFragment
 
     private static final int DIALOG_RESTORE_DEFAULTAPN = 1001;
 
+    private static final long RELOAD_DELAY_MS = 200;
+
     private boolean mRestoreDefaultApnMode;
 
     private UserManager mUserManager;
@@ -119,6 +127,23 @@ public class ApnSettings extends RestrictedSettingsFragment
 
     private boolean mUnavailable;
 
+    // The rows currently shown, compared with each new load to update only the changed rows.
+    private List<ApnListItem> mApnListItems = Collections.emptyList();
+    private int mLoadGeneration;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mReloadRunnable = () -> {
+        if (!mRestoreDefaultApnMode) {
+            fillList();
+        }
+    };
+    private final ContentObserver mApnObserver = new ContentObserver(mHandler) {
+        @Override
+        public void onChange(boolean selfChange) {
+            // Writes to the APN table come in bursts, reload once they settle.
+            scheduleReload();
+        }
+    };
+
     private boolean mHideImsApn;
     private boolean mAllowAddingApns;
     private boolean mHidePresetApnDetails;
@@ -228,11 +253,23 @@ public class ApnSettings extends RestrictedSettingsFragment
             return;
         }
 
+        getContentResolver().registerContentObserver(Telephony.Carriers.CONTENT_URI,
+                true /* notifyForDescendants */, mApnObserver);
         if (!mRestoreDefaultApnMode) {
             fillList();
         }
     }
 
+    @Override
+    public void onPause() {
+        super.onPause();
+        if (mUnavailable) {
+            return;
+        }
+        getContentResolver().unregisterContentObserver(mApnObserver);
+        mHandler.removeCallbacks(mReloadRunnable);
+    }
+
     @Override
     public EnforcedAdmin getRestrictionEnforcedAdmin() {
         final UserHandle user = UserHandle.of(mUserManager.getProcessUserId());
@@ -245,6 +282,34 @@ public class ApnSettings extends RestrictedSettingsFragment
     }
 
     private void fillList() {
+        // Drop the pending reload, this one reads the latest rows.
+        mHandler.removeCallbacks(mReloadRunnable);
+        final int generation = ++mLoadGeneration;
+        final Context appContext = getActivity().getApplicationContext();
+        final Context context = getActivity();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final ApnListResult result = loadApnList(context, appContext);
+            ThreadUtils.postOnMainThread(() -> {
+                if (generation != mLoadGeneration || getActivity() == null || result == null) {
+                    return;
+                }
+                mMvnoType = result.mMvnoType;
+                mMvnoMatchData = result.mMvnoMatchData;
+                updateApnPreferences(result.mItems);
+            });
+        });
+    }
+
+    private void scheduleReload() {
+        mHandler.removeCallbacks(mReloadRunnable);
+        mHandler.postDelayed(mReloadRunnable, RELOAD_DELAY_MS);
+    }
+
+    // Queries and filters the APNs for the list. This makes binder calls, so it runs off the main
+    // thread.
+    @WorkerThread
+    @Nullable
+    private ApnListResult loadApnList(Context context, Context appContext) {
         final Uri simApnUri = Uri.withAppendedPath(Telephony.Carriers.SIM_APN_URI,
                 String.valueOf(mSubId));
         final StringBuilder where =
@@ -254,7 +319,6 @@ public class ApnSettings extends RestrictedSettingsFragment
         where.append(" AND NOT (type='emergency')");
 
         int phoneId = SubscriptionManager.getPhoneId(mSubId);
-        Context appContext = getActivity().getApplicationContext();
         boolean isVoLTEEnabled = ImsManager.getInstance(appContext, phoneId)
                 .isEnhanced4gLteModeSettingEnabledByUser();
         if (mHideImsApn || (Utils.isSupportCTPA(appContext) && !isVoLTEEnabled)) {
@@ -265,21 +329,22 @@ public class ApnSettings extends RestrictedSettingsFragment
 
         Log.d(TAG, "where = " + where.toString());
 
-        final Cursor cursor = getContentResolver().query(simApnUri,
+        final Cursor cursor = appContext.getContentResolver().query(simApnUri,
                 CARRIERS_PROJECTION, where.toString(), null,
                 Telephony.Carriers.DEFAULT_SORT_ORDER);
 
-        if (cursor != null) {
-            final PreferenceGroup apnPrefList = findPreference(APN_LIST);
-            apnPrefList.removeAll();
-
-            final ArrayList<ApnPreference> apnList = new ArrayList<ApnPreference>();
-            final ArrayList<ApnPreference> mmsApnList = new ArrayList<ApnPreference>();
-
-            // ApnPreference.mSelectedKey static variable is shared for MSim case,
-            // need be initialized according to preferred apn id per sub
-            // TODO (b/338076914) upstream refactor removed this functionality
-            // ApnPreference.setSelectedKey(mSelectedKey);
+        if (cursor == null) {
+            return null;
+        }
+        final ApnListResult result = new ApnListResult();
+        final List<ApnListItem> apnList = new ArrayList<>();
+        final List<ApnListItem> mmsApnList = new ArrayList<>();
+
+        // ApnPreference.mSelectedKey static variable is shared for MSim case,
+        // need be initialized according to preferred apn id per sub
+        // TODO (b/338076914) upstream refactor removed this functionality
+        // ApnPreference.setSelectedKey(mSelectedKey);
+        try {
             cursor.moveToFirst();
             final int radioTech = networkTypeToRilRidioTechnology(TelephonyManager.getDefault()
                     .getDataNetworkType(mSubId));
@@ -289,11 +354,11 @@ public class ApnSettings extends RestrictedSettingsFragment
                 final String key = cursor.getString(ID_INDEX);
                 final String type = cursor.getString(TYPES_INDEX);
                 final int edited = cursor.getInt(EDITED_INDEX);
-                mMvnoType = cursor.getString(MVNO_TYPE_INDEX);
-                mMvnoMatchData = cursor.getString(MVNO_MATCH_DATA_INDEX);
+                result.mMvnoType = cursor.getString(MVNO_TYPE_INDEX);
+                result.mMvnoMatchData = cursor.getString(MVNO_MATCH_DATA_INDEX);
 
                 //Special requirement of some operators, need change APN name follow language.
-                String localizedName = Utils.getLocalizedName(getActivity(), cursor.getString(NAME_INDEX));
+                String localizedName = Utils.getLocalizedName(context, name);
 
                 if (!TextUtils.isEmpty(localizedName)) {
                     name = localizedName;
@@ -310,44 +375,87 @@ public class ApnSettings extends RestrictedSettingsFragment
                         continue;
                     }
                 }
-                final ApnPreference pref = new ApnPreference(getPrefContext());
-
-                pref.setKey(key);
-                pref.setTitle(name);
-                pref.setPersistent(false);
-                pref.setOnPreferenceChangeListener(this);
-                pref.setSubId(mSubId);
-                if (mHidePresetApnDetails && edited == Telephony.Carriers.UNEDITED) {
-                    pref.setHideDetails();
-                } else {
-                    pref.setSummary(apn);
-                }
 
                 boolean defaultSelectable =
                         ((type == null) || type.contains(ApnSetting.TYPE_DEFAULT_STRING));
                 if (isVoLTEEnabled && defaultSelectable && Utils.isSupportCTPA(appContext)) {
                     defaultSelectable = ((type == null) || !type.equals("ims"));
                 }
-                pref.setDefaultSelectable(defaultSelectable);
+                final ApnListItem item = new ApnListItem(key, name, apn,
+                        mHidePresetApnDetails && edited == Telephony.Carriers.UNEDITED,
+                        defaultSelectable);
                 if (defaultSelectable) {
-                    pref.setIsChecked(key.equals(mPreferredApnKey));
-                    apnList.add(pref);
+                    apnList.add(item);
                 } else {
-                    mmsApnList.add(pref);
+                    mmsApnList.add(item);
                 }
                 cursor.moveToNext();
             }
+        } finally {
             cursor.close();
+        }
 
-            for (Preference preference : apnList) {
-                apnPrefList.addPreference(preference);
+        apnList.addAll(mmsApnList);
+        result.mItems = Collections.unmodifiableList(apnList);
+        return result;
+    }
+
+    // Applies the rows changed since the previous load, keeping the other preferences as they are.
+    private void updateApnPreferences(List<ApnListItem> items) {
+        final PreferenceGroup apnPrefList = findPreference(APN_LIST);
+        if (apnPrefList == null) {
+            return;
+        }
+        final ApnListItem.Diff diff = ApnListItem.diff(mApnListItems, items);
+        mApnListItems = items;
+        if (diff.isEmpty()) {
+            return;
+        }
+        for (String key : diff.mRemovedKeys) {
+            final Preference preference = apnPrefList.findPreference(key);
+            if (preference != null) {
+                apnPrefList.removePreference(preference);
             }
-            for (Preference preference : mmsApnList) {
-                apnPrefList.addPreference(preference);
+        }
+        for (ApnListItem item : diff.mChangedItems) {
+            ApnPreference pref = apnPrefList.findPreference(item.mKey);
+            if (pref != null && item.mHideDetails != pref.isHideDetails()) {
+                // Details cannot be shown again once hidden.
+                apnPrefList.removePreference(pref);
+                pref = null;
+            }
+            if (pref == null) {
+                pref = new ApnPreference(getPrefContext());
+                pref.setKey(item.mKey);
+                pref.setPersistent(false);
+                pref.setOnPreferenceChangeListener(this);
+                pref.setSubId(mSubId);
+                if (item.mHideDetails) {
+                    pref.setHideDetails();
+                }
+                apnPrefList.addPreference(pref);
+            }
+            pref.setTitle(item.mTitle);
+            if (!item.mHideDetails) {
+                pref.setSummary(item.mSummary);
+            }
+            pref.setDefaultSelectable(item.mDefaultSelectable);
+            pref.setIsChecked(item.mDefaultSelectable && item.mKey.equals(mPreferredApnKey));
+        }
+        for (int i = 0; i < items.size(); i++) {
+            final Preference pref = apnPrefList.findPreference(items.get(i).mKey);
+            if (pref != null) {
+                pref.setOrder(i);
             }
         }
     }
 
+    private static class ApnListResult {
+        List<ApnListItem> mItems;
+        String mMvnoType;
+        String mMvnoMatchData;
+    }
+
     private void appendFilter(StringBuilder where){
         boolean includeCommon = true;
         if(mHideApnsGroupByIccid != null && !mHideApnsGroupByIccid.isEmpty()){
@@ -19,7 +19,6 @@ package com.android.settings.notification;
 
 import android.content.Context;
 import android.content.Intent;
-import android.media.Ringtone;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.AsyncTask;
@@ -55,8 +54,7 @@ public class DefaultNotificationTonePreference extends DefaultRingtonePreference
         AsyncTask ringtoneNameTask = new AsyncTask<Object, Void, CharSequence>() {
             @Override
             protected CharSequence doInBackground(Object... params) {
-                return Ringtone.getTitle(mUserContext, uri, false /* followSettingsUri */,
-                        true /* allowRemote */);
+                return RingtoneTitleCache.getInstance(mUserContext).getTitle(mUserContext, uri);
             }
 
             @Override
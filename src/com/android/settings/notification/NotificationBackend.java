@@ -54,6 +54,7 @@ import androidx.annotation.VisibleForTesting;
 
 import com.android.internal.util.CollectionUtils;
 import com.android.settings.R;
+import com.android.settings.applications.BadgedAppIconCache;
 import com.android.settingslib.bluetooth.CachedBluetoothDevice;
 import com.android.settingslib.bluetooth.LocalBluetoothManager;
 import com.android.settingslib.notification.ConversationIconFactory;
@@ -86,7 +87,7 @@ public class NotificationBackend {
             Log.e(TAG, "Error loading application label for " + row.pkg, t);
             row.label = row.pkg;
         }
-        row.icon = IconDrawableFactory.newInstance(context).getBadgedIcon(app);
+        row.icon = BadgedAppIconCache.getInstance(context).getBadgedIcon(context, app);
         row.banned = getNotificationsBanned(row.pkg, row.uid);
         row.showBadge = canShowBadge(row.pkg, row.uid);
         row.bubblePreference = getBubblePreference(row.pkg, row.uid);
@@ -17,20 +17,29 @@
 package com.android.settings.notification;
 
 import android.content.Context;
-import android.media.Ringtone;
 import android.media.RingtoneManager;
 import android.net.Uri;
-import android.util.Log;
+import android.util.ArrayMap;
 
+import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
 
 import com.android.settings.core.PreferenceControllerMixin;
 import com.android.settingslib.core.AbstractPreferenceController;
 import com.android.settingslib.utils.ThreadUtils;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 public abstract class RingtonePreferenceControllerBase extends AbstractPreferenceController
         implements PreferenceControllerMixin {
 
+    // Summaries requested by the controllers of a page while it updates its preferences, by
+    // context. They are resolved together in one RingtoneTitleCache#getTitles pass. Only
+    // accessed on the main thread.
+    private static final Map<Context, List<PendingSummary>> sPendingSummaries = new ArrayMap<>();
+
     public RingtonePreferenceControllerBase(Context context) {
         super(context);
     }
@@ -47,26 +56,57 @@ public abstract class RingtonePreferenceControllerBase extends AbstractPreferenc
 
     @Override
     public void updateState(Preference preference) {
-        ThreadUtils.postOnBackgroundThread(() -> updateSummary(preference));
+        if (sPendingSummaries.isEmpty()) {
+            // Runs once the page has updated all its preferences.
+            ThreadUtils.getUiThreadHandler().post(
+                    RingtonePreferenceControllerBase::updatePendingSummaries);
+        }
+        List<PendingSummary> pending = sPendingSummaries.get(mContext);
+        if (pending == null) {
+            pending = new ArrayList<>();
+            sPendingSummaries.put(mContext, pending);
+        }
+        pending.add(new PendingSummary(getRingtoneType(), preference));
     }
 
-    private void updateSummary(Preference preference) {
-        final Uri ringtoneUri = RingtoneManager.getActualDefaultRingtoneUri(
-                mContext, getRingtoneType());
-
-        final CharSequence summary;
-        try {
-            summary = Ringtone.getTitle(
-                    mContext, ringtoneUri, false /* followSettingsUri */, true /* allowRemote */);
-        } catch (IllegalArgumentException e) {
-            Log.w(TAG, "Error getting ringtone summary.", e);
-            return;
-        }
-        if (summary != null) {
-            ThreadUtils.postOnMainThread(() -> preference.setSummary(summary));
+    private static void updatePendingSummaries() {
+        final Map<Context, List<PendingSummary>> pendingSummaries =
+                new ArrayMap<>(sPendingSummaries);
+        sPendingSummaries.clear();
+        for (Map.Entry<Context, List<PendingSummary>> entry : pendingSummaries.entrySet()) {
+            final Context context = entry.getKey();
+            final List<PendingSummary> pending = entry.getValue();
+            final List<Uri> ringtoneUris = new ArrayList<>(pending.size());
+            for (PendingSummary summary : pending) {
+                ringtoneUris.add(RingtoneManager.getActualDefaultRingtoneUri(context,
+                        summary.mRingtoneType));
+            }
+            RingtoneTitleCache.getInstance(context).getTitles(context, ringtoneUris, titles -> {
+                for (int i = 0; i < pending.size(); i++) {
+                    // A title which cannot be resolved keeps the previous summary.
+                    if (titles.get(i) != null) {
+                        pending.get(i).mPreference.setSummary(titles.get(i));
+                    }
+                }
+            });
         }
     }
 
+    /** Drops the summaries requested by a previous test, which may not have been resolved. */
+    @VisibleForTesting
+    static void resetForTesting() {
+        sPendingSummaries.clear();
+    }
+
     public abstract int getRingtoneType();
 
+    private static class PendingSummary {
+        final int mRingtoneType;
+        final Preference mPreference;
+
+        PendingSummary(int ringtoneType, Preference preference) {
+            mRingtoneType = ringtoneType;
+            mPreference = preference;
+        }
+    }
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.notification;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.ContentObserver;
+import android.media.Ringtone;
+import android.net.Uri;
+import android.os.UserHandle;
+import android.provider.MediaStore;
+import android.provider.Settings;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Titles of ringtones, as returned by {@link Ringtone#getTitle}, shared by the sound settings
+ * pages of the process. Resolving a title queries the media store or the ringtone's content
+ * provider, and the sound page and every notification channel page show the same few ringtones.
+ *
+ * Entries are keyed by user, uri and locale. The whole cache is dropped when the media store of
+ * any user changes, or when a default ringtone setting changes.
+ */
+public class RingtoneTitleCache {
+    private static final String TAG = "RingtoneTitleCache";
+    private static final int MAX_ENTRIES = 64;
+
+    private static RingtoneTitleCache sInstance;
+
+    private final LruCache<String, CharSequence> mTitles;
+    private final Object mLock = new Object();
+    // Incremented on every invalidation, so that a title resolved before it is not cached.
+    private int mGeneration;
+    @Nullable
+    private ContentResolver mObservedResolver;
+
+    private final ContentObserver mObserver = new ContentObserver(null /* handler */) {
+        @Override
+        public void onChange(boolean selfChange) {
+            invalidate();
+        }
+    };
+
+    @VisibleForTesting
+    RingtoneTitleCache(int maxEntries) {
+        mTitles = new LruCache<>(maxEntries);
+    }
+
+    /** Returns the cache of the process, observing the media store from the first call on. */
+    @NonNull
+    public static synchronized RingtoneTitleCache getInstance(@NonNull Context context) {
+        if (sInstance == null) {
+            sInstance = new RingtoneTitleCache(MAX_ENTRIES);
+            sInstance.registerObservers(context.getApplicationContext().getContentResolver());
+        }
+        return sInstance;
+    }
+
+    /** Stops observing and drops the cache of the process, so that the next test starts empty. */
+    @VisibleForTesting
+    public static synchronized void resetForTesting() {
+        if (sInstance != null) {
+            if (sInstance.mObservedResolver != null) {
+                sInstance.mObservedResolver.unregisterContentObserver(sInstance.mObserver);
+            }
+            sInstance = null;
+        }
+    }
+
+    /**
+     * Returns the title of the ringtone for the user of the context, see
+     * {@link Ringtone#getTitle}. Resolves it on the calling thread if it is not cached.
+     */
+    @WorkerThread
+    @Nullable
+    public CharSequence getTitle(@NonNull Context context, @Nullable Uri uri) {
+        final String key = getKey(context, uri);
+        final int generation;
+        synchronized (mLock) {
+            final CharSequence title = mTitles.get(key);
+            if (title != null) {
+                return title;
+            }
+            generation = mGeneration;
+        }
+        final CharSequence title = Ringtone.getTitle(context, uri, false /* followSettingsUri */,
+                true /* allowRemote */);
+        if (title != null) {
+            synchronized (mLock) {
+                if (generation == mGeneration) {
+                    mTitles.put(key, title);
+                }
+            }
+        }
+        return title;
+    }
+
+    /**
+     * Resolves the titles of all the ringtones of a page in one background pass, and delivers
+     * them on the main thread in the order of the uris. A title that cannot be resolved is null.
+     */
+    public void getTitles(@NonNull Context context, @NonNull List<Uri> uris,
+            @NonNull Consumer<List<CharSequence>> callback) {
+        final List<Uri> pending = new ArrayList<>(uris);
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final List<CharSequence> titles = new ArrayList<>(pending.size());
+            for (Uri uri : pending) {
+                CharSequence title;
+                try {
+                    title = getTitle(context, uri);
+                } catch (IllegalArgumentException e) {
+                    Log.w(TAG, "Error getting ringtone title of " + uri, e);
+                    title = null;
+                }
+                titles.add(title);
+            }
+            ThreadUtils.postOnMainThread(() -> callback.accept(titles));
+        });
+    }
+
+    /** Drops all the titles, they are resolved again on the next request. */
+    public void invalidate() {
+        synchronized (mLock) {
+            mGeneration++;
+            mTitles.evictAll();
+        }
+    }
+
+    @VisibleForTesting
+    int size() {
+        return mTitles.size();
+    }
+
+    @VisibleForTesting
+    void registerObservers(ContentResolver resolver) {
+        mObservedResolver = resolver;
+        final Uri[] uris = {
+                MediaStore.Audio.Media.INTERNAL_CONTENT_URI,
+                MediaStore.Audio.Media.EXTERNAL_CONTENT_URI,
+                Settings.System.DEFAULT_RINGTONE_URI,
+                Settings.System.DEFAULT_NOTIFICATION_URI,
+                Settings.System.DEFAULT_ALARM_ALERT_URI,
+        };
+        for (Uri uri : uris) {
+            resolver.registerContentObserver(uri, true /* notifyForDescendants */, mObserver,
+                    UserHandle.USER_ALL);
+        }
+    }
+
+    private static String getKey(Context context, @Nullable Uri uri) {
+        return context.getUserId() + "/" + uri + "/"
+                + context.getResources().getConfiguration().getLocales().toLanguageTags();
+    }
+}
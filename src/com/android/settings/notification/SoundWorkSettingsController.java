@@ -29,7 +29,6 @@ import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.media.Ringtone;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.Bundle;
@@ -55,6 +54,9 @@ import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnPause;
 import com.android.settingslib.core.lifecycle.events.OnResume;
 
+import java.util.Arrays;
+import java.util.List;
+
 /** Controller that manages the Sounds settings relevant preferences for work profile. */
 public class SoundWorkSettingsController extends AbstractPreferenceController
         implements Preference.OnPreferenceChangeListener, LifecycleObserver, OnResume, OnPause {
@@ -178,12 +180,15 @@ public class SoundWorkSettingsController extends AbstractPreferenceController
     }
 
     private CharSequence updateRingtoneName(Context context, int type) {
-        if (context == null || !mHelper.isUserUnlocked(mUserManager, context.getUserId())) {
+        if (!isProfileAvailable(context)) {
             return mContext.getString(R.string.managed_profile_not_available_label);
         }
         Uri ringtoneUri = RingtoneManager.getActualDefaultRingtoneUri(context, type);
-        return Ringtone.getTitle(context, ringtoneUri, false /* followSettingsUri */,
-                /* allowRemote= */ true);
+        return RingtoneTitleCache.getInstance(mContext).getTitle(context, ringtoneUri);
+    }
+
+    private boolean isProfileAvailable(Context context) {
+        return context != null && mHelper.isUserUnlocked(mUserManager, context.getUserId());
     }
 
     private Context getManagedProfileContext() {
@@ -288,14 +293,33 @@ public class SoundWorkSettingsController extends AbstractPreferenceController
     private void updateWorkRingtoneSummaries() {
         Context managedProfileContext = getManagedProfileContext();
 
-        if (mWorkPhoneRingtonePreference != null) {
-            mWorkPhoneRingtonePreference.setSummary(
-                    updateRingtoneName(managedProfileContext, RingtoneManager.TYPE_RINGTONE));
+        if (!isProfileAvailable(managedProfileContext)) {
+            final CharSequence notAvailable =
+                    mContext.getString(R.string.managed_profile_not_available_label);
+            if (mWorkPhoneRingtonePreference != null) {
+                mWorkPhoneRingtonePreference.setSummary(notAvailable);
+            }
+            mWorkNotificationRingtonePreference.setSummary(notAvailable);
+            mWorkAlarmRingtonePreference.setSummary(notAvailable);
+            return;
         }
-        mWorkNotificationRingtonePreference.setSummary(
-                updateRingtoneName(managedProfileContext, RingtoneManager.TYPE_NOTIFICATION));
-        mWorkAlarmRingtonePreference.setSummary(
-                updateRingtoneName(managedProfileContext, RingtoneManager.TYPE_ALARM));
+
+        // Resolves the three titles in one pass off the main thread.
+        final List<Uri> ringtoneUris = Arrays.asList(
+                RingtoneManager.getActualDefaultRingtoneUri(managedProfileContext,
+                        RingtoneManager.TYPE_RINGTONE),
+                RingtoneManager.getActualDefaultRingtoneUri(managedProfileContext,
+                        RingtoneManager.TYPE_NOTIFICATION),
+                RingtoneManager.getActualDefaultRingtoneUri(managedProfileContext,
+                        RingtoneManager.TYPE_ALARM));
+        RingtoneTitleCache.getInstance(mContext).getTitles(managedProfileContext, ringtoneUris,
+                titles -> {
+                    if (mWorkPhoneRingtonePreference != null) {
+                        mWorkPhoneRingtonePreference.setSummary(titles.get(0));
+                    }
+                    mWorkNotificationRingtonePreference.setSummary(titles.get(1));
+                    mWorkAlarmRingtonePreference.setSummary(titles.get(2));
+                });
     }
 
     /**
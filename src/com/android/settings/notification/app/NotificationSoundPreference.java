@@ -19,7 +19,6 @@ package com.android.settings.notification.app;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
-import android.media.Ringtone;
 import android.media.RingtoneManager;
 import android.net.Uri;
 import android.os.AsyncTask;
@@ -28,6 +27,7 @@ import android.util.AttributeSet;
 import android.util.Log;
 import com.android.settings.R;
 import com.android.settings.RingtonePreference;
+import com.android.settings.notification.RingtoneTitleCache;
 
 public class NotificationSoundPreference extends RingtonePreference {
     private static final String TAG = "NotificationSoundPreference";
@@ -76,8 +76,8 @@ public class NotificationSoundPreference extends RingtonePreference {
                 } else if(ContentResolver.SCHEME_ANDROID_RESOURCE.equals(uri.getScheme())) {
                     return getContext().getString(R.string.notification_unknown_sound_title);
                 } else {
-                    return Ringtone.getTitle(getContext(), uri, false /* followSettingsUri */,
-                            true /* allowRemote */);
+                    return RingtoneTitleCache.getInstance(getContext()).getTitle(getContext(),
+                            uri);
                 }
             }
 
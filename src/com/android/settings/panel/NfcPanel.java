@@ -74,4 +74,9 @@ public class NfcPanel implements PanelContent {
     public int getMetricsCategory() {
         return SettingsEnums.PANEL_NFC;
     }
+
+    @Override
+    public boolean isProgressiveSliceLoading() {
+        return true;
+    }
 }
@@ -124,4 +124,12 @@ public interface PanelContent extends Instrumentable {
     default boolean isProgressBarVisible() {
         return false;
     }
+
+    /**
+     * @return {@code true} to show the Panel right away, with placeholders for the Slices that
+     * have not bound yet, {@code false} to wait until every Slice has loaded or timed out.
+     */
+    default boolean isProgressiveSliceLoading() {
+        return false;
+    }
 }
@@ -26,6 +26,7 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
 import android.text.TextUtils;
+import android.util.Log;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -110,6 +111,9 @@ public class PanelFragment extends Fragment {
     @VisibleForTesting
     PanelSlicesLoaderCountdownLatch mPanelSlicesLoaderCountdownLatch;
 
+    @VisibleForTesting
+    PanelSliceLoadTracker mSliceLoadTracker;
+
     private ViewTreeObserver.OnPreDrawListener mOnPreDrawListener = () -> {
         return false;
     };
@@ -330,10 +334,14 @@ public class PanelFragment extends Fragment {
     private void loadAllSlices() {
         mSliceLiveData.clear();
         final List<Uri> sliceUris = mPanel.getSlices();
+        if (mPanel.isProgressiveSliceLoading()) {
+            loadAllSlicesProgressively(sliceUris);
+            return;
+        }
         mPanelSlicesLoaderCountdownLatch = new PanelSlicesLoaderCountdownLatch(sliceUris.size());
 
         for (Uri uri : sliceUris) {
-            final LiveData<Slice> sliceLiveData = SliceLiveData.fromUri(getActivity(), uri,
+            final LiveData<Slice> sliceLiveData = createSliceLiveData(uri,
                     (int type, Throwable source)-> {
                             removeSliceLiveData(uri);
                             mPanelSlicesLoaderCountdownLatch.markSliceLoaded(uri);
@@ -387,6 +395,49 @@ public class PanelFragment extends Fragment {
         }
     }
 
+    /**
+     * Shows the Panel right away, with a placeholder sized from the last known height of each
+     * Slice, and shows each Slice as soon as it binds instead of waiting for the slowest one.
+     */
+    private void loadAllSlicesProgressively(List<Uri> sliceUris) {
+        mSliceLoadTracker = new PanelSliceLoadTracker();
+
+        for (Uri uri : sliceUris) {
+            mSliceLoadTracker.markLoadStarted(uri);
+            final LiveData<Slice> sliceLiveData = createSliceLiveData(uri,
+                    (int type, Throwable source) -> onProgressiveSliceFailed(uri));
+            mSliceLiveData.put(uri, sliceLiveData);
+
+            sliceLiveData.observe(getViewLifecycleOwner(), slice -> {
+                if (slice == null || SliceMetadata.from(getActivity(), slice).isErrorSlice()) {
+                    onProgressiveSliceFailed(uri);
+                    return;
+                }
+                if (mSliceLoadTracker.markSliceBound(uri)) {
+                    Log.d(TAG, "Slice " + uri + " bound in "
+                            + mSliceLoadTracker.getBindLatencies().get(uri) + " ms");
+                }
+                if (mAdapter != null) {
+                    mAdapter.notifySliceChanged(uri);
+                }
+            });
+        }
+
+        showSlices(true /* showPlaceholders */);
+    }
+
+    @VisibleForTesting
+    LiveData<Slice> createSliceLiveData(Uri uri, SliceLiveData.OnErrorListener listener) {
+        return SliceLiveData.fromUri(getActivity(), uri, listener);
+    }
+
+    private void onProgressiveSliceFailed(Uri uri) {
+        removeSliceLiveData(uri);
+        if (!mSliceLiveData.containsKey(uri) && mAdapter != null) {
+            mAdapter.removeSlice(uri);
+        }
+    }
+
     private void removeSliceLiveData(Uri uri) {
         final List<String> allowList = Arrays.asList(
                 getResources().getStringArray(
@@ -405,23 +456,27 @@ public class PanelFragment extends Fragment {
      */
     private void loadPanelWhenReady() {
         if (mPanelSlicesLoaderCountdownLatch.isPanelReadyToLoad()) {
-            mAdapter = new PanelSlicesAdapter(
-                    this, mSliceLiveData, mPanel.getMetricsCategory());
-            mPanelSlices.setAdapter(mAdapter);
-            mPanelSlices.getViewTreeObserver()
-                    .addOnGlobalLayoutListener(mOnGlobalLayoutListener);
-            mPanelSlices.setVisibility(View.VISIBLE);
+            showSlices(false /* showPlaceholders */);
+        }
+    }
 
-            final FragmentActivity activity = getActivity();
-            if (activity == null) {
-                return;
-            }
-            final DividerItemDecoration itemDecoration = new DividerItemDecoration(activity);
-            itemDecoration
-                    .setDividerCondition(DividerItemDecoration.DIVIDER_CONDITION_BOTH);
-            if (mPanelSlices.getItemDecorationCount() == 0) {
-                mPanelSlices.addItemDecoration(itemDecoration);
-            }
+    private void showSlices(boolean showPlaceholders) {
+        mAdapter = new PanelSlicesAdapter(
+                this, mSliceLiveData, mPanel.getMetricsCategory(), showPlaceholders);
+        mPanelSlices.setAdapter(mAdapter);
+        mPanelSlices.getViewTreeObserver()
+                .addOnGlobalLayoutListener(mOnGlobalLayoutListener);
+        mPanelSlices.setVisibility(View.VISIBLE);
+
+        final FragmentActivity activity = getActivity();
+        if (activity == null) {
+            return;
+        }
+        final DividerItemDecoration itemDecoration = new DividerItemDecoration(activity);
+        itemDecoration
+                .setDividerCondition(DividerItemDecoration.DIVIDER_CONDITION_BOTH);
+        if (mPanelSlices.getItemDecorationCount() == 0) {
+            mPanelSlices.addItemDecoration(itemDecoration);
         }
     }
 
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.panel;
+
+import android.net.Uri;
+import android.os.SystemClock;
+import android.util.ArrayMap;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.slice.Slice;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the {@link Slice Slices} of a panel shown progressively, see
+ * {@link PanelContent#isProgressiveSliceLoading()}.
+ * <p>
+ *     Records when each Slice started loading and how long it took to bind its first content.
+ *     Also keeps the last laid out height of every Slice across panels, so that the placeholder
+ *     of a Slice which has not bound yet takes the space it will need.
+ * <p>
+ *     Must be used on the main thread.
+ *
+ * @deprecated this is no longer used after V and will be removed.
+ */
+@Deprecated(forRemoval = true)
+public class PanelSliceLoadTracker {
+
+    private static final Map<Uri, Integer> sSliceHeights = new ArrayMap<>();
+
+    private final LongSupplier mClock;
+    private final Map<Uri, Long> mStartTimes = new ArrayMap<>();
+    private final Map<Uri, Long> mBindLatencies = new LinkedHashMap<>();
+
+    public PanelSliceLoadTracker() {
+        this(SystemClock::elapsedRealtime);
+    }
+
+    @VisibleForTesting
+    PanelSliceLoadTracker(LongSupplier clock) {
+        mClock = clock;
+    }
+
+    /**
+     * Marks the {@param sliceUri} as started loading.
+     */
+    public void markLoadStarted(Uri sliceUri) {
+        mStartTimes.put(sliceUri, mClock.getAsLong());
+    }
+
+    /**
+     * Marks the {@param sliceUri} as bound, recording its bind latency the first time.
+     *
+     * @return {@code true} if the Slice had not bound before.
+     */
+    public boolean markSliceBound(Uri sliceUri) {
+        if (mBindLatencies.containsKey(sliceUri)) {
+            return false;
+        }
+        final Long start = mStartTimes.get(sliceUri);
+        mBindLatencies.put(sliceUri, start == null ? 0 : mClock.getAsLong() - start);
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the Slice has bound its first content.
+     */
+    public boolean isSliceBound(Uri sliceUri) {
+        return mBindLatencies.containsKey(sliceUri);
+    }
+
+    /**
+     * @return the bind latency of each bound Slice in milliseconds, in the order they bound.
+     */
+    public Map<Uri, Long> getBindLatencies() {
+        return Collections.unmodifiableMap(mBindLatencies);
+    }
+
+    /**
+     * @return the last laid out height of the Slice in pixels, or 0 if it has never been shown.
+     */
+    public static int getCachedHeight(Uri sliceUri) {
+        final Integer height = sSliceHeights.get(sliceUri);
+        return height == null ? 0 : height;
+    }
+
+    /**
+     * Remembers the laid out {@param height} of the Slice for the next placeholder.
+     */
+    public static void cacheHeight(Uri sliceUri, int height) {
+        if (height > 0) {
+            sSliceHeights.put(sliceUri, height);
+        }
+    }
+
+    @VisibleForTesting
+    static void clearCachedHeights() {
+        sSliceHeights.clear();
+    }
+}
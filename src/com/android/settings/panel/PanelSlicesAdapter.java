@@ -61,15 +61,28 @@ public class PanelSlicesAdapter
     @VisibleForTesting
     static final int MAX_NUM_OF_SLICES = 9;
 
+    private final List<Uri> mSliceUris;
     private final List<LiveData<Slice>> mSliceLiveData;
     private final int mMetricsCategory;
     private final PanelFragment mPanelFragment;
+    private final boolean mShowPlaceholders;
 
     public PanelSlicesAdapter(
             PanelFragment fragment, Map<Uri, LiveData<Slice>> sliceLiveData, int metricsCategory) {
+        this(fragment, sliceLiveData, metricsCategory, false /* showPlaceholders */);
+    }
+
+    /**
+     * @param showPlaceholders whether a Slice that has not bound yet takes the height it had
+     *                         last time, see {@link PanelSliceLoadTracker#getCachedHeight(Uri)}.
+     */
+    public PanelSlicesAdapter(PanelFragment fragment, Map<Uri, LiveData<Slice>> sliceLiveData,
+            int metricsCategory, boolean showPlaceholders) {
         mPanelFragment = fragment;
+        mSliceUris = new ArrayList<>(sliceLiveData.keySet());
         mSliceLiveData = new ArrayList<>(sliceLiveData.values());
         mMetricsCategory = metricsCategory;
+        mShowPlaceholders = showPlaceholders;
     }
 
     @NonNull
@@ -88,7 +101,39 @@ public class PanelSlicesAdapter
 
     @Override
     public void onBindViewHolder(@NonNull SliceRowViewHolder sliceRowViewHolder, int position) {
-        sliceRowViewHolder.onBind(mSliceLiveData.get(position).getValue());
+        final Slice slice = mSliceLiveData.get(position).getValue();
+        if (!mShowPlaceholders) {
+            sliceRowViewHolder.onBind(slice);
+            return;
+        }
+        final Uri uri = mSliceUris.get(position);
+        if (slice == null) {
+            sliceRowViewHolder.onBindPlaceholder(uri);
+        } else {
+            sliceRowViewHolder.onBind(uri, slice);
+        }
+    }
+
+    /**
+     * Refreshes the row of the Slice, after it has bound or changed.
+     */
+    public void notifySliceChanged(Uri uri) {
+        final int index = mSliceUris.indexOf(uri);
+        if (index >= 0 && index < getItemCount()) {
+            notifyItemChanged(index);
+        }
+    }
+
+    /**
+     * Removes the row of a Slice which failed to load.
+     */
+    public void removeSlice(Uri uri) {
+        final int index = mSliceUris.indexOf(uri);
+        if (index >= 0) {
+            mSliceUris.remove(index);
+            mSliceLiveData.remove(index);
+            notifyDataSetChanged();
+        }
     }
 
     /**
@@ -129,6 +174,9 @@ public class PanelSlicesAdapter
         final SliceView sliceView;
         @VisibleForTesting
         final LinearLayout mSliceSliderLayout;
+        // The Slice shown by this row in progressive mode, whose height is remembered.
+        private Uri mSliceUri;
+        private boolean mTrackingHeight;
 
         public SliceRowViewHolder(View view) {
             super(view);
@@ -139,6 +187,33 @@ public class PanelSlicesAdapter
             mSliceSliderLayout = view.findViewById(R.id.slice_slider_layout);
         }
 
+        /**
+         * Called when a Slice which has not bound yet is displayed in progressive mode.
+         */
+        void onBindPlaceholder(Uri uri) {
+            mSliceUri = null;
+            itemView.setMinimumHeight(PanelSliceLoadTracker.getCachedHeight(uri));
+            sliceView.setVisibility(View.INVISIBLE);
+        }
+
+        /**
+         * Called when a bound Slice is displayed in progressive mode.
+         */
+        void onBind(Uri uri, Slice slice) {
+            itemView.setMinimumHeight(0);
+            if (!mTrackingHeight) {
+                mTrackingHeight = true;
+                itemView.addOnLayoutChangeListener(
+                        (v, left, top, right, bottom, oldLeft, oldTop, oldRight, oldBottom) -> {
+                            if (mSliceUri != null && sliceView.getVisibility() == View.VISIBLE) {
+                                PanelSliceLoadTracker.cacheHeight(mSliceUri, bottom - top);
+                            }
+                        });
+            }
+            mSliceUri = uri;
+            onBind(slice);
+        }
+
         /**
          * Called when the view is displayed.
          */
@@ -164,6 +164,11 @@ public class VolumePanel implements PanelContent, LifecycleObserver {
         return SettingsEnums.PANEL_VOLUME;
     }
 
+    @Override
+    public boolean isProgressiveSliceLoading() {
+        return true;
+    }
+
     @Override
     public int getViewType() {
         return PanelContent.VIEW_TYPE_SLIDER;
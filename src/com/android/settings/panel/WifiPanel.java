@@ -78,4 +78,9 @@ public class WifiPanel implements PanelContent {
     public int getMetricsCategory() {
         return SettingsEnums.PANEL_WIFI;
     }
+
+    @Override
+    public boolean isProgressiveSliceLoading() {
+        return true;
+    }
 }
@@ -26,6 +26,7 @@ import android.os.Message;
 import android.os.Process;
 import android.os.SystemClock;
 import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
@@ -38,6 +39,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * The Slice background worker is used to make Settings Slices be able to work with data that is
@@ -64,6 +66,8 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
     private final Uri mUri;
 
     private List<E> mCachedResults;
+    // The results when the Slice was last notified, only accessed by NotifySliceChangeHandler.
+    private List<E> mNotifiedResults;
 
     protected SliceBackgroundWorker(Context context, Uri uri) {
         mContext = context;
@@ -163,7 +167,7 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
 
         if (needNotify) {
             mCachedResults = results;
-            notifySliceChange();
+            NotifySliceChangeHandler.getInstance().updateSlice(this, true /* resultsOnly */);
         }
     }
 
@@ -171,12 +175,50 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
         return a.equals(b);
     }
 
+    /**
+     * Returns the minimum interval between two notifications of the Slice {@link Uri}. Changes
+     * reported in between are merged into one notification at the end of the interval.
+     */
+    protected long getSliceUpdateInterval() {
+        return SLICE_UPDATE_THROTTLE_INTERVAL;
+    }
+
     /**
      * Notify that data was updated and attempt to sync changes to the Slice.
      */
     @VisibleForTesting
     public final void notifySliceChange() {
-        NotifySliceChangeHandler.getInstance().updateSlice(this);
+        NotifySliceChangeHandler.getInstance().updateSlice(this, false /* resultsOnly */);
+    }
+
+    /**
+     * Returns the number of changes of the Slice {@link Uri} merged into an already pending
+     * notification.
+     */
+    @VisibleForTesting
+    static int getMergedNotificationCount(Uri uri) {
+        return NotifySliceChangeHandler.getInstance().mMergedCounts.getOrDefault(uri, 0);
+    }
+
+    /**
+     * Returns the number of notifications of the Slice {@link Uri} dropped because the results
+     * were the same as the last notified ones.
+     */
+    @VisibleForTesting
+    static int getDroppedNotificationCount(Uri uri) {
+        return NotifySliceChangeHandler.getInstance().mDroppedCounts.getOrDefault(uri, 0);
+    }
+
+    @VisibleForTesting
+    static Looper getNotifySliceChangeLooper() {
+        return NotifySliceChangeHandler.getInstance().getLooper();
+    }
+
+    private boolean isNotified(List<E> results) {
+        if (results == null || mNotifiedResults == null) {
+            return results == mNotifiedResults;
+        }
+        return areListsTheSame(results, mNotifiedResults);
     }
 
     void pin() {
@@ -196,9 +238,15 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
 
         private final Map<Uri, Long> mLastUpdateTimeLookup = Collections.synchronizedMap(
                 new ArrayMap<>());
+        // Slices with a pending change that is not reflected by the results.
+        private final Set<Uri> mStateChangedUris = Collections.synchronizedSet(new ArraySet<>());
+        private final Map<Uri, Integer> mMergedCounts = Collections.synchronizedMap(
+                new ArrayMap<>());
+        private final Map<Uri, Integer> mDroppedCounts = Collections.synchronizedMap(
+                new ArrayMap<>());
 
         private static NotifySliceChangeHandler getInstance() {
-            if (sHandler == null) {
+            if (sHandler == null || !sHandler.getLooper().getThread().isAlive()) {
                 final HandlerThread workerThread = new HandlerThread("NotifySliceChangeHandler",
                         Process.THREAD_PRIORITY_BACKGROUND);
                 workerThread.start();
@@ -220,32 +268,49 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
             final SliceBackgroundWorker worker = (SliceBackgroundWorker) msg.obj;
             final Uri uri = worker.getUri();
             final Context context = worker.getContext();
+            final List results = worker.getResults();
+            if (!mStateChangedUris.remove(uri) && worker.isNotified(results)) {
+                // The results went back to what the Slice already shows.
+                mDroppedCounts.merge(uri, 1, Integer::sum);
+                return;
+            }
+            worker.mNotifiedResults = results;
             mLastUpdateTimeLookup.put(uri, SystemClock.uptimeMillis());
             context.getContentResolver().notifyChange(uri, null);
         }
 
-        private void updateSlice(SliceBackgroundWorker worker) {
+        private void updateSlice(SliceBackgroundWorker worker, boolean resultsOnly) {
+            final Uri uri = worker.getUri();
+            if (!resultsOnly) {
+                mStateChangedUris.add(uri);
+            }
             if (hasMessages(MSG_UPDATE_SLICE, worker)) {
+                mMergedCounts.merge(uri, 1, Integer::sum);
                 return;
             }
 
+            final long interval = worker.getSliceUpdateInterval();
             final Message message = obtainMessage(MSG_UPDATE_SLICE, worker);
-            final long lastUpdateTime = mLastUpdateTimeLookup.getOrDefault(worker.getUri(), 0L);
+            final long lastUpdateTime = mLastUpdateTimeLookup.getOrDefault(uri, 0L);
             if (lastUpdateTime == 0L) {
                 // Postpone the first update triggering by onSlicePinned() to avoid being too close
                 // to the first Slice bind.
-                sendMessageDelayed(message, SLICE_UPDATE_THROTTLE_INTERVAL);
-            } else if (SystemClock.uptimeMillis() - lastUpdateTime
-                    > SLICE_UPDATE_THROTTLE_INTERVAL) {
+                sendMessageDelayed(message, interval);
+            } else if (SystemClock.uptimeMillis() - lastUpdateTime > interval) {
                 sendMessage(message);
             } else {
-                sendMessageAtTime(message, lastUpdateTime + SLICE_UPDATE_THROTTLE_INTERVAL);
+                sendMessageAtTime(message, lastUpdateTime + interval);
             }
         }
 
         private void cancelSliceUpdate(SliceBackgroundWorker worker) {
             removeMessages(MSG_UPDATE_SLICE, worker);
             mLastUpdateTimeLookup.remove(worker.getUri());
+            mStateChangedUris.remove(worker.getUri());
+            mMergedCounts.remove(worker.getUri());
+            mDroppedCounts.remove(worker.getUri());
+            // The next bind after pinning again shows the latest results, whatever was notified.
+            post(() -> worker.mNotifiedResults = null);
         }
     };
 }
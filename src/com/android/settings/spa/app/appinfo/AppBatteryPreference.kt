@@ -43,13 +43,15 @@ import com.android.settingslib.spaprivileged.model.app.installed
 import com.android.settingslib.spaprivileged.model.app.userHandle
 import com.android.settingslib.spaprivileged.model.app.userId
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.filter
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 
 @Composable
-fun AppBatteryPreference(app: ApplicationInfo) {
+fun AppBatteryPreference(app: ApplicationInfo, snapshotFlow: Flow<AppInfoSnapshot>? = null) {
     val context = LocalContext.current
-    val presenter = remember(app) { AppBatteryPresenter(context, app) }
+    val presenter = remember(app) { AppBatteryPresenter(context, app, snapshotFlow) }
     if (!presenter.isAvailable()) return
 
     Preference(object : PreferenceModel {
@@ -62,14 +64,16 @@ fun AppBatteryPreference(app: ApplicationInfo) {
     presenter.Updater()
 }
 
-private class AppBatteryPresenter(private val context: Context, private val app: ApplicationInfo) {
+private class AppBatteryPresenter(
+    private val context: Context,
+    private val app: ApplicationInfo,
+    private val snapshotFlow: Flow<AppInfoSnapshot>?,
+) {
     private var batteryDiffEntryState: LoadingState<BatteryDiffEntry?>
         by mutableStateOf(LoadingState.Loading)
 
     @Composable
-    fun isAvailable() = remember {
-        context.resources.getBoolean(R.bool.config_show_app_info_settings_battery)
-    }
+    fun isAvailable() = remember { AppBatterySource.isShown(context) }
 
     @Composable
     fun Updater() {
@@ -77,17 +81,26 @@ private class AppBatteryPresenter(private val context: Context, private val app:
         val current = LocalLifecycleOwner.current
         LaunchedEffect(app) {
             current.repeatOnLifecycle(Lifecycle.State.STARTED) {
-                launch { batteryDiffEntryState = LoadingState.Done(getBatteryDiffEntry()) }
+                if (snapshotFlow != null) {
+                    snapshotFlow.filter {
+                        it.isLoaded(AppBatterySource) || it.isTimedOut(AppBatterySource)
+                    }.collect {
+                        // Query by itself if the snapshot ran out of time, a loaded null means
+                        // that the app has no usage.
+                        batteryDiffEntryState = LoadingState.Done(
+                            if (it.isLoaded(AppBatterySource)) it[AppBatterySource]
+                            else getBatteryDiffEntry()
+                        )
+                    }
+                } else {
+                    launch { batteryDiffEntryState = LoadingState.Done(getBatteryDiffEntry()) }
+                }
             }
         }
     }
 
     private suspend fun getBatteryDiffEntry(): BatteryDiffEntry? = withContext(Dispatchers.IO) {
-        BatteryChartPreferenceController.getAppBatteryUsageData(
-            context, app.packageName, app.userId
-        ).also {
-            Log.d(TAG, "loadBatteryDiffEntries():\n$it")
-        }
+        AppBatterySource.load(context, app)
     }
 
     val enabled = { batteryDiffEntryState is LoadingState.Done }
@@ -154,6 +167,28 @@ private class AppBatteryPresenter(private val context: Context, private val app:
     }
 }
 
+/** Loads the battery usage of the app since the last full charge. */
+object AppBatterySource : AppInfoFactSource<BatteryDiffEntry?> {
+    private const val TAG = "AppBatterySource"
+
+    override val name = "battery"
+
+    /** Whether the battery usage is shown on the app info page of this device. */
+    fun isShown(context: Context) =
+        context.resources.getBoolean(R.bool.config_show_app_info_settings_battery)
+
+    override suspend fun isAvailable(context: Context, app: ApplicationInfo) = isShown(context)
+
+    override suspend fun load(context: Context, app: ApplicationInfo): BatteryDiffEntry? {
+        if (!app.installed) return null
+        return BatteryChartPreferenceController.getAppBatteryUsageData(
+            context, app.packageName, app.userId
+        ).also {
+            Log.d(TAG, "loadBatteryDiffEntries():\n$it")
+        }
+    }
+}
+
 private sealed class LoadingState<out T> {
     data object Loading : LoadingState<Nothing>()
 
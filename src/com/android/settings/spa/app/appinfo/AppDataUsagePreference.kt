@@ -40,7 +40,10 @@ import com.android.settingslib.spa.widget.preference.PreferenceModel
 import com.android.settingslib.spaprivileged.model.app.hasFlag
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.shareIn
@@ -55,7 +58,8 @@ fun AppDataUsagePreference(
         networkTemplate: NetworkTemplate,
     ) -> IAppDataUsageSummaryRepository = { context, networkTemplate ->
         AppDataUsageSummaryRepository(context, networkTemplate)
-    }
+    },
+    snapshotFlow: Flow<AppInfoSnapshot>? = null,
 ) {
     val context = LocalContext.current
     val coroutineScope = rememberCoroutineScope()
@@ -64,7 +68,15 @@ fun AppDataUsagePreference(
     }
     if (!presenter.isAvailableFlow.collectAsStateWithLifecycle(initialValue = false).value) return
 
-    val summary by presenter.summaryFlow.collectAsStateWithLifecycle(
+    val summaryFlow = remember(snapshotFlow) {
+        snapshotFlow?.filter {
+            it.isLoaded(AppDataUsageSource) || it.isTimedOut(AppDataUsageSource)
+        }?.map {
+            // Query by itself if the snapshot failed or ran out of time.
+            it[AppDataUsageSource] ?: presenter.loadSummary()
+        } ?: presenter.summaryFlow
+    }
+    val summary by summaryFlow.collectAsStateWithLifecycle(
         initialValue = stringResource(R.string.computing_size),
     )
     Preference(object : PreferenceModel {
@@ -79,6 +91,36 @@ fun AppDataUsagePreference(
     })
 }
 
+/** Loads the summary of the data usage of the app on the default network. */
+object AppDataUsageSource : AppInfoFactSource<String> {
+    override val name = "dataUsage"
+
+    override suspend fun isAvailable(context: Context, app: ApplicationInfo) =
+        Utils.isBandwidthControlEnabled()
+
+    override suspend fun load(context: Context, app: ApplicationInfo): String {
+        val template = NetworkTemplates.getDefaultTemplate(context)
+        return getDataUsageSummary(context, app, AppDataUsageSummaryRepository(context, template))
+    }
+}
+
+private suspend fun getDataUsageSummary(
+    context: Context,
+    app: ApplicationInfo,
+    repository: IAppDataUsageSummaryRepository,
+): String {
+    val appUsageData = repository.querySummary(app.uid)
+    return if (appUsageData == null || appUsageData.usage == 0L) {
+        context.getString(R.string.no_data_usage)
+    } else {
+        context.getString(
+            R.string.data_summary_format,
+            appUsageData.formatUsage(context).displayText,
+            appUsageData.formatStartDate(context),
+        )
+    }
+}
+
 private class AppDataUsagePresenter(
     private val context: Context,
     private val app: ApplicationInfo,
@@ -106,17 +148,10 @@ private class AppDataUsagePresenter(
     val titleResIdFlow = templateFlow.map { it.getTitleResId() }
     val summaryFlow = templateFlow.map { getSummary(it) }
 
+    suspend fun loadSummary() = getSummary(templateFlow.first())
+
     private suspend fun getSummary(template: NetworkTemplate) = withContext(Dispatchers.IO) {
-        val appUsageData = repositoryFactory(context, template).querySummary(app.uid)
-        if (appUsageData == null || appUsageData.usage == 0L) {
-            context.getString(R.string.no_data_usage)
-        } else {
-            context.getString(
-                R.string.data_summary_format,
-                appUsageData.formatUsage(context).displayText,
-                appUsageData.formatStartDate(context),
-            )
-        }
+        getDataUsageSummary(context, app, repositoryFactory(context, template))
     }
 
     fun startActivity() {
@@ -49,6 +49,8 @@ import com.android.settingslib.spa.widget.ui.Category
 import com.android.settingslib.spaprivileged.model.app.toRoute
 import com.android.settingslib.spaprivileged.template.app.AppInfoProvider
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
+import kotlinx.coroutines.flow.shareIn
 import android.content.pm.FeatureFlags as PmFeatureFlags
 import android.content.pm.FeatureFlagsImpl as PmFeatureFlagsImpl
 
@@ -134,6 +136,11 @@ private fun AppInfoSettings(packageInfoPresenter: PackageInfoPresenter) {
         val packageInfo = packageInfoState.value ?: return@RegularScaffold
         val app = packageInfo.applicationInfo ?: return@RegularScaffold
         val appInfoProvider = remember(packageInfo) { AppInfoProvider(packageInfo) }
+        val coroutineScope = rememberCoroutineScope()
+        val snapshotFlow = remember(packageInfo) {
+            AppInfoSnapshotRepository(packageInfoPresenter.context).snapshotFlow(packageInfo)
+                .shareIn(coroutineScope, SharingStarted.WhileSubscribed(), 1)
+        }
         val isHibernationSwitchEnabledStateFlow = MutableStateFlow(false)
 
         appInfoProvider.AppInfo()
@@ -146,9 +153,9 @@ private fun AppInfoSettings(packageInfoPresenter: PackageInfoPresenter) {
         AppPermissionPreference(app)
         AppStoragePreference(app)
         InstantAppDomainsPreference(app)
-        AppDataUsagePreference(app)
-        AppTimeSpentPreference(app)
-        AppBatteryPreference(app)
+        AppDataUsagePreference(app, snapshotFlow = snapshotFlow)
+        AppTimeSpentPreference(app, snapshotFlow)
+        AppBatteryPreference(app, snapshotFlow)
         AppLocalePreference(app)
         AppOpenByDefaultPreference(app)
         DefaultAppShortcuts(app)
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.spa.app.appinfo
+
+import android.content.Context
+import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
+import android.os.SystemClock
+import android.util.Log
+import android.util.LruCache
+import androidx.annotation.VisibleForTesting
+import com.android.settingslib.spaprivileged.model.app.userId
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.channelFlow
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+import kotlinx.coroutines.withTimeoutOrNull
+
+/** A fact shown on the app info page, loaded by [AppInfoSnapshotRepository]. */
+interface AppInfoFactSource<T> {
+    /** The name of the source in the timing logs. */
+    val name: String
+
+    /**
+     * Whether the preference showing the fact is available for the [app], called on a background
+     * thread. The fact of an unavailable source is not loaded.
+     */
+    suspend fun isAvailable(context: Context, app: ApplicationInfo): Boolean = true
+
+    /** Loads the fact of the [app], called on a background thread. */
+    suspend fun load(context: Context, app: ApplicationInfo): T
+}
+
+/** The facts of an app loaded so far, with the time each source took in milliseconds. */
+class AppInfoSnapshot(
+    private val facts: Map<AppInfoFactSource<*>, Any?> = emptyMap(),
+    val durations: Map<String, Long> = emptyMap(),
+    private val timedOut: Set<AppInfoFactSource<*>> = emptySet(),
+) {
+    /** Whether the [source] has loaded, its fact may still be null. */
+    fun isLoaded(source: AppInfoFactSource<*>): Boolean = source in facts
+
+    /**
+     * Whether the [source] did not load within the budget, the preference should then load the
+     * fact by itself.
+     */
+    fun isTimedOut(source: AppInfoFactSource<*>): Boolean = source in timedOut
+
+    /** Gets the fact of the [source], or null if it has not loaded. */
+    @Suppress("UNCHECKED_CAST")
+    operator fun <T> get(source: AppInfoFactSource<T>): T? = facts[source] as T?
+
+    internal fun withFact(source: AppInfoFactSource<*>, fact: Any?, duration: Long?) =
+        AppInfoSnapshot(
+            facts = facts + (source to fact),
+            durations = if (duration == null) durations else durations + (source.name to duration),
+            timedOut = timedOut - source,
+        )
+
+    internal fun withTimedOut(sources: Collection<AppInfoFactSource<*>>) =
+        AppInfoSnapshot(facts = facts, durations = durations, timedOut = timedOut + sources)
+}
+
+/**
+ * Loads the facts shown by the app info page in one pass, instead of one query per preference.
+ *
+ * The sources whose preference is available are loaded concurrently within [budgetMillis]. Each
+ * fact is streamed as soon as it is loaded, and the last snapshot is cached per package, user and
+ * version, so that going back to the page shows the previous facts while they are refreshed.
+ */
+class AppInfoSnapshotRepository(
+    private val context: Context,
+    private val sources: List<AppInfoFactSource<*>> = DEFAULT_SOURCES,
+    private val budgetMillis: Long = BUDGET_MILLIS,
+    private val dispatcher: CoroutineDispatcher = Dispatchers.IO,
+    private val clock: () -> Long = SystemClock::elapsedRealtime,
+) {
+    /**
+     * Flow of the snapshot of the app, starting with the cached one. A source which fails is
+     * loaded as null. A source which does not load within the budget keeps its cached fact, or is
+     * marked as timed out, which is never cached.
+     */
+    fun snapshotFlow(packageInfo: PackageInfo): Flow<AppInfoSnapshot> = channelFlow {
+        val app = packageInfo.applicationInfo ?: return@channelFlow
+        val key = CacheKey(packageInfo.packageName, app.userId, packageInfo.longVersionCode)
+        val mutex = Mutex()
+        var snapshot = cache[key] ?: AppInfoSnapshot()
+        send(snapshot)
+
+        val start = clock()
+        val availableSources = withContext(dispatcher) {
+            sources.filter { isAvailable(it, app) }
+        }
+        val loaded = mutableSetOf<AppInfoFactSource<*>>()
+        val completed = withTimeoutOrNull(budgetMillis) {
+            coroutineScope {
+                for (source in availableSources) {
+                    launch {
+                        val sourceStart = clock()
+                        val fact = load(source, app)
+                        val duration = clock() - sourceStart
+                        Log.d(TAG, "${source.name} of ${app.packageName} loaded in $duration ms")
+                        mutex.withLock {
+                            loaded += source
+                            snapshot = snapshot.withFact(source, fact, duration)
+                            send(snapshot)
+                        }
+                    }
+                }
+            }
+        }
+        mutex.withLock {
+            cache.put(key, snapshot)
+            if (completed == null) {
+                val timedOut = availableSources.filter { it !in loaded }
+                Log.w(TAG, "${timedOut.map { it.name }} of ${app.packageName} not loaded " +
+                    "within $budgetMillis ms")
+                send(snapshot.withTimedOut(timedOut.filter { !snapshot.isLoaded(it) }))
+            }
+        }
+        Log.d(TAG, "Snapshot of ${app.packageName} loaded in ${clock() - start} ms: " +
+            snapshot.durations)
+    }
+
+    private suspend fun isAvailable(source: AppInfoFactSource<*>, app: ApplicationInfo) =
+        try {
+            source.isAvailable(context, app)
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Log.e(TAG, "Failed to check ${source.name} of ${app.packageName}", e)
+            false
+        }
+
+    private suspend fun load(source: AppInfoFactSource<*>, app: ApplicationInfo): Any? =
+        withContext(dispatcher) {
+            try {
+                source.load(context, app)
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                Log.e(TAG, "Failed to load ${source.name} of ${app.packageName}", e)
+                null
+            }
+        }
+
+    private data class CacheKey(val packageName: String, val userId: Int, val versionCode: Long)
+
+    companion object {
+        private const val TAG = "AppInfoSnapshotRepo"
+        private const val BUDGET_MILLIS = 5000L
+        private const val CACHE_SIZE = 16
+
+        private val DEFAULT_SOURCES =
+            listOf(AppTimeSpentSource, AppDataUsageSource, AppBatterySource)
+
+        private val cache = LruCache<CacheKey, AppInfoSnapshot>(CACHE_SIZE)
+
+        @VisibleForTesting
+        fun clearCache() {
+            cache.evictAll()
+        }
+    }
+}
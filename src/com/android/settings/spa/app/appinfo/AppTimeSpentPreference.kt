@@ -23,11 +23,10 @@ import android.content.pm.PackageManager.ResolveInfoFlags
 import android.provider.Settings
 import androidx.compose.runtime.Composable
 import androidx.compose.runtime.getValue
-import androidx.compose.runtime.livedata.observeAsState
 import androidx.compose.runtime.remember
 import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.res.stringResource
-import androidx.lifecycle.liveData
+import androidx.lifecycle.compose.collectAsStateWithLifecycle
 import com.android.settings.R
 import com.android.settings.overlay.FeatureFactory.Companion.featureFactory
 import com.android.settingslib.spa.widget.preference.Preference
@@ -36,15 +35,20 @@ import com.android.settingslib.spaprivileged.model.app.hasFlag
 import com.android.settingslib.spaprivileged.model.app.userHandle
 import com.android.settingslib.spaprivileged.model.app.userId
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.filter
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.withContext
 
 @Composable
-fun AppTimeSpentPreference(app: ApplicationInfo) {
+fun AppTimeSpentPreference(app: ApplicationInfo, snapshotFlow: Flow<AppInfoSnapshot>? = null) {
     val context = LocalContext.current
-    val presenter = remember(app) { AppTimeSpentPresenter(context, app) }
+    val presenter = remember(app) { AppTimeSpentPresenter(context, app, snapshotFlow) }
     if (!presenter.isAvailable()) return
 
-    val summary by presenter.summaryLiveData.observeAsState(
-        initial = stringResource(R.string.summary_placeholder),
+    val summary by presenter.summaryFlow.collectAsStateWithLifecycle(
+        initialValue = stringResource(R.string.summary_placeholder),
     )
     Preference(object : PreferenceModel {
         override val title = stringResource(R.string.time_spent_in_app_pref_title)
@@ -57,25 +61,48 @@ fun AppTimeSpentPreference(app: ApplicationInfo) {
 private class AppTimeSpentPresenter(
     private val context: Context,
     private val app: ApplicationInfo,
+    snapshotFlow: Flow<AppInfoSnapshot>?,
 ) {
-    private val intent = Intent(Settings.ACTION_APP_USAGE_SETTINGS).apply {
-        putExtra(Intent.EXTRA_PACKAGE_NAME, app.packageName)
-    }
-    private val appFeatureProvider = featureFactory.applicationFeatureProvider
+    private val intent = AppTimeSpentSource.getIntent(app)
 
-    fun isAvailable() = context.packageManager.queryIntentActivitiesAsUser(
-        intent, ResolveInfoFlags.of(0), app.userId
-    ).any { resolveInfo ->
-        resolveInfo?.activityInfo?.applicationInfo?.isSystemApp == true
-    }
+    fun isAvailable() = AppTimeSpentSource.hasUsageSettings(context, app)
 
     fun isEnabled() = app.hasFlag(ApplicationInfo.FLAG_INSTALLED)
 
-    val summaryLiveData = liveData(Dispatchers.IO) {
-        emit(appFeatureProvider.getTimeSpentInApp(app.packageName).toString())
-    }
+    val summaryFlow = snapshotFlow?.filter {
+        it.isLoaded(AppTimeSpentSource) || it.isTimedOut(AppTimeSpentSource)
+    }?.map {
+        // Query by itself if the snapshot failed or ran out of time.
+        it[AppTimeSpentSource] ?: loadSummary()
+    } ?: flow { emit(loadSummary()) }
+
+    private suspend fun loadSummary() =
+        withContext(Dispatchers.IO) { AppTimeSpentSource.load(context, app) }
 
     fun startActivity() {
         context.startActivityAsUser(intent, app.userHandle)
     }
 }
+
+/** Loads the time spent in the app, as reported by the digital wellbeing app. */
+object AppTimeSpentSource : AppInfoFactSource<String> {
+    override val name = "timeSpent"
+
+    fun getIntent(app: ApplicationInfo) = Intent(Settings.ACTION_APP_USAGE_SETTINGS).apply {
+        putExtra(Intent.EXTRA_PACKAGE_NAME, app.packageName)
+    }
+
+    /** Whether a system app handles the usage settings of the [app]. */
+    fun hasUsageSettings(context: Context, app: ApplicationInfo) =
+        context.packageManager.queryIntentActivitiesAsUser(
+            getIntent(app), ResolveInfoFlags.of(0), app.userId
+        ).any { resolveInfo ->
+            resolveInfo?.activityInfo?.applicationInfo?.isSystemApp == true
+        }
+
+    override suspend fun isAvailable(context: Context, app: ApplicationInfo) =
+        hasUsageSettings(context, app)
+
+    override suspend fun load(context: Context, app: ApplicationInfo) =
+        featureFactory.applicationFeatureProvider.getTimeSpentInApp(app.packageName).toString()
+}
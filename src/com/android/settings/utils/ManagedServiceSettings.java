@@ -29,7 +29,6 @@ import android.content.pm.ServiceInfo;
 import android.os.Bundle;
 import android.os.UserHandle;
 import android.os.UserManager;
-import android.util.IconDrawableFactory;
 import android.util.Log;
 import android.view.View;
 
@@ -40,6 +39,7 @@ import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
 import com.android.settings.Utils;
+import com.android.settings.applications.BadgedAppIconCache;
 import com.android.settings.core.instrumentation.InstrumentedDialogFragment;
 import com.android.settings.widget.EmptyTextSettings;
 import com.android.settingslib.RestrictedSwitchPreference;
@@ -56,7 +56,7 @@ public abstract class ManagedServiceSettings extends EmptyTextSettings {
     private PackageManager mPm;
     private DevicePolicyManager mDpm;
     private ServiceListing mServiceListing;
-    private IconDrawableFactory mIconDrawableFactory;
+    private BadgedAppIconCache mIconCache;
 
     abstract protected Config getConfig();
 
@@ -71,7 +71,7 @@ public abstract class ManagedServiceSettings extends EmptyTextSettings {
         mContext = getActivity();
         mPm = mContext.getPackageManager();
         mDpm = (DevicePolicyManager) mContext.getSystemService(Context.DEVICE_POLICY_SERVICE);
-        mIconDrawableFactory = IconDrawableFactory.newInstance(mContext);
+        mIconCache = BadgedAppIconCache.getInstance(mContext);
         mServiceListing = new ServiceListing.Builder(mContext)
                 .setPermission(mConfig.permission)
                 .setIntentAction(mConfig.intentAction)
@@ -124,7 +124,7 @@ public abstract class ManagedServiceSettings extends EmptyTextSettings {
             final RestrictedSwitchPreference pref =
                     new RestrictedSwitchPreference(getPrefContext());
             pref.setPersistent(false);
-            pref.setIcon(mIconDrawableFactory.getBadgedIcon(service, service.applicationInfo,
+            pref.setIcon(mIconCache.getBadgedIcon(mContext, service, service.applicationInfo,
                     UserHandle.getUserId(service.applicationInfo.uid)));
             pref.setIconSize(TwoTargetPreference.ICON_SIZE_MEDIUM);
             if (title != null && !title.equals(summary)) {
@@ -54,6 +54,10 @@ public class ChartGridView extends View {
     private Layout mLabelMid;
     private Layout mLabelEnd;
 
+    // Tick points of the axes, computed on the first draw after the axes change.
+    private float[] mVertTicks;
+    private float[] mHorizTicks;
+
     public ChartGridView(Context context) {
         this(context, null, 0);
     }
@@ -91,6 +95,17 @@ public class ChartGridView extends View {
     void init(ChartAxis horiz, ChartAxis vert) {
         mHoriz = Preconditions.checkNotNull(horiz, "missing horiz");
         mVert = Preconditions.checkNotNull(vert, "missing vert");
+        onAxesChanged();
+    }
+
+    /**
+     * Called by {@link ChartView} when the size or bounds of its axes change, so that the grid
+     * reads their tick points again.
+     */
+    void onAxesChanged() {
+        mVertTicks = null;
+        mHorizTicks = null;
+        invalidate();
     }
 
     void setBounds(long start, long end) {
@@ -104,6 +119,10 @@ public class ChartGridView extends View {
 
     @Override
     protected void onDraw(Canvas canvas) {
+        if (mVertTicks == null || mHorizTicks == null) {
+            mVertTicks = mVert.getTickPoints();
+            mHorizTicks = mHoriz.getTickPoints();
+        }
         final int width = getWidth();
         final int height = getHeight() - getPaddingBottom();
 
@@ -111,8 +130,7 @@ public class ChartGridView extends View {
         if (secondary != null) {
             final int secondaryHeight = secondary.getIntrinsicHeight();
 
-            final float[] vertTicks = mVert.getTickPoints();
-            for (float y : vertTicks) {
+            for (float y : mVertTicks) {
                 final int bottom = (int) Math.min(y + secondaryHeight, height);
                 secondary.setBounds(0, (int) y, width, bottom);
                 secondary.draw(canvas);
@@ -124,8 +142,7 @@ public class ChartGridView extends View {
             final int primaryWidth = primary.getIntrinsicWidth();
             final int primaryHeight = primary.getIntrinsicHeight();
 
-            final float[] horizTicks = mHoriz.getTickPoints();
-            for (float x : horizTicks) {
+            for (float x : mHorizTicks) {
                 final int right = (int) Math.min(x + primaryWidth, width);
                 primary.setBounds((int) x, 0, right, height);
                 primary.draw(canvas);
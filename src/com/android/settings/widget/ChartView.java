@@ -74,6 +74,27 @@ public class ChartView extends FrameLayout {
         mVert = Preconditions.checkNotNull(vert, "missing vert");
     }
 
+    /**
+     * Sets the range of raw values covered by each axis, and redraws the grid when either range
+     * changes.
+     */
+    void setAxesBounds(long horizMin, long horizMax, long vertMin, long vertMax) {
+        final boolean horizChanged = mHoriz.setBounds(horizMin, horizMax);
+        final boolean vertChanged = mVert.setBounds(vertMin, vertMax);
+        if (horizChanged || vertChanged) {
+            notifyAxesChanged();
+        }
+    }
+
+    private void notifyAxesChanged() {
+        for (int i = 0; i < getChildCount(); i++) {
+            final View child = getChildAt(i);
+            if (child instanceof ChartGridView) {
+                ((ChartGridView) child).onAxesChanged();
+            }
+        }
+    }
+
     public void setOptimalWidth(int optimalWidth, float optimalWidthWeight) {
         mOptimalWidth = optimalWidth;
         mOptimalWidthWeight = optimalWidthWeight;
@@ -100,8 +121,11 @@ public class ChartView extends FrameLayout {
         final int height = mContent.height();
 
         // no scrolling yet, so tell dimensions to fill exactly
-        mHoriz.setSize(width);
-        mVert.setSize(height);
+        final boolean horizChanged = mHoriz.setSize(width);
+        final boolean vertChanged = mVert.setSize(height);
+        if (horizChanged || vertChanged) {
+            notifyAxesChanged();
+        }
 
         final Rect parentRect = new Rect();
         final Rect childRect = new Rect();
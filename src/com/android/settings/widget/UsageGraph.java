@@ -17,6 +17,7 @@
 package com.android.settings.widget;
 
 import android.content.Context;
+import android.content.res.ColorStateList;
 import android.content.res.Resources;
 import android.graphics.Canvas;
 import android.graphics.CornerPathEffect;
@@ -49,11 +50,18 @@ public class UsageGraph extends View {
     private final Paint mFillPaint;
     private final Paint mDottedPaint;
 
-    private final Drawable mDivider;
-    private final Drawable mTintedDivider;
+    private final Drawable mBottomDivider;
+    private final Drawable mTopDivider;
+    private final Drawable mMiddleDivider;
     private final int mDividerSize;
 
-    private final Path mPath = new Path();
+    // Paths in local coordinates, rebuilt only when the local paths change.
+    private final Path mLinePath = new Path();
+    private final Path mFillPath = new Path();
+    private final Path mProjectedPath = new Path();
+    private boolean mPathsDirty = true;
+    @VisibleForTesting
+    int mPathRebuildCount;
 
     // Paths in coordinates they are passed in.
     private final SparseIntArray mPaths = new SparseIntArray();
@@ -72,8 +80,6 @@ public class UsageGraph extends View {
     private float mMaxY = 100;
 
     private float mMiddleDividerLoc = .5f;
-    private int mMiddleDividerTint = -1;
-    private int mTopDividerTint = -1;
 
     public UsageGraph(Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
@@ -105,8 +111,9 @@ public class UsageGraph extends View {
 
         TypedValue v = new TypedValue();
         context.getTheme().resolveAttribute(com.android.internal.R.attr.listDivider, v, true);
-        mDivider = context.getDrawable(v.resourceId);
-        mTintedDivider = context.getDrawable(v.resourceId);
+        mBottomDivider = context.getDrawable(v.resourceId);
+        mTopDivider = context.getDrawable(v.resourceId).mutate();
+        mMiddleDivider = context.getDrawable(v.resourceId).mutate();
         mDividerSize = resources.getDimensionPixelSize(
                 com.android.settingslib.R.dimen.usage_graph_divider_size);
     }
@@ -116,6 +123,7 @@ public class UsageGraph extends View {
         mLocalPaths.clear();
         mProjectedPaths.clear();
         mLocalProjectedPaths.clear();
+        mPathsDirty = true;
     }
 
     void setMax(int maxX, int maxY) {
@@ -129,11 +137,13 @@ public class UsageGraph extends View {
 
     void setDividerLoc(int height) {
         mMiddleDividerLoc = 1 - height / mMaxY;
+        updateDividerBounds();
     }
 
     void setDividerColors(int middleColor, int topColor) {
-        mMiddleDividerTint = middleColor;
-        mTopDividerTint = topColor;
+        mMiddleDivider.setTintList(
+                middleColor != -1 ? ColorStateList.valueOf(middleColor) : null);
+        mTopDivider.setTintList(topColor != -1 ? ColorStateList.valueOf(topColor) : null);
     }
 
     public void addPath(SparseIntArray points) {
@@ -169,6 +179,7 @@ public class UsageGraph extends View {
         final long startTime = System.currentTimeMillis();
         super.onSizeChanged(w, h, oldw, oldh);
         updateGradient();
+        updateDividerBounds();
         calculateLocalPaths();
         BatteryUtils.logRuntime(LOG_TAG, "onSizeChanged", startTime);
     }
@@ -219,6 +230,7 @@ public class UsageGraph extends View {
                 localPaths.put(lx, ly);
             }
         }
+        mPathsDirty = true;
         BatteryUtils.logRuntime(LOG_TAG, "calculateLocalPaths", startTime);
     }
 
@@ -246,51 +258,56 @@ public class UsageGraph extends View {
 
     @Override
     protected void onDraw(Canvas canvas) {
-        final long startTime = System.currentTimeMillis();
         // Draw lines across the top, middle, and bottom.
         if (mMiddleDividerLoc != 0) {
-            drawDivider(0, canvas, mTopDividerTint);
+            mTopDivider.draw(canvas);
         }
-        drawDivider(
-                (int) ((canvas.getHeight() - mDividerSize) * mMiddleDividerLoc),
-                canvas,
-                mMiddleDividerTint);
-        drawDivider(canvas.getHeight() - mDividerSize, canvas, -1);
+        mMiddleDivider.draw(canvas);
+        mBottomDivider.draw(canvas);
 
         if (mLocalPaths.size() == 0 && mLocalProjectedPaths.size() == 0) {
             return;
         }
 
+        if (mPathsDirty) {
+            rebuildPaths();
+        }
         canvas.save();
         if (getLayoutDirection() == LAYOUT_DIRECTION_RTL) {
             // Flip the canvas along the y-axis of the center of itself before drawing paths.
             canvas.scale(-1, 1, canvas.getWidth() * 0.5f, 0);
         }
-        drawLinePath(canvas, mLocalProjectedPaths, mDottedPaint);
-        drawFilledPath(canvas, mLocalPaths, mFillPaint);
-        drawLinePath(canvas, mLocalPaths, mLinePaint);
+        canvas.drawPath(mProjectedPath, mDottedPaint);
+        canvas.drawPath(mFillPath, mFillPaint);
+        canvas.drawPath(mLinePath, mLinePaint);
         canvas.restore();
-        BatteryUtils.logRuntime(LOG_TAG, "onDraw", startTime);
     }
 
-    private void drawLinePath(Canvas canvas, SparseIntArray localPaths, Paint paint) {
+    private void rebuildPaths() {
+        mPathRebuildCount++;
+        buildLinePath(mLocalProjectedPaths, mProjectedPath);
+        buildFilledPath(mLocalPaths, mFillPath);
+        buildLinePath(mLocalPaths, mLinePath);
+        mPathsDirty = false;
+    }
+
+    private void buildLinePath(SparseIntArray localPaths, Path path) {
+        path.reset();
         if (localPaths.size() == 0) {
             return;
         }
-        mPath.reset();
-        mPath.moveTo(localPaths.keyAt(0), localPaths.valueAt(0));
+        path.moveTo(localPaths.keyAt(0), localPaths.valueAt(0));
         for (int i = 1; i < localPaths.size(); i++) {
             int x = localPaths.keyAt(i);
             int y = localPaths.valueAt(i);
             if (y == PATH_DELIM) {
                 if (++i < localPaths.size()) {
-                    mPath.moveTo(localPaths.keyAt(i), localPaths.valueAt(i));
+                    path.moveTo(localPaths.keyAt(i), localPaths.valueAt(i));
                 }
             } else {
-                mPath.lineTo(x, y);
+                path.lineTo(x, y);
             }
         }
-        canvas.drawPath(mPath, paint);
     }
 
     @VisibleForTesting
@@ -298,34 +315,41 @@ public class UsageGraph extends View {
         if (localPaths.size() == 0) {
             return;
         }
-        mPath.reset();
+        final Path path = new Path();
+        buildFilledPath(localPaths, path);
+        canvas.drawPath(path, paint);
+    }
+
+    private void buildFilledPath(SparseIntArray localPaths, Path path) {
+        path.reset();
+        if (localPaths.size() == 0) {
+            return;
+        }
         float lastStartX = localPaths.keyAt(0);
-        mPath.moveTo(localPaths.keyAt(0), localPaths.valueAt(0));
+        path.moveTo(localPaths.keyAt(0), localPaths.valueAt(0));
         for (int i = 1; i < localPaths.size(); i++) {
             int x = localPaths.keyAt(i);
             int y = localPaths.valueAt(i);
             if (y == PATH_DELIM) {
-                mPath.lineTo(localPaths.keyAt(i - 1), getHeight());
-                mPath.lineTo(lastStartX, getHeight());
-                mPath.close();
+                path.lineTo(localPaths.keyAt(i - 1), getHeight());
+                path.lineTo(lastStartX, getHeight());
+                path.close();
                 if (++i < localPaths.size()) {
                     lastStartX = localPaths.keyAt(i);
-                    mPath.moveTo(localPaths.keyAt(i), localPaths.valueAt(i));
+                    path.moveTo(localPaths.keyAt(i), localPaths.valueAt(i));
                 }
             } else {
-                mPath.lineTo(x, y);
+                path.lineTo(x, y);
             }
         }
-        canvas.drawPath(mPath, paint);
     }
 
-    private void drawDivider(int y, Canvas canvas, int tintColor) {
-        Drawable d = mDivider;
-        if (tintColor != -1) {
-            mTintedDivider.setTint(tintColor);
-            d = mTintedDivider;
-        }
-        d.setBounds(0, y, canvas.getWidth(), y + mDividerSize);
-        d.draw(canvas);
+    private void updateDividerBounds() {
+        final int width = getWidth();
+        final int height = getHeight();
+        final int middle = (int) ((height - mDividerSize) * mMiddleDividerLoc);
+        mTopDivider.setBounds(0, 0, width, mDividerSize);
+        mMiddleDivider.setBounds(0, middle, width, middle + mDividerSize);
+        mBottomDivider.setBounds(0, height - mDividerSize, width, height);
     }
 }
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+
+import com.android.settings.tests.perf.HostBenchmark;
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+
+@RunWith(RobolectricTestRunner.class)
+public class ManageApplicationsSearchBenchmark {
+    private static final int APP_COUNT = 500;
+    private static final String[] QUERIES = {"c", "Ca", "cal", "Calendar 42", "zzz"};
+
+    private final ArrayList<AppEntry> mEntries = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        final Context context = RuntimeEnvironment.application;
+        final String[] names = {"Calendar", "Camera", "Clock", "Contacts", "Files", "Maps"};
+        for (int i = 0; i < APP_COUNT; i++) {
+            final ApplicationInfo info = new ApplicationInfo();
+            info.sourceDir = "abc";
+            final AppEntry entry = new AppEntry(context, info, i);
+            entry.label = names[i % names.length] + " " + i;
+            mEntries.add(entry);
+        }
+    }
+
+    @Test
+    public void filterEntriesByLabel() throws Exception {
+        assertThat(ManageApplications.ApplicationsAdapter.filterEntriesByLabel(mEntries, "cal"))
+                .isNotEmpty();
+
+        HostBenchmark.measure("ManageApplications.filterEntriesByLabel", () -> {
+            for (String query : QUERIES) {
+                ManageApplications.ApplicationsAdapter.filterEntriesByLabel(mEntries, query);
+            }
+        });
+    }
+}
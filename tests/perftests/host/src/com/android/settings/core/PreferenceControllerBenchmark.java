@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_CONTROLLER;
+import static com.android.settings.core.PreferenceXmlParserUtils.METADATA_KEY;
+import static com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag.FLAG_INCLUDE_PREF_SCREEN;
+import static com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag.FLAG_NEED_KEY;
+import static com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag.FLAG_NEED_PREF_CONTROLLER;
+import static com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag.FLAG_NEED_PREF_SUMMARY;
+import static com.android.settings.core.PreferenceXmlParserUtils.MetadataFlag.FLAG_NEED_PREF_TITLE;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.text.TextUtils;
+
+import com.android.settings.R;
+import com.android.settings.tests.perf.HostBenchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreferenceControllerBenchmark {
+    private static final int[] XML_RES_IDS = {
+            R.xml.development_settings,
+            R.xml.network_provider_settings,
+            R.xml.security_dashboard_settings,
+            R.xml.sound_settings,
+    };
+    private static final int FLAGS = FLAG_INCLUDE_PREF_SCREEN | FLAG_NEED_KEY
+            | FLAG_NEED_PREF_CONTROLLER | FLAG_NEED_PREF_TITLE | FLAG_NEED_PREF_SUMMARY;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @Test
+    public void extractMetadata() throws Exception {
+        HostBenchmark.measure("PreferenceXmlParserUtils.extractMetadata", () -> {
+            for (int xmlResId : XML_RES_IDS) {
+                PreferenceXmlParserUtils.extractMetadata(mContext, xmlResId, FLAGS);
+            }
+        });
+    }
+
+    @Test
+    public void createInstance() throws Exception {
+        final List<Bundle> controllers = new ArrayList<>();
+        for (int xmlResId : XML_RES_IDS) {
+            for (Bundle metadata :
+                    PreferenceXmlParserUtils.extractMetadata(mContext, xmlResId, FLAGS)) {
+                if (TextUtils.isEmpty(metadata.getString(METADATA_CONTROLLER))) {
+                    continue;
+                }
+                try {
+                    BasePreferenceController.createInstance(mContext,
+                            metadata.getString(METADATA_CONTROLLER),
+                            metadata.getString(METADATA_KEY));
+                    controllers.add(metadata);
+                } catch (IllegalStateException e) {
+                    // Controllers without a (Context, String) constructor are not measured.
+                }
+            }
+        }
+        assertThat(controllers).isNotEmpty();
+
+        HostBenchmark.measure("BasePreferenceController.createInstance", () -> {
+            for (Bundle metadata : controllers) {
+                BasePreferenceController.createInstance(mContext,
+                        metadata.getString(METADATA_CONTROLLER),
+                        metadata.getString(METADATA_KEY));
+            }
+        });
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.datausage.lib
+
+import android.content.Context
+import android.net.NetworkTemplate
+import android.text.format.DateUtils
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.android.settings.datausage.lib.NetworkStatsRepository.Companion.Bucket
+import com.android.settings.tests.perf.HostBenchmark
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.Mockito.mock
+
+@RunWith(AndroidJUnit4::class)
+class NetworkCycleBucketRepositoryBenchmark {
+    private val context: Context = ApplicationProvider.getApplicationContext()
+
+    /** Returns no policy, so the cycles are aggregated as four weeks from the buckets. */
+    private val networkCycleDataRepository = mock(NetworkCycleDataRepository::class.java)
+
+    private val repository = NetworkCycleBucketRepository(
+        context = context,
+        networkTemplate = mock(NetworkTemplate::class.java),
+        buckets = createBuckets(),
+        networkCycleDataRepository = networkCycleDataRepository,
+    )
+
+    @Test
+    fun loadCycles() {
+        assertThat(repository.loadCycles()).isNotEmpty()
+
+        HostBenchmark.measure("NetworkCycleBucketRepository.loadCycles") {
+            repository.loadCycles()
+        }
+    }
+
+    @Test
+    fun queryChartData() {
+        val usageData = repository.loadCycles().first()
+
+        HostBenchmark.measure("NetworkCycleBucketRepository.queryChartData") {
+            repository.queryChartData(usageData)
+        }
+    }
+
+    private companion object {
+        const val HISTORY_DAYS = 90
+        const val UID_COUNT = 20
+
+        /** Creates three months of hourly buckets for each uid. */
+        fun createBuckets(): List<Bucket> {
+            val endTime = System.currentTimeMillis()
+            val startTime = endTime - HISTORY_DAYS * DateUtils.DAY_IN_MILLIS
+            return (startTime until endTime step DateUtils.HOUR_IN_MILLIS).flatMap { start ->
+                (0 until UID_COUNT).map { uid ->
+                    Bucket(
+                        uid = uid,
+                        bytes = (uid + 1) * 1024L,
+                        startTimeStamp = start,
+                        endTimeStamp = start + DateUtils.HOUR_IN_MILLIS,
+                    )
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.isA;
+import static org.mockito.Mockito.spy;
+
+import android.app.usage.IUsageStatsManager;
+import android.content.BroadcastReceiver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.UserManager;
+import android.text.format.DateUtils;
+
+import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settings.tests.perf.HostBenchmark;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+@RunWith(RobolectricTestRunner.class)
+public class DataProcessorBenchmark {
+    private static final int HISTORY_HOURS = 7 * 24;
+    private static final int APP_COUNT = 60;
+
+    private Context mContext;
+    private IUsageStatsManager mOriginalUsageStatsManager;
+
+    @Mock private Intent mIntent;
+    @Mock private UserManager mUserManager;
+    @Mock private UserIdsSeries mUserIdsSeries;
+    @Mock private IUsageStatsManager mUsageStatsManager;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        FakeFeatureFactory.setupForTest();
+        doReturn(true).when(mUserIdsSeries).isMainUserProfileOnly();
+
+        DataProcessor.sTestSystemAppsPackageNames = Set.of();
+        mOriginalUsageStatsManager = DataProcessor.sUsageStatsManager;
+        DataProcessor.sUsageStatsManager = mUsageStatsManager;
+        doReturn(mIntent)
+                .when(mContext)
+                .registerReceiver(isA(BroadcastReceiver.class), isA(IntentFilter.class));
+        doReturn(100).when(mIntent).getIntExtra(eq(BatteryManager.EXTRA_SCALE), anyInt());
+        doReturn(66).when(mIntent).getIntExtra(eq(BatteryManager.EXTRA_LEVEL), anyInt());
+        doReturn(mContext).when(mContext).getApplicationContext();
+        doReturn(mUserManager).when(mContext).getSystemService(UserManager.class);
+        doReturn(new int[] {0}).when(mUserManager).getProfileIdsWithDisabled(anyInt());
+    }
+
+    @After
+    public void tearDown() {
+        DataProcessor.sTestSystemAppsPackageNames = null;
+        DataProcessor.sUsageStatsManager = mOriginalUsageStatsManager;
+    }
+
+    @Test
+    public void getBatteryUsageData_weekOfHourlyHistory() throws Exception {
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap =
+                createBatteryHistoryMap(System.currentTimeMillis());
+
+        HostBenchmark.measure("DataProcessor.getBatteryUsageData", /* warmupIterations= */ 2,
+                /* iterations= */ 10,
+                () -> DataProcessor.getBatteryUsageData(
+                        mContext, mUserIdsSeries, batteryHistoryMap));
+    }
+
+    /** Creates an hourly history in which every app drains a bit more each hour. */
+    private static Map<Long, Map<String, BatteryHistEntry>> createBatteryHistoryMap(long now) {
+        final long startTime = now - HISTORY_HOURS * DateUtils.HOUR_IN_MILLIS;
+        final Map<Long, Map<String, BatteryHistEntry>> batteryHistoryMap = new HashMap<>();
+        for (int hour = 0; hour <= HISTORY_HOURS; hour++) {
+            final long timestamp = startTime + hour * DateUtils.HOUR_IN_MILLIS;
+            final int batteryLevel = 100 - (hour % 100);
+            final Map<String, BatteryHistEntry> entries = new HashMap<>();
+            for (int app = 0; app < APP_COUNT; app++) {
+                final BatteryHistEntry entry = createBatteryHistEntry(
+                        "com.android.app" + app, /* uid= */ 10000 + app, timestamp,
+                        batteryLevel, /* consumePower= */ hour * (app + 1) * 0.1,
+                        /* usageTimeInMs= */ hour * (app + 1) * 1000L);
+                entries.put(entry.getKey(), entry);
+            }
+            batteryHistoryMap.put(timestamp, entries);
+        }
+        return batteryHistoryMap;
+    }
+
+    private static BatteryHistEntry createBatteryHistEntry(String packageName, long uid,
+            long timestamp, int batteryLevel, double consumePower, long usageTimeInMs) {
+        final DeviceBatteryState deviceBatteryState =
+                DeviceBatteryState.newBuilder()
+                        .setBatteryLevel(batteryLevel)
+                        .setBatteryStatus(BatteryManager.BATTERY_STATUS_DISCHARGING)
+                        .setBatteryHealth(BatteryManager.BATTERY_HEALTH_GOOD)
+                        .build();
+        final BatteryInformation batteryInformation =
+                BatteryInformation.newBuilder()
+                        .setDeviceBatteryState(deviceBatteryState)
+                        .setAppLabel(packageName)
+                        .setConsumePower(consumePower)
+                        .setForegroundUsageConsumePower(consumePower)
+                        .setForegroundUsageTimeInMs(usageTimeInMs)
+                        .setTotalPower(consumePower * APP_COUNT)
+                        .build();
+        final ContentValues values = new ContentValues();
+        values.put(BatteryHistEntry.KEY_PACKAGE_NAME, packageName);
+        values.put(BatteryHistEntry.KEY_UID, uid);
+        values.put(BatteryHistEntry.KEY_USER_ID, 0L);
+        values.put(BatteryHistEntry.KEY_TIMESTAMP, timestamp);
+        values.put(BatteryHistEntry.KEY_CONSUMER_TYPE, ConvertUtils.CONSUMER_TYPE_UID_BATTERY);
+        values.put(
+                BatteryHistEntry.KEY_BATTERY_INFORMATION,
+                ConvertUtils.convertBatteryInformationToString(batteryInformation));
+        return new BatteryHistEntry(values);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.search;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import com.android.settings.testutils.FakeFeatureFactory;
+import com.android.settings.tests.perf.HostBenchmark;
+import com.android.settingslib.search.Indexable;
+import com.android.settingslib.search.SearchIndexableData;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class SearchIndexBenchmark {
+
+    private Context mContext;
+    private final List<Indexable.SearchIndexProvider> mProviders = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        final SearchFeatureProvider searchFeatureProvider = new SearchFeatureProviderImpl();
+        FakeFeatureFactory.setupForTest().searchFeatureProvider = searchFeatureProvider;
+        for (SearchIndexableData bundle :
+                searchFeatureProvider.getSearchIndexableResources().getProviderValues()) {
+            final Indexable.SearchIndexProvider provider = bundle.getSearchIndexProvider();
+            try {
+                provider.getNonIndexableKeys(mContext);
+                mProviders.add(provider);
+            } catch (Exception e) {
+                // Providers needing services that are missing on the host are not measured,
+                // the same way SettingsSearchIndexablesProvider skips providers that crash.
+            }
+        }
+        assertThat(mProviders).isNotEmpty();
+    }
+
+    @Test
+    public void getNonIndexableKeys_allProviders() throws Exception {
+        HostBenchmark.measure("BaseSearchIndexProvider.getNonIndexableKeys", () -> {
+            for (Indexable.SearchIndexProvider provider : mProviders) {
+                provider.getNonIndexableKeys(mContext);
+            }
+        });
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.tests.perf;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Runs a microbenchmark on the host and reports its timing and allocations as one JSON line.
+ *
+ * Results are printed to stdout, and appended to the file named by the
+ * {@code settings.benchmark.output} system property when it is set.
+ */
+public final class HostBenchmark {
+    private static final String OUTPUT_PROPERTY = "settings.benchmark.output";
+    private static final String LOG_PREFIX = "SettingsBenchmark: ";
+
+    public static final int DEFAULT_WARMUP_ITERATIONS = 5;
+    public static final int DEFAULT_ITERATIONS = 20;
+
+    private HostBenchmark() {}
+
+    /** The code under measurement. */
+    public interface Body {
+        void run() throws Exception;
+    }
+
+    /** The timing and allocations of one benchmark. */
+    public static final class Result {
+        public final String name;
+        public final int iterations;
+        public final long minNs;
+        public final long medianNs;
+        public final long meanNs;
+        public final long maxNs;
+        /** Bytes allocated per iteration, or -1 when allocation accounting is unsupported. */
+        public final long allocatedBytesPerOp;
+
+        Result(String name, long[] durationsNs, long allocatedBytesPerOp) {
+            final long[] sorted = durationsNs.clone();
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long duration : sorted) {
+                total += duration;
+            }
+            this.name = name;
+            this.iterations = sorted.length;
+            this.minNs = sorted[0];
+            this.medianNs = sorted[sorted.length / 2];
+            this.meanNs = total / sorted.length;
+            this.maxNs = sorted[sorted.length - 1];
+            this.allocatedBytesPerOp = allocatedBytesPerOp;
+        }
+
+        /** Returns the result as a single line JSON object. */
+        public String toJson() {
+            return String.format(Locale.US,
+                    "{\"name\":\"%s\",\"iterations\":%d,\"minNs\":%d,\"medianNs\":%d,"
+                            + "\"meanNs\":%d,\"maxNs\":%d,\"allocatedBytesPerOp\":%d}",
+                    name, iterations, minNs, medianNs, meanNs, maxNs, allocatedBytesPerOp);
+        }
+    }
+
+    /** Measures {@code body} with the default warmup and iteration counts. */
+    public static Result measure(String name, Body body) throws Exception {
+        return measure(name, DEFAULT_WARMUP_ITERATIONS, DEFAULT_ITERATIONS, body);
+    }
+
+    /**
+     * Runs {@code body} {@code warmupIterations} times unmeasured, then {@code iterations} times
+     * measured, and reports the result.
+     */
+    public static Result measure(String name, int warmupIterations, int iterations, Body body)
+            throws Exception {
+        if (iterations <= 0) {
+            throw new IllegalArgumentException("iterations must be positive: " + iterations);
+        }
+        for (int i = 0; i < warmupIterations; i++) {
+            body.run();
+        }
+
+        final long[] durationsNs = new long[iterations];
+        final long startAllocatedBytes = getAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            final long start = System.nanoTime();
+            body.run();
+            durationsNs[i] = System.nanoTime() - start;
+        }
+        final long endAllocatedBytes = getAllocatedBytes();
+
+        final Result result = new Result(name, durationsNs,
+                startAllocatedBytes < 0 || endAllocatedBytes < 0
+                        ? -1 : (endAllocatedBytes - startAllocatedBytes) / iterations);
+        report(result);
+        return result;
+    }
+
+    private static long getAllocatedBytes() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        final com.sun.management.ThreadMXBean allocationBean =
+                (com.sun.management.ThreadMXBean) bean;
+        if (!allocationBean.isThreadAllocatedMemorySupported()
+                || !allocationBean.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void report(Result result) throws IOException {
+        final String json = result.toJson();
+        System.out.println(LOG_PREFIX + json);
+        final String output = System.getProperty(OUTPUT_PROPERTY);
+        if (output == null || output.isEmpty()) {
+            return;
+        }
+        synchronized (HostBenchmark.class) {
+            try (Writer writer = new FileWriter(output, true /* append */)) {
+                writer.write(json);
+                writer.write('\n');
+            }
+        }
+    }
+}
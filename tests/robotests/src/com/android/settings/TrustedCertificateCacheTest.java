@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.util.Base64;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class TrustedCertificateCacheTest {
+    private static final String ALIAS = "system:test.0";
+
+    // Self-signed, O=Test Org 1, CN=Test CA 1.
+    private static final byte[] CERT_1 = Base64.decode(
+            "MIIBqjCCAU+gAwIBAgIURhzt5FrkudXoiUTajMmmIRvAYpUwCgYIKoZIzj0EAwIwKTETMBEGA1UECgwK"
+            + "VGVzdCBPcmcgMTESMBAGA1UEAwwJVGVzdCBDQSAxMCAXDTI2MTAxOTAyMjIzMVoYDzIxMjYwOTI1"
+            + "MDIyMjMxWjApMRMwEQYDVQQKDApUZXN0IE9yZyAxMRIwEAYDVQQDDAlUZXN0IENBIDEwWTATBgcq"
+            + "hkjOPQIBBggqhkjOPQMBBwNCAAROyDVC9U75rrmncgZa8CeS8YcJ4nWEDy8tjqekOBIUykxRJJjo"
+            + "XckSGRUERUXTjBCV5DyIOi83z7aFdJMnwogKo1MwUTAdBgNVHQ4EFgQU9417BnHVidlVwc7R61Y1"
+            + "osbiXncwHwYDVR0jBBgwFoAU9417BnHVidlVwc7R61Y1osbiXncwDwYDVR0TAQH/BAUwAwEB/zAK"
+            + "BggqhkjOPQQDAgNJADBGAiEAodWINX2umk6wQ5bqumdJukYV+jvA5I3IOcPVms+yNd4CIQCCLVlL"
+            + "4JxEI6c0qlwLN69+ZT8lHTI/FNQmk2Q7a621GQ==", Base64.DEFAULT);
+
+    // Self-signed, O=Test Org 2, CN=Test CA 2.
+    private static final byte[] CERT_2 = Base64.decode(
+            "MIIBqTCCAU+gAwIBAgIUd49uNLshUgtDpbmdFKzLCOQEqg4wCgYIKoZIzj0EAwIwKTETMBEGA1UECgwK"
+            + "VGVzdCBPcmcgMjESMBAGA1UEAwwJVGVzdCBDQSAyMCAXDTI2MTAxOTAyMjIzMVoYDzIxMjYwOTI1"
+            + "MDIyMjMxWjApMRMwEQYDVQQKDApUZXN0IE9yZyAyMRIwEAYDVQQDDAlUZXN0IENBIDIwWTATBgcq"
+            + "hkjOPQIBBggqhkjOPQMBBwNCAARIZk86MFjhv865M80Zj+VNyQcOCA68RTRpeVI86nRC2TipFSFa"
+            + "SOJUXOV8hldC+meed8oMAFWHtuzgGu98gM7zo1MwUTAdBgNVHQ4EFgQUbYcp9GSvNmX6WoNsyeGK"
+            + "hSIhCNgwHwYDVR0jBBgwFoAUbYcp9GSvNmX6WoNsyeGKhSIhCNgwDwYDVR0TAQH/BAUwAwEB/zAK"
+            + "BggqhkjOPQQDAgNIADBFAiEAtGNe75mZ6LeQMTFuQfIAKGcOiDx3/fOemfw+XG9lH+8CIGFrvmvw"
+            + "XDMU8zi+xJ57YGMPIquPoM9nDWeQ8kuNyhQR", Base64.DEFAULT);
+
+    private TrustedCertificateCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new TrustedCertificateCache(16);
+    }
+
+    @Test
+    public void get_sameAliasAndBytes_returnsCachedEntry() {
+        final TrustedCertificateCache.Entry entry = mCache.get(ALIAS, CERT_1);
+        final TrustedCertificateCache.Entry cached = mCache.get(ALIAS, CERT_1.clone());
+
+        assertThat(entry).isNotNull();
+        assertThat(entry.mSubjectPrimary).isEqualTo("Test Org 1");
+        assertThat(entry.mSubjectSecondary).isEqualTo("Test CA 1");
+        assertThat(cached).isSameInstanceAs(entry);
+        assertThat(mCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void get_bytesChanged_decodesAgain() {
+        final TrustedCertificateCache.Entry entry = mCache.get(ALIAS, CERT_1);
+        final TrustedCertificateCache.Entry updated = mCache.get(ALIAS, CERT_2);
+
+        assertThat(updated).isNotSameInstanceAs(entry);
+        assertThat(updated.mSubjectPrimary).isEqualTo("Test Org 2");
+        assertThat(mCache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void get_invalidBytes_returnsNull() {
+        assertThat(mCache.get(ALIAS, new byte[] {1, 2, 3})).isNull();
+        assertThat(mCache.size()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.security.KeyChain.KeyChainConnection;
+import android.util.SparseArray;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class TrustedCredentialsFragmentTest {
+    private static final int PROFILE_ID = 10;
+
+    @Rule
+    public final MockitoRule mMockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private KeyChainConnection mConnection;
+    @Mock
+    private KeyChainConnection mPreviousConnection;
+
+    @Test
+    public void saveKeyChainConnection_cancelled_closesNewConnection() {
+        final SparseArray<KeyChainConnection> connections = new SparseArray<>();
+
+        final boolean saved = TrustedCredentialsFragment.saveKeyChainConnection(connections,
+                PROFILE_ID, mConnection, () -> true);
+
+        assertThat(saved).isFalse();
+        verify(mConnection).close();
+        assertThat(connections.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void saveKeyChainConnection_notCancelled_replacesPreviousConnection() {
+        final SparseArray<KeyChainConnection> connections = new SparseArray<>();
+        connections.put(PROFILE_ID, mPreviousConnection);
+
+        final boolean saved = TrustedCredentialsFragment.saveKeyChainConnection(connections,
+                PROFILE_ID, mConnection, () -> false);
+
+        assertThat(saved).isTrue();
+        verify(mPreviousConnection).close();
+        verify(mConnection, never()).close();
+        assertThat(connections.get(PROFILE_ID)).isSameInstanceAs(mConnection);
+    }
+}
@@ -96,6 +96,7 @@ import java.util.List;
 public class AccessibilitySettingsTest {
     private static final String PACKAGE_NAME = "com.android.test";
     private static final String CLASS_NAME = PACKAGE_NAME + ".test_a11y_service";
+    private static final String OTHER_PACKAGE_NAME = "com.android.test.other";
     private static final ComponentName COMPONENT_NAME = new ComponentName(PACKAGE_NAME, CLASS_NAME);
     private static final String EMPTY_STRING = "";
     private static final String DEFAULT_SUMMARY = "default summary";
@@ -394,6 +395,41 @@ public class AccessibilitySettingsTest {
 
     }
 
+    @Test
+    public void onPackagesChanged_packageAdded_keepsOtherPackagesPreferences() {
+        mShadowAccessibilityManager.setInstalledAccessibilityServiceList(
+                singletonList(mServiceInfo));
+        setupFragment();
+        final RestrictedPreference preference = mFragment.getPreferenceScreen().findPreference(
+                COMPONENT_NAME.flattenToString());
+        final ComponentName addedComponent = new ComponentName(OTHER_PACKAGE_NAME, CLASS_NAME);
+        mShadowAccessibilityManager.setInstalledAccessibilityServiceList(List.of(mServiceInfo,
+                getMockAccessibilityServiceInfo(addedComponent)));
+
+        mFragment.mSettingsPackageMonitor.onPackageAdded(OTHER_PACKAGE_NAME, /* uid= */ 0);
+        mFragment.onPackagesChanged();
+
+        assertThat(mFragment.getPreferenceScreen().<RestrictedPreference>findPreference(
+                COMPONENT_NAME.flattenToString())).isSameInstanceAs(preference);
+        assertThat(mFragment.getPreferenceScreen().<RestrictedPreference>findPreference(
+                addedComponent.flattenToString())).isNotNull();
+    }
+
+    @Test
+    public void onPackagesChanged_packageRemoved_removesItsPreferences() {
+        mShadowAccessibilityManager.setInstalledAccessibilityServiceList(
+                singletonList(mServiceInfo));
+        setupFragment();
+        mShadowAccessibilityManager.setInstalledAccessibilityServiceList(List.of());
+
+        mFragment.mSettingsPackageMonitor.onPackageRemoved(PACKAGE_NAME, /* uid= */ 0);
+        mFragment.onPackagesChanged();
+
+        assertThat(mFragment.getPreferenceScreen().<RestrictedPreference>findPreference(
+                COMPONENT_NAME.flattenToString())).isNull();
+        assertThat(mFragment.mServicePreferenceToPreferenceCategoryMap).isEmpty();
+    }
+
     @Test
     public void testAccessibilityMenuInSystem_IncludedInInteractionControl() {
         mShadowAccessibilityManager.setInstalledAccessibilityServiceList(
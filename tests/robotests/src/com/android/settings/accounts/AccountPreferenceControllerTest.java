@@ -34,7 +34,6 @@ import android.accounts.AccountManager;
 import android.accounts.AuthenticatorDescription;
 import android.content.Context;
 import android.content.pm.UserInfo;
-import android.os.UserHandle;
 import android.os.UserManager;
 import android.text.TextUtils;
 
@@ -50,6 +49,7 @@ import com.android.settings.dashboard.profileselector.ProfileSelectFragment;
 import com.android.settings.testutils.shadow.ShadowAccountManager;
 import com.android.settings.testutils.shadow.ShadowContentResolver;
 import com.android.settings.testutils.shadow.ShadowSettingsLibUtils;
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
 import com.android.settingslib.search.SearchIndexableRaw;
 
 import org.junit.After;
@@ -69,7 +69,7 @@ import java.util.List;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(shadows = {ShadowAccountManager.class, ShadowContentResolver.class,
-        ShadowSettingsLibUtils.class})
+        ShadowSettingsLibUtils.class, ShadowThreadUtils.class})
 public class AccountPreferenceControllerTest {
 
     @Mock(answer = RETURNS_DEEP_STUBS)
@@ -340,15 +340,11 @@ public class AccountPreferenceControllerTest {
         when(mUserManager.isManagedProfile()).thenReturn(false);
         when(mUserManager.isRestrictedProfile()).thenReturn(false);
         when(mUserManager.getProfiles(anyInt())).thenReturn(infos);
-        Account[] accounts = {new Account("Account1", "com.acct1")};
-        when(mAccountManager.getAccountsAsUser(anyInt())).thenReturn(accounts);
-
         Account[] accountType1 = {
                 new Account("Account11", "com.acct1"),
                 new Account("Account12", "com.acct1")
         };
-        when(mAccountManager.getAccountsByTypeAsUser(eq("com.acct1"), any(UserHandle.class)))
-                .thenReturn(accountType1);
+        when(mAccountManager.getAccountsAsUser(anyInt())).thenReturn(accountType1);
 
         AuthenticatorDescription[] authDescs = {
                 new AuthenticatorDescription("com.acct1", "com.android.settings",
@@ -395,10 +391,6 @@ public class AccountPreferenceControllerTest {
         };
 
         when(mAccountManager.getAccountsAsUser(anyInt())).thenReturn(allAccounts);
-        when(mAccountManager.getAccountsByTypeAsUser(eq("com.acct1"), any(UserHandle.class)))
-                .thenReturn(accountType1);
-        when(mAccountManager.getAccountsByTypeAsUser(eq("com.acct2"), any(UserHandle.class)))
-                .thenReturn(accountType2);
         when(mAccountManager.getAuthenticatorTypesAsUser(anyInt())).thenReturn(authDescs);
 
         AccessiblePreferenceCategory preferenceGroup = mock(AccessiblePreferenceCategory.class);
@@ -419,14 +411,10 @@ public class AccountPreferenceControllerTest {
         when(mUserManager.isManagedProfile()).thenReturn(false);
         when(mUserManager.isRestrictedProfile()).thenReturn(false);
         when(mUserManager.getProfiles(anyInt())).thenReturn(infos);
-        Account[] accounts = {new Account("Acct1", "com.acct1")};
-        when(mAccountManager.getAccountsAsUser(anyInt())).thenReturn(accounts);
-
         Account[] accountType1 = new Account[2];
         accountType1[0] = new Account("Acct11", "com.acct1");
         accountType1[1] = new Account("Acct12", "com.acct1");
-        when(mAccountManager.getAccountsByTypeAsUser(eq("com.acct1"), any(UserHandle.class)))
-                .thenReturn(accountType1);
+        when(mAccountManager.getAccountsAsUser(anyInt())).thenReturn(accountType1);
 
         AuthenticatorDescription[] authDescs = {
                 new AuthenticatorDescription("com.acct1", "com.android.settings",
@@ -454,14 +442,10 @@ public class AccountPreferenceControllerTest {
         when(mUserManager.isManagedProfile()).thenReturn(false);
         when(mUserManager.isRestrictedProfile()).thenReturn(false);
         when(mUserManager.getProfiles(anyInt())).thenReturn(infos);
-        Account[] accounts = {new Account("Acct1", "com.acct1")};
-        when(mAccountManager.getAccountsAsUser(anyInt())).thenReturn(accounts);
-
         Account[] accountType1 = new Account[2];
         accountType1[0] = new Account("Acct11", "com.acct1");
         accountType1[1] = new Account("Acct12", "com.acct1");
-        when(mAccountManager.getAccountsByTypeAsUser(eq("com.acct1"), any(UserHandle.class)))
-                .thenReturn(accountType1);
+        when(mAccountManager.getAccountsAsUser(anyInt())).thenReturn(accountType1);
 
         AuthenticatorDescription[] authDescs = {
                 new AuthenticatorDescription("com.acct1", "com.android.settings",
@@ -481,8 +465,7 @@ public class AccountPreferenceControllerTest {
         accountType1[0] = new Account("Acct11", "com.acct1");
         accountType1[1] = new Account("Acct12", "com.acct1");
         accountType1[2] = new Account("Acct13", "com.acct1");
-        when(mAccountManager.getAccountsByTypeAsUser(eq("com.acct1"), any(UserHandle.class)))
-                .thenReturn(accountType1);
+        when(mAccountManager.getAccountsAsUser(anyInt())).thenReturn(accountType1);
 
         mController.onResume();
 
@@ -512,8 +495,6 @@ public class AccountPreferenceControllerTest {
         // Add new account
         Account[] accounts = {new Account("Acct1", "com.acct1")};
         when(mAccountManager.getAccountsAsUser(2)).thenReturn(accounts);
-        when(mAccountManager.getAccountsByTypeAsUser(eq("com.acct1"), any(UserHandle.class)))
-                .thenReturn(accounts);
 
         AuthenticatorDescription[] authDescs = {
                 new AuthenticatorDescription("com.acct1", "com.android.settings",
@@ -534,15 +515,11 @@ public class AccountPreferenceControllerTest {
         when(mUserManager.isManagedProfile()).thenReturn(false);
         when(mUserManager.isRestrictedProfile()).thenReturn(false);
         when(mUserManager.getProfiles(anyInt())).thenReturn(infos);
-        Account[] accounts = {new Account("Acct1", "com.acct1")};
-        when(mAccountManager.getAccountsAsUser(anyInt())).thenReturn(accounts);
-
         Account[] accountType1 = {
                 new Account("Acct11", "com.acct1"),
                 new Account("Acct12", "com.acct1")
         };
-        when(mAccountManager.getAccountsByTypeAsUser(eq("com.acct1"), any(UserHandle.class)))
-                .thenReturn(accountType1);
+        when(mAccountManager.getAccountsAsUser(anyInt())).thenReturn(accountType1);
 
         AuthenticatorDescription[] authDescs = {
                 new AuthenticatorDescription("com.acct1", "com.android.settings",
@@ -559,8 +536,7 @@ public class AccountPreferenceControllerTest {
 
         // remove an account
         accountType1 = new Account[]{new Account("Acct11", "com.acct1")};
-        when(mAccountManager.getAccountsByTypeAsUser(eq("com.acct1"), any(UserHandle.class)))
-                .thenReturn(accountType1);
+        when(mAccountManager.getAccountsAsUser(anyInt())).thenReturn(accountType1);
 
         mController.onResume();
 
@@ -579,8 +555,6 @@ public class AccountPreferenceControllerTest {
 
         Account[] accounts = {new Account("Acct1", "com.acct1")};
         when(mAccountManager.getAccountsAsUser(1)).thenReturn(accounts);
-        when(mAccountManager.getAccountsByTypeAsUser(eq("com.acct1"), any(UserHandle.class)))
-                .thenReturn(accounts);
 
         AuthenticatorDescription[] authDescs = {
                 new AuthenticatorDescription("com.acct1", "com.android.settings",
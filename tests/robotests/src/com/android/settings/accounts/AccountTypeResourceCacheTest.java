@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.accounts;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.os.UserHandle;
+
+import com.android.settingslib.accounts.AuthenticatorHelper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class AccountTypeResourceCacheTest {
+    private static final String ACCOUNT_TYPE = "com.acct1";
+    private static final String PACKAGE_NAME = "com.android.test";
+    private static final UserHandle USER = UserHandle.of(0);
+
+    @Mock
+    private PackageManager mPackageManager;
+    @Mock
+    private AuthenticatorHelper mHelper;
+
+    private Context mContext;
+    private AccountTypeResourceCache mCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        doReturn(mPackageManager).when(mContext).getPackageManager();
+        when(mHelper.getPackageForType(ACCOUNT_TYPE)).thenReturn(PACKAGE_NAME);
+        when(mHelper.getLabelForType(mContext, ACCOUNT_TYPE)).thenReturn("Label");
+        when(mHelper.getDrawableForType(mContext, ACCOUNT_TYPE)).thenReturn(
+                new BitmapDrawable(mContext.getResources(),
+                        Bitmap.createBitmap(24, 24, Bitmap.Config.ARGB_8888)));
+        mCache = new AccountTypeResourceCache(8 /* maxEntries */);
+    }
+
+    @Test
+    public void getLabel_sameVersion_loadsOnce() {
+        mCache.getLabel(mContext, mHelper, ACCOUNT_TYPE, USER);
+
+        assertThat(mCache.getLabel(mContext, mHelper, ACCOUNT_TYPE, USER).toString())
+                .isEqualTo("Label");
+        verify(mHelper, times(1)).getLabelForType(mContext, ACCOUNT_TYPE);
+    }
+
+    @Test
+    public void getLabel_sameType_doesNotQueryPackage() throws Exception {
+        mCache.getLabel(mContext, mHelper, ACCOUNT_TYPE, USER);
+        mCache.getLabel(mContext, mHelper, ACCOUNT_TYPE, USER);
+
+        verify(mPackageManager, never()).getPackageInfoAsUser(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void getLabel_packageInvalidated_loadsAgain() {
+        mCache.getLabel(mContext, mHelper, ACCOUNT_TYPE, USER);
+        mCache.getIcon(mContext, mHelper, ACCOUNT_TYPE, USER);
+
+        mCache.invalidatePackage(PACKAGE_NAME);
+        mCache.getLabel(mContext, mHelper, ACCOUNT_TYPE, USER);
+        mCache.getIcon(mContext, mHelper, ACCOUNT_TYPE, USER);
+
+        verify(mHelper, times(2)).getLabelForType(mContext, ACCOUNT_TYPE);
+        verify(mHelper, times(2)).getDrawableForType(mContext, ACCOUNT_TYPE);
+    }
+
+    @Test
+    public void getLabel_otherPackageInvalidated_returnsCachedLabel() {
+        mCache.getLabel(mContext, mHelper, ACCOUNT_TYPE, USER);
+
+        mCache.invalidatePackage(PACKAGE_NAME + ".other");
+        mCache.getLabel(mContext, mHelper, ACCOUNT_TYPE, USER);
+
+        verify(mHelper, times(1)).getLabelForType(mContext, ACCOUNT_TYPE);
+    }
+
+    @Test
+    public void getIcon_sameVersion_returnsNewDrawableFromCache() {
+        final BitmapDrawable first = (BitmapDrawable) mCache.getIcon(mContext, mHelper,
+                ACCOUNT_TYPE, USER);
+
+        final BitmapDrawable second = (BitmapDrawable) mCache.getIcon(mContext, mHelper,
+                ACCOUNT_TYPE, USER);
+
+        assertThat(second).isNotSameInstanceAs(first);
+        assertThat(second.getBitmap()).isSameInstanceAs(first.getBitmap());
+        verify(mHelper, times(1)).getDrawableForType(mContext, ACCOUNT_TYPE);
+    }
+
+    @Test
+    public void getLabel_noPackageForType_doesNotCache() {
+        when(mHelper.getPackageForType(ACCOUNT_TYPE)).thenReturn(null);
+
+        mCache.getLabel(mContext, mHelper, ACCOUNT_TYPE, USER);
+        mCache.getLabel(mContext, mHelper, ACCOUNT_TYPE, USER);
+
+        verify(mHelper, times(2)).getLabelForType(mContext, ACCOUNT_TYPE);
+    }
+}
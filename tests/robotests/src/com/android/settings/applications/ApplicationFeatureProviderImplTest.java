@@ -18,14 +18,22 @@ package com.android.settings.applications;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.app.admin.DevicePolicyManager;
+import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.ActivityInfo;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.ComponentInfo;
@@ -34,6 +42,7 @@ import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.content.pm.UserInfo;
 import android.location.LocationManager;
+import android.net.Uri;
 import android.os.Build;
 import android.os.SystemConfigManager;
 import android.os.UserHandle;
@@ -54,6 +63,7 @@ import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
@@ -250,6 +260,59 @@ public final class ApplicationFeatureProviderImplTest {
                 .isTrue();
     }
 
+    @Test
+    public void listAppsWithAdminGrantedPermissions_calledTwice_enumeratesAppsOnce() {
+        setUpUsersAndInstalledApps();
+        when(mDevicePolicyManager.getPermissionGrantState(null, APP_1, PERMISSION))
+                .thenReturn(DevicePolicyManager.PERMISSION_GRANT_STATE_GRANTED);
+
+        mProvider.listAppsWithAdminGrantedPermissions(new String[]{PERMISSION},
+                (list) -> mAppList = list);
+        mProvider.listAppsWithAdminGrantedPermissions(new String[]{PERMISSION},
+                (list) -> mAppList = list);
+        mExecutorService.runAll();
+        ShadowLooper.idleMainLooper();
+
+        verify(mPackageManager).getInstalledApplicationsAsUser(anyInt(), eq(MAIN_USER_ID));
+        verify(mPackageManager).getInstalledApplicationsAsUser(anyInt(), eq(MANAGED_PROFILE_ID));
+        verify(mDevicePolicyManager).getPermissionGrantState(null, APP_1, PERMISSION);
+    }
+
+    @Test
+    public void listPolicyInstalledApps_afterSnapshotCleared_enumeratesAppsAgain() {
+        setUpUsersAndInstalledApps();
+
+        mProvider.listPolicyInstalledApps((list) -> mAppList = list);
+        mExecutorService.runAll();
+        mProvider.clearInstalledAppSnapshot();
+        mProvider.listPolicyInstalledApps((list) -> mAppList = list);
+        mExecutorService.runAll();
+        ShadowLooper.idleMainLooper();
+
+        verify(mPackageManager, times(2))
+                .getInstalledApplicationsAsUser(anyInt(), eq(MAIN_USER_ID));
+    }
+
+    @Test
+    public void listPolicyInstalledApps_afterPackageAdded_enumeratesAppsAgain() {
+        setUpUsersAndInstalledApps();
+        final ArgumentCaptor<BroadcastReceiver> receiverCaptor =
+                ArgumentCaptor.forClass(BroadcastReceiver.class);
+
+        mProvider.listPolicyInstalledApps((list) -> mAppList = list);
+        mExecutorService.runAll();
+        verify(mContext, times(2)).registerReceiverForAllUsers(receiverCaptor.capture(),
+                any(IntentFilter.class), isNull(), isNull());
+        receiverCaptor.getValue().onReceive(mContext,
+                new Intent(Intent.ACTION_PACKAGE_ADDED, Uri.parse("package:" + APP_1)));
+        mProvider.listPolicyInstalledApps((list) -> mAppList = list);
+        mExecutorService.runAll();
+        ShadowLooper.idleMainLooper();
+
+        verify(mPackageManager, times(2))
+                .getInstalledApplicationsAsUser(anyInt(), eq(MAIN_USER_ID));
+    }
+
     @Test
     public void testFindPersistentPreferredActivities() throws Exception {
         final UserInfo mainUser = new UserInfo(MAIN_USER_ID, "main", UserInfo.FLAG_ADMIN);
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_COMPLETE;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.graphics.drawable.ColorDrawable;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class BadgedAppIconCacheTest {
+    private static final String PACKAGE_NAME = "com.android.test";
+    private static final String APP_LABEL = "Test app";
+
+    @Mock
+    private PackageManager mPackageManager;
+
+    private Context mContext;
+    private ApplicationInfo mAppInfo;
+    private BadgedAppIconCache mCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        doReturn(mPackageManager).when(mContext).getPackageManager();
+        mAppInfo = new ApplicationInfo();
+        mAppInfo.packageName = PACKAGE_NAME;
+        mAppInfo.nonLocalizedLabel = APP_LABEL;
+        when(mPackageManager.loadUnbadgedItemIcon(any(), any()))
+                .thenReturn(new ColorDrawable());
+        mCache = new BadgedAppIconCache(1024 * 1024);
+    }
+
+    @Test
+    public void getBadgedIcon_calledTwice_loadedOnce() {
+        mCache.getBadgedIcon(mContext, mAppInfo, 0 /* userId */);
+        mCache.getBadgedIcon(mContext, mAppInfo, 0 /* userId */);
+
+        verify(mPackageManager, times(1)).loadUnbadgedItemIcon(any(), any());
+        assertThat(mCache.getIconHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void getBadgedIcon_returnsNewDrawableEachTime() {
+        assertThat(mCache.getBadgedIcon(mContext, mAppInfo, 0 /* userId */))
+                .isNotSameInstanceAs(mCache.getBadgedIcon(mContext, mAppInfo, 0 /* userId */));
+    }
+
+    @Test
+    public void getBadgedIcon_afterPackageInvalidated_loadedAgain() {
+        mCache.getBadgedIcon(mContext, mAppInfo, 0 /* userId */);
+
+        mCache.invalidatePackage(PACKAGE_NAME);
+        mCache.getBadgedIcon(mContext, mAppInfo, 0 /* userId */);
+
+        verify(mPackageManager, times(2)).loadUnbadgedItemIcon(any(), any());
+    }
+
+    @Test
+    public void getBadgedIcon_afterTrimMemory_loadedAgain() {
+        mCache.getBadgedIcon(mContext, mAppInfo, 0 /* userId */);
+
+        mCache.trimMemory(TRIM_MEMORY_COMPLETE);
+        mCache.getBadgedIcon(mContext, mAppInfo, 0 /* userId */);
+
+        verify(mPackageManager, times(2)).loadUnbadgedItemIcon(any(), any());
+    }
+
+    @Test
+    public void getLabel_returnsAppLabel() {
+        assertThat(mCache.getLabel(mContext, mAppInfo).toString()).isEqualTo(APP_LABEL);
+    }
+}
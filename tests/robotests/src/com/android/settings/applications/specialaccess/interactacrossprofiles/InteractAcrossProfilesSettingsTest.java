@@ -21,7 +21,9 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.robolectric.Shadows.shadowOf;
 
+import android.app.admin.DevicePolicyManager;
 import android.content.Context;
+import android.content.Intent;
 import android.content.PermissionChecker;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.CrossProfileApps;
@@ -41,11 +43,13 @@ import com.android.settingslib.testutils.shadow.ShadowPermissionChecker;
 
 import com.google.common.collect.ImmutableList;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
 import org.robolectric.shadows.ShadowProcess;
 
 import java.util.List;
@@ -98,6 +102,11 @@ public class InteractAcrossProfilesSettingsTest {
         );
     }
 
+    @After
+    public void tearDown() {
+        InteractAcrossProfilesSettings.resetEligibilityCache();
+    }
+
     @Test
     public void collectConfigurableApps_fromPersonal_returnsCombinedPackages() {
         mShadowUserManager.addUser(
@@ -193,6 +202,73 @@ public class InteractAcrossProfilesSettingsTest {
         assertThat(numOfApps).isEqualTo(1);
     }
 
+    @Test
+    public void collectConfigurableApps_sameVersions_reusesEligibility() {
+        setUpProfilesWithCrossProfilePackages();
+        InteractAcrossProfilesSettings.collectConfigurableApps(
+                mPackageManager, mUserManager, mCrossProfileApps);
+        mShadowPackageManager.getInternalMutablePackageInfo(PERSONAL_CROSS_PROFILE_PACKAGE)
+                .requestedPermissions = null;
+
+        List<Pair<ApplicationInfo, UserHandle>> apps =
+                InteractAcrossProfilesSettings.collectConfigurableApps(
+                        mPackageManager, mUserManager, mCrossProfileApps);
+
+        assertTrue(apps.stream().anyMatch(
+                app -> app.first.packageName.equals(PERSONAL_CROSS_PROFILE_PACKAGE)));
+    }
+
+    @Test
+    public void collectConfigurableApps_packageUpdated_checksEligibilityAgain() {
+        setUpProfilesWithCrossProfilePackages();
+        InteractAcrossProfilesSettings.collectConfigurableApps(
+                mPackageManager, mUserManager, mCrossProfileApps);
+        PackageInfo packageInfo = mShadowPackageManager.getInternalMutablePackageInfo(
+                PERSONAL_CROSS_PROFILE_PACKAGE);
+        packageInfo.requestedPermissions = null;
+        packageInfo.setLongVersionCode(2);
+
+        List<Pair<ApplicationInfo, UserHandle>> apps =
+                InteractAcrossProfilesSettings.collectConfigurableApps(
+                        mPackageManager, mUserManager, mCrossProfileApps);
+
+        assertThat(apps.size()).isEqualTo(1);
+        assertThat(apps.get(0).first.packageName).isEqualTo(WORK_CROSS_PROFILE_PACKAGE);
+    }
+
+    @Test
+    public void collectConfigurableApps_devicePolicyChanged_checksEligibilityAgain() {
+        setUpProfilesWithCrossProfilePackages();
+        InteractAcrossProfilesSettings.getNumberOfEnabledApps(
+                mContext, mPackageManager, mUserManager, mCrossProfileApps);
+        mShadowPackageManager.getInternalMutablePackageInfo(PERSONAL_CROSS_PROFILE_PACKAGE)
+                .requestedPermissions = null;
+
+        mContext.sendBroadcast(
+                new Intent(DevicePolicyManager.ACTION_DEVICE_POLICY_MANAGER_STATE_CHANGED));
+        ShadowLooper.idleMainLooper();
+        List<Pair<ApplicationInfo, UserHandle>> apps =
+                InteractAcrossProfilesSettings.collectConfigurableApps(
+                        mPackageManager, mUserManager, mCrossProfileApps);
+
+        assertThat(apps.size()).isEqualTo(1);
+        assertThat(apps.get(0).first.packageName).isEqualTo(WORK_CROSS_PROFILE_PACKAGE);
+    }
+
+    private void setUpProfilesWithCrossProfilePackages() {
+        mShadowUserManager.addUser(
+                PERSONAL_PROFILE_ID, "personal-profile"/* name */, 0/* flags */);
+        mShadowUserManager.addProfile(
+                PERSONAL_PROFILE_ID, WORK_PROFILE_ID,
+                "work-profile"/* profileName */, UserInfo.FLAG_MANAGED_PROFILE);
+        mShadowPackageManager.setInstalledPackagesForUserId(
+                PERSONAL_PROFILE_ID, PERSONAL_PROFILE_INSTALLED_PACKAGES);
+        mShadowPackageManager.setInstalledPackagesForUserId(
+                WORK_PROFILE_ID, WORK_PROFILE_INSTALLED_PACKAGES);
+        installCrossProfilePackage(PERSONAL_CROSS_PROFILE_PACKAGE);
+        installCrossProfilePackage(WORK_CROSS_PROFILE_PACKAGE);
+    }
+
     private void installCrossProfilePackage(String packageName) {
         PackageInfo personalPackageInfo = mShadowPackageManager.getInternalMutablePackageInfo(
                 packageName);
@@ -18,37 +18,59 @@ package com.android.settings.core;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import android.content.BroadcastReceiver;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.net.Uri;
 import android.os.Bundle;
 import android.util.ArraySet;
 
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.android.settings.core.CategoryMixin.CategoryListener;
+import com.android.settings.dashboard.CategoryManager;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.android.controller.ActivityController;
+import org.robolectric.android.util.concurrent.PausedExecutorService;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.shadows.ShadowPausedAsyncTask;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 @RunWith(RobolectricTestRunner.class)
 public class CategoryMixinTest {
+    private static final String PACKAGE_NAME = "com.android.test";
+    private static final String CATEGORY_KEY = "com.android.settings.category.test";
+
     private ActivityController<TestActivity> mActivityController;
+    private PausedExecutorService mExecutorService;
 
     @Before
     public void setUp() {
         mActivityController = Robolectric.buildActivity(TestActivity.class);
+        mExecutorService = new PausedExecutorService();
+        ShadowPausedAsyncTask.overrideExecutor(mExecutorService);
+    }
+
+    @After
+    public void tearDown() {
+        CategoryManager.setInstanceForTesting(null);
     }
 
     @Test
@@ -79,6 +101,59 @@ public class CategoryMixinTest {
         verify(listener).onCategoriesChanged(anySet());
     }
 
+    @Test
+    public void packageChanged_reloadsOnlyThatPackage() {
+        final CategoryManager categoryManager = mockCategoryManager();
+        when(categoryManager.reloadPackage(any(), eq(PACKAGE_NAME)))
+                .thenReturn(new ArraySet<>(Set.of(CATEGORY_KEY)));
+        final TestActivity activity = mActivityController.setup().get();
+        final CategoryListener listener = mock(CategoryListener.class);
+        activity.getCategoryMixin().addCategoryListener(listener);
+
+        activity.getRegisteredReceivers().get(0).onReceive(activity,
+                new Intent(Intent.ACTION_PACKAGE_CHANGED, Uri.parse("package:" + PACKAGE_NAME)));
+        runUpdateTasks();
+
+        verify(categoryManager).reloadPackage(any(), eq(PACKAGE_NAME));
+        verify(categoryManager, never()).reloadAllCategories(any());
+        verify(listener).onCategoriesChanged(Set.of(CATEGORY_KEY));
+    }
+
+    @Test
+    public void firstResume_withUnverifiedSnapshot_verifiesIt() {
+        final CategoryManager categoryManager = mockCategoryManager();
+        when(categoryManager.hasUnverifiedSnapshot()).thenReturn(true);
+
+        mActivityController.setup();
+        runUpdateTasks();
+
+        verify(categoryManager).verifySnapshot(any());
+        verify(categoryManager, never()).reloadAllCategories(any());
+    }
+
+    @Test
+    public void firstResume_withoutSnapshot_doesNotUpdate() {
+        final CategoryManager categoryManager = mockCategoryManager();
+
+        mActivityController.setup();
+        runUpdateTasks();
+
+        verify(categoryManager, never()).verifySnapshot(any());
+        verify(categoryManager, never()).reloadAllCategories(any());
+    }
+
+    private static CategoryManager mockCategoryManager() {
+        final CategoryManager categoryManager = mock(CategoryManager.class);
+        when(categoryManager.verifySnapshot(any())).thenReturn(new ArraySet<>());
+        CategoryManager.setInstanceForTesting(categoryManager);
+        return categoryManager;
+    }
+
+    private void runUpdateTasks() {
+        mExecutorService.runAll();
+        ShadowLooper.idleMainLooper();
+    }
+
     static class TestActivity extends AppCompatActivity implements CategoryMixin.CategoryHandler {
 
         private CategoryMixin mCategoryMixin;
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.app.Activity;
+import android.app.Application;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class StartupTaskSchedulerTest {
+
+    private long mNow;
+    private final List<String> mRan = new ArrayList<>();
+    private StartupTaskScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mScheduler = new StartupTaskScheduler(() -> mNow);
+    }
+
+    @Test
+    public void add_critical_runsRightAway() {
+        mScheduler.add("critical", StartupTaskScheduler.CRITICAL, task("critical", 5));
+
+        assertThat(mRan).containsExactly("critical");
+        assertThat(mScheduler.getStartupTrace()).containsExactly("critical", 5L);
+    }
+
+    @Test
+    public void add_deferredTasks_doNotRun() {
+        mScheduler.add("ui", StartupTaskScheduler.FIRST_ACTIVITY, task("ui", 5));
+        mScheduler.add("lazy", StartupTaskScheduler.ON_DEMAND, task("lazy", 5));
+
+        assertThat(mRan).isEmpty();
+        assertThat(mScheduler.getStartupTrace()).isEmpty();
+    }
+
+    @Test
+    public void firstActivityCreated_runsFirstActivityTasksOnce() {
+        final Application application = RuntimeEnvironment.getApplication();
+        mScheduler.add("ui", StartupTaskScheduler.FIRST_ACTIVITY, task("ui", 10));
+        mScheduler.add("lazy", StartupTaskScheduler.ON_DEMAND, task("lazy", 5));
+        mScheduler.start(application);
+
+        Robolectric.setupActivity(Activity.class);
+        Robolectric.setupActivity(Activity.class);
+
+        assertThat(mRan).containsExactly("ui");
+        assertThat(mScheduler.getStartupTrace()).containsExactly("ui", 10L);
+    }
+
+    @Test
+    public void run_onDemandTask_runsOnceAndRecordsDuration() {
+        mScheduler.add("lazy", StartupTaskScheduler.ON_DEMAND, task("lazy", 7));
+
+        mScheduler.run("lazy");
+        mScheduler.run("lazy");
+
+        assertThat(mRan).containsExactly("lazy");
+        assertThat(mScheduler.hasRun("lazy")).isTrue();
+        assertThat(mScheduler.getStartupTrace()).containsExactly("lazy", 7L);
+    }
+
+    @Test
+    public void run_firstActivityTaskRequestedEarly_doesNotRunAgain() {
+        mScheduler.add("ui", StartupTaskScheduler.FIRST_ACTIVITY, task("ui", 3));
+
+        mScheduler.run("ui");
+        mScheduler.runFirstActivityTasks();
+
+        assertThat(mRan).containsExactly("ui");
+    }
+
+    private Runnable task(String name, long durationMs) {
+        return () -> {
+            mRan.add(name);
+            mNow += durationMs;
+        };
+    }
+}
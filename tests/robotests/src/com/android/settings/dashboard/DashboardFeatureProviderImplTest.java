@@ -504,6 +504,27 @@ public class DashboardFeatureProviderImplTest {
         assertThat(preferenceBmp.sameAs(iconBmpFromUri)).isTrue();
     }
 
+    @Test
+    @Config(shadows = {ShadowTileUtils.class})
+    public void bindIcon_providerReturnsAnotherIcon_shouldReplaceCachedIcon() {
+        mActivityInfo.packageName = mApplication.getPackageName();
+        final Tile tile = new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_HOMEPAGE);
+        mActivityInfo.metaData.putString(META_DATA_PREFERENCE_KEYHINT, "key");
+        mActivityInfo.metaData.putString(META_DATA_PREFERENCE_ICON_URI,
+                "content://com.android.settings/tile_icon");
+        mImpl.bindIcon(new Preference(mApplication), tile, false /* forceRoundedIcon */);
+        ShadowTileUtils.setIconResId(R.drawable.ic_add_40dp);
+        final Preference preference = new Preference(mApplication);
+
+        mImpl.bindIcon(preference, tile, false /* forceRoundedIcon */);
+
+        final Bitmap preferenceBmp = Utils.createIconWithDrawable(preference.getIcon()).getBitmap();
+        final Drawable newIcon = Icon.createWithResource(mActivityInfo.packageName,
+                R.drawable.ic_add_40dp).loadDrawable(preference.getContext());
+        final Bitmap newIconBmp = Utils.createIconWithDrawable(newIcon).getBitmap();
+        assertThat(preferenceBmp.sameAs(newIconBmp)).isTrue();
+    }
+
     @Test
     @Config(shadows = {ShadowTileUtils.class})
     public void bindIcon_noIcon_shouldNotLoadIcon() {
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.android.settings.dashboard.DashboardPhaseTimings.CONTROLLER_UPDATE_STATE;
+import static com.android.settings.dashboard.DashboardPhaseTimings.PHASE_INFLATE_XML;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class DashboardPhaseTimingsTest {
+    private static final String PAGE = "TestPage";
+    private static final String CONTROLLER = "TestController";
+
+    private DashboardPhaseTimings mTimings;
+
+    @Before
+    public void setUp() {
+        mTimings = new DashboardPhaseTimings();
+    }
+
+    @Test
+    public void beginAndEndPhase_recordsPhaseForPage() {
+        final long start = DashboardPhaseTimings.beginPhase(PHASE_INFLATE_XML);
+        mTimings.endPhase(PAGE, PHASE_INFLATE_XML, start);
+
+        assertThat(mTimings.getCount(PAGE, PHASE_INFLATE_XML)).isEqualTo(1);
+    }
+
+    @Test
+    public void dump_containsHistogramBuckets() throws Exception {
+        mTimings.recordPhase(PAGE, PHASE_INFLATE_XML, TimeUnit.MILLISECONDS.toNanos(3));
+        mTimings.recordPhase(PAGE, PHASE_INFLATE_XML, TimeUnit.MILLISECONDS.toNanos(5000));
+
+        final JSONObject histogram = mTimings.dump().getJSONObject("pages")
+                .getJSONObject(PAGE).getJSONObject(PHASE_INFLATE_XML);
+
+        assertThat(histogram.getLong("count")).isEqualTo(2);
+        assertThat(histogram.getDouble("maxMs")).isEqualTo(5000.0);
+        final JSONArray buckets = histogram.getJSONArray("buckets");
+        assertThat(buckets.length())
+                .isEqualTo(DashboardPhaseTimings.BUCKET_UPPER_BOUNDS_MS.length + 1);
+        // 3ms falls in the [2, 4) bucket and 5s in the unbounded one.
+        assertThat(buckets.getLong(2)).isEqualTo(1);
+        assertThat(buckets.getLong(buckets.length() - 1)).isEqualTo(1);
+    }
+
+    @Test
+    public void dump_slowestControllersSortedByMeanTime() throws Exception {
+        mTimings.recordController(CONTROLLER, CONTROLLER_UPDATE_STATE,
+                TimeUnit.MILLISECONDS.toNanos(1));
+        mTimings.recordController(CONTROLLER + "Slow", CONTROLLER_UPDATE_STATE,
+                TimeUnit.MILLISECONDS.toNanos(100));
+
+        final JSONArray slowest = mTimings.dump().getJSONArray("slowestControllers");
+
+        assertThat(slowest.getJSONObject(0).getString("name")).isEqualTo(CONTROLLER + "Slow");
+        assertThat(slowest.getJSONObject(1).getString("name")).isEqualTo(CONTROLLER);
+    }
+
+    @Test
+    public void clear_dropsAllTimings() {
+        mTimings.recordPhase(PAGE, PHASE_INFLATE_XML, 1);
+
+        mTimings.clear();
+
+        assertThat(mTimings.getCount(PAGE, PHASE_INFLATE_XML)).isEqualTo(0);
+    }
+}
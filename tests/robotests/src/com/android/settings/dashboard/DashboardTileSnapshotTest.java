@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.android.settingslib.drawer.TileUtils.META_DATA_KEY_ORDER;
+import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_KEYHINT;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ProviderInfo;
+import android.os.Bundle;
+import android.os.UserHandle;
+import android.provider.Settings;
+import android.util.ArrayMap;
+
+import com.android.settingslib.drawer.ActivityTile;
+import com.android.settingslib.drawer.CategoryKey;
+import com.android.settingslib.drawer.DashboardCategory;
+import com.android.settingslib.drawer.ProviderTile;
+import com.android.settingslib.drawer.Tile;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public class DashboardTileSnapshotTest {
+    private static final String PACKAGE_NAME = "com.android.test";
+    private static final String CLASS_NAME = "com.android.test.Activity";
+    private static final String PROVIDER_CLASS_NAME = "com.android.test.Provider";
+    private static final String AUTHORITY = "com.android.test.tiles";
+    private static final String KEY = "key";
+    private static final String PROVIDER_KEY = "provider_key";
+    private static final String PROVIDER_FLAG = "flag";
+    private static final int ORDER = 100;
+    private static final int USER_ID = 10;
+
+    @Mock
+    private PackageManager mPackageManager;
+
+    private Context mContext;
+    private PackageInfo mPackageInfo;
+    private PackageInfo mSettingsPackageInfo;
+    private byte[] mCategories;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        doReturn(mPackageManager).when(mContext).getPackageManager();
+        mPackageInfo = new PackageInfo();
+        mPackageInfo.setLongVersionCode(1);
+        when(mPackageManager.getPackageInfo(eq(PACKAGE_NAME), anyInt())).thenReturn(mPackageInfo);
+        mSettingsPackageInfo = new PackageInfo();
+        mSettingsPackageInfo.setLongVersionCode(1);
+        when(mPackageManager.getPackageInfo(eq(mContext.getPackageName()), anyInt()))
+                .thenReturn(mSettingsPackageInfo);
+        Settings.Global.putInt(mContext.getContentResolver(), Settings.Global.BOOT_COUNT, 1);
+
+        final ActivityInfo activityInfo = new ActivityInfo();
+        activityInfo.packageName = PACKAGE_NAME;
+        activityInfo.name = CLASS_NAME;
+        activityInfo.applicationInfo = new ApplicationInfo();
+        activityInfo.metaData = new Bundle();
+        activityInfo.metaData.putString(META_DATA_PREFERENCE_KEYHINT, KEY);
+        activityInfo.metaData.putInt(META_DATA_KEY_ORDER, ORDER);
+        final Tile activityTile = new ActivityTile(activityInfo, CategoryKey.CATEGORY_HOMEPAGE);
+        activityTile.userHandle.add(UserHandle.of(USER_ID));
+        final ProviderInfo providerInfo = new ProviderInfo();
+        providerInfo.packageName = PACKAGE_NAME;
+        providerInfo.name = PROVIDER_CLASS_NAME;
+        providerInfo.authority = AUTHORITY;
+        providerInfo.applicationInfo = new ApplicationInfo();
+        final Bundle providerMetaData = new Bundle();
+        providerMetaData.putString(META_DATA_PREFERENCE_KEYHINT, PROVIDER_KEY);
+        providerMetaData.putBoolean(PROVIDER_FLAG, true);
+        final DashboardCategory category = new DashboardCategory(CategoryKey.CATEGORY_HOMEPAGE);
+        category.addTile(activityTile);
+        category.addTile(new ProviderTile(providerInfo, CategoryKey.CATEGORY_HOMEPAGE,
+                providerMetaData));
+        final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+        categoryByKeyMap.put(category.key, category);
+        mCategories = DashboardTileSnapshot.marshallCategories(categoryByKeyMap,
+                Collections.singletonList(category));
+    }
+
+    @Test
+    public void fromByteArray_sameEnvironment_restoresCategories() throws Exception {
+        final DashboardTileSnapshot snapshot = DashboardTileSnapshot.fromByteArray(mContext,
+                DashboardTileSnapshot.toByteArray(mContext, mCategories));
+
+        final List<DashboardCategory> categories = snapshot.getCategories();
+        assertThat(categories).hasSize(1);
+        assertThat(categories.get(0).key).isEqualTo(CategoryKey.CATEGORY_HOMEPAGE);
+        assertThat(categories.get(0).getTilesCount()).isEqualTo(2);
+        assertThat(snapshot.isListed(CategoryKey.CATEGORY_HOMEPAGE)).isTrue();
+    }
+
+    @Test
+    public void fromByteArray_sameEnvironment_restoresActivityTile() throws Exception {
+        final DashboardTileSnapshot snapshot = DashboardTileSnapshot.fromByteArray(mContext,
+                DashboardTileSnapshot.toByteArray(mContext, mCategories));
+
+        final Tile tile = snapshot.getCategories().get(0).getTile(0);
+        assertThat(tile).isInstanceOf(ActivityTile.class);
+        assertThat(tile.getIntent().getComponent())
+                .isEqualTo(new ComponentName(PACKAGE_NAME, CLASS_NAME));
+        assertThat(tile.getCategory()).isEqualTo(CategoryKey.CATEGORY_HOMEPAGE);
+        assertThat(tile.getMetaData().getString(META_DATA_PREFERENCE_KEYHINT)).isEqualTo(KEY);
+        assertThat(tile.getMetaData().getInt(META_DATA_KEY_ORDER)).isEqualTo(ORDER);
+        assertThat(tile.userHandle).containsExactly(UserHandle.of(USER_ID));
+    }
+
+    @Test
+    public void fromByteArray_sameEnvironment_restoresProviderTile() throws Exception {
+        final DashboardTileSnapshot snapshot = DashboardTileSnapshot.fromByteArray(mContext,
+                DashboardTileSnapshot.toByteArray(mContext, mCategories));
+
+        final Tile tile = snapshot.getCategories().get(0).getTile(1);
+        assertThat(tile).isInstanceOf(ProviderTile.class);
+        assertThat(tile.getDescription()).isEqualTo(AUTHORITY + "/" + PROVIDER_KEY);
+        assertThat(tile.getMetaData().getBoolean(PROVIDER_FLAG)).isTrue();
+    }
+
+    @Test
+    public void fromByteArray_settingsUpdated_returnsNull() throws Exception {
+        final byte[] data = DashboardTileSnapshot.toByteArray(mContext, mCategories);
+
+        mSettingsPackageInfo.setLongVersionCode(2);
+
+        assertThat(DashboardTileSnapshot.fromByteArray(mContext, data)).isNull();
+    }
+
+    @Test
+    public void fromByteArray_otherFormatVersion_returnsNull() throws Exception {
+        final byte[] data = DashboardTileSnapshot.toByteArray(mContext, mCategories);
+        data[3] = (byte) (DashboardTileSnapshot.FORMAT_VERSION + 1);
+
+        assertThat(DashboardTileSnapshot.fromByteArray(mContext, data)).isNull();
+    }
+
+    @Test
+    public void marshallCategories_unsupportedMetaData_returnsNull() {
+        final ActivityInfo activityInfo = new ActivityInfo();
+        activityInfo.packageName = PACKAGE_NAME;
+        activityInfo.name = CLASS_NAME;
+        activityInfo.applicationInfo = new ApplicationInfo();
+        activityInfo.metaData = new Bundle();
+        activityInfo.metaData.putParcelable("parcelable", new Bundle());
+        final DashboardCategory category = new DashboardCategory(CategoryKey.CATEGORY_HOMEPAGE);
+        category.addTile(new ActivityTile(activityInfo, CategoryKey.CATEGORY_HOMEPAGE));
+        final Map<String, DashboardCategory> categoryByKeyMap = new ArrayMap<>();
+        categoryByKeyMap.put(category.key, category);
+
+        assertThat(DashboardTileSnapshot.marshallCategories(categoryByKeyMap,
+                Collections.singletonList(category))).isNull();
+    }
+
+    @Test
+    public void fromByteArray_localeChanged_returnsNull() throws Exception {
+        final byte[] data = DashboardTileSnapshot.toByteArray(mContext, mCategories);
+
+        RuntimeEnvironment.setQualifiers("fr");
+
+        assertThat(DashboardTileSnapshot.fromByteArray(mContext, data)).isNull();
+    }
+
+    @Test
+    public void fromByteArray_corruptedData_returnsNull() {
+        assertThat(DashboardTileSnapshot.fromByteArray(mContext, new byte[] {1, 2, 3})).isNull();
+    }
+
+    @Test
+    public void getChangedPackages_nothingChanged_returnsEmpty() throws Exception {
+        final DashboardTileSnapshot snapshot = DashboardTileSnapshot.fromByteArray(mContext,
+                DashboardTileSnapshot.toByteArray(mContext, mCategories));
+
+        assertThat(snapshot.getChangedPackages(mContext)).isEmpty();
+    }
+
+    @Test
+    public void getChangedPackages_packageUpdated_returnsPackage() throws Exception {
+        final DashboardTileSnapshot snapshot = DashboardTileSnapshot.fromByteArray(mContext,
+                DashboardTileSnapshot.toByteArray(mContext, mCategories));
+
+        mPackageInfo.setLongVersionCode(2);
+
+        assertThat(snapshot.getChangedPackages(mContext)).containsExactly(PACKAGE_NAME);
+    }
+
+    @Test
+    public void getChangedPackages_afterReboot_returnsNull() throws Exception {
+        final DashboardTileSnapshot snapshot = DashboardTileSnapshot.fromByteArray(mContext,
+                DashboardTileSnapshot.toByteArray(mContext, mCategories));
+
+        Settings.Global.putInt(mContext.getContentResolver(), Settings.Global.BOOT_COUNT, 2);
+
+        assertThat(snapshot.getChangedPackages(mContext)).isNull();
+    }
+}
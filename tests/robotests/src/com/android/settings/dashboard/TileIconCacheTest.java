@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static android.content.ComponentCallbacks2.TRIM_MEMORY_COMPLETE;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.net.Uri;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+
+@RunWith(RobolectricTestRunner.class)
+public class TileIconCacheTest {
+    private static final String PACKAGE_NAME = "com.android.test";
+    private static final Uri ICON_URI = Uri.parse("content://com.android.test/getProviderIcon");
+    private static final int ICON_RES_ID = 0x7f010001;
+
+    @Mock
+    private PackageManager mPackageManager;
+
+    private Context mContext;
+    private File mDirectory;
+    private TileIconCache.Key mKey;
+    private BitmapDrawable mDrawable;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        doReturn(mPackageManager).when(mContext).getPackageManager();
+        final PackageInfo packageInfo = new PackageInfo();
+        packageInfo.setLongVersionCode(1);
+        when(mPackageManager.getPackageInfo(eq(PACKAGE_NAME), anyInt())).thenReturn(packageInfo);
+        mDirectory = new File(mContext.getCacheDir(), "tile_icons_test");
+        mKey = new TileIconCache.Key(PACKAGE_NAME, ICON_URI, null /* tintColor */,
+                160 /* densityDpi */, Configuration.UI_MODE_NIGHT_NO, View.LAYOUT_DIRECTION_LTR);
+        mDrawable = new BitmapDrawable(mContext.getResources(),
+                Bitmap.createBitmap(24, 24, Bitmap.Config.ARGB_8888));
+    }
+
+    @Test
+    public void get_afterPut_hitsMemory() {
+        final TileIconCache cache = new TileIconCache(1024 * 1024, mDirectory);
+
+        cache.put(mContext, mKey, PACKAGE_NAME, ICON_RES_ID, mDrawable);
+
+        assertThat(cache.get(mKey).getIconPackage()).isEqualTo(PACKAGE_NAME);
+        assertThat(cache.getMemoryHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void get_differentTint_misses() {
+        final TileIconCache cache = new TileIconCache(1024 * 1024, mDirectory);
+        cache.put(mContext, mKey, PACKAGE_NAME, ICON_RES_ID, mDrawable);
+
+        assertThat(cache.get(new TileIconCache.Key(PACKAGE_NAME, ICON_URI, 0xffffffff,
+                160 /* densityDpi */, Configuration.UI_MODE_NIGHT_NO,
+                View.LAYOUT_DIRECTION_LTR))).isNull();
+    }
+
+    @Test
+    public void get_nightMode_missesMemoryAndDisk() {
+        final TileIconCache cache = new TileIconCache(1024 * 1024, mDirectory);
+        cache.put(mContext, mKey, PACKAGE_NAME, ICON_RES_ID, mDrawable);
+        final TileIconCache.Key nightKey = new TileIconCache.Key(PACKAGE_NAME, ICON_URI,
+                null /* tintColor */, 160 /* densityDpi */, Configuration.UI_MODE_NIGHT_YES,
+                View.LAYOUT_DIRECTION_LTR);
+
+        assertThat(cache.get(nightKey)).isNull();
+        assertThat(cache.getFromDisk(mContext, nightKey)).isNull();
+    }
+
+    @Test
+    public void get_rtl_missesMemoryAndDisk() {
+        final TileIconCache cache = new TileIconCache(1024 * 1024, mDirectory);
+        cache.put(mContext, mKey, PACKAGE_NAME, ICON_RES_ID, mDrawable);
+        final TileIconCache.Key rtlKey = new TileIconCache.Key(PACKAGE_NAME, ICON_URI,
+                null /* tintColor */, 160 /* densityDpi */, Configuration.UI_MODE_NIGHT_NO,
+                View.LAYOUT_DIRECTION_RTL);
+
+        assertThat(cache.get(rtlKey)).isNull();
+        assertThat(cache.getFromDisk(mContext, rtlKey)).isNull();
+    }
+
+    @Test
+    public void getFromDisk_newProcess_readsPersistedIcon() {
+        new TileIconCache(1024 * 1024, mDirectory).put(mContext, mKey, PACKAGE_NAME, ICON_RES_ID,
+                mDrawable);
+
+        final TileIconCache cache = new TileIconCache(1024 * 1024, mDirectory);
+
+        assertThat(cache.get(mKey)).isNull();
+        assertThat(cache.getFromDisk(mContext, mKey)).isNotNull();
+        assertThat(cache.getDiskHitCount()).isEqualTo(1);
+        assertThat(cache.get(mKey)).isNotNull();
+    }
+
+    @Test
+    public void getFromDisk_newProcess_keepsIconResource() {
+        new TileIconCache(1024 * 1024, mDirectory).put(mContext, mKey, PACKAGE_NAME, ICON_RES_ID,
+                mDrawable);
+
+        final TileIconCache.Entry entry =
+                new TileIconCache(1024 * 1024, mDirectory).getFromDisk(mContext, mKey);
+
+        assertThat(entry.isLoadedFrom(PACKAGE_NAME, ICON_RES_ID)).isTrue();
+        assertThat(entry.isLoadedFrom(PACKAGE_NAME, ICON_RES_ID + 1)).isFalse();
+    }
+
+    @Test
+    public void invalidatePackage_dropsMemoryAndDisk() {
+        final TileIconCache cache = new TileIconCache(1024 * 1024, mDirectory);
+        cache.put(mContext, mKey, PACKAGE_NAME, ICON_RES_ID, mDrawable);
+
+        cache.invalidatePackage(PACKAGE_NAME);
+
+        assertThat(cache.get(mKey)).isNull();
+        assertThat(cache.getFromDisk(mContext, mKey)).isNull();
+    }
+
+    @Test
+    public void trimMemory_keepsDiskTier() {
+        final TileIconCache cache = new TileIconCache(1024 * 1024, mDirectory);
+        cache.put(mContext, mKey, PACKAGE_NAME, ICON_RES_ID, mDrawable);
+
+        cache.trimMemory(TRIM_MEMORY_COMPLETE);
+
+        assertThat(cache.get(mKey)).isNull();
+        assertThat(cache.getFromDisk(mContext, mKey)).isNotNull();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.development;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemProperties;
+import android.provider.Settings;
+import android.view.ThreadedRenderer;
+
+import com.android.settingslib.core.AbstractPreferenceController;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class DevelopmentRefreshRegistryTest {
+
+    private Context mContext;
+    private AbstractPreferenceController mForceDarkController;
+    private AbstractPreferenceController mShowTapsController;
+    private AbstractPreferenceController mUndeclaredController;
+    private AbstractPreferenceController mAdbController;
+    private final List<List<AbstractPreferenceController>> mRefreshes = new ArrayList<>();
+    private DevelopmentRefreshRegistry mRegistry;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        SystemProperties.set(ThreadedRenderer.DEBUG_FORCE_DARK, "false");
+        mForceDarkController = new ForceDarkPreferenceController(mContext);
+        mShowTapsController = new ShowTapsPreferenceController(mContext);
+        mUndeclaredController = mock(AbstractPreferenceController.class);
+        mAdbController = mock(AbstractPreferenceController.class,
+                withSettings().extraInterfaces(AdbOnChangeListener.class,
+                        DevelopmentStateDependencies.class));
+        mRegistry = new DevelopmentRefreshRegistry(mContext.getContentResolver(),
+                new Handler(Looper.getMainLooper()),
+                List.of(mForceDarkController, mUndeclaredController, mShowTapsController,
+                        mAdbController),
+                mRefreshes::add);
+        mRegistry.start();
+    }
+
+    @After
+    public void tearDown() {
+        mRegistry.stop();
+        SystemProperties.set(ThreadedRenderer.DEBUG_FORCE_DARK, "");
+    }
+
+    @Test
+    public void onSystemPropertiesChanged_declaredPropertyChanged_refreshesDependents() {
+        SystemProperties.set(ThreadedRenderer.DEBUG_FORCE_DARK, "true");
+
+        mRegistry.onSystemPropertiesChanged();
+        idleForRefresh();
+
+        assertThat(mRefreshes).containsExactly(
+                List.of(mForceDarkController, mUndeclaredController));
+        assertThat(mRegistry.getAvoidedRefreshCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void onSystemPropertiesChanged_otherProperty_refreshesUndeclaredOnly() {
+        mRegistry.onSystemPropertiesChanged();
+        idleForRefresh();
+
+        assertThat(mRefreshes).containsExactly(List.of(mUndeclaredController));
+        assertThat(mRegistry.getRefreshCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void onSystemPropertiesChanged_burst_refreshesOnce() {
+        mRegistry.onSystemPropertiesChanged();
+        mRegistry.onSystemPropertiesChanged();
+        mRegistry.onSystemPropertiesChanged();
+        idleForRefresh();
+
+        assertThat(mRefreshes).hasSize(1);
+        assertThat(mRegistry.getAvoidedRefreshCount()).isEqualTo(3 * 4 - 1);
+    }
+
+    @Test
+    public void settingChanged_refreshesDependentOnly() {
+        mContext.getContentResolver().notifyChange(
+                Settings.System.getUriFor(Settings.System.SHOW_TOUCHES), null /* observer */);
+        idleForRefresh();
+
+        assertThat(mRefreshes).containsExactly(List.of(mShowTapsController));
+    }
+
+    @Test
+    public void stop_dropsPendingChanges() {
+        mRegistry.onSystemPropertiesChanged();
+
+        mRegistry.stop();
+        idleForRefresh();
+
+        assertThat(mRefreshes).isEmpty();
+    }
+
+    @Test
+    public void getAdbListeners_returnsAdbControllersOnly() {
+        assertThat(mRegistry.getAdbListeners()).containsExactly(mAdbController);
+        assertThat(mRegistry.getBluetoothListeners()).isEmpty();
+    }
+
+    private static void idleForRefresh() {
+        shadowOf(Looper.getMainLooper()).idleFor(
+                Duration.ofMillis(DevelopmentRefreshRegistry.REFRESH_DELAY_MS));
+    }
+}
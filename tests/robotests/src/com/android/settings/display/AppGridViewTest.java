@@ -32,7 +32,6 @@ import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
-import android.util.IconDrawableFactory;
 
 import com.android.settings.R;
 
@@ -65,7 +64,6 @@ public class AppGridViewTest {
     @Mock
     private PackageManager mPackageManager;
     private Context mContext;
-    private IconDrawableFactory mIconFactory;
 
     @Before
     public void setUp() {
@@ -74,7 +72,6 @@ public class AppGridViewTest {
         mInfo.activityInfo.applicationInfo = mApplicationInfo;
         mContext = spy(RuntimeEnvironment.application);
         doReturn(mPackageManager).when(mContext).getPackageManager();
-        mIconFactory = IconDrawableFactory.newInstance(mContext);
     }
 
     @Test
@@ -82,7 +79,7 @@ public class AppGridViewTest {
         when(mPackageManager.loadUnbadgedItemIcon(mActivityInfo, mApplicationInfo))
             .thenReturn(mIcon);
         final AppGridView.ActivityEntry activityEntry =
-            new AppGridView.ActivityEntry(mInfo, "label", mIconFactory);
+            new AppGridView.ActivityEntry(mInfo, "label", mContext);
 
         assertThat(activityEntry.label).isEqualTo("label");
         assertThat(activityEntry.getIcon()).isNotNull();
@@ -91,11 +88,11 @@ public class AppGridViewTest {
     @Test
     public void appEntry_compare_shouldCompareIgnoreCase() {
         final AppGridView.ActivityEntry entry1 =
-            new AppGridView.ActivityEntry(mInfo, "label", mIconFactory);
+            new AppGridView.ActivityEntry(mInfo, "label", mContext);
         final AppGridView.ActivityEntry entry2 =
-            new AppGridView.ActivityEntry(mInfo, "LABEL", mIconFactory);
+            new AppGridView.ActivityEntry(mInfo, "LABEL", mContext);
         final AppGridView.ActivityEntry entry3 =
-            new AppGridView.ActivityEntry(mInfo, "label2", mIconFactory);
+            new AppGridView.ActivityEntry(mInfo, "label2", mContext);
 
         assertThat(entry1.compareTo(entry2)).isEqualTo(0);
         assertThat(entry1.compareTo(entry3)).isNotEqualTo(0);
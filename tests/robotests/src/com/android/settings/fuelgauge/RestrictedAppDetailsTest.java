@@ -28,7 +28,6 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.os.Bundle;
 import android.os.UserHandle;
-import android.util.IconDrawableFactory;
 import android.util.SparseLongArray;
 
 import androidx.appcompat.app.AlertDialog;
@@ -74,7 +73,6 @@ public class RestrictedAppDetailsTest {
 
     @Mock private PackageManager mPackageManager;
     @Mock private ApplicationInfo mApplicationInfo;
-    @Mock private IconDrawableFactory mIconDrawableFactory;
     @Mock private InstrumentedPreferenceFragment mFragment;
     @Mock private BatteryDatabaseManager mBatteryDatabaseManager;
     private PreferenceManager mPreferenceManager;
@@ -98,7 +96,6 @@ public class RestrictedAppDetailsTest {
         doReturn(mContext).when(mFragment).getContext();
         doReturn(mContext).when(mRestrictedAppDetails).getContext();
         mRestrictedAppDetails.mPackageManager = mPackageManager;
-        mRestrictedAppDetails.mIconDrawableFactory = mIconDrawableFactory;
         mRestrictedAppDetails.mAppInfos = new ArrayList<>();
         mRestrictedAppDetails.mAppInfos.add(mAppInfo);
         mRestrictedAppDetails.mRestrictedAppListGroup = spy(new PreferenceCategory(mContext));
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge.batteryusage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+import android.content.Context;
+import android.os.SystemClock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public final class AppBatteryUsageSummaryTest {
+    private static final String PACKAGE_NAME = "com.android.testing";
+    private static final int USER_ID = 10;
+    private static final long UID = 10123;
+    private static final long FOREGROUND_USAGE_TIME_IN_MS = 3000;
+    private static final long BACKGROUND_USAGE_TIME_IN_MS = 4000;
+    private static final double TOTAL_CONSUME_POWER = 100;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @After
+    public void tearDown() {
+        AppBatteryUsageSummary.invalidate();
+    }
+
+    @Test
+    public void update_indexesAppEntriesByPackageAndUser() {
+        AppBatteryUsageSummary.update(
+                Arrays.asList(
+                        createEntry(PACKAGE_NAME, USER_ID, /* consumePower= */ 10),
+                        createEntry(PACKAGE_NAME, /* userId= */ 0, /* consumePower= */ 20)));
+
+        assertThat(AppBatteryUsageSummary.getEntry(mContext, PACKAGE_NAME, USER_ID).mConsumePower)
+                .isEqualTo(10);
+        assertThat(AppBatteryUsageSummary.getEntry(mContext, PACKAGE_NAME, 0).mConsumePower)
+                .isEqualTo(20);
+        assertThat(AppBatteryUsageSummary.getEntry(mContext, "other.package", USER_ID)).isNull();
+    }
+
+    @Test
+    public void update_keepsUsageValues() {
+        final BatteryDiffEntry appEntry = createEntry(PACKAGE_NAME, USER_ID, /* consumePower= */ 25);
+        appEntry.setAdjustPercentageOffset(1);
+        AppBatteryUsageSummary.update(List.of(appEntry));
+
+        final BatteryDiffEntry entry =
+                AppBatteryUsageSummary.getEntry(mContext, PACKAGE_NAME, USER_ID);
+
+        assertThat(entry).isNotSameInstanceAs(appEntry);
+        assertThat(entry.mUid).isEqualTo(UID);
+        assertThat(entry.mForegroundUsageTimeInMs).isEqualTo(FOREGROUND_USAGE_TIME_IN_MS);
+        assertThat(entry.mBackgroundUsageTimeInMs).isEqualTo(BACKGROUND_USAGE_TIME_IN_MS);
+        assertThat(entry.getTotalConsumePower()).isEqualTo(TOTAL_CONSUME_POWER);
+        assertThat(entry.getPercentage()).isEqualTo(25);
+        assertThat(entry.getAdjustPercentageOffset()).isEqualTo(1);
+    }
+
+    @Test
+    public void getEntry_usesApplicationContext() {
+        final Context activityContext = spy(mContext);
+        final BatteryDiffEntry appEntry = new BatteryDiffEntry(activityContext, UID, USER_ID,
+                /* key= */ "key", /* isHidden= */ false, /* componentId= */ -1, PACKAGE_NAME,
+                /* legacyLabel= */ null, ConvertUtils.CONSUMER_TYPE_UID_BATTERY,
+                /* foregroundUsageTimeInMs= */ 0, /* foregroundServiceUsageTimeInMs= */ 0,
+                /* backgroundUsageTimeInMs= */ 0, /* screenOnTimeInMs= */ 0,
+                /* consumePower= */ 1, /* foregroundUsageConsumePower= */ 0,
+                /* foregroundServiceUsageConsumePower= */ 0, /* backgroundUsageConsumePower= */ 0,
+                /* cachedUsageConsumePower= */ 0);
+        AppBatteryUsageSummary.update(List.of(appEntry));
+
+        final BatteryDiffEntry entry =
+                AppBatteryUsageSummary.getEntry(activityContext, PACKAGE_NAME, USER_ID);
+
+        assertThat(entry.mContext).isSameInstanceAs(mContext.getApplicationContext());
+    }
+
+    @Test
+    public void update_skipsSystemEntries() {
+        final BatteryDiffEntry systemEntry = spy(createEntry(PACKAGE_NAME, USER_ID, 10));
+        doReturn(true).when(systemEntry).isSystemEntry();
+
+        AppBatteryUsageSummary.update(List.of(systemEntry));
+
+        assertThat(AppBatteryUsageSummary.isAvailable()).isTrue();
+        assertThat(AppBatteryUsageSummary.getEntry(mContext, PACKAGE_NAME, USER_ID)).isNull();
+    }
+
+    @Test
+    public void update_nullEntries_summaryIsEmpty() {
+        AppBatteryUsageSummary.update(null);
+
+        assertThat(AppBatteryUsageSummary.isAvailable()).isTrue();
+        assertThat(AppBatteryUsageSummary.getEntry(mContext, PACKAGE_NAME, USER_ID)).isNull();
+    }
+
+    @Test
+    public void isAvailable_expired_returnsFalse() {
+        AppBatteryUsageSummary.update(List.of(createEntry(PACKAGE_NAME, USER_ID, 10)));
+
+        SystemClock.setCurrentTimeMillis(
+                System.currentTimeMillis() + AppBatteryUsageSummary.MAX_AGE_MS + 1);
+
+        assertThat(AppBatteryUsageSummary.isAvailable()).isFalse();
+    }
+
+    @Test
+    public void getAppBatteryUsageData_withSummary_looksUpEntry() {
+        AppBatteryUsageSummary.update(List.of(createEntry(PACKAGE_NAME, USER_ID, 10)));
+
+        assertThat(BatteryChartPreferenceController.getAppBatteryUsageData(
+                mContext, PACKAGE_NAME, USER_ID).mConsumePower).isEqualTo(10);
+        assertThat(BatteryChartPreferenceController.getAppBatteryUsageData(
+                mContext, PACKAGE_NAME, /* userId= */ 0)).isNull();
+    }
+
+    private BatteryDiffEntry createEntry(String packageName, long userId, double consumePower) {
+        final BatteryDiffEntry entry = new BatteryDiffEntry(mContext, UID, userId,
+                /* key= */ "key", /* isHidden= */ false, /* componentId= */ -1, packageName,
+                /* legacyLabel= */ null, ConvertUtils.CONSUMER_TYPE_UID_BATTERY,
+                FOREGROUND_USAGE_TIME_IN_MS, /* foregroundServiceUsageTimeInMs= */ 0,
+                BACKGROUND_USAGE_TIME_IN_MS, /* screenOnTimeInMs= */ 0, consumePower,
+                /* foregroundUsageConsumePower= */ 0, /* foregroundServiceUsageConsumePower= */ 0,
+                /* backgroundUsageConsumePower= */ 0, /* cachedUsageConsumePower= */ 0);
+        entry.setTotalConsumePower(TOTAL_CONSUME_POWER);
+        return entry;
+    }
+}
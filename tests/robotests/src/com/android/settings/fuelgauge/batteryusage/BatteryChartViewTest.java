@@ -17,11 +17,23 @@ package com.android.settings.fuelgauge.batteryusage;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
 import android.os.LocaleList;
+import android.text.TextPaint;
 import android.view.View;
+import android.widget.TextView;
 
 import com.android.settings.fuelgauge.PowerUsageFeatureProvider;
 import com.android.settings.testutils.FakeFeatureFactory;
@@ -34,6 +46,7 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
@@ -91,4 +104,80 @@ public final class BatteryChartViewTest {
         mBatteryChartView.onClick(mMockView);
         assertThat(selectedIndex[0]).isEqualTo(BatteryChartViewModel.SELECTED_INDEX_ALL);
     }
+
+    @Test
+    public void draw_dataUnchanged_reusesLayoutAndTextMeasurements() {
+        final BatteryChartView chartView = new BatteryChartView(mContext, null);
+        final TextView textView = spy(new TextView(mContext));
+        final TextPaint textPaint = spy(textView.getPaint());
+        doReturn(textPaint).when(textView).getPaint();
+        chartView.setCompanionTextView(textView);
+        chartView.setViewModel(createHourlyViewModel());
+        final Canvas canvas = new Canvas(Bitmap.createBitmap(1080, 400, Bitmap.Config.ARGB_8888));
+        layoutAndDraw(chartView, canvas);
+        final Rect firstLabelArea = chartView.mAxisLabelDisplayAreas[0];
+        clearInvocations(textPaint);
+
+        layoutAndDraw(chartView, canvas);
+
+        assertThat(chartView.mTextBoundsDirty).isFalse();
+        assertThat(chartView.mAxisLabelDisplayAreas[0]).isSameInstanceAs(firstLabelArea);
+        verify(textPaint, never()).getTextBounds(anyString(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    public void setViewModel_remeasuresText() {
+        final BatteryChartView chartView = new BatteryChartView(mContext, null);
+        chartView.setCompanionTextView(new TextView(mContext));
+        chartView.setViewModel(createHourlyViewModel());
+        layoutAndDraw(chartView,
+                new Canvas(Bitmap.createBitmap(1080, 400, Bitmap.Config.ARGB_8888)));
+
+        chartView.setViewModel(createHourlyViewModel());
+
+        assertThat(chartView.mTextBoundsDirty).isTrue();
+    }
+
+    private static void layoutAndDraw(BatteryChartView chartView, Canvas canvas) {
+        chartView.measure(
+                View.MeasureSpec.makeMeasureSpec(canvas.getWidth(), View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(canvas.getHeight(), View.MeasureSpec.EXACTLY));
+        chartView.layout(0, 0, canvas.getWidth(), canvas.getHeight());
+        chartView.draw(canvas);
+    }
+
+    /** Creates a typical 24 hour chart, with one level every hour. */
+    private static BatteryChartViewModel createHourlyViewModel() {
+        final List<Integer> levels = new ArrayList<>();
+        final List<Long> timestamps = new ArrayList<>();
+        for (int hour = 0; hour <= 24; hour++) {
+            levels.add(100 - hour * 3);
+            timestamps.add(hour * 3600_000L);
+        }
+        return new BatteryChartViewModel(
+                levels,
+                timestamps,
+                BatteryChartViewModel.AxisLabelPosition.BETWEEN_TRAPEZOIDS,
+                new BatteryChartViewModel.LabelTextGenerator() {
+                    @Override
+                    public String generateText(List<Long> timestamps, int index) {
+                        return index + "h";
+                    }
+
+                    @Override
+                    public String generateFullText(List<Long> timestamps, int index) {
+                        return index + " hours";
+                    }
+
+                    @Override
+                    public String generateContentDescription(List<Long> timestamps, int index) {
+                        return index + " hours";
+                    }
+
+                    @Override
+                    public String generateSlotBatteryLevelText(List<Integer> levels, int index) {
+                        return levels.get(index) + "%";
+                    }
+                });
+    }
 }
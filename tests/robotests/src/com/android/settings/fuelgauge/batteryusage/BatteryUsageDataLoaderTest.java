@@ -113,6 +113,18 @@ public final class BatteryUsageDataLoaderTest {
         verify(mMockContentResolver).insert(any(), any());
     }
 
+    @Test
+    public void loadUsageData_invalidatesAppBatteryUsageSummary() {
+        when(mBatteryStatsManager.getBatteryUsageStats(mStatsQueryCaptor.capture()))
+                .thenReturn(mBatteryUsageStats);
+        BatteryUsageDataLoader.sFakeBatteryEntryListSupplier = () -> new ArrayList<>();
+        AppBatteryUsageSummary.update(new ArrayList<>());
+
+        BatteryUsageDataLoader.loadBatteryStatsData(mContext, /* isFullChargeStart= */ true);
+
+        assertThat(AppBatteryUsageSummary.isAvailable()).isFalse();
+    }
+
     @Test
     public void loadAppUsageData_withData_insertFakeDataIntoProvider() {
         final List<AppUsageEvent> AppUsageEventList = new ArrayList<>();
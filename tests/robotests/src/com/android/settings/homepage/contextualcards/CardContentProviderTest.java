@@ -25,6 +25,7 @@ import static org.mockito.Mockito.verify;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
+import android.database.ContentObserver;
 import android.database.Cursor;
 import android.net.Uri;
 import android.os.Build;
@@ -197,6 +198,91 @@ public class CardContentProviderTest {
         mProvider.getTableFromMatch(invalid_Uri);
     }
 
+    @Test
+    public void isSameRow_sameValues_returnsTrue() {
+        final ContentValues existingRow = toStoredRow(generateOneRow());
+
+        assertThat(CardContentProvider.isSameRow(existingRow, generateOneRow())).isTrue();
+    }
+
+    @Test
+    public void isSameRow_scoreChanged_returnsFalse() {
+        final ContentValues existingRow = toStoredRow(generateOneRow());
+        final ContentValues newValues = generateOneRow();
+        newValues.put(CardDatabaseHelper.CardColumns.SCORE, 0.5);
+
+        assertThat(CardContentProvider.isSameRow(existingRow, newValues)).isFalse();
+    }
+
+    @Test
+    public void isSameRow_dismissedRowWithoutTimestamp_returnsFalse() {
+        final ContentValues existingRow = toStoredRow(generateOneRow());
+        existingRow.put(CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP, "10001");
+
+        assertThat(CardContentProvider.isSameRow(existingRow, generateOneRow())).isFalse();
+    }
+
+    @Test
+    public void isSameRow_defaultCategoryOmitted_returnsTrue() {
+        final ContentValues newValues = generateOneRow();
+        newValues.remove(CardDatabaseHelper.CardColumns.CATEGORY);
+        final ContentValues existingRow = toStoredRow(newValues);
+        existingRow.put(CardDatabaseHelper.CardColumns.CATEGORY,
+                String.valueOf(CardDatabaseHelper.DEFAULT_CATEGORY));
+
+        assertThat(CardContentProvider.isSameRow(existingRow, newValues)).isTrue();
+    }
+
+    @Test
+    public void bulkInsert_unchangedRows_shouldNotNotifyChange() {
+        mProvider.bulkInsert(mUri, generateTwoRows());
+        final ChangeCounter counter = registerChangeCounter();
+
+        final int inserted = mProvider.bulkInsert(mUri, generateTwoRows());
+
+        assertThat(inserted).isEqualTo(2);
+        assertThat(counter.mChangeCount).isEqualTo(0);
+    }
+
+    @Test
+    public void bulkInsert_changedRow_shouldWriteRowAndNotifyChange() {
+        mProvider.bulkInsert(mUri, generateTwoRows());
+        final ChangeCounter counter = registerChangeCounter();
+        final ContentValues[] rows = generateTwoRows();
+        rows[1].put(CardDatabaseHelper.CardColumns.SCORE, 0.5);
+
+        final int inserted = mProvider.bulkInsert(mUri, rows);
+
+        assertThat(inserted).isEqualTo(2);
+        assertThat(counter.mChangeCount).isEqualTo(1);
+        assertThat(queryScore("toggle_airplane")).isEqualTo(0.5);
+    }
+
+    @Test
+    public void bulkInsert_unchangedRowsWithDefaultCategory_shouldNotNotifyChange() {
+        final ContentValues[] rows = generateTwoRows();
+        for (ContentValues row : rows) {
+            row.remove(CardDatabaseHelper.CardColumns.CATEGORY);
+        }
+        mProvider.bulkInsert(mUri, rows);
+        final ChangeCounter counter = registerChangeCounter();
+
+        final int inserted = mProvider.bulkInsert(mUri, rows);
+
+        assertThat(inserted).isEqualTo(2);
+        assertThat(counter.mChangeCount).isEqualTo(0);
+    }
+
+    // Mirrors how a row read back from the database holds every column as a string.
+    private ContentValues toStoredRow(ContentValues values) {
+        final ContentValues row = new ContentValues();
+        for (String column : values.keySet()) {
+            row.put(column, values.getAsString(column));
+        }
+        row.putNull(CardDatabaseHelper.CardColumns.DISMISSED_TIMESTAMP);
+        return row;
+    }
+
     private ContentValues generateOneRow() {
         final ContentValues values = new ContentValues();
         values.put(CardDatabaseHelper.CardColumns.NAME, "auto_rotate");
@@ -248,6 +334,22 @@ public class CardContentProviderTest {
         return twoRows;
     }
 
+    private ChangeCounter registerChangeCounter() {
+        final ChangeCounter counter = new ChangeCounter();
+        mResolver.registerContentObserver(mUri, true /* notifyForDescendants */, counter);
+        return counter;
+    }
+
+    private double queryScore(String cardName) {
+        final String[] columns = {CardDatabaseHelper.CardColumns.SCORE};
+        final String selection = CardDatabaseHelper.CardColumns.NAME + "=?";
+        final String[] selectionArgs = {cardName};
+        try (Cursor cr = mProvider.query(mUri, columns, selection, selectionArgs, null)) {
+            cr.moveToFirst();
+            return cr.getDouble(0);
+        }
+    }
+
     private int getRowCount() {
         final Cursor cr = mResolver.query(mUri, null, null, null);
         final int count = cr.getCount();
@@ -265,4 +367,17 @@ public class CardContentProviderTest {
         cr.close();
         return  dismissedTimestamp;
     }
-}
\ No newline at end of file
+
+    private static class ChangeCounter extends ContentObserver {
+        private int mChangeCount;
+
+        ChangeCounter() {
+            super(null /* handler */);
+        }
+
+        @Override
+        public void onChange(boolean selfChange) {
+            mChangeCount++;
+        }
+    }
+}
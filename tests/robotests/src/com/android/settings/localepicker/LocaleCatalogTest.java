@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.localepicker;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@RunWith(RobolectricTestRunner.class)
+public class LocaleCatalogTest {
+    private static final String KEY = "[en-US, fr-FR, de-DE]/en-US";
+    private static final String[] LANGUAGE_TAGS = {"en-US", "fr-FR", "de-DE"};
+
+    private LocaleCatalog mCatalog;
+    private File mFile;
+
+    @Before
+    public void setUp() {
+        mCatalog = LocaleCatalog.build(KEY, Locale.US, LANGUAGE_TAGS);
+        mFile = new File(RuntimeEnvironment.getApplication().getCacheDir(), "locale_catalog_test");
+    }
+
+    @After
+    public void tearDown() {
+        mFile.delete();
+        LocaleCatalog.clearCache();
+    }
+
+    @Test
+    public void isTranslated_otherRegionOfTranslatedLanguage_returnsTrue() {
+        assertThat(mCatalog.isTranslated(Locale.forLanguageTag("fr-CA"))).isTrue();
+        assertThat(mCatalog.isTranslated(Locale.forLanguageTag("ja-JP"))).isFalse();
+    }
+
+    @Test
+    public void readFromDisk_sameKey_returnsWrittenCatalog() {
+        LocaleCatalog.writeToDisk(mFile, mCatalog);
+
+        final LocaleCatalog catalog = LocaleCatalog.readFromDisk(mFile, KEY);
+
+        assertThat(getLanguageTags(catalog.getEntries())).containsExactly(
+                "en-US", "fr-FR", "de-DE").inOrder();
+        assertThat(catalog.getEntries().get(1).getDisplayName())
+                .isEqualTo(mCatalog.getEntries().get(1).getDisplayName());
+    }
+
+    @Test
+    public void readFromDisk_otherKey_returnsNull() {
+        LocaleCatalog.writeToDisk(mFile, mCatalog);
+
+        assertThat(LocaleCatalog.readFromDisk(mFile, KEY + "-fr")).isNull();
+    }
+
+    private static List<String> getLanguageTags(List<LocaleCatalog.Entry> entries) {
+        final List<String> tags = new ArrayList<>();
+        for (LocaleCatalog.Entry entry : entries) {
+            tags.add(entry.getLanguageTag());
+        }
+        return tags;
+    }
+}
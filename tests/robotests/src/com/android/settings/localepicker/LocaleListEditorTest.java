@@ -486,6 +486,23 @@ public class LocaleListEditorTest {
         verify(mAdapter).setCheckBoxDescription(any(LocaleDragCell.class), any(), anyBoolean());
     }
 
+    @Test
+    public void updateTranslatedLocales_marksTranslatedLocales() {
+        final LocaleCatalog catalog =
+                LocaleCatalog.build("[fr-FR]/en-US", Locale.US, new String[] {"fr-FR"});
+        final LocaleStore.LocaleInfo french =
+                LocaleStore.fromLocale(Locale.forLanguageTag("fr-CA"));
+        final LocaleStore.LocaleInfo japanese =
+                LocaleStore.fromLocale(Locale.forLanguageTag("ja-JP"));
+        french.setTranslated(false);
+        japanese.setTranslated(false);
+
+        assertThat(LocaleListEditor.updateTranslatedLocales(List.of(french, japanese), catalog))
+                .isTrue();
+        assertThat(french.isTranslated()).isTrue();
+        assertThat(japanese.isTranslated()).isFalse();
+    }
+
     private void setUpLocaleConditions() {
         ShadowActivityManager.setService(mActivityService);
         mLocaleList = new ArrayList<>();
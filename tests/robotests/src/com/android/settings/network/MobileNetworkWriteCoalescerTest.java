@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.android.settingslib.mobile.dataservice.MobileNetworkDatabase;
+import com.android.settingslib.mobile.dataservice.MobileNetworkInfoEntity;
+import com.android.settingslib.mobile.dataservice.UiccInfoEntity;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class MobileNetworkWriteCoalescerTest {
+    private static final int SUB_ID_1 = 1;
+    private static final int SUB_ID_2 = 2;
+
+    @Rule
+    public final MockitoRule mMockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private MobileNetworkDatabase mDatabase;
+    @Mock
+    private ScheduledExecutorService mExecutor;
+
+    private MobileNetworkWriteCoalescer mCoalescer;
+
+    @Before
+    public void setUp() {
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(mDatabase).runInTransaction(any(Runnable.class));
+        mCoalescer = new MobileNetworkWriteCoalescer(mDatabase, mExecutor);
+    }
+
+    @Test
+    public void insert_severalRows_schedulesOneFlush() {
+        mCoalescer.insertUiccInfo(SUB_ID_1, createUiccInfo(SUB_ID_1, true));
+        mCoalescer.insertMobileNetworkInfo(SUB_ID_1, createMobileNetworkInfo(SUB_ID_1, true));
+        mCoalescer.insertUiccInfo(SUB_ID_2, createUiccInfo(SUB_ID_2, true));
+
+        verify(mExecutor).schedule(any(Runnable.class),
+                eq(MobileNetworkWriteCoalescer.WINDOW_MILLIS), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void flush_writesAllRowsInOneTransaction() {
+        mCoalescer.insertUiccInfo(SUB_ID_1, createUiccInfo(SUB_ID_1, true));
+        mCoalescer.insertMobileNetworkInfo(SUB_ID_1, createMobileNetworkInfo(SUB_ID_1, true));
+        mCoalescer.insertUiccInfo(SUB_ID_2, createUiccInfo(SUB_ID_2, true));
+
+        mCoalescer.flush();
+
+        verify(mDatabase).runInTransaction(any(Runnable.class));
+        verify(mDatabase, times(2)).insertUiccInfo(any());
+        verify(mDatabase).insertMobileNetworkInfo(any());
+        assertThat(mCoalescer.getWriteCount()).isEqualTo(3);
+        assertThat(mCoalescer.getInvalidationCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void flush_sameSubIdInsertedTwice_writesLatestRow() {
+        final UiccInfoEntity latest = createUiccInfo(SUB_ID_1, false);
+        mCoalescer.insertUiccInfo(SUB_ID_1, createUiccInfo(SUB_ID_1, true));
+        mCoalescer.insertUiccInfo(SUB_ID_1, latest);
+
+        mCoalescer.flush();
+
+        verify(mDatabase).insertUiccInfo(latest);
+        assertThat(mCoalescer.getWriteCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void flush_rowUnchangedSinceLastWrite_skipsTransaction() {
+        mCoalescer.insertUiccInfo(SUB_ID_1, createUiccInfo(SUB_ID_1, true));
+        mCoalescer.flush();
+
+        mCoalescer.insertUiccInfo(SUB_ID_1, createUiccInfo(SUB_ID_1, true));
+        mCoalescer.flush();
+
+        verify(mDatabase).runInTransaction(any(Runnable.class));
+        assertThat(mCoalescer.getWriteCount()).isEqualTo(1);
+        assertThat(mCoalescer.getSkipCount()).isEqualTo(1);
+        assertThat(mCoalescer.getInvalidationCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void removeSubId_dropsPendingRows() {
+        mCoalescer.insertUiccInfo(SUB_ID_1, createUiccInfo(SUB_ID_1, true));
+
+        mCoalescer.removeSubId(SUB_ID_1);
+        mCoalescer.flush();
+
+        verify(mDatabase, never()).runInTransaction(any(Runnable.class));
+        verify(mDatabase, never()).insertUiccInfo(any());
+    }
+
+    @Test
+    public void removeSubId_sameRowInsertedAgain_writesIt() {
+        mCoalescer.insertUiccInfo(SUB_ID_1, createUiccInfo(SUB_ID_1, true));
+        mCoalescer.flush();
+        mCoalescer.removeSubId(SUB_ID_1);
+
+        mCoalescer.insertUiccInfo(SUB_ID_1, createUiccInfo(SUB_ID_1, true));
+        mCoalescer.flush();
+
+        verify(mDatabase, times(2)).insertUiccInfo(any());
+    }
+
+    @Test
+    public void flush_schedulesNextWindowOnNextInsert() {
+        mCoalescer.insertUiccInfo(SUB_ID_1, createUiccInfo(SUB_ID_1, true));
+        mCoalescer.flush();
+
+        mCoalescer.insertUiccInfo(SUB_ID_1, createUiccInfo(SUB_ID_1, false));
+
+        verify(mExecutor, times(2)).schedule(any(Runnable.class), anyLong(), any());
+    }
+
+    @Test
+    public void flush_insertDuringTransaction_doesNotWaitAndIsWrittenByNextFlush()
+            throws Exception {
+        final UiccInfoEntity queuedDuringTransaction = createUiccInfo(SUB_ID_2, true);
+        final Thread[] inserter = new Thread[1];
+        doAnswer(invocation -> {
+            inserter[0] = new Thread(() -> {
+                mCoalescer.noteCallback();
+                mCoalescer.insertUiccInfo(SUB_ID_2, queuedDuringTransaction);
+            });
+            inserter[0].start();
+            inserter[0].join(TimeUnit.SECONDS.toMillis(5));
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(mDatabase).runInTransaction(any(Runnable.class));
+        mCoalescer.insertUiccInfo(SUB_ID_1, createUiccInfo(SUB_ID_1, true));
+
+        mCoalescer.flush();
+
+        assertThat(inserter[0].isAlive()).isFalse();
+        verify(mDatabase, never()).insertUiccInfo(queuedDuringTransaction);
+
+        mCoalescer.flush();
+
+        verify(mDatabase).insertUiccInfo(queuedDuringTransaction);
+        assertThat(mCoalescer.getInvalidationCount()).isEqualTo(2);
+    }
+
+    private static UiccInfoEntity createUiccInfo(int subId, boolean isActive) {
+        return new UiccInfoEntity(String.valueOf(subId), "0" /* physicalSlotIndex */,
+                0 /* logicalSlotIndex */, subId /* cardId */, false /* isEuicc */,
+                false /* isMultipleEnabledProfilesSupported */, 0 /* cardState */,
+                true /* isRemovable */, isActive, 0 /* portIndex */);
+    }
+
+    private static MobileNetworkInfoEntity createMobileNetworkInfo(int subId,
+            boolean isDataEnabled) {
+        return new MobileNetworkInfoEntity(String.valueOf(subId),
+                false /* isContactDiscoveryEnabled */, false /* isContactDiscoveryVisible */,
+                isDataEnabled, false /* isCdmaOptions */, true /* isGsmOptions */,
+                false /* isWorldMode */, true /* shouldDisplayNetworkSelectOptions */,
+                false /* isTdscdmaSupported */, true /* activeNetworkIsCellular */,
+                true /* showToggleForPhysicalSim */, false /* isDataRoamingEnabled */);
+    }
+}
@@ -97,6 +97,7 @@ import org.robolectric.annotation.Implementation;
 import org.robolectric.annotation.Implements;
 import org.robolectric.shadows.ShadowToast;
 
+import java.util.Arrays;
 import java.util.List;
 
 @RunWith(RobolectricTestRunner.class)
@@ -653,6 +654,33 @@ public class NetworkProviderSettingsTest {
         verify(mNetworkProviderSettings.mWifiEntryPreferenceCategory, never()).setVisible(true);
     }
 
+    @Test
+    public void updateWifiEntryPreferences_sameWifiEntries_keepsPreferences() {
+        doReturn(mock(FragmentActivity.class)).when(mNetworkProviderSettings).getActivity();
+        doReturn(mock(View.class)).when(mNetworkProviderSettings).getView();
+        final PreferenceScreen screen =
+                new PreferenceManager(mContext).createPreferenceScreen(mContext);
+        final PreferenceCategory category = new PreferenceCategory(mContext);
+        screen.addPreference(category);
+        mNetworkProviderSettings.mWifiEntryPreferenceCategory = category;
+        final WifiEntry firstEntry = mockWifiEntry("first");
+        final WifiEntry secondEntry = mockWifiEntry("second");
+        when(mMockWifiPickerTracker.getWifiState()).thenReturn(WifiManager.WIFI_STATE_ENABLED);
+        when(mMockWifiPickerTracker.getWifiEntries())
+                .thenReturn(Arrays.asList(firstEntry, secondEntry));
+        mNetworkProviderSettings.updateWifiEntryPreferences();
+        final Preference firstPreference = category.findPreference("first");
+        final Preference secondPreference = category.findPreference("second");
+
+        mNetworkProviderSettings.updateWifiEntryPreferences();
+
+        verify(mNetworkProviderSettings, times(2)).createLongPressWifiEntryPreference(any());
+        assertThat((Preference) category.findPreference("first")).isSameInstanceAs(firstPreference);
+        assertThat((Preference) category.findPreference("second"))
+                .isSameInstanceAs(secondPreference);
+        assertThat(firstPreference.getOrder()).isLessThan(secondPreference.getOrder());
+    }
+
     @Test
     public void setWifiScanMessage_wifiOnScanOn_footerIsInvisible() {
         when(mWifiManager.isScanAlwaysAvailable()).thenReturn(true);
@@ -870,6 +898,13 @@ public class NetworkProviderSettingsTest {
         verify(mWifiEntry, never()).getKey();
     }
 
+    private WifiEntry mockWifiEntry(String key) {
+        final WifiEntry wifiEntry = mock(WifiEntry.class);
+        when(wifiEntry.getKey()).thenReturn(key);
+        when(wifiEntry.getTitle()).thenReturn(key);
+        return wifiEntry;
+    }
+
     @Implements(PreferenceFragmentCompat.class)
     public static class ShadowPreferenceFragmentCompat {
 
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+@RunWith(RobolectricTestRunner.class)
+public class WifiEntryListDiffTest {
+
+    @Test
+    public void compute_sameOrder_isEmpty() {
+        final WifiEntryListDiff diff = WifiEntryListDiff.compute(
+                Arrays.asList("a", "b", "c"), Arrays.asList("a", "b", "c"));
+
+        assertThat(diff.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void compute_insertedAndRemoved() {
+        final WifiEntryListDiff diff = WifiEntryListDiff.compute(
+                Arrays.asList("a", "b", "c"), Arrays.asList("a", "d", "c"));
+
+        assertThat(diff.mInsertedKeys).containsExactly("d");
+        assertThat(diff.mRemovedKeys).containsExactly("b");
+        assertThat(diff.mMovedKeys).isEmpty();
+    }
+
+    @Test
+    public void compute_lastEntryMovedToTop_oneMove() {
+        final WifiEntryListDiff diff = WifiEntryListDiff.compute(
+                Arrays.asList("a", "b", "c", "d"), Arrays.asList("d", "a", "b", "c"));
+
+        assertThat(diff.mInsertedKeys).isEmpty();
+        assertThat(diff.mRemovedKeys).isEmpty();
+        assertThat(diff.mMovedKeys).containsExactly("d");
+    }
+
+    @Test
+    public void compute_fromEmptyList_allInserted() {
+        final WifiEntryListDiff diff = WifiEntryListDiff.compute(
+                Collections.emptyList(), Arrays.asList("a", "b"));
+
+        assertThat(diff.mInsertedKeys).containsExactly("a", "b").inOrder();
+        assertThat(diff.mMovedKeys).isEmpty();
+    }
+}
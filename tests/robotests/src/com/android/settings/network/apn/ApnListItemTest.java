@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network.apn;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+@RunWith(RobolectricTestRunner.class)
+public class ApnListItemTest {
+    private static final ApnListItem INTERNET = new ApnListItem("1", "Internet", "internet",
+            false /* hideDetails */, true /* defaultSelectable */);
+    private static final ApnListItem MMS = new ApnListItem("2", "MMS", "mms",
+            false /* hideDetails */, false /* defaultSelectable */);
+
+    @Test
+    public void diff_sameItems_isEmpty() {
+        final ApnListItem.Diff diff = ApnListItem.diff(Arrays.asList(INTERNET, MMS),
+                Arrays.asList(new ApnListItem("1", "Internet", "internet",
+                        false /* hideDetails */, true /* defaultSelectable */), MMS));
+
+        assertThat(diff.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void diff_reordered_isEmpty() {
+        assertThat(ApnListItem.diff(Arrays.asList(INTERNET, MMS), Arrays.asList(MMS, INTERNET))
+                .isEmpty()).isTrue();
+    }
+
+    @Test
+    public void diff_itemAdded_onlyNewItemChanged() {
+        final ApnListItem.Diff diff = ApnListItem.diff(Collections.singletonList(INTERNET),
+                Arrays.asList(INTERNET, MMS));
+
+        assertThat(diff.mChangedItems).containsExactly(MMS);
+        assertThat(diff.mRemovedKeys).isEmpty();
+    }
+
+    @Test
+    public void diff_itemRemoved_onlyKeyRemoved() {
+        final ApnListItem.Diff diff = ApnListItem.diff(Arrays.asList(INTERNET, MMS),
+                Collections.singletonList(INTERNET));
+
+        assertThat(diff.mChangedItems).isEmpty();
+        assertThat(diff.mRemovedKeys).containsExactly("2");
+    }
+
+    @Test
+    public void diff_titleChanged_itemChanged() {
+        final ApnListItem renamed = new ApnListItem("1", "Renamed", "internet",
+                false /* hideDetails */, true /* defaultSelectable */);
+
+        final ApnListItem.Diff diff = ApnListItem.diff(Collections.singletonList(INTERNET),
+                Collections.singletonList(renamed));
+
+        assertThat(diff.mChangedItems).containsExactly(renamed);
+        assertThat(diff.mRemovedKeys).isEmpty();
+    }
+}
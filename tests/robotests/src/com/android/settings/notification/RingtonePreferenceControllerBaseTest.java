@@ -22,6 +22,7 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 import android.content.Context;
 import android.media.RingtoneManager;
@@ -29,11 +30,13 @@ import android.provider.Settings;
 
 import androidx.preference.Preference;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
 
 @RunWith(RobolectricTestRunner.class)
 public class RingtonePreferenceControllerBaseTest {
@@ -45,7 +48,14 @@ public class RingtonePreferenceControllerBaseTest {
     @Before
     public void setUp() {
         mContext = RuntimeEnvironment.application;
-        mController = new RingtonePreferenceControllerBaseTestable(mContext);
+        mController = new RingtonePreferenceControllerBaseTestable(mContext,
+                RingtoneManager.TYPE_RINGTONE);
+    }
+
+    @After
+    public void tearDown() {
+        RingtonePreferenceControllerBase.resetForTesting();
+        RingtoneTitleCache.resetForTesting();
     }
 
     @Test
@@ -60,14 +70,40 @@ public class RingtonePreferenceControllerBaseTest {
                 "content://test/ringtone");
 
         mController.updateState(preference);
+        ShadowLooper.idleMainLooper();
 
         verify(preference).setSummary(anyString());
     }
 
+    @Test
+    public void updateState_severalControllers_summariesSetTogetherAfterPageUpdate() {
+        final Preference ringtonePreference = mock(Preference.class);
+        final Preference alarmPreference = mock(Preference.class);
+        Settings.System.putString(mContext.getContentResolver(), Settings.System.RINGTONE,
+                "content://test/ringtone");
+        Settings.System.putString(mContext.getContentResolver(), Settings.System.ALARM_ALERT,
+                "content://test/alarm");
+        final RingtonePreferenceControllerBase alarmController =
+                new RingtonePreferenceControllerBaseTestable(mContext, RingtoneManager.TYPE_ALARM);
+
+        mController.updateState(ringtonePreference);
+        alarmController.updateState(alarmPreference);
+
+        verifyNoInteractions(ringtonePreference, alarmPreference);
+
+        ShadowLooper.idleMainLooper();
+
+        verify(ringtonePreference).setSummary(anyString());
+        verify(alarmPreference).setSummary(anyString());
+    }
+
     private class RingtonePreferenceControllerBaseTestable
             extends RingtonePreferenceControllerBase {
-        RingtonePreferenceControllerBaseTestable(Context context) {
+        private final int mRingtoneType;
+
+        RingtonePreferenceControllerBaseTestable(Context context, int ringtoneType) {
             super(context);
+            mRingtoneType = ringtoneType;
         }
 
         @Override
@@ -77,7 +113,7 @@ public class RingtonePreferenceControllerBaseTest {
 
         @Override
         public int getRingtoneType() {
-            return RingtoneManager.TYPE_RINGTONE;
+            return mRingtoneType;
         }
     }
 }
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.notification;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentUris;
+import android.content.Context;
+import android.net.Uri;
+import android.provider.MediaStore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class RingtoneTitleCacheTest {
+    private static final Uri RINGTONE_URI = Uri.parse("content://test/ringtone");
+    private static final Uri ALARM_URI = Uri.parse("content://test/alarm");
+
+    private Context mContext;
+    private RingtoneTitleCache mCache;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mCache = new RingtoneTitleCache(8 /* maxEntries */);
+    }
+
+    @After
+    public void tearDown() {
+        RingtoneTitleCache.resetForTesting();
+    }
+
+    @Test
+    public void getTitle_sameUri_resolvesOnce() {
+        final CharSequence title = mCache.getTitle(mContext, RINGTONE_URI);
+
+        assertThat(mCache.getTitle(mContext, RINGTONE_URI)).isSameInstanceAs(title);
+        assertThat(mCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void getTitle_silentRingtone_isCached() {
+        assertThat(mCache.getTitle(mContext, null /* uri */)).isNotNull();
+        assertThat(mCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void invalidate_dropsTitles() {
+        mCache.getTitle(mContext, RINGTONE_URI);
+
+        mCache.invalidate();
+
+        assertThat(mCache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void getTitles_returnsTitlesInOrderOfUris() {
+        final List<CharSequence> titles = new ArrayList<>();
+
+        mCache.getTitles(mContext, Arrays.asList(RINGTONE_URI, null /* silent */, ALARM_URI),
+                titles::addAll);
+
+        assertThat(titles).containsExactly(mCache.getTitle(mContext, RINGTONE_URI),
+                mCache.getTitle(mContext, null /* uri */),
+                mCache.getTitle(mContext, ALARM_URI)).inOrder();
+    }
+
+    @Test
+    public void getInstance_afterReset_returnsNewCache() {
+        final RingtoneTitleCache cache = RingtoneTitleCache.getInstance(mContext);
+
+        RingtoneTitleCache.resetForTesting();
+
+        assertThat(RingtoneTitleCache.getInstance(mContext)).isNotSameInstanceAs(cache);
+    }
+
+    @Test
+    public void mediaStoreChanged_dropsTitles() {
+        mCache.registerObservers(mContext.getContentResolver());
+        mCache.getTitle(mContext, RINGTONE_URI);
+
+        mContext.getContentResolver().notifyChange(
+                ContentUris.withAppendedId(MediaStore.Audio.Media.EXTERNAL_CONTENT_URI, 1),
+                null /* observer */);
+
+        assertThat(mCache.size()).isEqualTo(0);
+    }
+}
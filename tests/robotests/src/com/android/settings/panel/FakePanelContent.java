@@ -52,6 +52,8 @@ public class FakePanelContent implements PanelContent {
     private boolean mIsCustomizedButtonUsed = false;
     private CharSequence mCustomizedButtonTitle;
     private boolean mIsProgressBarVisible;
+    private List<Uri> mSlices = SLICE_URIS;
+    private boolean mIsProgressiveSliceLoading;
 
     @Override
     public IconCompat getIcon() {
@@ -82,7 +84,11 @@ public class FakePanelContent implements PanelContent {
 
     @Override
     public List<Uri> getSlices() {
-        return SLICE_URIS;
+        return mSlices;
+    }
+
+    public void setSlices(List<Uri> slices) {
+        mSlices = slices;
     }
 
     @Override
@@ -130,4 +136,13 @@ public class FakePanelContent implements PanelContent {
     public void setIsProgressBarVisible(boolean isProgressBarVisible) {
         mIsProgressBarVisible = isProgressBarVisible;
     }
+
+    @Override
+    public boolean isProgressiveSliceLoading() {
+        return mIsProgressiveSliceLoading;
+    }
+
+    public void setIsProgressiveSliceLoading(boolean isProgressiveSliceLoading) {
+        mIsProgressiveSliceLoading = isProgressiveSliceLoading;
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.panel;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+import android.net.Uri;
+import android.os.Bundle;
+import android.util.ArrayMap;
+import android.view.View;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.slice.Slice;
+import androidx.slice.widget.SliceLiveData;
+
+import com.android.settings.R;
+import com.android.settings.testutils.FakeFeatureFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Tests the progressive Slice loading of {@link PanelFragment}, see
+ * {@link PanelContent#isProgressiveSliceLoading()}, with a Slice that binds later than the
+ * others.
+ */
+@Deprecated(forRemoval = true)
+@RunWith(RobolectricTestRunner.class)
+public class PanelFragmentProgressiveLoadingTest {
+
+    private static final Uri FAST_SLICE_URI =
+            Uri.parse("content://com.android.settings.slices.test/fast");
+    private static final Uri SLOW_SLICE_URI =
+            Uri.parse("content://com.android.settings.slices.test/slow");
+    private static final int CACHED_HEIGHT = 120;
+
+    private FakeSettingsPanelActivity mActivity;
+    private TestPanelFragment mPanelFragment;
+    private MutableLiveData<Slice> mFastLiveData;
+    private MutableLiveData<Slice> mSlowLiveData;
+
+    @Before
+    public void setUp() {
+        final PanelFeatureProvider panelFeatureProvider = spy(new PanelFeatureProviderImpl());
+        final FakeFeatureFactory fakeFeatureFactory = FakeFeatureFactory.setupForTest();
+        fakeFeatureFactory.panelFeatureProvider = panelFeatureProvider;
+        final FakePanelContent fakePanelContent = new FakePanelContent();
+        doReturn(fakePanelContent).when(panelFeatureProvider).getPanel(any(), any());
+        // The panel created with the activity is replaced below, so it loads no Slice.
+        fakePanelContent.setSlices(Collections.emptyList());
+        mActivity = Robolectric.buildActivity(FakeSettingsPanelActivity.class).setup().get();
+
+        fakePanelContent.setSlices(Arrays.asList(FAST_SLICE_URI, SLOW_SLICE_URI));
+        fakePanelContent.setIsProgressiveSliceLoading(true);
+        mFastLiveData = new MutableLiveData<>(new Slice.Builder(FAST_SLICE_URI).build());
+        mSlowLiveData = new MutableLiveData<>();
+        PanelSliceLoadTracker.cacheHeight(SLOW_SLICE_URI, CACHED_HEIGHT);
+
+        mPanelFragment = new TestPanelFragment();
+        mPanelFragment.mTestLiveData.put(FAST_SLICE_URI, mFastLiveData);
+        mPanelFragment.mTestLiveData.put(SLOW_SLICE_URI, mSlowLiveData);
+        final Bundle arguments = new Bundle();
+        arguments.putString(SettingsPanelActivity.KEY_PANEL_TYPE_ARGUMENT,
+                FakePanelContent.FAKE_ACTION);
+        mPanelFragment.setArguments(arguments);
+        mActivity.getSupportFragmentManager().beginTransaction()
+                .replace(R.id.main_content, mPanelFragment)
+                .commitNow();
+    }
+
+    @After
+    public void tearDown() {
+        PanelSliceLoadTracker.clearCachedHeights();
+    }
+
+    @Test
+    public void slowSliceNotBound_panelShown() {
+        final RecyclerView panelSlices = getPanelSlices();
+
+        assertThat(panelSlices.getVisibility()).isEqualTo(View.VISIBLE);
+        assertThat(panelSlices.getAdapter().getItemCount()).isEqualTo(2);
+        assertThat(mPanelFragment.mSliceLoadTracker.isSliceBound(FAST_SLICE_URI)).isTrue();
+        assertThat(mPanelFragment.mSliceLoadTracker.isSliceBound(SLOW_SLICE_URI)).isFalse();
+    }
+
+    @Test
+    public void slowSliceNotBound_showsPlaceholderOfCachedHeight() {
+        final PanelSlicesAdapter.SliceRowViewHolder slowRow = getRow(1 /* position */);
+
+        assertThat(slowRow.itemView.getMinimumHeight()).isEqualTo(CACHED_HEIGHT);
+        assertThat(slowRow.sliceView.getVisibility()).isEqualTo(View.INVISIBLE);
+        assertThat(getRow(0 /* position */).sliceView.getVisibility()).isEqualTo(View.VISIBLE);
+    }
+
+    @Test
+    public void slowSliceBound_rowUpdated() {
+        mSlowLiveData.setValue(new Slice.Builder(SLOW_SLICE_URI).build());
+
+        final PanelSlicesAdapter.SliceRowViewHolder slowRow = getRow(1 /* position */);
+        assertThat(slowRow.itemView.getMinimumHeight()).isEqualTo(0);
+        assertThat(slowRow.sliceView.getVisibility()).isEqualTo(View.VISIBLE);
+        assertThat(mPanelFragment.mSliceLoadTracker.isSliceBound(SLOW_SLICE_URI)).isTrue();
+    }
+
+    @Test
+    public void slowSliceFailed_rowRemoved() {
+        mPanelFragment.mErrorListeners.get(SLOW_SLICE_URI)
+                .onSliceError(SliceLiveData.OnErrorListener.ERROR_INVALID_INPUT, null);
+
+        final PanelSlicesAdapter adapter = (PanelSlicesAdapter) getPanelSlices().getAdapter();
+        assertThat(adapter.getItemCount()).isEqualTo(1);
+        assertThat(adapter.getData()).containsExactly(mFastLiveData);
+    }
+
+    private RecyclerView getPanelSlices() {
+        return mPanelFragment.mLayoutView.findViewById(R.id.panel_parent_layout);
+    }
+
+    private PanelSlicesAdapter.SliceRowViewHolder getRow(int position) {
+        final RecyclerView panelSlices = getPanelSlices();
+        panelSlices.measure(
+                View.MeasureSpec.makeMeasureSpec(1000, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(2000, View.MeasureSpec.AT_MOST));
+        panelSlices.layout(0, 0, 1000, panelSlices.getMeasuredHeight());
+        return (PanelSlicesAdapter.SliceRowViewHolder)
+                panelSlices.findViewHolderForAdapterPosition(position);
+    }
+
+    /** Returns the given LiveData instead of binding to the Slice providers. */
+    public static class TestPanelFragment extends PanelFragment {
+        final Map<Uri, LiveData<Slice>> mTestLiveData = new ArrayMap<>();
+        final Map<Uri, SliceLiveData.OnErrorListener> mErrorListeners = new ArrayMap<>();
+
+        @Override
+        LiveData<Slice> createSliceLiveData(Uri uri, SliceLiveData.OnErrorListener listener) {
+            mErrorListeners.put(uri, listener);
+            return mTestLiveData.get(uri);
+        }
+    }
+}
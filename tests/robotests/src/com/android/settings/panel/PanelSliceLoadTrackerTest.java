@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.panel;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.net.Uri;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@Deprecated(forRemoval = true)
+@RunWith(RobolectricTestRunner.class)
+public class PanelSliceLoadTrackerTest {
+    private static final Uri FAST_URI = Uri.parse("content://test/fast");
+    private static final Uri SLOW_URI = Uri.parse("content://test/slow");
+
+    private long mNow;
+    private PanelSliceLoadTracker mTracker;
+
+    @Before
+    public void setUp() {
+        mNow = 1000L;
+        mTracker = new PanelSliceLoadTracker(() -> mNow);
+    }
+
+    @After
+    public void tearDown() {
+        PanelSliceLoadTracker.clearCachedHeights();
+    }
+
+    @Test
+    public void markSliceBound_fastAndSlowSlices_recordsEachLatencyInBindOrder() {
+        mTracker.markLoadStarted(SLOW_URI);
+        mTracker.markLoadStarted(FAST_URI);
+
+        mNow += 20;
+        assertThat(mTracker.markSliceBound(FAST_URI)).isTrue();
+        assertThat(mTracker.isSliceBound(SLOW_URI)).isFalse();
+        mNow += 480;
+        assertThat(mTracker.markSliceBound(SLOW_URI)).isTrue();
+
+        assertThat(mTracker.getBindLatencies()).containsExactly(FAST_URI, 20L, SLOW_URI, 500L)
+                .inOrder();
+    }
+
+    @Test
+    public void markSliceBound_sliceUpdatedAgain_keepsFirstLatency() {
+        mTracker.markLoadStarted(FAST_URI);
+        mNow += 20;
+        mTracker.markSliceBound(FAST_URI);
+
+        mNow += 1000;
+
+        assertThat(mTracker.markSliceBound(FAST_URI)).isFalse();
+        assertThat(mTracker.getBindLatencies().get(FAST_URI)).isEqualTo(20L);
+    }
+
+    @Test
+    public void getCachedHeight_neverShown_returnsZero() {
+        assertThat(PanelSliceLoadTracker.getCachedHeight(SLOW_URI)).isEqualTo(0);
+    }
+
+    @Test
+    public void cacheHeight_keepsLastPositiveHeight() {
+        PanelSliceLoadTracker.cacheHeight(SLOW_URI, 120);
+        PanelSliceLoadTracker.cacheHeight(SLOW_URI, 0);
+
+        assertThat(PanelSliceLoadTracker.getCachedHeight(SLOW_URI)).isEqualTo(120);
+    }
+}
@@ -168,6 +168,36 @@ public class PanelSlicesAdapterTest {
         return foundLabel;
     }
 
+    @Test
+    public void onBindViewHolder_showPlaceholders_sliceNotBound_usesCachedHeight() {
+        final LiveData<Slice> liveData = mock(LiveData.class);
+        mData.put(VOLUME_NOTIFICATION_URI, liveData);
+        PanelSliceLoadTracker.cacheHeight(VOLUME_NOTIFICATION_URI, 120);
+        final PanelSlicesAdapter adapter = new PanelSlicesAdapter(mPanelFragment, mData,
+                0 /* metrics category */, true /* showPlaceholders */);
+        final SliceRowViewHolder viewHolder =
+                adapter.onCreateViewHolder(new FrameLayout(mContext), 0 /* view type*/);
+
+        adapter.onBindViewHolder(viewHolder, 0 /* position */);
+
+        assertThat(viewHolder.itemView.getMinimumHeight()).isEqualTo(120);
+        assertThat(viewHolder.sliceView.getVisibility()).isEqualTo(View.INVISIBLE);
+        PanelSliceLoadTracker.clearCachedHeights();
+    }
+
+    @Test
+    public void removeSlice_removesRow() {
+        addTestLiveData(VOLUME_NOTIFICATION_URI);
+        addTestLiveData(MEDIA_OUTPUT_INDICATOR_SLICE_URI);
+        final PanelSlicesAdapter adapter = new PanelSlicesAdapter(mPanelFragment, mData,
+                0 /* metrics category */, true /* showPlaceholders */);
+
+        adapter.removeSlice(VOLUME_NOTIFICATION_URI);
+
+        assertThat(adapter.getItemCount()).isEqualTo(1);
+        assertThat(adapter.getData()).containsExactly(mData.get(MEDIA_OUTPUT_INDICATOR_SLICE_URI));
+    }
+
     @Test
     public void sizeOfAdapter_shouldNotExceedMaxNum() {
         for (int i = 0; i < MAX_NUM_OF_SLICES + 2; i++) {
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.provider.SettingsSlicesContract;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.time.Duration;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class SliceBackgroundWorkerTest {
+    private static final long DEFAULT_INTERVAL = 300L;
+
+    private Context mContext;
+    private ContentResolver mResolver;
+    private Uri mUri;
+    private TestWorker mWorker;
+
+    @Before
+    public void setUp() {
+        mContext = spy(RuntimeEnvironment.getApplication());
+        mResolver = spy(mContext.getContentResolver());
+        doReturn(mResolver).when(mContext).getContentResolver();
+        mUri = new Uri.Builder()
+                .scheme(ContentResolver.SCHEME_CONTENT)
+                .authority(SettingsSlicesContract.AUTHORITY)
+                .appendPath("test_" + System.nanoTime())
+                .build();
+        mWorker = new TestWorker(mContext, mUri, DEFAULT_INTERVAL);
+    }
+
+    @After
+    public void tearDown() {
+        mWorker.unpin();
+        idle();
+    }
+
+    @Test
+    public void updateResults_withinInterval_mergedIntoOneNotification() {
+        mWorker.setResults(List.of("a"));
+        mWorker.setResults(List.of("b"));
+        mWorker.setResults(List.of("c"));
+
+        idleFor(DEFAULT_INTERVAL);
+
+        verify(mResolver, times(1)).notifyChange(eq(mUri), any());
+        assertThat(SliceBackgroundWorker.getMergedNotificationCount(mUri)).isEqualTo(2);
+    }
+
+    @Test
+    public void updateResults_flapBackToNotifiedResults_dropped() {
+        mWorker.setResults(List.of("a"));
+        idleFor(DEFAULT_INTERVAL);
+
+        mWorker.setResults(List.of("b"));
+        mWorker.setResults(List.of("a"));
+        idleFor(DEFAULT_INTERVAL);
+
+        verify(mResolver, times(1)).notifyChange(eq(mUri), any());
+        assertThat(SliceBackgroundWorker.getDroppedNotificationCount(mUri)).isEqualTo(1);
+    }
+
+    @Test
+    public void notifySliceChange_sameResults_alwaysNotified() {
+        mWorker.setResults(List.of("a"));
+        idleFor(DEFAULT_INTERVAL);
+
+        mWorker.notifySliceChange();
+        idleFor(DEFAULT_INTERVAL);
+
+        verify(mResolver, times(2)).notifyChange(eq(mUri), any());
+        assertThat(SliceBackgroundWorker.getDroppedNotificationCount(mUri)).isEqualTo(0);
+    }
+
+    @Test
+    public void updateResults_customInterval_notifiedAtEndOfInterval() {
+        final long interval = 1000L;
+        mWorker = new TestWorker(mContext, mUri, interval);
+
+        mWorker.setResults(List.of("a"));
+        idleFor(DEFAULT_INTERVAL);
+        verify(mResolver, never()).notifyChange(eq(mUri), any());
+
+        idleFor(interval - DEFAULT_INTERVAL);
+        verify(mResolver, times(1)).notifyChange(eq(mUri), any());
+    }
+
+    @Test
+    public void unpin_clearsCounters() {
+        mWorker.setResults(List.of("a"));
+        mWorker.setResults(List.of("b"));
+        idleFor(DEFAULT_INTERVAL);
+
+        mWorker.unpin();
+        idle();
+
+        assertThat(SliceBackgroundWorker.getMergedNotificationCount(mUri)).isEqualTo(0);
+    }
+
+    private static void idle() {
+        final ShadowLooper looper = shadowOf(SliceBackgroundWorker.getNotifySliceChangeLooper());
+        looper.idle();
+    }
+
+    private static void idleFor(long millis) {
+        final ShadowLooper looper = shadowOf(SliceBackgroundWorker.getNotifySliceChangeLooper());
+        looper.idleFor(Duration.ofMillis(millis));
+    }
+
+    private static class TestWorker extends SliceBackgroundWorker<String> {
+        private final long mInterval;
+
+        TestWorker(Context context, Uri uri, long interval) {
+            super(context, uri);
+            mInterval = interval;
+        }
+
+        void setResults(List<String> results) {
+            updateResults(results);
+        }
+
+        @Override
+        protected long getSliceUpdateInterval() {
+            return mInterval;
+        }
+
+        @Override
+        protected void onSlicePinned() {
+        }
+
+        @Override
+        protected void onSliceUnpinned() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
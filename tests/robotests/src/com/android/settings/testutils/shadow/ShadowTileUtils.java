@@ -28,6 +28,7 @@ import com.android.settingslib.drawer.TileUtils;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Implementation;
 import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.Resetter;
 
 import java.util.Map;
 
@@ -38,6 +39,12 @@ public class ShadowTileUtils {
 
     private static boolean sChecked;
     private static Bundle sResult;
+    private static int sIconResId = R.drawable.ic_settings_accent;
+
+    @Resetter
+    public static void reset() {
+        sIconResId = R.drawable.ic_settings_accent;
+    }
 
     @Implementation
     protected static String getTextFromUri(Context context, Uri uri,
@@ -48,8 +55,7 @@ public class ShadowTileUtils {
     @Implementation
     protected static Pair<String, Integer> getIconFromUri(Context context, String packageName,
             Uri uri, Map<String, IContentProvider> providerMap) {
-        return Pair.create(RuntimeEnvironment.application.getPackageName(),
-                R.drawable.ic_settings_accent);
+        return Pair.create(RuntimeEnvironment.application.getPackageName(), sIconResId);
     }
 
     @Implementation
@@ -76,4 +82,8 @@ public class ShadowTileUtils {
     public static void setResultBundle(Bundle result) {
         sResult = result;
     }
+
+    public static void setIconResId(int iconResId) {
+        sIconResId = iconResId;
+    }
 }
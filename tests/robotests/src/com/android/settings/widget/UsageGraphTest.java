@@ -180,6 +180,36 @@ public class UsageGraphTest {
         assertThat(localPaths.valueAt(5)).isEqualTo(-1);
     }
 
+    @Test
+    public void onDraw_dataUnchanged_doesNotRebuildPaths() {
+        final SparseIntArray points = new SparseIntArray();
+        points.append(0, 100);
+        points.append(500, 50);
+        mGraph.addPath(points);
+        final Canvas canvas = new Canvas();
+
+        mGraph.onDraw(canvas);
+        mGraph.onDraw(canvas);
+        mGraph.onDraw(canvas);
+
+        assertThat(mGraph.mPathRebuildCount).isEqualTo(1);
+    }
+
+    @Test
+    public void onDraw_dataChanged_rebuildsPaths() {
+        final SparseIntArray points = new SparseIntArray();
+        points.append(0, 100);
+        points.append(500, 50);
+        mGraph.addPath(points);
+        final Canvas canvas = new Canvas();
+        mGraph.onDraw(canvas);
+
+        mGraph.addProjectedPath(points);
+        mGraph.onDraw(canvas);
+
+        assertThat(mGraph.mPathRebuildCount).isEqualTo(2);
+    }
+
     @Test
     public void drawFilledPath_emptyPath_shouldNotCrash() {
         final Canvas canvas = new Canvas();
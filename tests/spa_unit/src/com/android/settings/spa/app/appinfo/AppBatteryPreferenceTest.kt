@@ -39,6 +39,8 @@ import com.android.settings.fuelgauge.batteryusage.BatteryChartPreferenceControl
 import com.android.settings.fuelgauge.batteryusage.BatteryDiffEntry
 import com.android.settingslib.spa.testutils.delay
 import com.android.settingslib.spaprivileged.model.app.userId
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flowOf
 import kotlinx.coroutines.runBlocking
 import org.junit.After
 import org.junit.Before
@@ -175,10 +177,34 @@ class AppBatteryPreferenceTest {
         }
     }
 
-    private fun setContent(app: ApplicationInfo = APP) {
+    @Test
+    fun withSnapshot_loadedAsNull_showsNoBatterySummary() {
+        setContent(snapshotFlow = flowOf(AppInfoSnapshot(facts = mapOf(AppBatterySource to null))))
+
+        composeTestRule.waitUntilExactlyOneExists(
+            hasText(context.getString(R.string.no_battery_summary))
+        )
+    }
+
+    @Test
+    fun withSnapshot_timedOut_loadsByItself() {
+        val batteryDiffEntry = mock<BatteryDiffEntry> {
+            on { percentage } doReturn 45.6
+        }.apply { mConsumePower = 12.3 }
+        mockBatteryDiffEntry(batteryDiffEntry)
+
+        setContent(snapshotFlow = flowOf(AppInfoSnapshot(timedOut = setOf(AppBatterySource))))
+
+        composeTestRule.waitUntilExactlyOneExists(hasText("46% use since last full charge"))
+    }
+
+    private fun setContent(
+        app: ApplicationInfo = APP,
+        snapshotFlow: Flow<AppInfoSnapshot>? = null,
+    ) {
         composeTestRule.setContent {
             CompositionLocalProvider(LocalContext provides context) {
-                AppBatteryPreference(app)
+                AppBatteryPreference(app, snapshotFlow)
             }
         }
     }
@@ -43,6 +43,8 @@ import com.android.settings.datausage.lib.INetworkTemplates
 import com.android.settings.datausage.lib.NetworkUsageData
 import com.android.settingslib.spa.testutils.delay
 import com.android.settingslib.spa.testutils.waitUntilExists
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableStateFlow
 import org.junit.After
 import org.junit.Before
 import org.junit.Rule
@@ -137,6 +139,36 @@ class AppDataUsagePreferenceTest {
         composeTestRule.waitUntilExists(hasText("123 B used since Oct 25, 2022"))
     }
 
+    @Test
+    fun withSnapshot_beforeLoaded_showsPlaceholder() {
+        setContent(snapshotFlow = MutableStateFlow(AppInfoSnapshot()))
+
+        composeTestRule.onNodeWithText(context.getString(R.string.cellular_data_usage))
+            .assertIsDisplayed()
+        composeTestRule.onNodeWithText(context.getString(R.string.computing_size))
+            .assertIsDisplayed()
+    }
+
+    @Test
+    fun withSnapshot_whenLoaded_showsSummary() {
+        val snapshotFlow = MutableStateFlow(AppInfoSnapshot())
+        setContent(snapshotFlow = snapshotFlow)
+
+        snapshotFlow.value =
+            AppInfoSnapshot(facts = mapOf(AppDataUsageSource to "Snapshot summary"))
+
+        composeTestRule.waitUntilExists(hasText("Snapshot summary"))
+    }
+
+    @Test
+    fun withSnapshot_whenBandwidthControlDisabled_notDisplayed() {
+        whenever(Utils.isBandwidthControlEnabled()).thenReturn(false)
+
+        setContent(snapshotFlow = MutableStateFlow(AppInfoSnapshot()))
+
+        composeTestRule.onRoot().assertIsNotDisplayed()
+    }
+
     @Test
     fun whenClick_startActivity() {
         setContent()
@@ -152,12 +184,18 @@ class AppDataUsagePreferenceTest {
         }
     }
 
-    private fun setContent(app: ApplicationInfo = APP) {
+    private fun setContent(
+        app: ApplicationInfo = APP,
+        snapshotFlow: Flow<AppInfoSnapshot>? = null,
+    ) {
         composeTestRule.setContent {
             CompositionLocalProvider(LocalContext provides context) {
-                AppDataUsagePreference(app, TestNetworkTemplates) { _, _ ->
-                    TestRepository()
-                }
+                AppDataUsagePreference(
+                    app = app,
+                    networkTemplates = TestNetworkTemplates,
+                    repositoryFactory = { _, _ -> TestRepository() },
+                    snapshotFlow = snapshotFlow,
+                )
             }
         }
         composeTestRule.delay()
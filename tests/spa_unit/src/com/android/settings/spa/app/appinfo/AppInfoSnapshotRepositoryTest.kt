@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.spa.app.appinfo
+
+import android.content.Context
+import android.content.pm.ApplicationInfo
+import android.content.pm.PackageInfo
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.last
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(AndroidJUnit4::class)
+class AppInfoSnapshotRepositoryTest {
+
+    private val context: Context = ApplicationProvider.getApplicationContext()
+
+    private var loadCount = 0
+
+    private val fastSource = object : AppInfoFactSource<String> {
+        override val name = "fast"
+
+        override suspend fun load(context: Context, app: ApplicationInfo): String {
+            loadCount++
+            return "fast$loadCount"
+        }
+    }
+
+    private val slowSource = object : AppInfoFactSource<String> {
+        override val name = "slow"
+
+        override suspend fun load(context: Context, app: ApplicationInfo): String {
+            delay(SLOW_MILLIS)
+            return "slow"
+        }
+    }
+
+    private val failingSource = object : AppInfoFactSource<String> {
+        override val name = "failing"
+
+        override suspend fun load(context: Context, app: ApplicationInfo): String =
+            throw IllegalStateException()
+    }
+
+    private var unavailableLoadCount = 0
+
+    private val unavailableSource = object : AppInfoFactSource<String> {
+        override val name = "unavailable"
+
+        override suspend fun isAvailable(context: Context, app: ApplicationInfo) = false
+
+        override suspend fun load(context: Context, app: ApplicationInfo): String {
+            unavailableLoadCount++
+            return "unavailable"
+        }
+    }
+
+    @After
+    fun tearDown() {
+        AppInfoSnapshotRepository.clearCache()
+    }
+
+    @Test
+    fun snapshotFlow_streamsFastFactBeforeSlowOne() = runBlocking {
+        val repository = createRepository(listOf(fastSource, slowSource))
+
+        val snapshots = repository.snapshotFlow(PACKAGE_INFO).toList()
+
+        assertThat(snapshots.first().isLoaded(fastSource)).isFalse()
+        val partial = snapshots.first { it.isLoaded(fastSource) }
+        assertThat(partial.isLoaded(slowSource)).isFalse()
+        assertThat(snapshots.last()[fastSource]).isEqualTo("fast1")
+        assertThat(snapshots.last()[slowSource]).isEqualTo("slow")
+        assertThat(snapshots.last().durations.keys).containsExactly("fast", "slow")
+    }
+
+    @Test
+    fun snapshotFlow_sourceOverBudget_markedTimedOut() = runBlocking {
+        val repository =
+            createRepository(listOf(fastSource, slowSource), budgetMillis = SLOW_MILLIS / 2)
+
+        val snapshot = repository.snapshotFlow(PACKAGE_INFO).last()
+
+        assertThat(snapshot[fastSource]).isEqualTo("fast1")
+        assertThat(snapshot.isTimedOut(fastSource)).isFalse()
+        assertThat(snapshot.isLoaded(slowSource)).isFalse()
+        assertThat(snapshot.isTimedOut(slowSource)).isTrue()
+    }
+
+    @Test
+    fun snapshotFlow_sourceOverBudget_timedOutNotCached() = runBlocking {
+        val repository =
+            createRepository(listOf(fastSource, slowSource), budgetMillis = SLOW_MILLIS / 2)
+        repository.snapshotFlow(PACKAGE_INFO).last()
+
+        val snapshots = repository.snapshotFlow(PACKAGE_INFO).toList()
+
+        assertThat(snapshots.first()[fastSource]).isEqualTo("fast1")
+        assertThat(snapshots.first().isTimedOut(slowSource)).isFalse()
+        assertThat(snapshots.first().isLoaded(slowSource)).isFalse()
+    }
+
+    @Test
+    fun snapshotFlow_sourceFails_loadedAsNull() = runBlocking {
+        val repository = createRepository(listOf(fastSource, failingSource))
+
+        val snapshot = repository.snapshotFlow(PACKAGE_INFO).last()
+
+        assertThat(snapshot[fastSource]).isEqualTo("fast1")
+        assertThat(snapshot.isLoaded(failingSource)).isTrue()
+        assertThat(snapshot.isTimedOut(failingSource)).isFalse()
+        assertThat(snapshot[failingSource]).isNull()
+    }
+
+    @Test
+    fun snapshotFlow_sourceUnavailable_notLoaded() = runBlocking {
+        val repository = createRepository(listOf(fastSource, unavailableSource))
+
+        val snapshot = repository.snapshotFlow(PACKAGE_INFO).last()
+
+        assertThat(snapshot[fastSource]).isEqualTo("fast1")
+        assertThat(snapshot.isLoaded(unavailableSource)).isFalse()
+        assertThat(unavailableLoadCount).isEqualTo(0)
+    }
+
+    @Test
+    fun snapshotFlow_samePackageAgain_startsWithCachedSnapshot() = runBlocking {
+        val repository = createRepository(listOf(fastSource))
+        repository.snapshotFlow(PACKAGE_INFO).last()
+
+        val snapshots = repository.snapshotFlow(PACKAGE_INFO).toList()
+
+        assertThat(snapshots.first()[fastSource]).isEqualTo("fast1")
+        assertThat(snapshots.last()[fastSource]).isEqualTo("fast2")
+    }
+
+    @Test
+    fun snapshotFlow_newVersion_doesNotUseCachedSnapshot() = runBlocking {
+        val repository = createRepository(listOf(fastSource))
+        repository.snapshotFlow(PACKAGE_INFO).last()
+        val updatedPackageInfo = PackageInfo().apply {
+            packageName = PACKAGE_NAME
+            applicationInfo = APP
+            longVersionCode = 2
+        }
+
+        val snapshots = repository.snapshotFlow(updatedPackageInfo).toList()
+
+        assertThat(snapshots.first().isLoaded(fastSource)).isFalse()
+    }
+
+    private fun createRepository(
+        sources: List<AppInfoFactSource<*>>,
+        budgetMillis: Long = 5000,
+    ) = AppInfoSnapshotRepository(context, sources, budgetMillis, Dispatchers.Default)
+
+    private companion object {
+        const val PACKAGE_NAME = "package.name"
+        const val SLOW_MILLIS = 200L
+
+        val APP = ApplicationInfo().apply {
+            packageName = PACKAGE_NAME
+        }
+
+        val PACKAGE_INFO = PackageInfo().apply {
+            packageName = PACKAGE_NAME
+            applicationInfo = APP
+            longVersionCode = 1
+        }
+    }
+}
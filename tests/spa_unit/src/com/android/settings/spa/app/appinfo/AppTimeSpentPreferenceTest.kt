@@ -24,10 +24,12 @@ import android.content.pm.PackageManager.ResolveInfoFlags
 import android.content.pm.ResolveInfo
 import androidx.compose.runtime.CompositionLocalProvider
 import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.test.ExperimentalTestApi
 import androidx.compose.ui.test.assertIsDisplayed
 import androidx.compose.ui.test.assertIsEnabled
 import androidx.compose.ui.test.assertIsNotDisplayed
 import androidx.compose.ui.test.assertIsNotEnabled
+import androidx.compose.ui.test.hasText
 import androidx.compose.ui.test.junit4.createComposeRule
 import androidx.compose.ui.test.onNodeWithText
 import androidx.compose.ui.test.onRoot
@@ -35,6 +37,7 @@ import androidx.test.core.app.ApplicationProvider
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import com.android.settings.R
 import com.android.settings.testutils.FakeFeatureFactory
+import kotlinx.coroutines.flow.flowOf
 import org.junit.Before
 import org.junit.Rule
 import org.junit.Test
@@ -47,6 +50,7 @@ import org.mockito.junit.MockitoJUnit
 import org.mockito.junit.MockitoRule
 import org.mockito.Mockito.`when` as whenever
 
+@OptIn(ExperimentalTestApi::class)
 @RunWith(AndroidJUnit4::class)
 class AppTimeSpentPreferenceTest {
     @get:Rule
@@ -135,6 +139,20 @@ class AppTimeSpentPreferenceTest {
             .assertIsNotEnabled()
     }
 
+    @Test
+    fun withSnapshot_timedOut_loadsByItself() {
+        mockActivitiesQueryResult(listOf(MATCHED_RESOLVE_INFO))
+        val snapshotFlow = flowOf(AppInfoSnapshot(timedOut = setOf(AppTimeSpentSource)))
+
+        composeTestRule.setContent {
+            CompositionLocalProvider(LocalContext provides context) {
+                AppTimeSpentPreference(INSTALLED_APP, snapshotFlow)
+            }
+        }
+
+        composeTestRule.waitUntilExactlyOneExists(hasText(TIME_SPENT))
+    }
+
     companion object {
         private const val PACKAGE_NAME = "package name"
         private const val TIME_SPENT = "15 minutes"
@@ -47,11 +47,18 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RunWith(AndroidJUnit4.class)
 public class CategoryManagerTest {
+    private static final String TILE_PACKAGE = "com.android.settings.test.tiles";
+    private static final String OTHER_PACKAGE = "com.android.settings.test.other";
 
     private ActivityInfo mActivityInfo;
     private Context mContext;
@@ -408,6 +415,107 @@ public class CategoryManagerTest {
         assertThat(category.getTilesCount()).isEqualTo(1);
     }
 
+    @Test
+    public void reloadPackage_packageWithoutTiles_doesNotLoadCategories() {
+        final TestCategoryManager categoryManager = new TestCategoryManager(mContext);
+        categoryManager.mLoadedCategories = createCategories(createActivityTile(CATEGORY_HOMEPAGE,
+                OTHER_PACKAGE, "class", 100));
+        categoryManager.getCategories(mContext);
+
+        final Set<String> changedCategories =
+                categoryManager.reloadPackage(mContext, TILE_PACKAGE);
+
+        assertThat(changedCategories).isEmpty();
+        assertThat(categoryManager.mLoadCount).isEqualTo(1);
+    }
+
+    @Test
+    public void reloadPackage_tileAdded_publishesNewCategory() {
+        final Tile otherTile = createActivityTile(CATEGORY_HOMEPAGE, OTHER_PACKAGE, "class", 100);
+        final Tile newTile = createActivityTile(CATEGORY_HOMEPAGE, TILE_PACKAGE, "class", 50);
+        final TestCategoryManager categoryManager = new TestCategoryManager(mContext);
+        categoryManager.mLoadedCategories = createCategories(otherTile);
+        final DashboardCategory loaded =
+                categoryManager.getTilesByCategory(mContext, CATEGORY_HOMEPAGE);
+        categoryManager.mLoadedCategories = createCategories(otherTile, newTile);
+        categoryManager.mPackagesWithTileComponents.add(TILE_PACKAGE);
+
+        final Set<String> changedCategories =
+                categoryManager.reloadPackage(mContext, TILE_PACKAGE);
+
+        final DashboardCategory reloaded =
+                categoryManager.getTilesByCategory(mContext, CATEGORY_HOMEPAGE);
+        assertThat(changedCategories).containsExactly(CATEGORY_HOMEPAGE);
+        assertThat(reloaded).isNotSameInstanceAs(loaded);
+        assertThat(reloaded.getTiles()).containsExactly(otherTile, newTile).inOrder();
+        assertThat(loaded.getTiles()).containsExactly(otherTile);
+        assertThat(categoryManager.getCategories(mContext)).containsExactly(reloaded);
+    }
+
+    @Test
+    public void reloadPackage_packageRemoved_removesItsTiles() {
+        final Tile otherTile = createActivityTile(CATEGORY_HOMEPAGE, OTHER_PACKAGE, "class", 100);
+        final Tile removedTile =
+                createActivityTile(CATEGORY_HOMEPAGE, TILE_PACKAGE, "class", 50);
+        final TestCategoryManager categoryManager = new TestCategoryManager(mContext);
+        categoryManager.mLoadedCategories = createCategories(otherTile, removedTile);
+        categoryManager.getCategories(mContext);
+        categoryManager.mLoadedCategories = createCategories(otherTile);
+
+        final Set<String> changedCategories =
+                categoryManager.reloadPackage(mContext, TILE_PACKAGE);
+
+        assertThat(changedCategories).containsExactly(CATEGORY_HOMEPAGE);
+        assertThat(categoryManager.getTilesByCategory(mContext, CATEGORY_HOMEPAGE).getTiles())
+                .containsExactly(otherTile);
+    }
+
+    @Test
+    public void getCategories_withSnapshot_restoresWithoutLoading() throws Exception {
+        final TestCategoryManager categoryManager = new TestCategoryManager(mContext);
+        categoryManager.mSnapshot = createSnapshot(
+                createActivityTile(CATEGORY_HOMEPAGE, TILE_PACKAGE, "class", 100));
+
+        final List<DashboardCategory> categories = categoryManager.getCategories(mContext);
+
+        assertThat(categories).hasSize(1);
+        assertThat(categories.get(0).getTile(0).getPackageName()).isEqualTo(TILE_PACKAGE);
+        assertThat(categoryManager.mLoadCount).isEqualTo(0);
+        assertThat(categoryManager.hasUnverifiedSnapshot()).isTrue();
+    }
+
+    @Test
+    public void verifySnapshot_packagesUnchanged_keepsRestoredCategories() throws Exception {
+        final TestCategoryManager categoryManager = new TestCategoryManager(mContext);
+        categoryManager.mSnapshot = createSnapshot(
+                createActivityTile(CATEGORY_HOMEPAGE, TILE_PACKAGE, "class", 100));
+        final List<DashboardCategory> restored = categoryManager.getCategories(mContext);
+
+        final Set<String> changedCategories = categoryManager.verifySnapshot(mContext);
+
+        assertThat(changedCategories).isEmpty();
+        assertThat(categoryManager.hasUnverifiedSnapshot()).isFalse();
+        assertThat(categoryManager.getCategories(mContext)).isSameInstanceAs(restored);
+        assertThat(categoryManager.mLoadCount).isEqualTo(0);
+    }
+
+    private DashboardTileSnapshot createSnapshot(Tile... tiles) throws Exception {
+        final List<DashboardCategory> categories = createCategories(tiles);
+        final Map<String, DashboardCategory> categoryByKeyMap = new HashMap<>();
+        categoryByKeyMap.put(CATEGORY_HOMEPAGE, categories.get(0));
+        return DashboardTileSnapshot.fromByteArray(mContext,
+                DashboardTileSnapshot.toByteArray(mContext,
+                        DashboardTileSnapshot.marshallCategories(categoryByKeyMap, categories)));
+    }
+
+    private static List<DashboardCategory> createCategories(Tile... tiles) {
+        final DashboardCategory category = new DashboardCategory(CATEGORY_HOMEPAGE);
+        for (Tile tile : tiles) {
+            category.addTile(tile);
+        }
+        return new ArrayList<>(Arrays.asList(category));
+    }
+
     private Tile createActivityTile(String categoryKey, String packageName, String className,
             int order) {
         final ActivityInfo activityInfo = new ActivityInfo();
@@ -429,4 +537,44 @@ public class CategoryManagerTest {
         metaData.putInt(META_DATA_KEY_ORDER, order);
         return new ProviderTile(providerInfo, categoryKey, metaData);
     }
+
+    /** Loads the given categories instead of the tiles of the device. */
+    private static class TestCategoryManager extends CategoryManager {
+        List<DashboardCategory> mLoadedCategories = new ArrayList<>();
+        final Set<String> mPackagesWithTileComponents = new HashSet<>();
+        DashboardTileSnapshot mSnapshot;
+        int mLoadCount;
+
+        TestCategoryManager(Context context) {
+            super(context);
+        }
+
+        @Override
+        List<DashboardCategory> loadCategories(Context context) {
+            mLoadCount++;
+            final List<DashboardCategory> categories = new ArrayList<>();
+            for (DashboardCategory category : mLoadedCategories) {
+                final DashboardCategory copy = new DashboardCategory(category.key);
+                for (Tile tile : category.getTiles()) {
+                    copy.addTile(tile);
+                }
+                categories.add(copy);
+            }
+            return categories;
+        }
+
+        @Override
+        boolean hasTileComponents(Context context, String packageName) {
+            return mPackagesWithTileComponents.contains(packageName);
+        }
+
+        @Override
+        DashboardTileSnapshot readSnapshot(Context context) {
+            return mSnapshot;
+        }
+
+        @Override
+        void writeSnapshot(Context context, byte[] categories) {
+        }
+    }
 }
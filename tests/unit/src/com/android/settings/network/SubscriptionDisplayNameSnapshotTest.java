@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.network;
+
+import static com.android.settings.network.SubscriptionUtil.KEY_UNIQUE_SUBSCRIPTION_DISPLAYNAME;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.ContentObserver;
+import android.provider.Telephony;
+import android.telephony.SubscriptionInfo;
+import android.telephony.SubscriptionManager;
+import android.telephony.TelephonyManager;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Map;
+
+@RunWith(AndroidJUnit4.class)
+public class SubscriptionDisplayNameSnapshotTest {
+    private static final int SUBID_1 = 1;
+    private static final int SUBID_2 = 2;
+    private static final CharSequence CARRIER_1 = "carrier1";
+
+    private Context mContext;
+    private SubscriptionDisplayNameSnapshot mSnapshot;
+
+    @Mock
+    private SubscriptionManager mSubMgr;
+    @Mock
+    private TelephonyManager mTelMgr;
+    @Mock
+    private SharedPreferences mSharedPreferences;
+    @Mock
+    private SharedPreferences.Editor mEditor;
+    @Mock
+    private ContentResolver mContentResolver;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(ApplicationProvider.getApplicationContext());
+        when(mContext.getSystemService(SubscriptionManager.class)).thenReturn(mSubMgr);
+        when(mContext.getSystemService(TelephonyManager.class)).thenReturn(mTelMgr);
+        when(mContext.getContentResolver()).thenReturn(mContentResolver);
+        when(mTelMgr.getUiccSlotsInfo()).thenReturn(null);
+        when(mContext.getSharedPreferences(
+                KEY_UNIQUE_SUBSCRIPTION_DISPLAYNAME, Context.MODE_PRIVATE))
+                .thenReturn(mSharedPreferences);
+        when(mSharedPreferences.getString(anyString(), anyString())).thenReturn("");
+        when(mSharedPreferences.edit()).thenReturn(mEditor);
+
+        final SubscriptionInfo info1 = mock(SubscriptionInfo.class);
+        final SubscriptionInfo info2 = mock(SubscriptionInfo.class);
+        when(info1.getSubscriptionId()).thenReturn(SUBID_1);
+        when(info2.getSubscriptionId()).thenReturn(SUBID_2);
+        when(info1.getDisplayName()).thenReturn(CARRIER_1);
+        when(info2.getDisplayName()).thenReturn(CARRIER_1);
+        when(mSubMgr.getAvailableSubscriptionInfoList()).thenReturn(Arrays.asList(info1, info2));
+        when(mSubMgr.getPhoneNumber(SUBID_1)).thenReturn("1112223333");
+        when(mSubMgr.getPhoneNumber(SUBID_2)).thenReturn("2223334444");
+
+        mSnapshot = new SubscriptionDisplayNameSnapshot();
+    }
+
+    @After
+    public void tearDown() {
+        mSnapshot.stopListening();
+        SubscriptionUtil.setAvailableSubscriptionsForTesting(null);
+        SubscriptionDisplayNameSnapshot.resetForTesting();
+    }
+
+    @Test
+    public void getDisplayNames_sameSubscriptions_computedOnce() {
+        final Map<Integer, CharSequence> first = mSnapshot.getDisplayNames(mContext);
+        final Map<Integer, CharSequence> second = mSnapshot.getDisplayNames(mContext);
+
+        assertThat(second).isSameInstanceAs(first);
+        assertThat(first.get(SUBID_1).toString()).isEqualTo(CARRIER_1 + " 3333");
+        assertThat(first.get(SUBID_2).toString()).isEqualTo(CARRIER_1 + " 4444");
+        verify(mSubMgr, times(1)).getPhoneNumber(SUBID_1);
+        verify(mSharedPreferences, times(1)).edit();
+        verify(mEditor, times(1)).apply();
+    }
+
+    @Test
+    public void getDisplayNames_afterInvalidate_recomputed() {
+        final Map<Integer, CharSequence> first = mSnapshot.getDisplayNames(mContext);
+
+        mSnapshot.invalidate();
+        final Map<Integer, CharSequence> second = mSnapshot.getDisplayNames(mContext);
+
+        assertThat(second).isNotSameInstanceAs(first);
+        assertThat(second).isEqualTo(first);
+        verify(mSubMgr, times(2)).getPhoneNumber(SUBID_1);
+    }
+
+    @Test
+    public void getDisplayNames_listening_doesNotQuerySubscriptionsAgain() {
+        mSnapshot.startListening(mContext);
+
+        final Map<Integer, CharSequence> first = mSnapshot.getDisplayNames(mContext);
+        clearInvocations(mSubMgr);
+        final Map<Integer, CharSequence> second = mSnapshot.getDisplayNames(mContext);
+
+        assertThat(second).isSameInstanceAs(first);
+        verify(mSubMgr, never()).getAvailableSubscriptionInfoList();
+    }
+
+    @Test
+    public void getDisplayNames_subscriptionsChanged_recomputed() {
+        final ArgumentCaptor<SubscriptionManager.OnSubscriptionsChangedListener> listenerCaptor =
+                ArgumentCaptor.forClass(SubscriptionManager.OnSubscriptionsChangedListener.class);
+        mSnapshot.startListening(mContext);
+        verify(mSubMgr).addOnSubscriptionsChangedListener(any(), listenerCaptor.capture());
+        final Map<Integer, CharSequence> first = mSnapshot.getDisplayNames(mContext);
+        clearInvocations(mSubMgr);
+
+        listenerCaptor.getValue().onSubscriptionsChanged();
+        final Map<Integer, CharSequence> second = mSnapshot.getDisplayNames(mContext);
+
+        assertThat(second).isNotSameInstanceAs(first);
+        verify(mSubMgr, atLeastOnce()).getAvailableSubscriptionInfoList();
+    }
+
+    @Test
+    public void getDisplayNames_phoneNumberChanged_recomputed() {
+        final ArgumentCaptor<ContentObserver> observerCaptor =
+                ArgumentCaptor.forClass(ContentObserver.class);
+        mSnapshot.startListening(mContext);
+        verify(mContentResolver).registerContentObserver(eq(Telephony.SimInfo.CONTENT_URI),
+                eq(true), observerCaptor.capture());
+        final Map<Integer, CharSequence> first = mSnapshot.getDisplayNames(mContext);
+        when(mSubMgr.getPhoneNumber(SUBID_1)).thenReturn("1112225555");
+
+        observerCaptor.getValue().onChange(false /* selfChange */);
+        final Map<Integer, CharSequence> second = mSnapshot.getDisplayNames(mContext);
+
+        assertThat(first.get(SUBID_1).toString()).isEqualTo(CARRIER_1 + " 3333");
+        assertThat(second.get(SUBID_1).toString()).isEqualTo(CARRIER_1 + " 5555");
+    }
+
+    @Test
+    public void getDisplayNames_listeningWithSubscriptionsForTesting_checksThemAgain() {
+        final SubscriptionInfo info = mock(SubscriptionInfo.class);
+        when(info.getSubscriptionId()).thenReturn(SUBID_1);
+        when(info.getDisplayName()).thenReturn(CARRIER_1);
+        SubscriptionUtil.setAvailableSubscriptionsForTesting(Arrays.asList(info));
+        mSnapshot.startListening(mContext);
+        final Map<Integer, CharSequence> first = mSnapshot.getDisplayNames(mContext);
+
+        final SubscriptionInfo otherInfo = mock(SubscriptionInfo.class);
+        when(otherInfo.getSubscriptionId()).thenReturn(SUBID_2);
+        when(otherInfo.getDisplayName()).thenReturn(CARRIER_1);
+        SubscriptionUtil.setAvailableSubscriptionsForTesting(Arrays.asList(otherInfo));
+        final Map<Integer, CharSequence> second = mSnapshot.getDisplayNames(mContext);
+
+        assertThat(first.keySet()).containsExactly(SUBID_1);
+        assertThat(second.keySet()).containsExactly(SUBID_2);
+    }
+}
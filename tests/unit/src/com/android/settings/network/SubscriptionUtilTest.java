@@ -47,6 +47,7 @@ import androidx.test.ext.junit.runners.AndroidJUnit4;
 
 import com.android.settings.R;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -92,6 +93,11 @@ public class SubscriptionUtilTest {
         when(mTelMgr.getUiccSlotsInfo()).thenReturn(null);
     }
 
+    @After
+    public void tearDown() {
+        SubscriptionDisplayNameSnapshot.resetForTesting();
+    }
+
     @Ignore
     @Test
     public void getAvailableSubscriptions_nullInfoFromSubscriptionManager_nonNullResult() {